@@ -0,0 +1,63 @@
+package com.heytrip.hotel.search.api.controller;
+
+import cn.dev33.satoken.annotation.SaCheckLogin;
+import cn.dev33.satoken.annotation.SaCheckPermission;
+import com.heytrip.hotel.search.common.api.R;
+import com.heytrip.hotel.search.common.util.GeoLite2Database;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GeoLite2 数据库管理接口
+ *
+ * - 查询当前数据库状态（路径、是否内存映射、构建时间）
+ * - 替换数据库文件后手动重新加载（后台线程构建新读取器后原子替换）
+ */
+@RestController
+@RequestMapping("/geoip")
+@RequiredArgsConstructor
+@SaCheckLogin
+@SaCheckPermission("job:manage")
+@Slf4j
+public class GeoIpController {
+
+    /**
+     * 等待重新加载完成的超时时间（秒）
+     */
+    private static final long RELOAD_TIMEOUT_SECONDS = 30;
+
+    private final GeoLite2Database geoLite2Database;
+
+    /**
+     * 当前数据库状态
+     */
+    @GetMapping("/status")
+    public R<GeoLite2Database.Status> status() {
+        return R.ok(geoLite2Database.status());
+    }
+
+    /**
+     * 重新加载数据库，加载失败时继续使用当前数据库
+     */
+    @PostMapping("/reload")
+    public R<GeoLite2Database.Status> reload() {
+        try {
+            GeoLite2Database.Status status = geoLite2Database.reload().get(RELOAD_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.info("[GEOIP] GeoLite2数据库已重新加载 location={} build={}", status.location(), status.buildDate());
+            return R.ok(status);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return R.fail(2001, "重新加载被中断");
+        } catch (Exception e) {
+            String message = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            log.error("[GEOIP] GeoLite2数据库重新加载失败", e);
+            return R.fail(2001, "重新加载失败: " + message);
+        }
+    }
+}
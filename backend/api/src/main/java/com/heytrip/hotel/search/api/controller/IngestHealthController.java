@@ -2,6 +2,8 @@ package com.heytrip.hotel.search.api.controller;
 
 import com.heytrip.hotel.search.domain.entity.SyncLog;
 import com.heytrip.hotel.search.domain.repository.SyncLogRepository;
+import com.heytrip.hotel.search.infra.redis.RedisStreamConsumer;
+import com.heytrip.hotel.search.ingest.service.HotelEventConsumerPool;
 import com.heytrip.hotel.search.ingest.service.JobScheduleCacheService;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -31,6 +33,7 @@ public class IngestHealthController {
 
     private final SyncLogRepository syncLogRepository;
     private final JobScheduleCacheService jobScheduleCacheService;
+    private final HotelEventConsumerPool hotelEventConsumerPool;
 
     private static final String JOB_CODE = "HOTEL_FULL_SYNC_ALL";
 
@@ -51,6 +54,10 @@ public class IngestHealthController {
         private Long totalDetails;
         private Long successCount;
         private Long failCount;
+        private Long insertCount;
+        private Long updateCount;
+        private Long unchangedCount;
+        private Long skippedCount;
         private String message;
         private Double estimatedProgress;
     }
@@ -127,6 +134,46 @@ public class IngestHealthController {
         }
     }
 
+    /**
+     * 索引事件流消费状态 DTO
+     */
+    @Data
+    @Builder
+    @AllArgsConstructor
+    public static class StreamStatusDto {
+        private String status;          // OK / ERROR
+        private RedisStreamConsumer.GroupStats stats;
+        private List<String> localConsumers;
+        private Long deadLettered;      // 本节点启动以来投递次数超限转入 hotel:events:dlq 的消息数
+        private String message;
+        private Long timestamp;
+    }
+
+    /**
+     * 索引事件流（hotel:events）消费积压与待处理情况
+     *
+     * GET /ingest/health/stream
+     */
+    @GetMapping("/stream")
+    public ResponseEntity<StreamStatusDto> getStreamStatus() {
+        try {
+            return ResponseEntity.ok(StreamStatusDto.builder()
+                    .status("OK")
+                    .stats(hotelEventConsumerPool.stats())
+                    .localConsumers(hotelEventConsumerPool.getConsumerNames())
+                    .deadLettered(hotelEventConsumerPool.getDeadLettered())
+                    .timestamp(System.currentTimeMillis())
+                    .build());
+        } catch (Exception e) {
+            log.error("[HealthCheck] 查询索引事件流状态失败", e);
+            return ResponseEntity.status(500).body(StreamStatusDto.builder()
+                    .status("ERROR")
+                    .message(e.getMessage())
+                    .timestamp(System.currentTimeMillis())
+                    .build());
+        }
+    }
+
     /**
      * 查询指定任务详情
      *
@@ -229,6 +276,10 @@ public class IngestHealthController {
                 .totalDetails(syncLog.getTotalDetails())
                 .successCount(syncLog.getSuccessCount())
                 .failCount(syncLog.getFailCount())
+                .insertCount(syncLog.getInsertCount())
+                .updateCount(syncLog.getUpdateCount())
+                .unchangedCount(syncLog.getUnchangedCount())
+                .skippedCount(syncLog.getSkippedCount())
                 .message(syncLog.getMessage())
                 .estimatedProgress(estimatedProgress)
                 .build();
@@ -9,6 +9,7 @@ import com.heytrip.hotel.search.domain.entity.SyncLogDetail;
 import com.heytrip.hotel.search.domain.repository.JobScheduleRepository;
 import com.heytrip.hotel.search.domain.repository.SyncLogDetailRepository;
 import com.heytrip.hotel.search.domain.repository.SyncLogRepository;
+import com.heytrip.hotel.search.ingest.service.HotelReindexService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.ProducerTemplate;
@@ -25,6 +26,7 @@ import java.util.Map;
  *
  * - 触发全量同步
  * - 查询同步日志与明细
+ * - 酒店索引全量重建（蓝绿切换）的启动、取消与进度查询
  */
 @RestController
 @RequestMapping("/job")
@@ -38,6 +40,7 @@ public class JobController {
     private final SyncLogDetailRepository syncLogDetailRepository;
     private final ProducerTemplate producerTemplate;
     private final JobScheduleRepository jobScheduleRepository;
+    private final HotelReindexService hotelReindexService;
 
 
 
@@ -163,6 +166,46 @@ public class JobController {
         }
     }
 
+    /**
+     * 启动酒店索引全量重建（异步执行）
+     *
+     * 创建影子索引 -> 全表装载（期间 hotel:events 双写）-> 段合并并恢复服务期设置 -> 原子切换读写别名 -> 删除旧索引
+     * 通过 /job/reindex/status 查询进度
+     */
+    @PostMapping("/reindex/start")
+    public R<HotelReindexService.ReindexStatus> startReindex() {
+        try {
+            return R.ok(hotelReindexService.start());
+        } catch (IllegalStateException e) {
+            return R.fail(2006, e.getMessage());
+        } catch (Exception e) {
+            log.error("[JOB] 启动索引重建失败", e);
+            return R.fail(2007, "启动失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 取消正在运行的索引重建（删除影子索引，别名保持不变；别名切换后不可取消）
+     */
+    @PostMapping("/reindex/cancel")
+    public R<Map<String, Object>> cancelReindex() {
+        if (!hotelReindexService.cancel()) {
+            return R.fail(2008, "没有正在运行的重建任务");
+        }
+        return R.ok(Map.of(
+            "message", "取消指令已发送，将在处理完当前页后停止",
+            "tip", "请通过 /job/reindex/status 确认状态为 CANCELLED"
+        ));
+    }
+
+    /**
+     * 查询索引重建进度与吞吐（阶段、已扫描/已写入/失败数、百分比、docs/s）
+     */
+    @GetMapping("/reindex/status")
+    public R<HotelReindexService.ReindexStatus> reindexStatus() {
+        return R.ok(hotelReindexService.getStatus());
+    }
+
     /**
      * 分页查询同步日志列表
      */
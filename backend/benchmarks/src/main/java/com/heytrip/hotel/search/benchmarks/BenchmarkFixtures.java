@@ -0,0 +1,230 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.heytrip.hotel.search.domain.entity.Hotels;
+import com.heytrip.hotel.search.infra.config.HotelSearchWeights;
+import com.heytrip.hotel.search.infra.nlp.NlpEnrichmentService;
+import com.heytrip.hotel.search.infra.nlp.SpellCheckService;
+import com.heytrip.hotel.search.infra.search.EsHotelIndexServiceJavaClient;
+import com.heytrip.hotel.search.infra.search.IndexEnrichExecutor;
+import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import com.heytrip.hotel.search.infra.search.dto.ScoredHotelResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试固定合成数据（固定随机种子，不依赖 ES / Redis / 数据库）
+ */
+public final class BenchmarkFixtures {
+
+    public static final long SEED = 20251016L;
+
+    private static final String[] CITIES_CN = {"北京", "上海", "广州", "深圳", "杭州", "成都", "西安", "三亚"};
+    private static final String[] CITIES_EN = {"Beijing", "Shanghai", "Guangzhou", "Shenzhen", "Hangzhou", "Chengdu", "Xi'an", "Sanya"};
+    private static final String[] AREAS_CN = {"王府井", "外滩", "天河", "南山", "西湖", "春熙路", "钟楼", "亚龙湾"};
+    private static final String[] BRANDS_CN = {"希尔顿", "万豪", "洲际", "喜来登", "如家", "汉庭", "全季", "亚朵"};
+    private static final String[] BRANDS_EN = {"Hilton", "Marriott", "InterContinental", "Sheraton", "Home Inn", "Hanting", "JI Hotel", "Atour"};
+    private static final String[] SUFFIX_CN = {"酒店", "大酒店", "国际酒店", "度假酒店", "精选酒店"};
+    private static final String[] STREETS_CN = {"东街", "中路", "大道", "南路", "北街"};
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 读取 classpath 下的固定样本
+     */
+    public static String resource(String path) {
+        try (InputStream in = BenchmarkFixtures.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                throw new IllegalStateException("fixture not found: " + path);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 脱离 Spring 容器构建 NLP 服务（拼写纠错使用内置默认规则，不启用结果缓存，测量真实计算成本）
+     */
+    public static NlpEnrichmentService nlpEnrichmentService() {
+        return nlpEnrichmentService(false);
+    }
+
+    /**
+     * 脱离 Spring 容器构建 NLP 服务
+     *
+     * @param cacheEnabled 是否启用结果缓存
+     */
+    public static NlpEnrichmentService nlpEnrichmentService(boolean cacheEnabled) {
+        SpellCheckService spellCheckService = new SpellCheckService();
+        setField(spellCheckService, "configFilePath", "spellcheck.properties");
+        spellCheckService.init();
+        NlpEnrichmentService nlp = new NlpEnrichmentService();
+        setField(nlp, "spellCheckService", spellCheckService);
+        setField(nlp, "cacheEnabled", cacheEnabled);
+        setField(nlp, "cacheMaxWeight", 2_000_000L);
+        nlp.init();
+        return nlp;
+    }
+
+    /**
+     * 脱离 Spring 容器构建索引富化线程池
+     *
+     * @param threads 线程数，0 表示 CPU 核数
+     */
+    public static IndexEnrichExecutor indexEnrichExecutor(int threads) {
+        IndexEnrichExecutor executor = new IndexEnrichExecutor(new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        setField(executor, "threads", threads);
+        setField(executor, "queueCapacity", 64);
+        setField(executor, "minChunkSize", 16);
+        executor.init();
+        return executor;
+    }
+
+    /**
+     * 脱离 Spring 容器构建索引写入服务（不连接 ES，仅用于 mapDoc / mapDocs）
+     */
+    public static EsHotelIndexServiceJavaClient indexService(NlpEnrichmentService nlp, IndexEnrichExecutor executor) {
+        return new EsHotelIndexServiceJavaClient(null, nlp, new HotelSearchWeights(), executor, null);
+    }
+
+    /**
+     * 合成索引文档（含索引期衍生字段的简化版本）
+     */
+    public static List<HotelIndexDoc> hotelDocs(int count) {
+        Random random = new Random(SEED);
+        List<HotelIndexDoc> docs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int c = random.nextInt(CITIES_CN.length);
+            int b = random.nextInt(BRANDS_CN.length);
+            String area = AREAS_CN[random.nextInt(AREAS_CN.length)];
+            HotelIndexDoc d = new HotelIndexDoc();
+            d.setId("CN_" + (20_000_000L + i));
+            d.setTagSource("CN");
+            d.setProviderSource("Elong");
+            d.setHotelId(20_000_000L + i);
+            d.setNameCn(CITIES_CN[c] + area + BRANDS_CN[b] + SUFFIX_CN[random.nextInt(SUFFIX_CN.length)]);
+            d.setNameEn(BRANDS_EN[b] + " " + CITIES_EN[c] + " " + (i % 7 == 0 ? "Downtown" : "City Centre"));
+            d.setCityCn(CITIES_CN[c]);
+            d.setCityEn(CITIES_EN[c]);
+            d.setAddressCn(CITIES_CN[c] + "市" + area + STREETS_CN[random.nextInt(STREETS_CN.length)] + (1 + random.nextInt(300)) + "号");
+            d.setBrandCn(BRANDS_CN[b]);
+            d.setBrandEn(BRANDS_EN[b]);
+            d.setLat(18 + random.nextDouble() * 22);
+            d.setLon(100 + random.nextDouble() * 20);
+            d.setNameTokens(List.of(CITIES_CN[c], area, BRANDS_CN[b], "酒店"));
+            d.setAddressTokens(List.of(CITIES_CN[c], area));
+            d.setNameKeywords(List.of(BRANDS_CN[b], area));
+            d.setBrandNames(List.of(BRANDS_CN[b]));
+            docs.add(d);
+        }
+        return docs;
+    }
+
+    /**
+     * 将文档切成多路召回结果：相邻两路约一半重叠，部分文档缺失 hotelId 以触发按名称去重
+     */
+    public static List<List<ScoredHotelResult>> scoredLists(List<HotelIndexDoc> docs, int lists) {
+        Random random = new Random(SEED);
+        List<List<ScoredHotelResult>> result = new ArrayList<>(lists);
+        int window = Math.max(1, docs.size() * 2 / (lists + 1));
+        for (int l = 0; l < lists; l++) {
+            int from = l * window / 2;
+            List<ScoredHotelResult> list = new ArrayList<>(window);
+            for (int i = from; i < Math.min(docs.size(), from + window); i++) {
+                HotelIndexDoc doc = docs.get(i);
+                if (i % 10 == 0) {
+                    HotelIndexDoc copy = new HotelIndexDoc();
+                    copy.setNameCn(doc.getNameCn());
+                    copy.setNameEn(doc.getNameEn());
+                    doc = copy;
+                }
+                list.add(ScoredHotelResult.builder()
+                        .hotel(doc)
+                        .keywordScore(1 + random.nextDouble() * 30)
+                        .distance(random.nextDouble() * 50)
+                        .finalScore(random.nextDouble() * 100)
+                        .source(l == 0 ? "hotel_index" : "poi_nearby")
+                        .build());
+            }
+            result.add(list);
+        }
+        return result;
+    }
+
+    /**
+     * 合成持久化实体（与 Elong 样本同构）
+     */
+    public static Hotels hotelRow(long hotelId) {
+        Hotels h = new Hotels();
+        h.setSource("Elong");
+        h.setTagSource("CN");
+        h.setHotelId(hotelId);
+        h.setHotelNameCn("北京王府井希尔顿酒店");
+        h.setHotelNameEn("Hilton Beijing Wangfujing");
+        h.setCountryCn("中国");
+        h.setCountryEn("China");
+        h.setCountryCode("CN");
+        h.setContinentCn("亚洲");
+        h.setContinentEn("Asia");
+        h.setCityCn("北京");
+        h.setCityEn("Beijing");
+        h.setRegionCn("东城区");
+        h.setRegionEn("Dongcheng District");
+        h.setAddressCn("北京市东城区王府井东街8号");
+        h.setAddressEn("8 Wangfujing East Street, Dongcheng District, Beijing");
+        h.setLatitude(new BigDecimal("39.914889"));
+        h.setLongitude(new BigDecimal("116.414316"));
+        h.setHotelGroupCn("希尔顿集团");
+        h.setHotelBrandCn("希尔顿");
+        h.setHotelBrandEn("Hilton");
+        h.setScore("4.7");
+        h.setUpdatedAt(OffsetDateTime.of(2025, 10, 16, 0, 0, 0, 0, ZoneOffset.UTC));
+        return h;
+    }
+
+    /**
+     * 合成持久化实体批次：名称、地址、品牌各不相同，避免重复文本掩盖分词成本
+     */
+    public static List<Hotels> hotelRows(int count) {
+        Random random = new Random(SEED);
+        List<Hotels> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int c = random.nextInt(CITIES_CN.length);
+            int b = random.nextInt(BRANDS_CN.length);
+            String area = AREAS_CN[random.nextInt(AREAS_CN.length)];
+            Hotels h = hotelRow(20_000_000L + i);
+            h.setHotelNameCn(CITIES_CN[c] + area + BRANDS_CN[b] + SUFFIX_CN[random.nextInt(SUFFIX_CN.length)] + "（" + (i % 97) + "号店）");
+            h.setHotelNameEn(BRANDS_EN[b] + " " + CITIES_EN[c] + " No." + (i % 97));
+            h.setCityCn(CITIES_CN[c]);
+            h.setCityEn(CITIES_EN[c]);
+            h.setAddressCn(CITIES_CN[c] + "市" + area + STREETS_CN[random.nextInt(STREETS_CN.length)] + (1 + random.nextInt(300)) + "号");
+            h.setHotelBrandCn(BRANDS_CN[b]);
+            h.setHotelBrandEn(BRANDS_EN[b]);
+            rows.add(h);
+        }
+        return rows;
+    }
+
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("cannot set " + name + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.heytrip.hotel.search.common.util.GzipCompressor;
+import com.heytrip.hotel.search.common.util.PayloadCompressor;
+import com.heytrip.hotel.search.domain.entity.CompressionCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 原文压缩算法对比（Elong / Agoda 详情样本）：压缩率与吞吐
+ * - gzip-legacy：GzipCompressor（每次新建流与 Deflater/Inflater），作为基线
+ * - gzip / zstd / lz4：PayloadCompressor（池化上下文与缓冲）
+ * - zstd-dict：zstd + 基于样本变体训练的字典（样本仅替换数字，字典效果偏乐观，上线前应使用库中真实原文抽样训练）
+ * 压缩率与原文字节数在 setup 中打印；MB/s = ops/s × 原文字节数 / 1e6
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompressionCodecBenchmark {
+
+    @Param({"gzip-legacy", "gzip", "zstd", "zstd-dict", "lz4"})
+    private String codec;
+
+    @Param({"elong", "agoda"})
+    private String sample;
+
+    private PayloadCompressor compressor;
+    private byte[] raw;
+    private byte[] compressed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String doc = BenchmarkFixtures.resource("fixtures/" + sample + "-hotel.json");
+        raw = doc.getBytes(StandardCharsets.UTF_8);
+        compressor = switch (codec) {
+            case "gzip-legacy", "gzip" -> new PayloadCompressor(CompressionCodec.gzip);
+            case "zstd" -> new PayloadCompressor(CompressionCodec.zstd);
+            case "zstd-dict" -> new PayloadCompressor(CompressionCodec.zstd, 3, trainDictionary(doc), 0);
+            case "lz4" -> new PayloadCompressor(CompressionCodec.lz4);
+            default -> throw new IllegalArgumentException(codec);
+        };
+        compressed = compress();
+        System.out.printf("%n[%s/%s] raw=%dB compressed=%dB ratio=%.3f%n",
+                codec, sample, raw.length, compressed.length, (double) compressed.length / raw.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        compressor.close();
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return "gzip-legacy".equals(codec) ? GzipCompressor.compress(raw) : compressor.compress(raw);
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return "gzip-legacy".equals(codec) ? GzipCompressor.decompress(compressed) : compressor.decompress(compressed);
+    }
+
+    /**
+     * 字典训练样本：同一详情替换数字得到的变体（固定随机种子），不含被测原文本身
+     */
+    private static byte[] trainDictionary(String doc) {
+        Random random = new Random(BenchmarkFixtures.SEED);
+        List<byte[]> samples = new ArrayList<>(1000);
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder sb = new StringBuilder(doc.length());
+            for (int j = 0; j < doc.length(); j++) {
+                char c = doc.charAt(j);
+                sb.append(Character.isDigit(c) ? (char) ('0' + random.nextInt(10)) : c);
+            }
+            samples.add(sb.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return PayloadCompressor.trainZstdDictionary(samples, 16 * 1024);
+    }
+}
@@ -0,0 +1,69 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.heytrip.hotel.search.common.util.GzipCompressor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 原文压缩/解压开销（入库压缩 raw_compressed，索引回填时 Base64 解码 + 解压）
+ * copies 控制样本放大倍数，模拟不同大小的详情原文
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GzipCompressorBenchmark {
+
+    @Param({"1", "8"})
+    private int copies;
+
+    private String raw;
+    private byte[] rawBytes;
+    private byte[] compressed;
+    private String compressedBase64;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String sample = BenchmarkFixtures.resource("fixtures/elong-hotel.json");
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < copies; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(sample.replace("20000001", String.valueOf(20_000_001 + i)));
+        }
+        raw = sb.append(']').toString();
+        rawBytes = raw.getBytes(StandardCharsets.UTF_8);
+        compressed = GzipCompressor.compress(rawBytes);
+        compressedBase64 = Base64.getEncoder().encodeToString(compressed);
+    }
+
+    @Benchmark
+    public byte[] compressString() {
+        return GzipCompressor.compressString(raw);
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return GzipCompressor.decompress(compressed);
+    }
+
+    @Benchmark
+    public String base64DecodeAndDecompress() {
+        return GzipCompressor.decompressToString(Base64.getDecoder().decode(compressedBase64));
+    }
+}
@@ -0,0 +1,150 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.heytrip.hotel.search.ingest.service.HotelDetailFetcher;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 供应商详情拉取吞吐（hotels/s）：按不同并发上限拉取一页酒店ID的全部详情子批
+ * 本地桩供应商按固定RTT响应（不连接真实接口），并发上限 1 即原串行实现的节奏
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HotelDetailFetchBenchmark {
+
+    /**
+     * 一页ID（1000）按默认详情批次大小（20）拆分
+     */
+    private static final int BATCH_SIZE = 20;
+    private static final int BATCHES = 50;
+
+    /**
+     * 详情拉取并发上限（AIMD 最大并发）
+     */
+    @Param({"1", "4", "8", "16"})
+    private int concurrency;
+
+    /**
+     * 桩供应商单次请求耗时（毫秒）
+     */
+    @Param({"50"})
+    private long latencyMs;
+
+    private HttpServer stubServer;
+    private ExecutorService stubExecutor;
+    private HttpClient httpClient;
+    private String baseUrl;
+    private HotelDetailFetcher fetcher;
+    private HotelDetailFetcher.RetryPolicy retryPolicy;
+    private List<List<Long>> batches;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        stubExecutor = Executors.newFixedThreadPool(64);
+        stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubServer.setExecutor(stubExecutor);
+        stubServer.createContext("/api/StandardHotel/GetHotelOrigContent", exchange -> {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] bytes = "{\"code\":200,\"data\":[]}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(bytes);
+            }
+        });
+        stubServer.start();
+        baseUrl = "http://127.0.0.1:" + stubServer.getAddress().getPort();
+        httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+        fetcher = new HotelDetailFetcher(new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        BenchmarkFixtures.setField(fetcher, "maxConcurrency", concurrency);
+        BenchmarkFixtures.setField(fetcher, "minConcurrency", 1);
+        BenchmarkFixtures.setField(fetcher, "backoffRatio", 0.5);
+        BenchmarkFixtures.setField(fetcher, "decreaseCooldownMs", 1000L);
+        fetcher.init();
+        retryPolicy = new HotelDetailFetcher.RetryPolicy(3, 100, 50, 100);
+
+        batches = new ArrayList<>(BATCHES);
+        long hotelId = 20_000_000L;
+        for (int b = 0; b < BATCHES; b++) {
+            List<Long> ids = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                ids.add(hotelId++);
+            }
+            batches.add(ids);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fetcher.shutdown();
+        stubServer.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    /**
+     * 拉取一页全部详情子批，按批次顺序消费（与 HotelIdsIngestRoute 的窗口大小一致：2 × 并发上限）
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCHES * BATCH_SIZE)
+    public int fetchPage() throws Exception {
+        int hotels = 0;
+        try (HotelDetailFetcher.Session session = fetcher.open(batches, concurrency * 2, this::detailUrl, this::get, retryPolicy)) {
+            for (int i = 0; i < batches.size(); i++) {
+                HotelDetailFetcher.FetchResult result = session.await(i);
+                if (result.failed()) {
+                    throw new IllegalStateException("detail batch failed: " + result.status(), result.lastError());
+                }
+                hotels += result.hotelIds().size();
+            }
+        }
+        return hotels;
+    }
+
+    private String detailUrl(List<Long> ids) {
+        return baseUrl + "/api/StandardHotel/GetHotelOrigContent?hotelIds=" + ids.get(0);
+    }
+
+    private HotelDetailFetcher.HttpReply get(String url) throws Exception {
+        HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        return new HotelDetailFetcher.HttpReply(response.statusCode(), response.body());
+    }
+}
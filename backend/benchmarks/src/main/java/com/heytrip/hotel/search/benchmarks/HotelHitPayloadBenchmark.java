@@ -0,0 +1,138 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.heytrip.hotel.search.common.util.HotelStructuredExtractor;
+import com.heytrip.hotel.search.infra.search.EsHotelIndexServiceJavaClient;
+import com.heytrip.hotel.search.infra.search.SearchSourceFilters;
+import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import com.heytrip.hotel.search.infra.search.dto.HotelSearchHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 搜索命中载荷大小与序列化开销（_source 裁剪 + HTTP 投影前后对比）
+ * - ES响应：全量 _source vs 按关键词查询 includes 裁剪
+ * - Redis缓存：缓存 List&lt;HotelIndexDoc&gt; 的 JSON（含得分与高亮）
+ * - HTTP响应：HotelIndexDoc 全量 vs HotelSearchHit 投影
+ * 基线按改动前行为序列化（输出 null 字段）；每条命中的平均字节数在 Setup 阶段输出
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotelHitPayloadBenchmark {
+
+    @Param({"20"})
+    private int hits;
+
+    /**
+     * 改动前的序列化行为：null 字段照常输出
+     */
+    @JsonInclude(JsonInclude.Include.ALWAYS)
+    private abstract static class IncludeNulls {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper baselineMapper = new ObjectMapper().addMixIn(HotelIndexDoc.class, IncludeNulls.class);
+
+    private List<HotelIndexDoc> fullDocs;
+    private List<HotelIndexDoc> filteredDocs;
+    private List<HotelSearchHit> projectedHits;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        EsHotelIndexServiceJavaClient indexService = BenchmarkFixtures.indexService(
+                BenchmarkFixtures.nlpEnrichmentService(), BenchmarkFixtures.indexEnrichExecutor(1));
+        HotelStructuredExtractor.Result parsed = HotelStructuredExtractor.extract(
+                BenchmarkFixtures.resource("fixtures/elong-hotel.json"), "Elong");
+
+        List<String> includes = SearchSourceFilters.HOTEL_KEYWORD.filter().includes();
+        fullDocs = new ArrayList<>(hits);
+        filteredDocs = new ArrayList<>(hits);
+        projectedHits = new ArrayList<>(hits);
+        for (var row : BenchmarkFixtures.hotelRows(hits)) {
+            HotelIndexDoc doc = indexService.mapDoc("CN", "Elong", row, parsed);
+
+            // 按查询 includes 裁剪
+            ObjectNode source = objectMapper.valueToTree(doc);
+            source.retain(includes);
+            HotelIndexDoc filtered = objectMapper.treeToValue(source, HotelIndexDoc.class);
+
+            for (HotelIndexDoc d : List.of(doc, filtered)) {
+                d.setScore(42.0);
+                d.setHighlightedNameCn("<em>" + d.getNameCn() + "</em>");
+            }
+            fullDocs.add(doc);
+            filteredDocs.add(filtered);
+            projectedHits.add(HotelSearchHit.from(filtered));
+        }
+
+        System.out.printf("%n[payload] bytes/hit (hits=%d)%n", hits);
+        report("ES response _source", baselineSource(fullDocs), objectMapper.writeValueAsBytes(filteredSources(filteredDocs)).length);
+        report("Redis cache", baselineMapper.writeValueAsBytes(fullDocs).length, objectMapper.writeValueAsBytes(filteredDocs).length);
+        report("HTTP response hotels", baselineMapper.writeValueAsBytes(fullDocs).length, objectMapper.writeValueAsBytes(projectedHits).length);
+    }
+
+    @Benchmark
+    public byte[] serializeFullDocs() throws JsonProcessingException {
+        return baselineMapper.writeValueAsBytes(fullDocs);
+    }
+
+    @Benchmark
+    public byte[] serializeFilteredDocs() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(filteredDocs);
+    }
+
+    @Benchmark
+    public byte[] serializeProjectedHits() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(projectedHits);
+    }
+
+    /**
+     * 改动前ES返回的 _source：写入时的全量文档（不含得分与高亮）
+     */
+    private int baselineSource(List<HotelIndexDoc> docs) throws JsonProcessingException {
+        List<ObjectNode> sources = new ArrayList<>(docs.size());
+        for (HotelIndexDoc doc : docs) {
+            ObjectNode source = baselineMapper.valueToTree(doc);
+            source.remove(List.of("score", "highlightedNameCn", "highlightedNameEn", "highlightedNameTraditional",
+                    "highlightedAddressCn", "highlightedAddressEn"));
+            sources.add(source);
+        }
+        return baselineMapper.writeValueAsBytes(sources).length;
+    }
+
+    private List<ObjectNode> filteredSources(List<HotelIndexDoc> docs) {
+        List<ObjectNode> sources = new ArrayList<>(docs.size());
+        for (HotelIndexDoc doc : docs) {
+            ObjectNode source = objectMapper.valueToTree(doc);
+            source.remove(List.of("score", "highlightedNameCn"));
+            sources.add(source);
+        }
+        return sources;
+    }
+
+    private void report(String name, int before, int after) {
+        System.out.printf("[payload] %-22s %6d -> %6d (%.0f%% smaller)%n",
+                name, before / hits, after / hits, 100.0 * (before - after) / before);
+    }
+}
@@ -0,0 +1,91 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.heytrip.hotel.search.common.util.HotelStructuredExtractor;
+import com.heytrip.hotel.search.domain.entity.Hotels;
+import com.heytrip.hotel.search.infra.nlp.NlpEnrichmentService;
+import com.heytrip.hotel.search.infra.search.EsHotelIndexServiceJavaClient;
+import com.heytrip.hotel.search.infra.search.IndexEnrichExecutor;
+import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量索引映射吞吐（docs/s）：原串行 mapDoc 循环 vs 索引富化线程池并行 mapDocs
+ * 合成批次与 hotel:events 单次读取上限一致（500），不连接 ES
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HotelIndexEnrichBenchmark {
+
+    private static final int BATCH = 500;
+
+    /**
+     * 并行线程数，0 表示 CPU 核数
+     */
+    @Param({"0"})
+    private int threads;
+
+    /**
+     * 是否启用 NLP 结果缓存（品牌、城市、地址片段在目录中大量重复）
+     */
+    @Param({"false", "true"})
+    private boolean nlpCache;
+
+    private IndexEnrichExecutor executor;
+    private EsHotelIndexServiceJavaClient indexService;
+    private List<Hotels> rows;
+    private HotelStructuredExtractor.Result parsed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        NlpEnrichmentService nlp = BenchmarkFixtures.nlpEnrichmentService(nlpCache);
+        executor = BenchmarkFixtures.indexEnrichExecutor(threads);
+        indexService = BenchmarkFixtures.indexService(nlp, executor);
+        rows = BenchmarkFixtures.hotelRows(BATCH);
+        parsed = HotelStructuredExtractor.extract(BenchmarkFixtures.resource("fixtures/elong-hotel.json"), "Elong");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 原路径：索引线程内逐条映射
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<HotelIndexDoc> serial() {
+        List<HotelIndexDoc> docs = new ArrayList<>(rows.size());
+        for (Hotels s : rows) {
+            docs.add(indexService.mapDoc(s.getTagSource(), s.getSource(), s, parsed));
+        }
+        return docs;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<HotelIndexDoc> parallel() {
+        return indexService.mapDocs(rows, s -> parsed, Hotels::getTagSource, Hotels::getSource);
+    }
+}
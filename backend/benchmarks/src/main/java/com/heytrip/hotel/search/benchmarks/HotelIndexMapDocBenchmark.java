@@ -0,0 +1,48 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.heytrip.hotel.search.common.util.HotelStructuredExtractor;
+import com.heytrip.hotel.search.domain.entity.Hotels;
+import com.heytrip.hotel.search.infra.search.EsHotelIndexServiceJavaClient;
+import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单文档索引映射开销（含 HanLP 分词、关键词、NER、简繁转换等全部衍生字段）
+ * 不连接 ES：仅测量 mapDoc 的 CPU 成本
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HotelIndexMapDocBenchmark {
+
+    private EsHotelIndexServiceJavaClient indexService;
+    private Hotels row;
+    private HotelStructuredExtractor.Result parsed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        indexService = BenchmarkFixtures.indexService(BenchmarkFixtures.nlpEnrichmentService(), BenchmarkFixtures.indexEnrichExecutor(1));
+        row = BenchmarkFixtures.hotelRow(20_000_001L);
+        parsed = HotelStructuredExtractor.extract(BenchmarkFixtures.resource("fixtures/elong-hotel.json"), "Elong");
+    }
+
+    @Benchmark
+    public HotelIndexDoc mapDoc() {
+        return indexService.mapDoc("CN", "Elong", row, parsed);
+    }
+}
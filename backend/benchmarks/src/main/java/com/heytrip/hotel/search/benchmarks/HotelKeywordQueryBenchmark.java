@@ -0,0 +1,76 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.heytrip.hotel.search.infra.config.HotelSearchWeights;
+import com.heytrip.hotel.search.infra.search.HotelKeywordQueryTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 关键词查询构建开销（每次请求）：逐层 lambda 构建 vs 预编译查询模板绑定关键词
+ * 每次请求的分配量使用 -prof gc 运行，查看 gc.alloc.rate.norm（B/op）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotelKeywordQueryBenchmark {
+
+    private HotelSearchWeights weights;
+    private HotelKeywordQueryTemplate template;
+    private String keyword;
+    private String tag;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        weights = new HotelSearchWeights();
+        template = new HotelKeywordQueryTemplate(weights);
+        keyword = "王府井希尔顿";
+        tag = "CN";
+    }
+
+    @Benchmark
+    public Query lambdaBuild() {
+        return Query.of(q -> q
+                .bool(b -> {
+                    b
+                            .should(sh -> sh.match(m -> m.field("nameCn").query(keyword).boost(weights.getNameCnBoost())))
+                            .should(sh -> sh.match(m -> m.field("nameEn").query(keyword).boost(weights.getNameEnBoost())))
+                            .should(sh -> sh.matchPhrase(m -> m.field("nameEn").query(keyword).boost(weights.getNameEnBoost() * 2.0f)))
+                            .should(sh -> sh.term(t -> t.field("nameEn.keyword").value(keyword).boost(weights.getNameEnBoost() * 3.0f)))
+                            .should(sh -> sh.match(m -> m.field("nameTraditional").query(keyword).boost(weights.getNameTraditionalBoost())))
+                            .should(sh -> sh.match(m -> m.field("brandCn").query(keyword).boost(weights.getNerBrandsBoost())))
+                            .should(sh -> sh.match(m -> m.field("brandEn").query(keyword).boost(weights.getNerBrandsBoost())))
+                            .should(sh -> sh.term(t -> t.field("nerBrands").value(keyword).boost(weights.getNerBrandsBoost())))
+                            .should(sh -> sh.match(m -> m.field("addressCn").query(keyword).boost(weights.getAddressBoost())))
+                            .should(sh -> sh.match(m -> m.field("addressEn").query(keyword).boost(weights.getAddressBoost())))
+                            .should(sh -> sh.term(t -> t.field("addressTokens").value(keyword).boost(weights.getAddressTokensBoost())))
+                            .should(sh -> sh.match(m -> m.field("addressTraditional").query(keyword).boost(weights.getAddressTraditionalBoost())))
+                            .should(sh -> sh.term(t -> t.field("cityCn").value(keyword).boost(weights.getNerPlacesBoost())))
+                            .should(sh -> sh.term(t -> t.field("cityEn").value(keyword).boost(weights.getNerPlacesBoost())))
+                            .should(sh -> sh.term(t -> t.field("nameTokens").value(keyword).boost(weights.getNameEnBoost())))
+                            .minimumShouldMatch("1");
+                    b.filter(f -> f.term(t -> t.field("tagSource").value(tag)));
+                    return b;
+                })
+        );
+    }
+
+    @Benchmark
+    public Query templateBind() {
+        return template.query(keyword, HotelKeywordQueryTemplate.ClauseSet.ALL, tag);
+    }
+}
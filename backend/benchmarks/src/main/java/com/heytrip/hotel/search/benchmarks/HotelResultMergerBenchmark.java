@@ -0,0 +1,53 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.heytrip.hotel.search.infra.search.HotelResultMerger;
+import com.heytrip.hotel.search.infra.search.dto.ScoredHotelResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多路召回结果合并去重开销（三路召回，相邻两路约一半重叠，10% 无 hotelId 走名称去重）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotelResultMergerBenchmark {
+
+    @Param({"100", "1000"})
+    private int totalDocs;
+
+    private HotelResultMerger merger;
+    private List<ScoredHotelResult> first;
+    private List<ScoredHotelResult> second;
+    private List<ScoredHotelResult> third;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        merger = new HotelResultMerger();
+        List<List<ScoredHotelResult>> lists = BenchmarkFixtures.scoredLists(BenchmarkFixtures.hotelDocs(totalDocs), 3);
+        first = lists.get(0);
+        second = lists.get(1);
+        third = lists.get(2);
+    }
+
+    @Benchmark
+    public List<ScoredHotelResult> mergeAndDeduplicate() {
+        return merger.mergeAndDeduplicate(first, second, third);
+    }
+}
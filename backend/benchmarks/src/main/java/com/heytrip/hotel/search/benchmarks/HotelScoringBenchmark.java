@@ -0,0 +1,76 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.heytrip.hotel.search.infra.search.HotelScoreCalculator;
+import com.heytrip.hotel.search.infra.search.KeywordHitRateCalculator;
+import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单次请求的结果打分开销：对一页候选（默认 100 条）计算命中率与综合得分
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotelScoringBenchmark {
+
+    @Param({"北京希尔顿", "Hilton Beijing City Centre", "上海外滩万豪酒店"})
+    private String keyword;
+
+    @Param({"100"})
+    private int candidates;
+
+    private KeywordHitRateCalculator hitRateCalculator;
+    private HotelScoreCalculator scoreCalculator;
+    private List<HotelIndexDoc> docs;
+    private double[] esScores;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        hitRateCalculator = new KeywordHitRateCalculator(BenchmarkFixtures.nlpEnrichmentService());
+        scoreCalculator = new HotelScoreCalculator(hitRateCalculator);
+        docs = BenchmarkFixtures.hotelDocs(candidates);
+        esScores = new double[candidates];
+        for (int i = 0; i < candidates; i++) {
+            esScores[i] = 30.0 - i * 0.25;
+        }
+    }
+
+    @Benchmark
+    public void preciseHitRate(Blackhole bh) {
+        for (HotelIndexDoc doc : docs) {
+            bh.consume(hitRateCalculator.calculatePreciseHitRate(keyword, doc));
+        }
+    }
+
+    @Benchmark
+    public void scoreWithHitRate(Blackhole bh) {
+        for (int i = 0; i < docs.size(); i++) {
+            bh.consume(scoreCalculator.calculateScore(docs.get(i), keyword, esScores[i], null, 39.91, 116.41));
+        }
+    }
+
+    @Benchmark
+    public void scoreWithoutHitRate(Blackhole bh) {
+        for (int i = 0; i < docs.size(); i++) {
+            bh.consume(scoreCalculator.calculateScoreWithoutHitRate(docs.get(i), esScores[i], null, 39.91, 116.41));
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.heytrip.hotel.search.common.util.HotelStructuredExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 供应商原文结构化解析开销（Elong / Agoda 固定样本）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotelStructuredExtractorBenchmark {
+
+    @Param({"Elong", "Agoda"})
+    private String provider;
+
+    private String raw;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        raw = BenchmarkFixtures.resource("Elong".equals(provider) ? "fixtures/elong-hotel.json" : "fixtures/agoda-hotel.json");
+    }
+
+    @Benchmark
+    public HotelStructuredExtractor.Result extract() {
+        return HotelStructuredExtractor.extract(raw, provider);
+    }
+
+    @Benchmark
+    public String extractTagSource() {
+        return HotelStructuredExtractor.extractTagSource(raw, provider);
+    }
+}
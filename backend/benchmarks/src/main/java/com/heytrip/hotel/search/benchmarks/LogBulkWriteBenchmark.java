@@ -0,0 +1,144 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.heytrip.hotel.search.domain.entity.SearchLog;
+import com.heytrip.hotel.search.infra.log.BulkLogWriter;
+import com.heytrip.hotel.search.infra.log.LogTable;
+import com.heytrip.hotel.search.infra.log.LogTables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * search_logs 写入吞吐（rows/s）：逐行 INSERT 并取回自增主键 vs BulkLogWriter（PostgreSQL COPY / MySQL 多行 INSERT）
+ * - 逐行基线即 saveAll 对 IDENTITY 主键实体实际执行的语句（Hibernate 对 IDENTITY 不做 JDBC 批量），不启动 JPA 上下文
+ * - 需要真实数据库，写入临时表 bench_search_logs（每轮迭代前清空），不触碰业务表：
+ *   java -Dbench.jdbc.url=jdbc:postgresql://127.0.0.1:5432/bench -Dbench.jdbc.user=postgres -Dbench.jdbc.password=xxx \
+ *        -jar benchmarks/target/benchmarks.jar LogBulkWriteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LogBulkWriteBenchmark {
+
+    private static final int BATCH = 500;
+    private static final String TABLE = "bench_search_logs";
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private BulkLogWriter writer;
+    private LogTable<SearchLog> table;
+    private List<SearchLog> rows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("bench.jdbc.url");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("需要 -Dbench.jdbc.url（以及 bench.jdbc.user / bench.jdbc.password）指向可写的测试库");
+        }
+        dataSource = new SingleConnectionDataSource(url,
+                System.getProperty("bench.jdbc.user", ""), System.getProperty("bench.jdbc.password", ""), true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writer = new BulkLogWriter(jdbcTemplate);
+        table = LogTables.SEARCH_LOGS.withName(TABLE);
+
+        boolean postgres = writer.dialect() == BulkLogWriter.Dialect.POSTGRESQL;
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " ("
+                + (postgres ? "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                            : "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, ")
+                + "query VARCHAR(500) NOT NULL, tag_source VARCHAR(32), result_count INT, clicked_hotel_id BIGINT, "
+                + "click_position INT, duration_ms BIGINT, user_id BIGINT, user_ip VARCHAR(64), "
+                + (postgres ? "created_at TIMESTAMPTZ(6) NOT NULL)" : "created_at TIMESTAMP(6) NOT NULL)"));
+
+        Random random = new Random(BenchmarkFixtures.SEED);
+        OffsetDateTime base = OffsetDateTime.of(2025, 10, 16, 0, 0, 0, 0, ZoneOffset.UTC);
+        rows = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            rows.add(SearchLog.builder()
+                    .query("上海外滩 酒店 " + random.nextInt(10_000))
+                    .tagSource(random.nextBoolean() ? "CN" : "INTL")
+                    .resultCount(random.nextInt(50))
+                    .durationMs((long) random.nextInt(300))
+                    .userId(random.nextBoolean() ? (long) random.nextInt(100_000) : null)
+                    .userIp("10.0." + random.nextInt(256) + "." + random.nextInt(256))
+                    .createdAt(base.plusSeconds(i))
+                    .build());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE " + TABLE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        dataSource.destroy();
+    }
+
+    /**
+     * 现有路径：逐行 INSERT 并读取生成的主键
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long perRowInsert() {
+        String sql = table.insertSql(1);
+        Long last = jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            long id = 0;
+            try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (SearchLog row : rows) {
+                    ps.setString(1, row.getQuery());
+                    ps.setString(2, row.getTagSource());
+                    ps.setObject(3, row.getResultCount());
+                    ps.setObject(4, row.getClickedHotelId());
+                    ps.setObject(5, row.getClickPosition());
+                    ps.setObject(6, row.getDurationMs());
+                    ps.setObject(7, row.getUserId());
+                    ps.setString(8, row.getUserIp());
+                    ps.setObject(9, row.getCreatedAt());
+                    ps.executeUpdate();
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            id = keys.getLong(1);
+                        }
+                    }
+                }
+            }
+            return id;
+        });
+        return last == null ? 0 : last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int bulkWrite() {
+        return writer.write(table, rows);
+    }
+}
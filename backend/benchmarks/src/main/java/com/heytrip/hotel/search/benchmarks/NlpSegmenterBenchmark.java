@@ -0,0 +1,90 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.corpus.tag.Nature;
+import com.hankcs.hanlp.seg.Segment;
+import com.heytrip.hotel.search.domain.entity.Hotels;
+import com.heytrip.hotel.search.infra.nlp.NlpEnrichmentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体识别吞吐（texts/s）：每次调用新建分词器的原实现 vs 线程隔离复用的分词器 vs 合并识别（一次分词）
+ * 输入为合成酒店名称 + 地址，不启用 NLP 结果缓存
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class NlpSegmenterBenchmark {
+
+    private static final int TEXTS = 200;
+
+    private NlpEnrichmentService nlp;
+    private String[] texts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        nlp = BenchmarkFixtures.nlpEnrichmentService(false);
+        List<Hotels> rows = BenchmarkFixtures.hotelRows(TEXTS);
+        texts = new String[TEXTS];
+        for (int i = 0; i < TEXTS; i++) {
+            texts[i] = rows.get(i).getHotelNameCn() + " " + rows.get(i).getAddressCn();
+        }
+    }
+
+    /**
+     * 原实现：地名、机构名、品牌三次识别，地名/机构名每次调用 HanLP.newSegment() 新建并配置分词器
+     */
+    @Benchmark
+    @OperationsPerInvocation(TEXTS)
+    public void newSegmentPerCall(Blackhole bh) {
+        for (String text : texts) {
+            Segment place = HanLP.newSegment().enablePlaceRecognize(true);
+            bh.consume(place.seg(text).stream().filter(t -> t.nature == Nature.ns).map(t -> t.word).distinct().limit(20).toList());
+            Segment org = HanLP.newSegment().enableOrganizationRecognize(true);
+            bh.consume(org.seg(text).stream().filter(t -> t.nature == Nature.nt).map(t -> t.word).distinct().toList());
+            bh.consume(HanLP.segment(text).stream().filter(t -> "nb".equals(t.nature.toString())).map(t -> t.word).distinct().toList());
+        }
+    }
+
+    /**
+     * 三次识别，分词器按线程复用
+     */
+    @Benchmark
+    @OperationsPerInvocation(TEXTS)
+    public void registrySegmenters(Blackhole bh) {
+        for (String text : texts) {
+            bh.consume(nlp.nerPlaces(text));
+            bh.consume(nlp.nerOrgs(text));
+            bh.consume(nlp.nerBrands(text));
+        }
+    }
+
+    /**
+     * 合并识别：一次分词返回地名、机构名与品牌
+     */
+    @Benchmark
+    @OperationsPerInvocation(TEXTS)
+    public void combinedNer(Blackhole bh) {
+        for (String text : texts) {
+            bh.consume(nlp.nerAll(text));
+        }
+    }
+}
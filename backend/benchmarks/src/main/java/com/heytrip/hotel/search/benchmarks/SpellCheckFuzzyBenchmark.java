@@ -0,0 +1,146 @@
+package com.heytrip.hotel.search.benchmarks;
+
+import com.heytrip.hotel.search.infra.nlp.FuzzyRuleIndex;
+import com.heytrip.hotel.search.infra.nlp.SpellCheckService.SpellCheckRule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拼写纠错模糊匹配基准：原线性扫描 vs SymSpell 删除索引（10k / 100k 规则）
+ * 每次调用处理一批查询（约 1/3 为近似命中，其余为未命中，贴近 tokenizeFine 的分词输入）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpellCheckFuzzyBenchmark {
+
+    private static final String ALPHABET = "北京上海广州深圳杭州成都酒店宾馆公寓国际大饭店希尔顿万豪洲际假日如家汉庭全季机场火车站";
+    private static final String[] DOMAINS = {"ALL", "CN", "INTL", "HMT"};
+    private static final int QUERIES = 64;
+
+    @Param({"10000", "100000"})
+    private int ruleCount;
+
+    private Map<String, List<SpellCheckRule>> rulesByDomain;
+    private FuzzyRuleIndex index;
+    private String[] queries;
+    private String[] queryDomains;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(20251016L);
+        rulesByDomain = new HashMap<>();
+        List<String> wrongs = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            String domain = DOMAINS[random.nextInt(DOMAINS.length)];
+            String wrong = randomWord(random);
+            wrongs.add(wrong);
+            SpellCheckRule rule = new SpellCheckRule();
+            rule.setWrongSpellings(List.of(wrong));
+            rule.setCorrectSpellings(List.of("correct-" + i));
+            rule.setWeight(1 + random.nextInt(10));
+            rule.setBusinessDomain(domain);
+            rulesByDomain.computeIfAbsent(domain, k -> new ArrayList<>()).add(rule);
+        }
+        index = FuzzyRuleIndex.build(rulesByDomain);
+
+        queries = new String[QUERIES];
+        queryDomains = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            if (i % 3 == 0) {
+                // 近似命中：对某个错误拼写做一次替换
+                char[] chars = wrongs.get(random.nextInt(wrongs.size())).toCharArray();
+                chars[random.nextInt(chars.length)] = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+                queries[i] = new String(chars);
+            } else {
+                queries[i] = randomWord(random);
+            }
+            queryDomains[i] = DOMAINS[random.nextInt(DOMAINS.length)];
+        }
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole bh) {
+        for (int i = 0; i < QUERIES; i++) {
+            bh.consume(linearScan(queries[i], queryDomains[i]));
+        }
+    }
+
+    @Benchmark
+    public void symSpellIndex(Blackhole bh) {
+        for (int i = 0; i < QUERIES; i++) {
+            bh.consume(index.findCorrection(queries[i], queryDomains[i]));
+        }
+    }
+
+    /**
+     * 原 SpellCheckService.findFuzzyMatch：每次复制、排序规则并逐条计算完整编辑距离
+     */
+    private String linearScan(String text, String businessDomain) {
+        List<SpellCheckRule> rules = new ArrayList<>(rulesByDomain.getOrDefault("ALL", List.of()));
+        if (!"ALL".equals(businessDomain)) {
+            rules.addAll(rulesByDomain.getOrDefault(businessDomain, List.of()));
+        }
+        rules.sort((r1, r2) -> Integer.compare(r2.getWeight(), r1.getWeight()));
+        for (SpellCheckRule rule : rules) {
+            for (String wrong : rule.getWrongSpellings()) {
+                int maxDistance = Math.min(2, Math.max(1, wrong.length() / 3));
+                if (editDistance(text, wrong) <= maxDistance) {
+                    return rule.getCorrectSpellings().get(0);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int editDistance(String s1, String s2) {
+        int m = s1.length(), n = s2.length();
+        int[][] dp = new int[m + 1][n + 1];
+        for (int i = 0; i <= m; i++) {
+            dp[i][0] = i;
+        }
+        for (int j = 0; j <= n; j++) {
+            dp[0][j] = j;
+        }
+        for (int i = 1; i <= m; i++) {
+            for (int j = 1; j <= n; j++) {
+                if (s1.charAt(i - 1) == s2.charAt(j - 1)) {
+                    dp[i][j] = dp[i - 1][j - 1];
+                } else {
+                    dp[i][j] = 1 + Math.min(Math.min(dp[i - 1][j], dp[i][j - 1]), dp[i - 1][j - 1]);
+                }
+            }
+        }
+        return dp[m][n];
+    }
+
+    private static String randomWord(Random random) {
+        int len = 2 + random.nextInt(7);
+        StringBuilder sb = new StringBuilder(len);
+        for (int i = 0; i < len; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+}
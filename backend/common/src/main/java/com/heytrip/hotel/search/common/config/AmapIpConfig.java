@@ -24,6 +24,51 @@ public class AmapIpConfig {
 
     /**
      * GeoLite2数据库路径
+     * 文件系统路径（file:/data/geoip/GeoLite2-City.mmdb）按内存映射打开并支持热替换；classpath: 路径读入堆内存
      */
     private String geolite2;
+
+    /**
+     * GeoLite2数据库文件检查间隔（秒），文件变化后自动重新加载，0 表示关闭
+     */
+    private long geolite2WatchIntervalSeconds = 60;
+
+    /**
+     * 解析模式，默认本地优先
+     */
+    private ResolverMode resolverMode = ResolverMode.LOCAL_FIRST;
+
+    /**
+     * 前缀缓存最大条目数（IPv4 按 /24、IPv6 按 /48 聚合）
+     */
+    private long prefixCacheSize = 100_000;
+
+    /**
+     * 前缀缓存过期时间（分钟），未补全或补全失败的条目到期后重新解析
+     */
+    private long prefixCacheTtlMinutes = 360;
+
+    /**
+     * 远程补全线程数
+     */
+    private int enrichThreads = 2;
+
+    /**
+     * 远程补全队列容量，队列满时丢弃本次补全（下次未命中时再尝试）
+     */
+    private int enrichQueueCapacity = 256;
+
+    /**
+     * IP解析模式
+     */
+    public enum ResolverMode {
+        /**
+         * GeoLite2本地库 + 前缀缓存，远程API仅异步补全缓存，不在请求路径上
+         */
+        LOCAL_FIRST,
+        /**
+         * 每次请求并发查询本地库与全部远程API（旧模式）
+         */
+        CONCURRENT
+    }
 }
@@ -19,4 +19,39 @@ public class AuthConfig {
     );
     
     private long signTimeoutSeconds = 10L;
+
+    /**
+     * 应用凭证本地缓存TTL（秒）
+     */
+    private long appCacheTtlSeconds = 30L;
+
+    /**
+     * 未知 appId 负缓存TTL（秒）
+     */
+    private long appNegativeCacheTtlSeconds = 5L;
+
+    /**
+     * 应用凭证本地缓存最大条目数
+     */
+    private long appCacheMaxSize = 10_000L;
+
+    /**
+     * 是否强制要求 nonce（false 时未携带 nonce 的请求按旧签名规则校验，不做重放检测）
+     */
+    private boolean requireNonce = false;
+
+    /**
+     * 重放检测布隆过滤器：每个时间桶覆盖的秒数
+     */
+    private long replayBucketSeconds = 2L;
+
+    /**
+     * 重放检测布隆过滤器：每个时间桶预计请求数
+     */
+    private long replayExpectedPerBucket = 50_000L;
+
+    /**
+     * 重放检测布隆过滤器：误判率（误判时正常请求被当作重放拒绝）
+     */
+    private double replayFalsePositiveRate = 1e-6;
 }
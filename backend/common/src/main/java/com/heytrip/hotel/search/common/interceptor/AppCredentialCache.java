@@ -0,0 +1,126 @@
+package com.heytrip.hotel.search.common.interceptor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.heytrip.hotel.search.common.config.AuthConfig;
+import com.heytrip.hotel.search.domain.entity.App;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 应用凭证进程内缓存（签名认证使用）
+ * <p>
+ * - 缓存 Redis auth:app:&lt;appId&gt; 中的应用记录，命中时签名认证不访问 Redis
+ * - 未知 appId 短时负缓存，避免无效 appId 的请求反复穿透到 Redis
+ * - 应用变更/删除时通过 Redis 发布订阅（auth:app:invalidate）通知所有节点失效本地缓存；
+ *   消息丢失（如订阅连接重连期间）时由较短的 TTL 兜底
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AppCredentialCache {
+
+    /**
+     * 失效通知频道，消息体为 appId，"*" 表示全部失效
+     */
+    public static final String INVALIDATE_TOPIC = "auth:app:invalidate";
+
+    private static final String APP_CACHE_PREFIX = "auth:app:";
+    private static final String INVALIDATE_ALL = "*";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedissonClient redissonClient;
+    private final AuthConfig authConfig;
+
+    private Cache<String, Optional<App>> cache;
+    private RTopic topic;
+    private int listenerId = -1;
+
+    @PostConstruct
+    public void init() {
+        long ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, authConfig.getAppCacheTtlSeconds()));
+        long negativeTtlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, authConfig.getAppNegativeCacheTtlSeconds()));
+        cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, authConfig.getAppCacheMaxSize()))
+                .expireAfter(new Expiry<String, Optional<App>>() {
+                    @Override
+                    public long expireAfterCreate(String key, Optional<App> value, long currentTime) {
+                        return value.isPresent() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Optional<App> value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Optional<App> value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        try {
+            topic = redissonClient.getTopic(INVALIDATE_TOPIC, StringCodec.INSTANCE);
+            listenerId = topic.addListener(String.class, (channel, appId) -> invalidate(appId));
+        } catch (Exception e) {
+            log.warn("应用凭证失效通知订阅失败，仅依赖TTL过期: {}", e.getMessage());
+        }
+        log.info("应用凭证缓存已初始化 ttl={}s negativeTtl={}s", authConfig.getAppCacheTtlSeconds(),
+                authConfig.getAppNegativeCacheTtlSeconds());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (topic != null && listenerId >= 0) {
+            topic.removeListener(listenerId);
+        }
+    }
+
+    /**
+     * 获取应用，不存在时返回null
+     */
+    public App get(String appId) {
+        return cache.get(appId, this::load).orElse(null);
+    }
+
+    /**
+     * 失效本节点缓存
+     */
+    public void invalidate(String appId) {
+        if (appId == null || INVALIDATE_ALL.equals(appId)) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidate(appId);
+        }
+        log.debug("应用凭证缓存已失效: {}", appId);
+    }
+
+    /**
+     * 通知所有节点失效应用缓存
+     */
+    public void publishInvalidation(String appId) {
+        invalidate(appId);
+        try {
+            redissonClient.getTopic(INVALIDATE_TOPIC, StringCodec.INSTANCE).publish(appId);
+        } catch (Exception e) {
+            log.warn("应用凭证失效通知发布失败: appId={}, error={}", appId, e.getMessage());
+        }
+    }
+
+    private Optional<App> load(String appId) {
+        Object cached = redisTemplate.opsForValue().get(APP_CACHE_PREFIX + appId);
+        return cached instanceof App app ? Optional.of(app) : Optional.empty();
+    }
+}
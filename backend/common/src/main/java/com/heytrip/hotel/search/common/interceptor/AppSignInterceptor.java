@@ -4,12 +4,13 @@ import cn.hutool.core.util.StrUtil;
 import com.heytrip.hotel.search.common.config.AuthConfig;
 import com.heytrip.hotel.search.common.exception.AuthException;
 import com.heytrip.hotel.search.common.util.AppSignValidator;
+import com.heytrip.hotel.search.common.util.TimeBucketedBloomFilter;
 import com.heytrip.hotel.search.domain.entity.App;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
@@ -17,74 +18,87 @@ import java.time.LocalDateTime;
 
 /**
  * APP签名认证拦截器
+ * <p>
+ * - 应用凭证取自进程内缓存（AppCredentialCache），命中时不访问 Redis
+ * - 携带 nonce 请求头时签名包含 nonce，并在本地按时间分桶的布隆过滤器中做重放检测（不访问 Redis）；
+ *   重放检测仅在本节点内生效，跨节点重放由签名时间窗口限制
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class AppSignInterceptor implements HandlerInterceptor {
-    
-    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final AppCredentialCache appCredentialCache;
     private final AuthConfig authConfig;
-    
-    private static final String APP_CACHE_PREFIX = "auth:app:";
-    private static final long APP_CACHE_TTL = 30;
-    
+
+    private TimeBucketedBloomFilter replayFilter;
+
+    @PostConstruct
+    public void init() {
+        replayFilter = new TimeBucketedBloomFilter(
+                Math.max(1, authConfig.getSignTimeoutSeconds()),
+                Math.max(1, authConfig.getReplayBucketSeconds()),
+                Math.max(1, authConfig.getReplayExpectedPerBucket()),
+                authConfig.getReplayFalsePositiveRate());
+    }
+
     @Override
-    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, 
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
                             Object handler) throws Exception {
         String appId = request.getHeader("app");
         String sign = request.getHeader("sign");
         String timestampStr = request.getHeader("timestamp");
-        
+        String nonce = StrUtil.trimToNull(request.getHeader("nonce"));
+
         if (StrUtil.isBlank(appId) || StrUtil.isBlank(sign) || StrUtil.isBlank(timestampStr)) {
             return true;
         }
-        
+
+        if (nonce == null && authConfig.isRequireNonce()) {
+            throw new AuthException("缺少nonce");
+        }
+
         long timestamp;
         try {
             timestamp = Long.parseLong(timestampStr);
         } catch (NumberFormatException e) {
             throw new AuthException("时间戳格式错误");
         }
-        
-        App app = getAppFromCache(appId);
+
+        App app = appCredentialCache.get(appId);
         if (app == null) {
             throw new AuthException("应用不存在");
         }
-        
+
         if (app.getTimeout() != -1) {
             LocalDateTime expireTime = app.getCreateAt().plusMinutes(app.getTimeout());
             if (LocalDateTime.now().isAfter(expireTime)) {
                 throw new AuthException("应用已过期");
             }
         }
-        
+
         boolean valid = AppSignValidator.validate(
-            appId, 
-            app.getSecretKey(), 
-            sign, 
-            timestamp, 
+            appId,
+            app.getSecretKey(),
+            sign,
+            timestamp,
+            nonce,
             authConfig.getSignTimeoutSeconds()
         );
-        
+
         if (!valid) {
             throw new AuthException("签名验证失败");
         }
-        
+
+        // 签名通过后再登记 nonce，避免伪造请求占用过滤器容量
+        if (nonce != null && !replayFilter.putIfAbsent(appId + ":" + nonce, timestamp)) {
+            log.warn("重复请求: appId={}, nonce={}, timestamp={}", appId, nonce, timestamp);
+            throw new AuthException("重复请求");
+        }
+
         request.setAttribute("APP_ID", appId);
         request.setAttribute("RATE_LIMIT", app.getRateLimit());
         log.debug("APP签名认证成功: {}", appId);
         return true;
     }
-    
-    private App getAppFromCache(String appId) {
-        String cacheKey = APP_CACHE_PREFIX + appId;
-        Object cached = redisTemplate.opsForValue().get(cacheKey);
-        
-        if (cached instanceof App) {
-            return (App) cached;
-        }
-        
-        return null;
-    }
 }
@@ -1,29 +1,26 @@
 package com.heytrip.hotel.search.common.interceptor;
 
 import com.heytrip.hotel.search.common.exception.RateLimitException;
+import com.heytrip.hotel.search.common.ratelimit.LeasedRateLimiter;
 import com.heytrip.hotel.search.common.util.RequestKeyGenerator;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RRateLimiter;
-import org.redisson.api.RateIntervalUnit;
-import org.redisson.api.RateType;
-import org.redisson.api.RedissonClient;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 /**
  * 限流拦截器
+ * <p>
+ * 按 appId + 请求键限流，令牌从 Redis 令牌桶按批租用后在本地扣减（见 LeasedRateLimiter）
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class RateLimitInterceptor implements HandlerInterceptor {
     
-    private final RedissonClient redissonClient;
-    
-    private static final String RATE_LIMIT_PREFIX = "rate_limit:";
+    private final LeasedRateLimiter rateLimiter;
     
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, 
@@ -37,17 +34,9 @@ public class RateLimitInterceptor implements HandlerInterceptor {
         int rateLimit = (rateLimitObj instanceof Integer) ? (Integer) rateLimitObj : 1000;
         
         String requestKey = RequestKeyGenerator.generate(request);
-        String rateLimiterKey = RATE_LIMIT_PREFIX + appId + ":" + requestKey;
-        
-        RRateLimiter rateLimiter = redissonClient.getRateLimiter(rateLimiterKey);
-        
-        boolean exists = rateLimiter.isExists();
-        if (!exists) {
-            rateLimiter.trySetRate(RateType.OVERALL, rateLimit, 1, RateIntervalUnit.SECONDS);
-            rateLimiter.expire(java.time.Duration.ofMinutes(2));
-        }
+        String rateLimiterKey = appId + ":" + requestKey;
         
-        boolean acquired = rateLimiter.tryAcquire(1);
+        boolean acquired = rateLimiter.tryAcquire(rateLimiterKey, rateLimit);
         
         if (!acquired) {
             log.warn("限流触发: appId={}, requestKey={}, limit={}/秒", appId, requestKey, rateLimit);
@@ -0,0 +1,135 @@
+package com.heytrip.hotel.search.common.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 租约式分布式限流器
+ * <p>
+ * 每个节点按批（默认每秒令牌数的 10%）从共享令牌桶租用令牌，单个请求只在本地扣减，
+ * 租约用完或过期时才访问一次 Redis（同一限流键同时只有一个线程续租，其余线程等待续租结果）。
+ * <p>
+ * 精度取舍：
+ * - 少放行：节点租到但未用完的令牌在租约过期后作废，且其他节点拿不到；最坏情况下全局少放行
+ *   约 节点数 × 租约大小 个请求（租约大小 = ceil(每秒令牌数 × lease-ratio)）
+ * - 不会多放行：本地放行的令牌都已在共享令牌桶中扣减，任意时间窗口内全局放行数不超过令牌桶允许的数量；
+ *   但租到的令牌可在租约有效期内集中使用，单个节点的瞬时放行更集中
+ * - 低频限流键（每秒令牌数较小）租约大小为 1，行为与逐请求访问 Redis 一致；lease-ratio=0 时所有键均逐请求访问
+ */
+@Slf4j
+@Component
+public class LeasedRateLimiter {
+
+    private final PermitStore permitStore;
+
+    /**
+     * 测试注入的时钟（毫秒）
+     */
+    private final LongSupplier clock;
+
+    /**
+     * 每次租用的令牌数占每秒令牌数的比例
+     */
+    @Value("${heytrip.rate-limit.lease-ratio:0.1}")
+    private double leaseRatio = 0.1;
+
+    /**
+     * 租约有效期（毫秒），过期未用完的令牌作废
+     */
+    @Value("${heytrip.rate-limit.lease-ttl-ms:1000}")
+    private long leaseTtlMillis = 1000;
+
+    /**
+     * 本地租约最大条目数
+     */
+    @Value("${heytrip.rate-limit.max-keys:100000}")
+    private long maxKeys = 100_000;
+
+    private Cache<String, Lease> leases;
+
+    @Autowired
+    public LeasedRateLimiter(PermitStore permitStore) {
+        this(permitStore, System::currentTimeMillis);
+    }
+
+    LeasedRateLimiter(PermitStore permitStore, LongSupplier clock) {
+        this.permitStore = permitStore;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void init() {
+        leaseRatio = Math.max(0, Math.min(1, leaseRatio));
+        leaseTtlMillis = Math.max(1, leaseTtlMillis);
+        leases = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, maxKeys))
+                .expireAfterAccess(Math.max(leaseTtlMillis, 1000) * 2, TimeUnit.MILLISECONDS)
+                .build();
+        log.info("[RATE-LIMIT] 租约式限流器已初始化 leaseRatio={} leaseTtlMs={} maxKeys={}", leaseRatio, leaseTtlMillis, maxKeys);
+    }
+
+    /**
+     * 尝试获取一个令牌
+     *
+     * @param key              限流键
+     * @param permitsPerSecond 每秒令牌数
+     * @return true-放行，false-已限流
+     */
+    public boolean tryAcquire(String key, int permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            return false;
+        }
+        Lease lease = leases.get(key, k -> new Lease(permitsPerSecond));
+        if (lease.permitsPerSecond != permitsPerSecond) {
+            // 限流配置变更：丢弃旧租约
+            Lease replaced = new Lease(permitsPerSecond);
+            leases.put(key, replaced);
+            lease = replaced;
+        }
+
+        synchronized (lease) {
+            long now = clock.getAsLong();
+            if (lease.remaining > 0 && now < lease.expiresAt) {
+                lease.remaining--;
+                return true;
+            }
+            long granted = permitStore.acquire(key, permitsPerSecond, leaseSize(permitsPerSecond));
+            if (granted <= 0) {
+                lease.remaining = 0;
+                return false;
+            }
+            lease.remaining = granted - 1;
+            lease.expiresAt = now + leaseTtlMillis;
+            return true;
+        }
+    }
+
+    /**
+     * 每次租用的令牌数
+     */
+    long leaseSize(int permitsPerSecond) {
+        return Math.max(1, (long) Math.ceil(permitsPerSecond * leaseRatio));
+    }
+
+    /**
+     * 本地租约（由自身监视器保护）
+     */
+    private static final class Lease {
+
+        final int permitsPerSecond;
+        long remaining;
+        long expiresAt;
+
+        Lease(int permitsPerSecond) {
+            this.permitsPerSecond = permitsPerSecond;
+        }
+    }
+}
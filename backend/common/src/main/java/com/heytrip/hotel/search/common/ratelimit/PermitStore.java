@@ -0,0 +1,17 @@
+package com.heytrip.hotel.search.common.ratelimit;
+
+/**
+ * 共享令牌桶存储（多节点共享同一限流额度）
+ */
+public interface PermitStore {
+
+    /**
+     * 从令牌桶批量获取令牌，令牌不足时返回剩余可用数量
+     *
+     * @param key              限流键
+     * @param permitsPerSecond 每秒令牌数（同时也是桶容量）
+     * @param requested        请求的令牌数
+     * @return 实际获得的令牌数（0 表示已限流）
+     */
+    long acquire(String key, int permitsPerSecond, long requested);
+}
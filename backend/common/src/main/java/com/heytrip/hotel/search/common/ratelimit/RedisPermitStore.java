@@ -0,0 +1,96 @@
+package com.heytrip.hotel.search.common.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Redis 令牌桶（单个 Lua 脚本完成初始化、补充、扣减与续期，每次获取一次往返）
+ * - 桶结构：Hash {tokens, ts}，容量等于每秒令牌数，按 Redis 服务器时间连续补充（不依赖各节点时钟）
+ * - 桶不存在时按满桶创建，无需单独初始化；每次获取刷新过期时间，闲置的键自动清理
+ * - 令牌不足时返回剩余的整数令牌（部分授予），由调用方决定如何使用
+ * - 脚本通过 EVALSHA 执行，Redis 重启/脚本缓存清空（NOSCRIPT）时重新加载
+ */
+@Slf4j
+@Component
+public class RedisPermitStore implements PermitStore {
+
+    static final String KEY_PREFIX = "rate_limit:bucket:";
+
+    /**
+     * 闲置桶的过期时间（毫秒）
+     */
+    static final long IDLE_TTL_MILLIS = 120_000;
+
+    /**
+     * KEYS[1] 桶键；ARGV[1] 每秒令牌数；ARGV[2] 请求令牌数；ARGV[3] 过期时间（毫秒）
+     */
+    static final String ACQUIRE_SCRIPT = """
+            local rate = tonumber(ARGV[1])
+            local requested = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+            local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+            local tokens = tonumber(bucket[1])
+            local ts = tonumber(bucket[2])
+            if tokens == nil or ts == nil then
+                tokens = rate
+                ts = now
+            end
+            if now > ts then
+                tokens = math.min(rate, tokens + (now - ts) * rate / 1000)
+            end
+            local granted = math.min(requested, math.floor(tokens))
+            if granted < 0 then
+                granted = 0
+            end
+            tokens = tokens - granted
+            redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(math.max(now, ts)))
+            redis.call('PEXPIRE', KEYS[1], ARGV[3])
+            return granted
+            """;
+
+    private final RScript script;
+
+    private volatile String sha;
+
+    public RedisPermitStore(RedissonClient redissonClient) {
+        this.script = redissonClient.getScript(StringCodec.INSTANCE);
+    }
+
+    @Override
+    public long acquire(String key, int permitsPerSecond, long requested) {
+        List<Object> keys = Collections.singletonList(KEY_PREFIX + key);
+        String rate = String.valueOf(permitsPerSecond);
+        String count = String.valueOf(requested);
+        String ttl = String.valueOf(IDLE_TTL_MILLIS);
+
+        String current = sha;
+        if (current == null) {
+            current = load();
+        }
+        Object ret;
+        try {
+            ret = script.evalSha(RScript.Mode.READ_WRITE, current, RScript.ReturnType.INTEGER, keys, rate, count, ttl);
+        } catch (RedisException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("NOSCRIPT")) {
+                throw e;
+            }
+            log.info("[RATE-LIMIT] 限流脚本不在Redis脚本缓存中，重新加载");
+            ret = script.evalSha(RScript.Mode.READ_WRITE, load(), RScript.ReturnType.INTEGER, keys, rate, count, ttl);
+        }
+        return ret instanceof Number n ? n.longValue() : 0L;
+    }
+
+    private String load() {
+        String loaded = script.scriptLoad(ACQUIRE_SCRIPT);
+        sha = loaded;
+        return loaded;
+    }
+}
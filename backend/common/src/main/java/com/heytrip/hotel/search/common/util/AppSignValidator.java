@@ -12,6 +12,14 @@ public final class AppSignValidator {
     
     public static boolean validate(String appId, String secret, String sign, 
                                     long timestamp, long allowedOffset) {
+        return validate(appId, secret, sign, timestamp, null, allowedOffset);
+    }
+
+    /**
+     * 校验签名，nonce 不为空时签名需包含 nonce
+     */
+    public static boolean validate(String appId, String secret, String sign,
+                                    long timestamp, String nonce, long allowedOffset) {
         long currentSeconds = System.currentTimeMillis() / 1000;
         long diff = Math.abs(currentSeconds - timestamp);
         
@@ -20,7 +28,9 @@ public final class AppSignValidator {
             return false;
         }
         
-        String expectedSign = Md5Signer.buildSign(appId, secret, timestamp);
+        String expectedSign = nonce == null
+                ? Md5Signer.buildSign(appId, secret, timestamp)
+                : Md5Signer.buildSign(appId, secret, timestamp, nonce);
         return expectedSign.equalsIgnoreCase(sign);
     }
 }
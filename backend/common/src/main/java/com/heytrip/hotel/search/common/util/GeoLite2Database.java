@@ -0,0 +1,275 @@
+package com.heytrip.hotel.search.common.util;
+
+import com.heytrip.hotel.search.common.config.AmapIpConfig;
+import com.maxmind.db.Metadata;
+import com.maxmind.db.Reader;
+import com.maxmind.geoip2.DatabaseReader;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * GeoLite2 数据库读取器（可热替换）
+ * <p>
+ * - 文件系统路径按内存映射模式打开，数据库不占用堆内存；jar 包内的 classpath 资源无法映射，退化为读入堆内存（测试/本地开发）
+ * - 当前读取器保存在 AtomicReference 中，重新加载在后台线程构建新读取器后原子替换，查询线程无锁
+ * - 被替换的读取器延迟关闭，避免正在进行的查询读到已关闭的数据库
+ * - 文件监听：按间隔检查文件修改时间与大小，连续两次检查一致（写入完成）后重新加载；也可通过管理接口手动触发
+ */
+@Slf4j
+@Component
+public class GeoLite2Database {
+
+    /**
+     * 旧读取器延迟关闭时间（秒）
+     */
+    private static final long CLOSE_DELAY_SECONDS = 30;
+
+    private final AmapIpConfig amapIpConfig;
+    private final ResourceLoader resourceLoader;
+
+    private final AtomicReference<Loaded> current = new AtomicReference<>();
+
+    /**
+     * 检测到变化但尚未稳定的文件签名
+     */
+    private volatile FileSignature pendingSignature;
+
+    /**
+     * 最近一次加载失败的文件签名（同一文件不重复尝试）
+     */
+    private volatile FileSignature failedSignature;
+
+    private ScheduledThreadPoolExecutor reloadExecutor;
+
+    public GeoLite2Database(AmapIpConfig amapIpConfig, ResourceLoader resourceLoader) {
+        this.amapIpConfig = amapIpConfig;
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * 已加载的数据库
+     *
+     * @param reader       读取器
+     * @param location     配置的数据库路径
+     * @param memoryMapped 是否内存映射
+     * @param signature    文件签名（classpath 资源为null）
+     * @param loadedAt     加载时间
+     */
+    record Loaded(DatabaseReader reader, String location, boolean memoryMapped, FileSignature signature, Instant loadedAt) {
+    }
+
+    /**
+     * 文件签名：修改时间 + 大小
+     */
+    record FileSignature(long lastModified, long length) {
+
+        static FileSignature of(File file) {
+            return new FileSignature(file.lastModified(), file.length());
+        }
+    }
+
+    /**
+     * 数据库状态（管理接口返回）
+     */
+    public record Status(boolean loaded, String location, boolean memoryMapped, String databaseType,
+                         Instant buildDate, Instant loadedAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        reloadExecutor = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory("geolite2-reload-"));
+        reloadExecutor.setRemoveOnCancelPolicy(true);
+
+        try {
+            Loaded loaded = open();
+            if (loaded != null) {
+                swap(loaded);
+            }
+        } catch (Exception e) {
+            log.error("GeoLite2数据库加载失败: {}", amapIpConfig.getGeolite2(), e);
+        }
+
+        long interval = amapIpConfig.getGeolite2WatchIntervalSeconds();
+        if (interval > 0 && isFileLocation()) {
+            reloadExecutor.scheduleWithFixedDelay(this::reloadIfChanged, interval, interval, TimeUnit.SECONDS);
+            log.info("GeoLite2数据库文件监听已开启，检查间隔 {}s", interval);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+        }
+        closeQuietly(current.getAndSet(null));
+    }
+
+    /**
+     * 当前读取器，未加载时返回null
+     */
+    public DatabaseReader reader() {
+        Loaded loaded = current.get();
+        return loaded == null ? null : loaded.reader();
+    }
+
+    /**
+     * 当前数据库状态
+     */
+    public Status status() {
+        Loaded loaded = current.get();
+        if (loaded == null) {
+            return new Status(false, amapIpConfig.getGeolite2(), false, null, null, null);
+        }
+        Metadata metadata = loaded.reader().getMetadata();
+        return new Status(true, loaded.location(), loaded.memoryMapped(), metadata.getDatabaseType(),
+                metadata.getBuildDate().toInstant(), loaded.loadedAt());
+    }
+
+    /**
+     * 在后台线程重新加载数据库并原子替换，加载失败时保留当前读取器
+     *
+     * @return 加载完成后的数据库状态
+     */
+    public CompletableFuture<Status> reload() {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Loaded loaded = open();
+                    if (loaded == null) {
+                        throw new IllegalStateException("GeoLite2数据库文件不存在: " + amapIpConfig.getGeolite2());
+                    }
+                    swap(loaded);
+                    return status();
+                } catch (IOException e) {
+                    throw new IllegalStateException("GeoLite2数据库加载失败: " + e.getMessage(), e);
+                }
+            }, reloadExecutor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 文件监听：签名变化且连续两次检查一致后重新加载
+     */
+    void reloadIfChanged() {
+        try {
+            Resource resource = resourceLoader.getResource(amapIpConfig.getGeolite2());
+            if (!resource.exists() || !resource.isFile()) {
+                return;
+            }
+            FileSignature signature = FileSignature.of(resource.getFile());
+            Loaded loaded = current.get();
+            if (loaded != null && signature.equals(loaded.signature())) {
+                pendingSignature = null;
+                return;
+            }
+            if (signature.equals(failedSignature)) {
+                return;
+            }
+            // 文件可能仍在写入，等待下一次检查确认稳定
+            if (!signature.equals(pendingSignature)) {
+                pendingSignature = signature;
+                return;
+            }
+            pendingSignature = null;
+            log.info("检测到GeoLite2数据库文件变化，开始重新加载: {}", amapIpConfig.getGeolite2());
+            try {
+                Loaded reloaded = open();
+                if (reloaded != null) {
+                    swap(reloaded);
+                }
+            } catch (Exception e) {
+                failedSignature = signature;
+                log.error("GeoLite2数据库重新加载失败，继续使用当前数据库: {}", amapIpConfig.getGeolite2(), e);
+            }
+        } catch (Exception e) {
+            log.warn("GeoLite2数据库文件检查失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 打开配置的数据库，路径未配置或文件不存在时返回null
+     */
+    private Loaded open() throws IOException {
+        String location = amapIpConfig.getGeolite2();
+        if (!StringUtils.hasText(location)) {
+            log.warn("GeoLite2数据库路径未配置，将跳过本地数据库查询");
+            return null;
+        }
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.exists()) {
+            log.warn("GeoLite2数据库文件不存在: {}，将跳过本地数据库查询", location);
+            return null;
+        }
+
+        if (resource.isFile()) {
+            File file = resource.getFile();
+            FileSignature signature = FileSignature.of(file);
+            DatabaseReader reader = new DatabaseReader.Builder(file)
+                    .fileMode(Reader.FileMode.MEMORY_MAPPED)
+                    .build();
+            return new Loaded(reader, location, true, signature, Instant.now());
+        }
+
+        // jar 包内资源无法内存映射，读入堆内存
+        try (InputStream inputStream = resource.getInputStream()) {
+            DatabaseReader reader = new DatabaseReader.Builder(inputStream).build();
+            return new Loaded(reader, location, false, null, Instant.now());
+        }
+    }
+
+    /**
+     * 原子替换读取器，旧读取器延迟关闭
+     */
+    private void swap(Loaded loaded) {
+        Loaded previous = current.getAndSet(loaded);
+        failedSignature = null;
+        Metadata metadata = loaded.reader().getMetadata();
+        log.info("GeoLite2数据库加载成功: {} mmap={} type={} build={}",
+                loaded.location(), loaded.memoryMapped(), metadata.getDatabaseType(), metadata.getBuildDate());
+        if (previous == null) {
+            return;
+        }
+        try {
+            reloadExecutor.schedule(() -> closeQuietly(previous), CLOSE_DELAY_SECONDS, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException e) {
+            closeQuietly(previous);
+        }
+    }
+
+    /**
+     * 仅监听文件系统路径（classpath 资源随发布包更新）
+     */
+    private boolean isFileLocation() {
+        String location = amapIpConfig.getGeolite2();
+        return StringUtils.hasText(location) && !location.startsWith(ResourceLoader.CLASSPATH_URL_PREFIX);
+    }
+
+    private static void closeQuietly(Loaded loaded) {
+        if (loaded == null) {
+            return;
+        }
+        try {
+            loaded.reader().close();
+        } catch (Exception e) {
+            log.warn("GeoLite2数据库关闭失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.heytrip.hotel.search.common.util;
+
+/**
+ * IP地址字面量工具（纯位运算，不做DNS解析）
+ * <p>
+ * - 解析 IPv4 / IPv6 字面量为字节数组，IPv4映射的IPv6地址（::ffff:a.b.c.d）按IPv4处理
+ * - 局域网/保留地址判断
+ * - 定位缓存前缀键：IPv4 按 /24、IPv6 按 /48 聚合
+ */
+public final class IpAddresses {
+
+    /**
+     * 不可定位的IPv4网段：{网络地址, 前缀长度}
+     * 0/8 本网络、10/8 私有、100.64/10 运营商NAT、127/8 回环、169.254/16 链路本地、
+     * 172.16/12 私有、192.168/16 私有、224/4 组播、240/4 保留（含广播）
+     */
+    private static final int[][] IPV4_PRIVATE_RANGES = {
+            {0x00000000, 8},
+            {0x0A000000, 8},
+            {0x64400000, 10},
+            {0x7F000000, 8},
+            {0xA9FE0000, 16},
+            {0xAC100000, 12},
+            {0xC0A80000, 16},
+            {0xE0000000, 4},
+            {0xF0000000, 4}
+    };
+
+    /**
+     * IPv6 前缀键标记位（IPv4 前缀键小于 2^24，不会冲突）
+     */
+    private static final long IPV6_KEY_FLAG = 1L << 62;
+
+    private IpAddresses() {
+    }
+
+    /**
+     * 解析IP地址字面量
+     *
+     * @param ip IP地址字符串
+     * @return IPv4 返回4字节，IPv6 返回16字节，非法地址返回null
+     */
+    public static byte[] parse(String ip) {
+        if (ip == null) {
+            return null;
+        }
+        String s = ip.trim();
+        if (s.isEmpty()) {
+            return null;
+        }
+        if (s.indexOf(':') < 0) {
+            return parseIpv4(s);
+        }
+        int zone = s.indexOf('%');
+        if (zone >= 0) {
+            s = s.substring(0, zone);
+        }
+        byte[] v6 = parseIpv6(s);
+        if (v6 != null && isIpv4Mapped(v6)) {
+            return new byte[]{v6[12], v6[13], v6[14], v6[15]};
+        }
+        return v6;
+    }
+
+    /**
+     * 是否为局域网/回环/链路本地/组播等不可定位地址
+     */
+    public static boolean isPrivate(byte[] address) {
+        if (address.length == 4) {
+            int v = ipv4(address);
+            for (int[] range : IPV4_PRIVATE_RANGES) {
+                int mask = -1 << (32 - range[1]);
+                if ((v & mask) == range[0]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long hi = high64(address);
+        long lo = low64(address);
+        if (hi == 0 && (lo == 0 || lo == 1)) {
+            // :: 未指定地址、::1 回环
+            return true;
+        }
+        return (hi >>> 57) == 0x7E          // fc00::/7 唯一本地地址
+                || (hi >>> 55) == 0x1FD     // fe80::/10 链路本地、fec0::/10 站点本地
+                || (hi >>> 56) == 0xFF;     // ff00::/8 组播
+    }
+
+    /**
+     * 定位缓存前缀键：IPv4 取 /24，IPv6 取 /48
+     */
+    public static long prefixKey(byte[] address) {
+        if (address.length == 4) {
+            return (ipv4(address) & 0xFFFFFFFFL) >>> 8;
+        }
+        return (high64(address) >>> 16) | IPV6_KEY_FLAG;
+    }
+
+    private static int ipv4(byte[] a) {
+        return ((a[0] & 0xFF) << 24) | ((a[1] & 0xFF) << 16) | ((a[2] & 0xFF) << 8) | (a[3] & 0xFF);
+    }
+
+    private static long high64(byte[] a) {
+        long v = 0;
+        for (int i = 0; i < 8; i++) {
+            v = (v << 8) | (a[i] & 0xFF);
+        }
+        return v;
+    }
+
+    private static long low64(byte[] a) {
+        long v = 0;
+        for (int i = 8; i < 16; i++) {
+            v = (v << 8) | (a[i] & 0xFF);
+        }
+        return v;
+    }
+
+    private static boolean isIpv4Mapped(byte[] a) {
+        for (int i = 0; i < 10; i++) {
+            if (a[i] != 0) {
+                return false;
+            }
+        }
+        return a[10] == (byte) 0xFF && a[11] == (byte) 0xFF;
+    }
+
+    /**
+     * 点分十进制IPv4（每段 1-3 位数字，0-255）
+     */
+    private static byte[] parseIpv4(String s) {
+        byte[] out = new byte[4];
+        int octet = 0;
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '.') {
+                if (digits == 0 || octet == 3) {
+                    return null;
+                }
+                out[octet++] = (byte) value;
+                value = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (++digits > 3 || value > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+        if (digits == 0 || octet != 3) {
+            return null;
+        }
+        out[3] = (byte) value;
+        return out;
+    }
+
+    /**
+     * 冒号十六进制IPv6（支持 :: 压缩与末尾内嵌IPv4）
+     */
+    private static byte[] parseIpv6(String s) {
+        byte[] out = new byte[16];
+        int compressed = s.indexOf("::");
+        if (compressed < 0) {
+            return parseGroups(s, out, 0, true) == 16 ? out : null;
+        }
+        if (s.indexOf("::", compressed + 1) >= 0) {
+            return null;
+        }
+        byte[] head = new byte[16];
+        byte[] tail = new byte[16];
+        int headLength = parseGroups(s.substring(0, compressed), head, 0, false);
+        int tailLength = parseGroups(s.substring(compressed + 2), tail, 0, true);
+        // :: 至少代表一组
+        if (headLength < 0 || tailLength < 0 || headLength + tailLength > 14) {
+            return null;
+        }
+        System.arraycopy(head, 0, out, 0, headLength);
+        System.arraycopy(tail, 0, out, 16 - tailLength, tailLength);
+        return out;
+    }
+
+    /**
+     * 解析以冒号分隔的16位分组
+     *
+     * @return 写入的字节数，非法时返回 -1
+     */
+    private static int parseGroups(String part, byte[] out, int offset, boolean allowIpv4Tail) {
+        if (part.isEmpty()) {
+            return 0;
+        }
+        String[] groups = part.split(":", -1);
+        int pos = offset;
+        for (int i = 0; i < groups.length; i++) {
+            String group = groups[i];
+            if (allowIpv4Tail && i == groups.length - 1 && group.indexOf('.') >= 0) {
+                byte[] v4 = parseIpv4(group);
+                if (v4 == null || pos + 4 > out.length) {
+                    return -1;
+                }
+                System.arraycopy(v4, 0, out, pos, 4);
+                pos += 4;
+                continue;
+            }
+            if (group.isEmpty() || group.length() > 4 || pos + 2 > out.length) {
+                return -1;
+            }
+            int value = 0;
+            for (int j = 0; j < group.length(); j++) {
+                int digit = Character.digit(group.charAt(j), 16);
+                if (digit < 0) {
+                    return -1;
+                }
+                value = (value << 4) | digit;
+            }
+            out[pos++] = (byte) (value >>> 8);
+            out[pos++] = (byte) value;
+        }
+        return pos - offset;
+    }
+}
@@ -10,7 +10,7 @@ import lombok.NoArgsConstructor;
  * IP定位结果
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class IpLocation {
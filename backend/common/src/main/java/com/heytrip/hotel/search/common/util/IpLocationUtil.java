@@ -4,6 +4,8 @@ import cn.hutool.http.HttpRequest;
 import cn.hutool.http.HttpResponse;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.heytrip.hotel.search.common.config.AmapIpConfig;
 import com.heytrip.hotel.search.common.enums.CountryContinentEnum;
 import com.maxmind.geoip2.DatabaseReader;
@@ -12,22 +14,23 @@ import com.maxmind.geoip2.record.City;
 import com.maxmind.geoip2.record.Country;
 import com.maxmind.geoip2.record.Location;
 import com.maxmind.geoip2.record.Subdivision;
-import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StringUtils;
 
-import java.io.File;
-import java.io.InputStream;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Pattern;
 
 /**
  * IP定位解析工具
@@ -40,15 +43,45 @@ import java.util.regex.Pattern;
  * 3. api.ip.sb
  * 4. ipapi.co
  * 5. api.ipapi.is
+ * <p>
+ * 解析模式（amap.ip.resolver-mode）：
+ * - LOCAL_FIRST（默认）：GeoLite2本地库 + 前缀缓存（IPv4 /24、IPv6 /48），请求路径不访问远程API；
+ *   本地结果不完整时异步调用远程API补全缓存条目，同前缀的后续请求直接命中
+ * - CONCURRENT：每次请求并发查询本地库与全部远程API，取最完整的结果
  */
 @Slf4j
 @Component
 public class IpLocationUtil {
     
     private final AmapIpConfig amapIpConfig;
-    private final ResourceLoader resourceLoader;
+    private final GeoLite2Database geoLite2Database;
+
+    /**
+     * 本地解析（默认GeoLite2）
+     */
+    private final Provider localProvider;
+
+    /**
+     * 远程补全API（按顺序查询，拿到完整结果即停止）
+     */
+    private final List<Provider> remoteProviders;
+
+    /**
+     * 前缀缓存：键为 IpAddresses.prefixKey，值为该前缀最近一次解析结果（含失败结果，避免重复解析）
+     */
+    private final Cache<Long, IpLocation> prefixCache;
 
-    private DatabaseReader geoLite2Reader;
+    /**
+     * 正在补全的前缀，同一前缀只提交一次补全任务
+     */
+    private final Set<Long> enriching = ConcurrentHashMap.newKeySet();
+
+    private final Executor enrichExecutor;
+
+    /**
+     * 自建的补全线程池（外部传入执行器时为null）
+     */
+    private final ThreadPoolExecutor ownedEnrichExecutor;
     
     // 备用API地址
     private static final String API_IPSB_URL = "https://api.ip.sb/geoip/";
@@ -61,65 +94,69 @@ public class IpLocationUtil {
     // API查询超时时间（毫秒）- 用户要求10ms快速响应
     private static final int QUERY_TIMEOUT = 10;
     
-    // IPv4正则表达式
-    private static final Pattern IPV4_PATTERN = Pattern.compile(
-        "^((25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)$"
-    );
+    // 完整度满分：国家 + 省份 + 城市 + 坐标
+    private static final int FULL_SCORE = 6;
     
-    public IpLocationUtil(AmapIpConfig amapIpConfig, ResourceLoader resourceLoader) {
-        this.amapIpConfig = amapIpConfig;
-        this.resourceLoader = resourceLoader;
+    @Autowired
+    public IpLocationUtil(AmapIpConfig amapIpConfig, GeoLite2Database geoLite2Database) {
+        this(amapIpConfig, geoLite2Database, null, null, null);
     }
-    
+
     /**
-     * 初始化GeoLite2数据库读取器
+     * 可替换本地解析、远程API与补全执行器（测试使用）
      */
-    @PostConstruct
-    public void initGeoLite2() {
-        try {
-            String databasePath = amapIpConfig.getGeolite2();
-            if (!StringUtils.hasText(databasePath)) {
-                log.warn("GeoLite2数据库路径未配置，将跳过本地数据库查询");
-                return;
-            }
-            
-            // 支持classpath:和文件系统路径
-            Resource resource = resourceLoader.getResource(databasePath);
-            if (resource.exists()) {
-                // 使用InputStream加载，支持jar包内的资源
-                InputStream inputStream = resource.getInputStream();
-                geoLite2Reader = new DatabaseReader.Builder(inputStream).build();
-                log.info("GeoLite2数据库加载成功: {}", databasePath);
-            } else {
-                log.warn("GeoLite2数据库文件不存在: {}，将跳过本地数据库查询", databasePath);
-            }
-        } catch (Exception e) {
-            log.error("GeoLite2数据库加载失败: {}", amapIpConfig.getGeolite2(), e);
+    IpLocationUtil(AmapIpConfig amapIpConfig, GeoLite2Database geoLite2Database,
+                   Provider localProvider, List<Provider> remoteProviders, Executor enrichExecutor) {
+        this.amapIpConfig = amapIpConfig;
+        this.geoLite2Database = geoLite2Database;
+        this.localProvider = localProvider != null ? localProvider : this::locateByGeoLite2;
+        this.remoteProviders = remoteProviders != null
+                ? List.copyOf(remoteProviders)
+                : List.of(this::locateByAmap, this::locateByIpSb, this::locateByIpapi);
+        this.prefixCache = Caffeine.newBuilder()
+                .maximumSize(Math.max(1, amapIpConfig.getPrefixCacheSize()))
+                .expireAfterWrite(Math.max(1, amapIpConfig.getPrefixCacheTtlMinutes()), TimeUnit.MINUTES)
+                .build();
+        if (enrichExecutor != null) {
+            this.enrichExecutor = enrichExecutor;
+            this.ownedEnrichExecutor = null;
+        } else {
+            int threads = Math.max(1, amapIpConfig.getEnrichThreads());
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                    threads, threads,
+                    60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, amapIpConfig.getEnrichQueueCapacity())),
+                    new CustomizableThreadFactory("ip-enrich-"),
+                    new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            this.enrichExecutor = executor;
+            this.ownedEnrichExecutor = executor;
         }
     }
+
+    /**
+     * 单个IP定位数据源
+     */
+    @FunctionalInterface
+    interface Provider {
+        IpLocation locate(String ip);
+    }
     
     /**
-     * 关闭GeoLite2数据库读取器
+     * 关闭补全线程池
      */
     @PreDestroy
-    public void closeGeoLite2() {
-        if (geoLite2Reader != null) {
-            try {
-                geoLite2Reader.close();
-                log.info("GeoLite2数据库关闭成功");
-            } catch (Exception e) {
-                log.error("GeoLite2数据库关闭失败", e);
-            }
+    public void shutdown() {
+        if (ownedEnrichExecutor != null) {
+            ownedEnrichExecutor.shutdownNow();
         }
     }
     
     /**
      * 解析IP地址的地理位置信息
      * <p>
-     * 优化策略：
-     * 1. 过滤IPv6和局域网IP
-     * 2. 异步并发查询所有API（10ms超时）
-     * 3. 取结果最完整的一条
+     * 1. 解析IP字面量（IPv4/IPv6），过滤局域网/保留地址（纯位运算，不做DNS解析）
+     * 2. 按解析模式定位：本地优先（默认）或并发查询全部API
      * 
      * @param ip IP地址
      * @return IP定位结果
@@ -129,19 +166,111 @@ public class IpLocationUtil {
             return buildErrorResult(ip, "IP地址不能为空");
         }
         
-        // 1. 验证IPv4格式
-        if (!isValidIPv4(ip)) {
-            log.debug("非法或不支持的IP格式（仅支持IPv4）: {}", ip);
-            return buildErrorResult(ip, "仅支持IPv4地址");
+        // 1. 解析IP字面量
+        byte[] address = IpAddresses.parse(ip);
+        if (address == null) {
+            log.debug("非法的IP格式: {}", ip);
+            return buildErrorResult(ip, "非法的IP地址");
         }
         
         // 2. 过滤局域网IP
-        if (isPrivateIP(ip)) {
+        if (IpAddresses.isPrivate(address)) {
             log.debug("局域网IP无需定位: {}", ip);
             return buildErrorResult(ip, "局域网IP无需定位");
         }
         
-        // 3. 异步并发查询所有API（10ms超时）
+        if (amapIpConfig.getResolverMode() == AmapIpConfig.ResolverMode.CONCURRENT) {
+            if (address.length != 4) {
+                log.debug("并发模式仅支持IPv4: {}", ip);
+                return buildErrorResult(ip, "仅支持IPv4地址");
+            }
+            return locateConcurrently(ip);
+        }
+        return locateLocalFirst(ip, address);
+    }
+
+    /**
+     * 本地优先：前缀缓存 -> GeoLite2，结果不完整时异步远程补全
+     */
+    private IpLocation locateLocalFirst(String ip, byte[] address) {
+        long prefix = IpAddresses.prefixKey(address);
+        IpLocation cached = prefixCache.getIfPresent(prefix);
+        if (cached == null) {
+            cached = localProvider.locate(ip);
+            if (cached == null) {
+                cached = buildErrorResult(ip, "本地IP库无结果");
+            }
+            // 失败或不完整的结果同样缓存，补全前同前缀请求不再重复解析
+            prefixCache.put(prefix, cached);
+            if (!isSuccess(cached) || calculateCompletenessScore(cached) < FULL_SCORE) {
+                scheduleEnrichment(prefix, ip);
+            }
+        }
+
+        if (isSuccess(cached) && isValidResult(cached)) {
+            return cached.toBuilder().ip(ip).build();
+        }
+        return buildErrorResult(ip, "本地IP库未能解析，等待异步补全");
+    }
+
+    /**
+     * 提交前缀补全任务（同一前缀仅一个任务在途，线程池满时放弃）
+     */
+    private void scheduleEnrichment(long prefix, String ip) {
+        if (remoteProviders.isEmpty() || !enriching.add(prefix)) {
+            return;
+        }
+        try {
+            enrichExecutor.execute(() -> {
+                try {
+                    enrich(prefix, ip);
+                } finally {
+                    enriching.remove(prefix);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            enriching.remove(prefix);
+            log.debug("IP补全线程池已满，跳过补全: {}", ip);
+        }
+    }
+
+    /**
+     * 依次查询远程API，用最完整的有效结果替换前缀缓存条目
+     */
+    private void enrich(long prefix, String ip) {
+        List<IpLocation> candidates = new ArrayList<>();
+        IpLocation current = prefixCache.getIfPresent(prefix);
+        if (current != null && isSuccess(current) && isValidResult(current)) {
+            candidates.add(current);
+        }
+        for (Provider provider : remoteProviders) {
+            IpLocation result;
+            try {
+                result = provider.locate(ip);
+            } catch (Exception e) {
+                log.debug("IP补全查询异常，IP: {}, 错误: {}", ip, e.getMessage());
+                continue;
+            }
+            if (result != null && isSuccess(result) && isValidResult(result)) {
+                candidates.add(result);
+                if (calculateCompletenessScore(result) >= FULL_SCORE) {
+                    break;
+                }
+            }
+        }
+        IpLocation best = selectBestResult(candidates);
+        if (best != null && best != current) {
+            prefixCache.put(prefix, best);
+            log.info("IP定位补全成功 [{}] IP: {}, 国家: {}, 省: {}, 城市: {}",
+                    best.getSource(), ip, best.getCountry(), best.getProvince(), best.getCity());
+        }
+    }
+
+    /**
+     * 并发模式：异步并发查询所有API（10ms超时），取结果最完整的一条
+     */
+    private IpLocation locateConcurrently(String ip) {
+        // 异步并发查询所有API（10ms超时）
         List<CompletableFuture<IpLocation>> futures = new ArrayList<>();
         
         // GeoLite2本地数据库（最快，优先）
@@ -197,23 +326,16 @@ public class IpLocationUtil {
         return buildErrorResult(ip, "所有IP定位API均失败或超时");
     }
     
-    /**
-     * 验证是否为合法的IPv4地址
-     */
-    private boolean isValidIPv4(String ip) {
-        return IPV4_PATTERN.matcher(ip).matches();
+    private boolean isSuccess(IpLocation location) {
+        return Boolean.TRUE.equals(location.getSuccess());
     }
-    
+
     /**
-     * 判断是否为局域网IP
+     * 前缀缓存条目数
      */
-    private boolean isPrivateIP(String ip) {
-        try {
-            InetAddress addr = InetAddress.getByName(ip);
-            return addr.isSiteLocalAddress() || addr.isLoopbackAddress() || addr.isLinkLocalAddress();
-        } catch (Exception e) {
-            return false;
-        }
+    long prefixCacheSize() {
+        prefixCache.cleanUp();
+        return prefixCache.estimatedSize();
     }
     
     /**
@@ -286,12 +408,18 @@ public class IpLocationUtil {
      * 使用GeoLite2本地数据库解析IP
      */
     private IpLocation locateByGeoLite2(String ip) {
+        // 每次查询取当前读取器，热替换后新查询立即使用新数据库
+        DatabaseReader geoLite2Reader = geoLite2Database.reader();
         if (geoLite2Reader == null) {
             return buildErrorResult(ip, "GeoLite2数据库未加载");
         }
         
         try {
-            InetAddress ipAddress = InetAddress.getByName(ip);
+            byte[] address = IpAddresses.parse(ip);
+            if (address == null) {
+                return buildErrorResult(ip, "非法的IP地址");
+            }
+            InetAddress ipAddress = InetAddress.getByAddress(address);
             CityResponse response = geoLite2Reader.city(ipAddress);
             
             // 获取国家信息
@@ -5,7 +5,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
 /**
- * 签名工具：sign = MD5(app + secret + timestamp)
+ * 签名工具：sign = MD5(app + secret + timestamp [+ nonce])
  */
 public final class Md5Signer {
     private Md5Signer() {}
@@ -29,4 +29,10 @@ public final class Md5Signer {
         String raw = "app" + app + "secret" + secret + "timestamp" + timestampSeconds;
         return md5Hex(raw);
     }
+
+    public static String buildSign(String app, String secret, long timestampSeconds, String nonce) {
+        // 携带 nonce 时：sign=MD5("app"+app+"secret"+secret+"timestamp"+timestamp+"nonce"+nonce)
+        String raw = "app" + app + "secret" + secret + "timestamp" + timestampSeconds + "nonce" + nonce;
+        return md5Hex(raw);
+    }
 }
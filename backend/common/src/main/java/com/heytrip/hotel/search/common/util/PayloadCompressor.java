@@ -0,0 +1,489 @@
+package com.heytrip.hotel.search.common.util;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.heytrip.hotel.search.domain.entity.CompressionCodec;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * 可切换算法的正文压缩器（线程安全）
+ * - 写入使用配置的算法：none / gzip / zstd（可选字典）/ lz4
+ * - 读取按数据头部魔数识别算法，与写入算法无关；切换算法后旧数据仍可读取，无法识别的数据按未压缩原样返回
+ * - Deflater/Inflater、zstd 上下文与输出缓冲按线程借用、用完归还到池中复用；池满时释放多余上下文
+ * 格式：
+ * - gzip：标准 GZIP（与 GzipCompressor 输出一致，可互相解压）
+ * - zstd：标准 zstd 帧（写入原文长度，使用字典时帧内带字典 ID）
+ * - lz4：'L' 'Z' '4' 0x01 + 原文长度（4 字节大端）+ LZ4 块
+ */
+public final class PayloadCompressor implements AutoCloseable {
+
+    private static final byte[] ZSTD_MAGIC = {(byte) 0x28, (byte) 0xB5, (byte) 0x2F, (byte) 0xFD};
+    private static final byte[] LZ4_MAGIC = {'L', 'Z', '4', 0x01};
+    private static final int LZ4_HEADER = 8;
+    private static final int GZIP_HEADER = 10;
+    private static final int GZIP_TRAILER = 8;
+
+    /**
+     * 归还时超过该大小的缓冲不保留，避免个别超大正文长期占用内存
+     */
+    private static final int MAX_RETAINED_BUFFER = 4 * 1024 * 1024;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+    private static final LZ4Compressor LZ4_COMPRESSOR = LZ4.fastCompressor();
+    private static final LZ4SafeDecompressor LZ4_DECOMPRESSOR = LZ4.safeDecompressor();
+
+    private final CompressionCodec codec;
+    private final int zstdLevel;
+    private final ZstdDictCompress zstdDictCompress;
+    private final ZstdDictDecompress zstdDictDecompress;
+    private final long zstdDictId;
+    private final BlockingQueue<Context> pool;
+
+    /**
+     * 默认参数（zstd 级别 3、无字典、池大小为 CPU 核数）
+     */
+    public PayloadCompressor(CompressionCodec codec) {
+        this(codec, 3, null, 0);
+    }
+
+    /**
+     * @param codec          写入使用的算法
+     * @param zstdLevel      zstd 压缩级别
+     * @param zstdDictionary zstd 字典（可空）；读取带字典 ID 的 zstd 数据时必须提供同一字典
+     * @param poolSize       上下文池大小，&lt;=0 表示 CPU 核数
+     */
+    public PayloadCompressor(CompressionCodec codec, int zstdLevel, byte[] zstdDictionary, int poolSize) {
+        this.codec = codec == null ? CompressionCodec.gzip : codec;
+        this.zstdLevel = zstdLevel;
+        if (zstdDictionary != null && zstdDictionary.length > 0) {
+            this.zstdDictCompress = new ZstdDictCompress(zstdDictionary, zstdLevel);
+            this.zstdDictDecompress = new ZstdDictDecompress(zstdDictionary);
+            this.zstdDictId = Zstd.getDictIdFromDict(zstdDictionary);
+        } else {
+            this.zstdDictCompress = null;
+            this.zstdDictDecompress = null;
+            this.zstdDictId = 0;
+        }
+        int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.pool = new ArrayBlockingQueue<>(size);
+    }
+
+    /**
+     * 写入使用的算法（与 api_request_log.compression 等记录列一致）
+     */
+    public CompressionCodec codec() {
+        return codec;
+    }
+
+    /**
+     * 压缩字节数组；空输入返回空数组，none 原样返回
+     */
+    public byte[] compress(byte[] input) {
+        if (input == null || input.length == 0) return new byte[0];
+        if (codec == CompressionCodec.none) return input;
+        Context ctx = acquire();
+        try {
+            return switch (codec) {
+                case gzip -> gzip(input, ctx);
+                case zstd -> zstd(input, ctx);
+                case lz4 -> lz4(input, ctx);
+                default -> input;
+            };
+        } finally {
+            release(ctx);
+        }
+    }
+
+    /**
+     * 压缩字符串（UTF-8）
+     */
+    public byte[] compressString(String input) {
+        if (input == null) return new byte[0];
+        return compress(input.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解压（按魔数识别算法，无法识别时视为未压缩原样返回）
+     */
+    public byte[] decompress(byte[] data) {
+        if (data == null || data.length == 0) return new byte[0];
+        CompressionCodec actual = sniff(data);
+        if (actual == CompressionCodec.none) return data;
+        Context ctx = acquire();
+        try {
+            return switch (actual) {
+                case gzip -> gunzip(data, ctx);
+                case zstd -> unzstd(data, ctx);
+                case lz4 -> unlz4(data);
+                default -> data;
+            };
+        } finally {
+            release(ctx);
+        }
+    }
+
+    /**
+     * 解压为字符串（UTF-8）
+     */
+    public String decompressToString(byte[] data) {
+        if (data == null || data.length == 0) return "";
+        return new String(decompress(data), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 按头部魔数识别压缩算法
+     */
+    public static CompressionCodec sniff(byte[] data) {
+        if (data == null || data.length < 2) return CompressionCodec.none;
+        if (data[0] == (byte) 0x1F && data[1] == (byte) 0x8B) return CompressionCodec.gzip;
+        if (startsWith(data, ZSTD_MAGIC)) return CompressionCodec.zstd;
+        if (data.length >= LZ4_HEADER && startsWith(data, LZ4_MAGIC)) return CompressionCodec.lz4;
+        return CompressionCodec.none;
+    }
+
+    /**
+     * 基于样本训练 zstd 字典（样本应为同一供应商的典型原文，数量建议数百条以上）
+     *
+     * @param samples  样本
+     * @param dictSize 字典大小（字节），常用 16KB~112KB
+     */
+    public static byte[] trainZstdDictionary(List<byte[]> samples, int dictSize) {
+        long total = samples.stream().mapToLong(s -> s.length).sum();
+        ZstdDictTrainer trainer = new ZstdDictTrainer((int) Math.min(total, Integer.MAX_VALUE), dictSize);
+        for (byte[] sample : samples) {
+            if (!trainer.addSample(sample)) break;
+        }
+        return trainer.trainSamples();
+    }
+
+    /**
+     * 释放池中的上下文
+     */
+    @Override
+    public void close() {
+        Context ctx;
+        while ((ctx = pool.poll()) != null) {
+            ctx.close();
+        }
+        if (zstdDictCompress != null) zstdDictCompress.close();
+        if (zstdDictDecompress != null) zstdDictDecompress.close();
+    }
+
+    // ---------------- gzip ----------------
+
+    /**
+     * 复用 Deflater（nowrap）手工写 GZIP 头尾，输出与 GZIPOutputStream 一致
+     */
+    private byte[] gzip(byte[] input, Context ctx) {
+        Deflater deflater = ctx.deflater();
+        deflater.setInput(input);
+        deflater.finish();
+        // zlib deflateBound，一般一次写完
+        int bound = input.length + (input.length >> 12) + (input.length >> 14) + (input.length >> 25) + 13;
+        byte[] buf = ctx.buffer(GZIP_HEADER + bound + GZIP_TRAILER);
+        buf[0] = (byte) 0x1F;
+        buf[1] = (byte) 0x8B;
+        buf[2] = Deflater.DEFLATED;
+        Arrays.fill(buf, 3, GZIP_HEADER, (byte) 0);
+        buf[9] = (byte) 0xFF;
+        int pos = GZIP_HEADER;
+        while (!deflater.finished()) {
+            if (pos == buf.length) {
+                buf = ctx.grow(buf.length * 2, pos);
+            }
+            pos += deflater.deflate(buf, pos, buf.length - pos);
+        }
+        if (buf.length - pos < GZIP_TRAILER) {
+            buf = ctx.grow(pos + GZIP_TRAILER, pos);
+        }
+        CRC32 crc = ctx.crc();
+        crc.update(input, 0, input.length);
+        writeIntLE(buf, pos, (int) crc.getValue());
+        writeIntLE(buf, pos + 4, input.length);
+        return Arrays.copyOf(buf, pos + GZIP_TRAILER);
+    }
+
+    /**
+     * 单成员 GZIP 按尾部原文长度一次解压到目标数组；多成员或头部含扩展字段等情况退回流式解压
+     */
+    private byte[] gunzip(byte[] data, Context ctx) {
+        int offset = gzipHeaderLength(data);
+        int size = data.length >= GZIP_HEADER + GZIP_TRAILER ? readIntLE(data, data.length - 4) : -1;
+        if (offset < 0 || data.length - offset < GZIP_TRAILER || size <= 0) {
+            return gunzipStream(data);
+        }
+        Inflater inflater = ctx.inflater();
+        inflater.setInput(data, offset, data.length - offset - GZIP_TRAILER);
+        byte[] out = new byte[size];
+        try {
+            int n = 0;
+            while (n < size) {
+                int r = inflater.inflate(out, n, size - n);
+                if (r == 0) break;
+                n += r;
+            }
+            // 写满后再探测一次流结束；仍有输出或剩余输入说明尾部长度不可信（超过 4GB 回绕或多成员）
+            if (n == size && !inflater.finished() && inflater.inflate(ctx.probe, 0, 1) > 0) {
+                return gunzipStream(data);
+            }
+            if (n != size || !inflater.finished() || inflater.getRemaining() > 0) {
+                return gunzipStream(data);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("GZIP decompress error", e);
+        }
+        CRC32 crc = ctx.crc();
+        crc.update(out, 0, out.length);
+        if ((int) crc.getValue() != readIntLE(data, data.length - GZIP_TRAILER)) {
+            throw new IllegalStateException("GZIP decompress error: CRC mismatch");
+        }
+        return out;
+    }
+
+    /**
+     * GZIP 头长度（不支持 FHCRC 以外的保留标志时返回 -1）
+     */
+    private static int gzipHeaderLength(byte[] data) {
+        if (data.length < GZIP_HEADER || data[2] != Deflater.DEFLATED) return -1;
+        int flags = data[3] & 0xFF;
+        if ((flags & 0xE0) != 0) return -1;
+        int pos = GZIP_HEADER;
+        if ((flags & 0x04) != 0) {
+            if (pos + 2 > data.length) return -1;
+            pos += 2 + ((data[pos] & 0xFF) | (data[pos + 1] & 0xFF) << 8);
+        }
+        if ((flags & 0x08) != 0) pos = skipZeroTerminated(data, pos);
+        if (pos >= 0 && (flags & 0x10) != 0) pos = skipZeroTerminated(data, pos);
+        if (pos >= 0 && (flags & 0x02) != 0) pos += 2;
+        return pos >= 0 && pos <= data.length ? pos : -1;
+    }
+
+    private static int skipZeroTerminated(byte[] data, int pos) {
+        while (pos < data.length) {
+            if (data[pos++] == 0) return pos;
+        }
+        return -1;
+    }
+
+    private static byte[] gunzipStream(byte[] data) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data));
+             ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4)) {
+            in.transferTo(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("GZIP decompress error", e);
+        }
+    }
+
+    // ---------------- zstd ----------------
+
+    private byte[] zstd(byte[] input, Context ctx) {
+        ZstdCompressCtx zc = ctx.zstdCompress();
+        int bound = (int) Zstd.compressBound(input.length);
+        byte[] buf = ctx.buffer(bound);
+        int n = zc.compressByteArray(buf, 0, bound, input, 0, input.length);
+        return Arrays.copyOf(buf, n);
+    }
+
+    private byte[] unzstd(byte[] data, Context ctx) {
+        long size = Zstd.getFrameContentSize(data);
+        if (size < 0 || size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("ZSTD decompress error: unknown content size " + size);
+        }
+        long dictId = Zstd.getDictIdFromFrame(data);
+        if (dictId != 0 && dictId != zstdDictId) {
+            throw new IllegalStateException("ZSTD decompress error: dictionary " + dictId + " not loaded");
+        }
+        ZstdDecompressCtx zd = dictId != 0 ? ctx.zstdDictDecompress() : ctx.zstdDecompress();
+        byte[] out = new byte[(int) size];
+        int n = zd.decompressByteArray(out, 0, out.length, data, 0, data.length);
+        if (n != out.length) {
+            throw new IllegalStateException("ZSTD decompress error: expected " + size + " bytes, got " + n);
+        }
+        return out;
+    }
+
+    // ---------------- lz4 ----------------
+
+    private byte[] lz4(byte[] input, Context ctx) {
+        int max = LZ4_COMPRESSOR.maxCompressedLength(input.length);
+        byte[] buf = ctx.buffer(LZ4_HEADER + max);
+        System.arraycopy(LZ4_MAGIC, 0, buf, 0, LZ4_MAGIC.length);
+        writeIntBE(buf, LZ4_MAGIC.length, input.length);
+        int n = LZ4_COMPRESSOR.compress(input, 0, input.length, buf, LZ4_HEADER, max);
+        return Arrays.copyOf(buf, LZ4_HEADER + n);
+    }
+
+    private static byte[] unlz4(byte[] data) {
+        int size = readIntBE(data, LZ4_MAGIC.length);
+        if (size < 0) {
+            throw new IllegalStateException("LZ4 decompress error: invalid length " + size);
+        }
+        byte[] out = new byte[size];
+        int n = LZ4_DECOMPRESSOR.decompress(data, LZ4_HEADER, data.length - LZ4_HEADER, out, 0, size);
+        if (n != size) {
+            throw new IllegalStateException("LZ4 decompress error: expected " + size + " bytes, got " + n);
+        }
+        return out;
+    }
+
+    // ---------------- 上下文池 ----------------
+
+    private Context acquire() {
+        Context ctx = pool.poll();
+        return ctx != null ? ctx : new Context();
+    }
+
+    private void release(Context ctx) {
+        if (ctx.buffer != null && ctx.buffer.length > MAX_RETAINED_BUFFER) {
+            ctx.buffer = null;
+        }
+        if (!pool.offer(ctx)) {
+            ctx.close();
+        }
+    }
+
+    /**
+     * 单线程独占的压缩上下文，各算法对象按需创建
+     */
+    private final class Context {
+
+        private final byte[] probe = new byte[1];
+        private byte[] buffer;
+        private Deflater deflater;
+        private Inflater inflater;
+        private CRC32 crc;
+        private ZstdCompressCtx zstdCompress;
+        private ZstdDecompressCtx zstdDecompress;
+        private ZstdDecompressCtx zstdDictDecompress;
+
+        byte[] buffer(int minSize) {
+            if (buffer == null || buffer.length < minSize) {
+                buffer = new byte[minSize];
+            }
+            return buffer;
+        }
+
+        /**
+         * 扩容并保留前 used 字节
+         */
+        byte[] grow(int minSize, int used) {
+            buffer = Arrays.copyOf(buffer, Math.max(minSize, used));
+            return buffer;
+        }
+
+        Deflater deflater() {
+            if (deflater == null) {
+                deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            } else {
+                deflater.reset();
+            }
+            return deflater;
+        }
+
+        Inflater inflater() {
+            if (inflater == null) {
+                inflater = new Inflater(true);
+            } else {
+                inflater.reset();
+            }
+            return inflater;
+        }
+
+        CRC32 crc() {
+            if (crc == null) {
+                crc = new CRC32();
+            } else {
+                crc.reset();
+            }
+            return crc;
+        }
+
+        ZstdCompressCtx zstdCompress() {
+            if (zstdCompress == null) {
+                zstdCompress = new ZstdCompressCtx();
+                zstdCompress.setLevel(zstdLevel);
+                zstdCompress.setContentSize(true);
+                if (zstdDictCompress != null) {
+                    zstdCompress.loadDict(zstdDictCompress);
+                }
+            }
+            return zstdCompress;
+        }
+
+        ZstdDecompressCtx zstdDecompress() {
+            if (zstdDecompress == null) {
+                zstdDecompress = new ZstdDecompressCtx();
+            }
+            return zstdDecompress;
+        }
+
+        ZstdDecompressCtx zstdDictDecompress() {
+            if (zstdDictDecompress == null) {
+                zstdDictDecompress = new ZstdDecompressCtx();
+                zstdDictDecompress.loadDict(PayloadCompressor.this.zstdDictDecompress);
+            }
+            return zstdDictDecompress;
+        }
+
+        void close() {
+            if (deflater != null) deflater.end();
+            if (inflater != null) inflater.end();
+            if (zstdCompress != null) zstdCompress.close();
+            if (zstdDecompress != null) zstdDecompress.close();
+            if (zstdDictDecompress != null) zstdDictDecompress.close();
+        }
+    }
+
+    // ---------------- 字节工具 ----------------
+
+    private static boolean startsWith(byte[] data, byte[] magic) {
+        if (data.length < magic.length) return false;
+        for (int i = 0; i < magic.length; i++) {
+            if (data[i] != magic[i]) return false;
+        }
+        return true;
+    }
+
+    private static void writeIntLE(byte[] buf, int pos, int v) {
+        buf[pos] = (byte) v;
+        buf[pos + 1] = (byte) (v >>> 8);
+        buf[pos + 2] = (byte) (v >>> 16);
+        buf[pos + 3] = (byte) (v >>> 24);
+    }
+
+    private static int readIntLE(byte[] buf, int pos) {
+        return (buf[pos] & 0xFF) | (buf[pos + 1] & 0xFF) << 8 | (buf[pos + 2] & 0xFF) << 16 | (buf[pos + 3] & 0xFF) << 24;
+    }
+
+    private static void writeIntBE(byte[] buf, int pos, int v) {
+        buf[pos] = (byte) (v >>> 24);
+        buf[pos + 1] = (byte) (v >>> 16);
+        buf[pos + 2] = (byte) (v >>> 8);
+        buf[pos + 3] = (byte) v;
+    }
+
+    private static int readIntBE(byte[] buf, int pos) {
+        return (buf[pos] & 0xFF) << 24 | (buf[pos + 1] & 0xFF) << 16 | (buf[pos + 2] & 0xFF) << 8 | (buf[pos + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,116 @@
+package com.heytrip.hotel.search.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 按时间分桶的布隆过滤器（进程内，用于请求重放检测）
+ * <p>
+ * - 元素按其时间戳落入对应的时间桶，每个桶是一个独立的布隆过滤器
+ * - 桶以环形数组复用：时间戳超出窗口的旧桶在下次落入同一槽位时整体清空，无需逐个过期
+ * - 只有“可能存在”（存在误判，概率由 fpp 决定）与“一定不存在”两种结果；误判表现为把新请求当作重放
+ * - 每个桶独立加锁，不同时间桶之间无竞争
+ */
+public final class TimeBucketedBloomFilter {
+
+    private final long bucketSeconds;
+    private final int numHashFunctions;
+    private final int numBits;
+    private final Bucket[] ring;
+
+    /**
+     * @param windowSeconds     时间窗口（秒），早于 now - window 的元素视为过期
+     * @param bucketSeconds     每个桶覆盖的秒数
+     * @param expectedPerBucket 每个桶预计元素数
+     * @param fpp               期望误判率
+     */
+    public TimeBucketedBloomFilter(long windowSeconds, long bucketSeconds, long expectedPerBucket, double fpp) {
+        if (windowSeconds <= 0 || bucketSeconds <= 0 || expectedPerBucket <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("invalid bloom filter settings");
+        }
+        this.bucketSeconds = bucketSeconds;
+        long bits = (long) Math.ceil(-expectedPerBucket * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.numBits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, bits));
+        this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / expectedPerBucket * Math.log(2)));
+        // 时间戳允许在 now 前后各 window 秒内，槽位数需覆盖两个窗口，避免仍有效的桶被复用
+        int slots = (int) (2 * ((windowSeconds + bucketSeconds - 1) / bucketSeconds) + 2);
+        this.ring = new Bucket[slots];
+        for (int i = 0; i < slots; i++) {
+            ring[i] = new Bucket(numBits);
+        }
+    }
+
+    /**
+     * 记录元素，元素（可能）已存在时返回 false
+     *
+     * @param key              元素
+     * @param timestampSeconds 元素时间戳（秒）
+     * @return true-首次出现，false-可能重复
+     */
+    public boolean putIfAbsent(String key, long timestampSeconds) {
+        long bucketId = Math.floorDiv(timestampSeconds, bucketSeconds);
+        Bucket bucket = ring[(int) Math.floorMod(bucketId, (long) ring.length)];
+        long hash1 = hash(key);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        synchronized (bucket) {
+            if (bucket.id != bucketId) {
+                bucket.reset(bucketId);
+            }
+            boolean changed = false;
+            long combined = hash1;
+            for (int i = 0; i < numHashFunctions; i++) {
+                int index = (int) ((combined & Long.MAX_VALUE) % numBits);
+                changed |= bucket.set(index);
+                combined += hash2;
+            }
+            return changed;
+        }
+    }
+
+    private static long hash(String key) {
+        // FNV-1a 64 + murmur3 fmix64
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xFF);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Bucket {
+
+        private final long[] bits;
+        private long id = Long.MIN_VALUE;
+
+        Bucket(int numBits) {
+            this.bits = new long[(numBits + 63) >>> 6];
+        }
+
+        void reset(long newId) {
+            Arrays.fill(bits, 0L);
+            id = newId;
+        }
+
+        /**
+         * 置位，返回该位此前是否为 0
+         */
+        boolean set(int index) {
+            int word = index >>> 6;
+            long mask = 1L << index;
+            if ((bits[word] & mask) != 0) {
+                return false;
+            }
+            bits[word] |= mask;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.heytrip.hotel.search.common.interceptor;
+
+import com.heytrip.hotel.search.common.config.AuthConfig;
+import com.heytrip.hotel.search.common.exception.AuthException;
+import com.heytrip.hotel.search.common.util.Md5Signer;
+import com.heytrip.hotel.search.domain.entity.App;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * APP签名认证拦截器测试
+ */
+class AppSignInterceptorTest {
+
+    private static final String APP_ID = "app1";
+    private static final String SECRET = "secret1";
+
+    private AppCredentialCache appCredentialCache;
+    private AuthConfig authConfig;
+    private AppSignInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        appCredentialCache = mock(AppCredentialCache.class);
+        authConfig = new AuthConfig();
+        App app = new App();
+        app.setAppId(APP_ID);
+        app.setSecretKey(SECRET);
+        app.setRateLimit(100);
+        app.setTimeout(-1);
+        app.setCreateAt(LocalDateTime.now());
+        when(appCredentialCache.get(APP_ID)).thenReturn(app);
+        interceptor = newInterceptor();
+    }
+
+    @Test
+    void testLegacySignWithoutNonce() throws Exception {
+        long ts = now();
+        MockHttpServletRequest request = request(APP_ID, Md5Signer.buildSign(APP_ID, SECRET, ts), ts, null);
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+        assertEquals(APP_ID, request.getAttribute("APP_ID"));
+        assertEquals(100, request.getAttribute("RATE_LIMIT"));
+        // 未携带 nonce 时不做重放检测
+        assertTrue(interceptor.preHandle(request(APP_ID, Md5Signer.buildSign(APP_ID, SECRET, ts), ts, null),
+                new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void testRejectsReplayedNonce() throws Exception {
+        long ts = now();
+        String sign = Md5Signer.buildSign(APP_ID, SECRET, ts, "n1");
+        assertTrue(interceptor.preHandle(request(APP_ID, sign, ts, "n1"), new MockHttpServletResponse(), null));
+
+        AuthException e = assertThrows(AuthException.class,
+                () -> interceptor.preHandle(request(APP_ID, sign, ts, "n1"), new MockHttpServletResponse(), null));
+        assertEquals("重复请求", e.getMessage());
+
+        String other = Md5Signer.buildSign(APP_ID, SECRET, ts, "n2");
+        assertTrue(interceptor.preHandle(request(APP_ID, other, ts, "n2"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void testSignMustCoverNonce() {
+        long ts = now();
+        // 旧签名 + 任意 nonce 不能通过校验
+        String legacySign = Md5Signer.buildSign(APP_ID, SECRET, ts);
+        AuthException e = assertThrows(AuthException.class,
+                () -> interceptor.preHandle(request(APP_ID, legacySign, ts, "n1"), new MockHttpServletResponse(), null));
+        assertEquals("签名验证失败", e.getMessage());
+    }
+
+    @Test
+    void testFailedSignDoesNotConsumeNonce() throws Exception {
+        long ts = now();
+        assertThrows(AuthException.class,
+                () -> interceptor.preHandle(request(APP_ID, "bad", ts, "n1"), new MockHttpServletResponse(), null));
+        String sign = Md5Signer.buildSign(APP_ID, SECRET, ts, "n1");
+        assertTrue(interceptor.preHandle(request(APP_ID, sign, ts, "n1"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void testUnknownApp() {
+        long ts = now();
+        AuthException e = assertThrows(AuthException.class,
+                () -> interceptor.preHandle(request("unknown", "x", ts, null), new MockHttpServletResponse(), null));
+        assertEquals("应用不存在", e.getMessage());
+    }
+
+    @Test
+    void testRequireNonce() {
+        authConfig.setRequireNonce(true);
+        long ts = now();
+        AuthException e = assertThrows(AuthException.class,
+                () -> interceptor.preHandle(request(APP_ID, Md5Signer.buildSign(APP_ID, SECRET, ts), ts, null),
+                        new MockHttpServletResponse(), null));
+        assertEquals("缺少nonce", e.getMessage());
+    }
+
+    private AppSignInterceptor newInterceptor() {
+        AppSignInterceptor i = new AppSignInterceptor(appCredentialCache, authConfig);
+        i.init();
+        return i;
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static MockHttpServletRequest request(String appId, String sign, long ts, String nonce) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("app", appId);
+        request.addHeader("sign", sign);
+        request.addHeader("timestamp", String.valueOf(ts));
+        if (nonce != null) {
+            request.addHeader("nonce", nonce);
+        }
+        return request;
+    }
+}
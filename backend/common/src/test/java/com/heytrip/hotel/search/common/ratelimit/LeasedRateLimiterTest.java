@@ -0,0 +1,129 @@
+package com.heytrip.hotel.search.common.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 租约式限流器测试（内存令牌桶替身，按测试时钟补充令牌）
+ */
+class LeasedRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private InMemoryPermitStore store;
+    private LeasedRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryPermitStore();
+        limiter = newLimiter(0.1);
+    }
+
+    @Test
+    void testServesRequestsFromLocalLease() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire("app:k", 1000));
+        }
+        // 每次租用 10% = 100 个令牌，100 个请求只访问一次共享桶
+        assertEquals(List.of(100L), store.requests);
+        assertTrue(limiter.tryAcquire("app:k", 1000));
+        assertEquals(2, store.requests.size());
+    }
+
+    @Test
+    void testRejectsWhenBucketEmpty() {
+        int allowed = 0;
+        for (int i = 0; i < 50; i++) {
+            if (limiter.tryAcquire("app:k", 20)) {
+                allowed++;
+            }
+        }
+        assertEquals(20, allowed);
+        assertFalse(limiter.tryAcquire("app:k", 20));
+
+        // 一秒后桶补满
+        now.addAndGet(1000);
+        assertTrue(limiter.tryAcquire("app:k", 20));
+    }
+
+    @Test
+    void testExpiredLeaseIsDiscarded() {
+        assertTrue(limiter.tryAcquire("app:k", 1000));
+        assertEquals(1, store.requests.size());
+
+        now.addAndGet(1000);
+        assertTrue(limiter.tryAcquire("app:k", 1000));
+        assertEquals(2, store.requests.size(), "过期租约剩余令牌作废，重新租用");
+    }
+
+    @Test
+    void testPartialGrantAcrossNodes() {
+        LeasedRateLimiter other = newLimiter(0.1);
+        // 另一节点先消耗 95 个令牌
+        for (int i = 0; i < 95; i++) {
+            assertTrue(other.tryAcquire("app:k", 100));
+        }
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (limiter.tryAcquire("app:k", 100)) {
+                allowed++;
+            }
+        }
+        // 另一节点租约中剩余 5 个令牌未使用，本节点只能拿到 0 个
+        assertEquals(0, allowed);
+    }
+
+    @Test
+    void testZeroLeaseRatioAcquiresPerRequest() {
+        LeasedRateLimiter exact = newLimiter(0);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(exact.tryAcquire("app:k", 1000));
+        }
+        assertEquals(List.of(1L, 1L, 1L, 1L, 1L), store.requests);
+    }
+
+    @Test
+    void testRateChangeDropsLease() {
+        assertTrue(limiter.tryAcquire("app:k", 1000));
+        assertTrue(limiter.tryAcquire("app:k", 200));
+        assertEquals(List.of(100L, 20L), store.requests);
+    }
+
+    private LeasedRateLimiter newLimiter(double leaseRatio) {
+        LeasedRateLimiter l = new LeasedRateLimiter(store, now::get);
+        ReflectionTestUtils.setField(l, "leaseRatio", leaseRatio);
+        l.init();
+        return l;
+    }
+
+    /**
+     * 与 Redis 脚本语义一致的内存令牌桶
+     */
+    private class InMemoryPermitStore implements PermitStore {
+
+        final List<Long> requests = new ArrayList<>();
+        final Map<String, double[]> buckets = new HashMap<>();
+
+        @Override
+        public synchronized long acquire(String key, int permitsPerSecond, long requested) {
+            requests.add(requested);
+            long t = now.get();
+            double[] bucket = buckets.computeIfAbsent(key, k -> new double[]{permitsPerSecond, t});
+            if (t > bucket[1]) {
+                bucket[0] = Math.min(permitsPerSecond, bucket[0] + (t - bucket[1]) * permitsPerSecond / 1000.0);
+                bucket[1] = t;
+            }
+            long granted = Math.max(0, Math.min(requested, (long) Math.floor(bucket[0])));
+            bucket[0] -= granted;
+            return granted;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.heytrip.hotel.search.common.ratelimit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.Redisson;
+import org.redisson.api.RedissonClient;
+import org.redisson.config.Config;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Redis 令牌桶脚本测试（内嵌 Redis，当前平台无法启动时跳过）
+ */
+class RedisPermitStoreTest {
+
+    private static RedisServer redisServer;
+    private static RedissonClient redissonClient;
+
+    private RedisPermitStore store;
+
+    @BeforeAll
+    static void startRedis() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            int port = socket.getLocalPort();
+            socket.close();
+            redisServer = new RedisServer(port);
+            redisServer.start();
+            Config config = new Config();
+            config.useSingleServer().setAddress("redis://127.0.0.1:" + port);
+            redissonClient = Redisson.create(config);
+        } catch (Exception e) {
+            redisServer = null;
+        }
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        if (redissonClient != null) {
+            redissonClient.shutdown();
+        }
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(redissonClient != null, "内嵌Redis无法启动");
+        redissonClient.getKeys().flushall();
+        store = new RedisPermitStore(redissonClient);
+    }
+
+    @Test
+    void testNewBucketStartsFull() {
+        assertEquals(10, store.acquire("app:k", 100, 10));
+        long ttl = redissonClient.getKeys().remainTimeToLive(RedisPermitStore.KEY_PREFIX + "app:k");
+        assertTrue(ttl > 0 && ttl <= RedisPermitStore.IDLE_TTL_MILLIS);
+    }
+
+    @Test
+    void testPartialGrantThenEmpty() {
+        assertEquals(5, store.acquire("app:k", 5, 10));
+        assertEquals(0, store.acquire("app:k", 5, 10));
+    }
+
+    @Test
+    void testRefillOverTime() throws Exception {
+        assertEquals(10, store.acquire("app:k", 10, 10));
+        Thread.sleep(250);
+        long refilled = store.acquire("app:k", 10, 10);
+        assertTrue(refilled >= 2 && refilled <= 4, "按每秒令牌数连续补充: " + refilled);
+    }
+
+    @Test
+    void testReloadsScriptAfterFlush() {
+        assertEquals(1, store.acquire("app:k", 10, 1));
+        redissonClient.getScript().scriptFlush();
+        assertEquals(1, store.acquire("app:k", 10, 1));
+    }
+
+    /**
+     * 租约式限流器 + Redis：一个租约只访问一次 Redis，总放行数不超过桶容量（加上测试期间的补充）
+     */
+    @Test
+    void testLeasedLimiterRoundTrips() {
+        AtomicInteger roundTrips = new AtomicInteger();
+        PermitStore counting = (key, rate, requested) -> {
+            roundTrips.incrementAndGet();
+            return store.acquire(key, rate, requested);
+        };
+        LeasedRateLimiter limiter = new LeasedRateLimiter(counting);
+        ReflectionTestUtils.setField(limiter, "leaseRatio", 0.1);
+        limiter.init();
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 200; i++) {
+            assertTrue(limiter.tryAcquire("app:k", 200), "满桶应放行 200 个请求");
+        }
+        assertEquals(10, roundTrips.get(), "按 20 个令牌一批租用");
+
+        int extra = 0;
+        for (int i = 0; i < 100; i++) {
+            if (limiter.tryAcquire("app:k", 200)) {
+                extra++;
+            }
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue(extra <= elapsed * 200 / 1000 + 1, "超出桶容量的放行只能来自补充的令牌: " + extra);
+    }
+}
@@ -0,0 +1,135 @@
+package com.heytrip.hotel.search.common.util;
+
+import com.heytrip.hotel.search.common.config.AmapIpConfig;
+import com.maxmind.geoip2.DatabaseReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * GeoLite2 数据库热替换测试
+ */
+class GeoLite2DatabaseTest {
+
+    private static final String BUNDLED = "classpath:geolite2/GeoLite2-City.mmdb";
+
+    @TempDir
+    Path dir;
+
+    private AmapIpConfig amapIpConfig;
+    private DefaultResourceLoader resourceLoader;
+    private GeoLite2Database database;
+
+    @BeforeEach
+    void setUp() {
+        amapIpConfig = new AmapIpConfig();
+        // 测试中手动触发检查，不开启后台监听
+        amapIpConfig.setGeolite2WatchIntervalSeconds(0);
+        resourceLoader = new DefaultResourceLoader();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Test
+    void testMissingDatabase() {
+        amapIpConfig.setGeolite2("file:" + dir.resolve("missing.mmdb"));
+        database = new GeoLite2Database(amapIpConfig, resourceLoader);
+        database.init();
+
+        assertNull(database.reader());
+        assertFalse(database.status().loaded());
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> database.reload().get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    @Test
+    void testCorruptDatabaseKeepsCurrentReader() throws Exception {
+        Path file = dir.resolve("GeoLite2-City.mmdb");
+        Files.writeString(file, "not a maxmind database");
+        amapIpConfig.setGeolite2("file:" + file);
+        database = new GeoLite2Database(amapIpConfig, resourceLoader);
+        database.init();
+
+        assertNull(database.reader());
+        database.reloadIfChanged();
+        database.reloadIfChanged();
+        assertNull(database.reader());
+    }
+
+    /**
+     * 文件路径按内存映射打开；文件替换且稳定后原子切换，旧读取器延迟关闭仍可查询
+     */
+    @Test
+    void testMemoryMappedHotSwap() throws Exception {
+        Resource bundled = resourceLoader.getResource(BUNDLED);
+        assumeTrue(bundled.exists(), "GeoLite2数据库未打包");
+
+        Path file = dir.resolve("GeoLite2-City.mmdb");
+        copy(bundled, file);
+        amapIpConfig.setGeolite2("file:" + file);
+        database = new GeoLite2Database(amapIpConfig, resourceLoader);
+        database.init();
+
+        DatabaseReader first = database.reader();
+        assertNotNull(first);
+        assertTrue(database.status().memoryMapped());
+
+        // 签名未变化不重新加载
+        database.reloadIfChanged();
+        assertSame(first, database.reader());
+
+        // 原子替换文件（rename），第一次检查记录签名，第二次确认稳定后加载
+        Path staging = dir.resolve("GeoLite2-City.mmdb.tmp");
+        copy(bundled, staging);
+        Files.setLastModifiedTime(staging, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+        Files.move(staging, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        database.reloadIfChanged();
+        assertSame(first, database.reader());
+        database.reloadIfChanged();
+        DatabaseReader second = database.reader();
+        assertNotSame(first, second);
+
+        InetAddress london = InetAddress.getByName("81.2.69.160");
+        assertEquals("GB", second.city(london).getCountry().getIsoCode());
+        assertEquals("GB", first.city(london).getCountry().getIsoCode());
+    }
+
+    @Test
+    void testClasspathFallback() {
+        assumeTrue(resourceLoader.getResource(BUNDLED).exists(), "GeoLite2数据库未打包");
+        amapIpConfig.setGeolite2(BUNDLED);
+        database = new GeoLite2Database(amapIpConfig, resourceLoader);
+        database.init();
+
+        assertNotNull(database.reader());
+        assertTrue(database.status().loaded());
+    }
+
+    private static void copy(Resource resource, Path target) throws Exception {
+        try (InputStream in = resource.getInputStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.heytrip.hotel.search.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IP地址字面量工具测试
+ */
+class IpAddressesTest {
+
+    @Test
+    void testParseMatchesInetAddress() throws Exception {
+        for (String ip : List.of("1.2.3.4", "8.8.8.8", "255.255.255.255", "2001:db8::1", "1:2:3:4:5:6:7:8",
+                "1::8", "::2:3:4:5:6:7:8", "1:2:3:4:5:6:1.2.3.4", "fe80::1%eth0")) {
+            byte[] expected = InetAddress.getByName(ip).getAddress();
+            assertArrayEquals(expected, IpAddresses.parse(ip), ip);
+        }
+        // IPv4映射地址按IPv4处理
+        assertArrayEquals(new byte[]{8, 8, 8, 8}, IpAddresses.parse("::ffff:8.8.8.8"));
+    }
+
+    @Test
+    void testParseRejectsInvalid() {
+        for (String ip : List.of("", " ", "1.2.3", "1.2.3.4.5", "256.1.1.1", "1.2.3.", ".1.2.3", "a.b.c.d",
+                "1:2:3:4:5:6:7:8:9", "1::2::3", "1:::2", "12345::", ":1::", "1:2:3:4:5:6:7::8", "example.com")) {
+            assertNull(IpAddresses.parse(ip), ip);
+        }
+        assertNull(IpAddresses.parse(null));
+    }
+
+    @Test
+    void testIsPrivate() {
+        for (String ip : List.of("0.0.0.0", "10.1.1.1", "100.64.0.1", "127.0.0.1", "169.254.1.1", "172.16.0.1",
+                "172.31.255.255", "192.168.1.1", "224.0.0.1", "255.255.255.255",
+                "::", "::1", "fc00::1", "fd12:3456::1", "fe80::1", "ff02::1", "::ffff:10.0.0.1")) {
+            assertTrue(IpAddresses.isPrivate(IpAddresses.parse(ip)), ip);
+        }
+        for (String ip : List.of("1.2.3.4", "8.8.8.8", "100.128.0.1", "172.32.0.1", "113.108.208.1",
+                "2001:db8::1", "2400:3200::1", "::ffff:8.8.8.8")) {
+            assertFalse(IpAddresses.isPrivate(IpAddresses.parse(ip)), ip);
+        }
+    }
+
+    @Test
+    void testPrefixKey() {
+        long v4 = IpAddresses.prefixKey(IpAddresses.parse("113.108.208.1"));
+        assertEquals(v4, IpAddresses.prefixKey(IpAddresses.parse("113.108.208.254")));
+        assertNotEquals(v4, IpAddresses.prefixKey(IpAddresses.parse("113.108.209.1")));
+
+        long v6 = IpAddresses.prefixKey(IpAddresses.parse("2400:3200:1:2::1"));
+        assertEquals(v6, IpAddresses.prefixKey(IpAddresses.parse("2400:3200:1:ffff::abcd")));
+        assertNotEquals(v6, IpAddresses.prefixKey(IpAddresses.parse("2400:3200:2::1")));
+
+        // IPv4 与 IPv6 前缀键不冲突
+        assertNotEquals(IpAddresses.prefixKey(IpAddresses.parse("0.0.0.1")),
+                IpAddresses.prefixKey(IpAddresses.parse("::2")));
+    }
+}
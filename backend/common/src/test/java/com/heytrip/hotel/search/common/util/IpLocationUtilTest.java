@@ -3,128 +3,207 @@ package com.heytrip.hotel.search.common.util;
 import com.heytrip.hotel.search.common.config.AmapIpConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 /**
- * IP定位工具测试
+ * IP定位工具测试（离线：本地库/远程API均为桩实现，补全任务在调用线程执行）
  */
 class IpLocationUtilTest {
-    
-    private IpLocationUtil ipLocationUtil;
-    
+
+    private static final String GEOLITE2 = "classpath:geolite2/GeoLite2-City.mmdb";
+
+    private AmapIpConfig amapIpConfig;
+    private AtomicInteger localCalls;
+    private AtomicInteger remoteCalls;
+    private List<Runnable> pendingEnrichments;
+
     @BeforeEach
     void setUp() {
-        // 手动创建配置对象
-        AmapIpConfig amapIpConfig = new AmapIpConfig();
+        amapIpConfig = new AmapIpConfig();
         amapIpConfig.setBaseUrl("https://restapi.amap.com/v3/ip");
-        amapIpConfig.setKey("cd1e05524701a9985c9ffb00a03de316");
-        
-        // 创建工具类实例
-        ipLocationUtil = new IpLocationUtil(amapIpConfig);
+        amapIpConfig.setGeolite2(GEOLITE2);
+        localCalls = new AtomicInteger();
+        remoteCalls = new AtomicInteger();
+        pendingEnrichments = new ArrayList<>();
     }
-    
+
     /**
-     * 测试国内IP解析（应使用高德API）
+     * 本地库返回完整结果：同一 /24 前缀只解析一次，不触发远程补全
      */
     @Test
-    void testLocateChinaIp() {
-        // 测试广州电信IP
-        IpLocation result = ipLocationUtil.locate("113.108.208.1");
-        
-        assertNotNull(result);
-        assertTrue(result.getSuccess(), "解析应该成功");
-        assertEquals("amap", result.getSource(), "国内IP应使用高德API");
-        assertNotNull(result.getCity(), "城市不应为空");
-        assertNotNull(result.getCountryEnum(), "国家枚举不应为空");
-        assertNotNull(result.getLatitude(), "纬度不应为空");
-        assertNotNull(result.getLongitude(), "经度不应为空");
-        
-        System.out.println("国内IP解析结果：");
-        System.out.println("IP: " + result.getIp());
-        System.out.println("国家: " + result.getCountry());
-        System.out.println("国家代码: " + result.getCountryCode());
-        System.out.println("国家枚举: " + result.getCountryEnum());
-        System.out.println("所属洲: " + (result.getCountryEnum() != null ? result.getCountryEnum().getContinent() : "未知"));
-        System.out.println("省份: " + result.getProvince());
-        System.out.println("城市: " + result.getCity());
-        System.out.println("坐标: (" + result.getLatitude() + ", " + result.getLongitude() + ")");
-        System.out.println("来源: " + result.getSource());
+    void testPrefixCacheReusedWithinSlash24() {
+        IpLocationUtil util = newUtil(ip -> {
+            localCalls.incrementAndGet();
+            return location(ip, "geolite2", "广东", "广州");
+        }, pendingEnrichments::add);
+
+        IpLocation first = util.locate("113.108.208.1");
+        IpLocation second = util.locate("113.108.208.77");
+
+        assertTrue(first.getSuccess());
+        assertEquals("113.108.208.1", first.getIp());
+        assertEquals("113.108.208.77", second.getIp());
+        assertEquals("广州", second.getCity());
+        assertEquals(1, localCalls.get());
+        assertEquals(1, util.prefixCacheSize());
+        assertTrue(pendingEnrichments.isEmpty(), "完整结果不应触发远程补全");
+
+        util.locate("113.108.209.1");
+        assertEquals(2, localCalls.get());
     }
-    
+
     /**
-     * 测试国外IP解析（应使用备用API）
+     * 本地库未命中：请求路径不访问远程API，补全完成后同前缀请求命中
      */
     @Test
-    void testLocateForeignIp() {
-        // 测试印度AWS IP
-        IpLocation result = ipLocationUtil.locate("43.205.50.170");
-        
-        assertNotNull(result);
-        assertTrue(result.getSuccess(), "解析应该成功");
-        assertNotEquals("amap", result.getSource(), "国外IP不应使用高德API");
-        assertNotNull(result.getCountry(), "国家不应为空");
-        assertNotNull(result.getCity(), "城市不应为空");
-        assertNotNull(result.getLatitude(), "纬度不应为空");
-        assertNotNull(result.getLongitude(), "经度不应为空");
-        // 国家枚举可能为null（如果未匹配到）
-        
-        System.out.println("\n国外IP解析结果：");
-        System.out.println("IP: " + result.getIp());
-        System.out.println("国家: " + result.getCountry());
-        System.out.println("国家代码: " + result.getCountryEnum());
-        System.out.println("国家枚举: " + result.getCountryEnum());
-        System.out.println("所属洲: " + (result.getCountryEnum() != null ? result.getCountryEnum().getContinent() : "未知"));
-        System.out.println("省份: " + result.getProvince());
-        System.out.println("城市: " + result.getCity());
-        System.out.println("坐标: (" + result.getLatitude() + ", " + result.getLongitude() + ")");
-        System.out.println("来源: " + result.getSource());
+    void testRemoteEnrichmentIsAsync() {
+        IpLocationUtil util = newUtil(ip -> {
+            localCalls.incrementAndGet();
+            return IpLocation.builder().ip(ip).success(false).errorMessage("miss").build();
+        }, pendingEnrichments::add);
+
+        IpLocation miss = util.locate("43.205.50.170");
+        assertFalse(miss.getSuccess());
+        assertEquals(0, remoteCalls.get(), "远程API不应在请求路径上调用");
+        assertEquals(1, pendingEnrichments.size());
+
+        // 补全任务在途时同前缀不重复提交
+        util.locate("43.205.50.171");
+        assertEquals(1, pendingEnrichments.size());
+        assertEquals(1, localCalls.get());
+
+        pendingEnrichments.get(0).run();
+        assertEquals(1, remoteCalls.get(), "拿到完整结果后不再查询后续API");
+
+        IpLocation hit = util.locate("43.205.50.9");
+        assertTrue(hit.getSuccess());
+        assertEquals("remote", hit.getSource());
+        assertEquals("43.205.50.9", hit.getIp());
+        assertEquals(1, localCalls.get());
+    }
+
+    /**
+     * 本地结果有效但缺省份：先返回本地结果，补全后替换为更完整的结果
+     */
+    @Test
+    void testPartialLocalResultUpgraded() {
+        IpLocationUtil util = newUtil(ip -> location(ip, "geolite2", null, "孟买"), Runnable::run);
+
+        IpLocation result = util.locate("43.205.50.170");
+        assertTrue(result.getSuccess());
+
+        IpLocation upgraded = util.locate("43.205.50.171");
+        assertEquals("remote", upgraded.getSource());
+        assertEquals("广东", upgraded.getProvince());
     }
-    
+
     /**
-     * 测试空IP
+     * IPv6 按 /48 聚合
      */
+    @Test
+    void testIpv6PrefixCache() {
+        IpLocationUtil util = newUtil(ip -> {
+            localCalls.incrementAndGet();
+            return location(ip, "geolite2", "北京", "北京");
+        }, Runnable::run);
+
+        assertTrue(util.locate("2400:3200:1:2::1").getSuccess());
+        assertTrue(util.locate("2400:3200:1:ffff::abcd").getSuccess());
+        assertEquals(1, localCalls.get());
+
+        util.locate("2400:3200:2::1");
+        assertEquals(2, localCalls.get());
+    }
+
+    @Test
+    void testPrivateAndInvalidIpSkipped() {
+        IpLocationUtil util = newUtil(ip -> {
+            localCalls.incrementAndGet();
+            return location(ip, "geolite2", "广东", "广州");
+        }, Runnable::run);
+
+        for (String ip : List.of("10.0.0.1", "192.168.1.1", "172.16.5.5", "127.0.0.1", "100.64.1.1",
+                "::1", "fe80::1", "fd00::1", "::ffff:10.1.1.1", "999.1.1.1", "abc", "1.2.3")) {
+            IpLocation result = util.locate(ip);
+            assertFalse(result.getSuccess(), ip);
+            assertNotNull(result.getErrorMessage(), ip);
+        }
+        assertEquals(0, localCalls.get());
+        assertEquals(0, remoteCalls.get());
+    }
+
     @Test
     void testLocateEmptyIp() {
-        IpLocation result = ipLocationUtil.locate("");
-        
+        IpLocation result = newUtil(ip -> null, Runnable::run).locate("");
+
         assertNotNull(result);
         assertFalse(result.getSuccess());
         assertNotNull(result.getErrorMessage());
     }
-    
-    /**
-     * 测试null IP
-     */
+
     @Test
     void testLocateNullIp() {
-        IpLocation result = ipLocationUtil.locate(null);
-        
+        IpLocation result = newUtil(ip -> null, Runnable::run).locate(null);
+
         assertNotNull(result);
         assertFalse(result.getSuccess());
         assertNotNull(result.getErrorMessage());
     }
-    
+
     /**
-     * 测试 海外IP
+     * 使用打包的 GeoLite2 数据库（未放置数据库文件时跳过）
      */
     @Test
-    void testLocateUSIp() {
-        // 谷歌DNS IP
-        IpLocation result = ipLocationUtil.locate("43.205.50.170");
-        
-        assertNotNull(result);
-        assertTrue(result.getSuccess(), "解析应该成功");
-        
-        System.out.println("IP解析结果：");
-        System.out.println("IP: " + result.getIp());
-        System.out.println("国家: " + result.getCountry());
-        System.out.println("国家代码: " + result.getCountryCode());
-        System.out.println("城市: " + result.getCity());
-        System.out.println("来源: " + result.getSource());
-        System.out.println("枚举: " + result.getCountryEnum());
-        System.out.println("坐标: " + result.getLatitude() + ", " + result.getLongitude());
+    void testLocateWithBundledGeoLite2() {
+        DefaultResourceLoader resourceLoader = new DefaultResourceLoader();
+        assumeTrue(resourceLoader.getResource(GEOLITE2).exists(), "GeoLite2数据库未打包");
 
+        GeoLite2Database database = new GeoLite2Database(amapIpConfig, resourceLoader);
+        database.init();
+        IpLocationUtil util = new IpLocationUtil(amapIpConfig, database, null,
+                List.of(this::remote), pendingEnrichments::add);
+        try {
+            // 伦敦（MaxMind 文档示例IP，城市级数据完整）
+            IpLocation result = util.locate("81.2.69.160");
+            assertTrue(result.getSuccess());
+            assertEquals("geolite2", result.getSource());
+            assertEquals("GB", result.getCountryCode());
+            assertEquals("81.2.69.160", result.getIp());
+            assertEquals(0, remoteCalls.get());
+        } finally {
+            database.close();
+        }
+    }
+
+    private IpLocationUtil newUtil(IpLocationUtil.Provider local, Executor executor) {
+        return new IpLocationUtil(amapIpConfig, new GeoLite2Database(amapIpConfig, new DefaultResourceLoader()), local,
+                List.of(this::remote, this::remote), executor);
+    }
+
+    private IpLocation remote(String ip) {
+        remoteCalls.incrementAndGet();
+        return location(ip, "remote", "广东", "广州");
+    }
 
+    private static IpLocation location(String ip, String source, String province, String city) {
+        return IpLocation.builder()
+                .ip(ip)
+                .country("中国")
+                .countryCode("CN")
+                .province(province)
+                .city(city)
+                .latitude(23.13)
+                .longitude(113.26)
+                .source(source)
+                .success(true)
+                .build();
     }
 }
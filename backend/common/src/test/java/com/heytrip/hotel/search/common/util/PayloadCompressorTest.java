@@ -0,0 +1,137 @@
+package com.heytrip.hotel.search.common.util;
+
+import com.heytrip.hotel.search.domain.entity.CompressionCodec;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 可切换算法压缩器测试（各算法往返、按魔数识别旧数据、zstd 字典、并发复用上下文）
+ */
+class PayloadCompressorTest {
+
+    private static final String JSON = """
+            {"Result":{"Detail":{"HotelId":123456,"HotelName":"测试酒店","HotelNameEn":"Test Hotel",
+            "Address":"测试地址 123 号","Facilities":["WiFi","停车场","游泳池","健身房","餐厅"]}}}
+            """.repeat(20);
+
+    @Test
+    void testRoundTripForEachCodec() {
+        for (CompressionCodec codec : CompressionCodec.values()) {
+            try (PayloadCompressor compressor = new PayloadCompressor(codec)) {
+                byte[] compressed = compressor.compressString(JSON);
+                assertEquals(codec, PayloadCompressor.sniff(compressed), codec.name());
+                if (codec != CompressionCodec.none) {
+                    assertTrue(compressed.length < JSON.getBytes(StandardCharsets.UTF_8).length, codec.name());
+                }
+                assertEquals(JSON, compressor.decompressToString(compressed), codec.name());
+            }
+        }
+    }
+
+    @Test
+    void testGzipCompatibleWithGzipCompressor() {
+        try (PayloadCompressor compressor = new PayloadCompressor(CompressionCodec.gzip)) {
+            assertEquals(JSON, compressor.decompressToString(GzipCompressor.compressString(JSON)));
+            assertEquals(JSON, GzipCompressor.decompressToString(compressor.compressString(JSON)));
+        }
+    }
+
+    @Test
+    void testReadsAnyCodecRegardlessOfConfiguredCodec() {
+        try (PayloadCompressor zstd = new PayloadCompressor(CompressionCodec.zstd);
+             PayloadCompressor lz4 = new PayloadCompressor(CompressionCodec.lz4)) {
+            assertEquals(JSON, lz4.decompressToString(zstd.compressString(JSON)));
+            assertEquals(JSON, zstd.decompressToString(lz4.compressString(JSON)));
+            assertEquals(JSON, zstd.decompressToString(GzipCompressor.compressString(JSON)));
+            // 无法识别的数据按未压缩原文返回
+            assertEquals("{\"a\":1}", zstd.decompressToString("{\"a\":1}".getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    void testEmptyInput() {
+        try (PayloadCompressor compressor = new PayloadCompressor(CompressionCodec.zstd)) {
+            assertEquals(0, compressor.compressString(null).length);
+            assertEquals(0, compressor.compress(new byte[0]).length);
+            assertEquals("", compressor.decompressToString(null));
+        }
+    }
+
+    @Test
+    void testLargeAndIncompressiblePayload() {
+        byte[] random = new byte[3 * 1024 * 1024];
+        new Random(7).nextBytes(random);
+        for (CompressionCodec codec : List.of(CompressionCodec.gzip, CompressionCodec.zstd, CompressionCodec.lz4)) {
+            try (PayloadCompressor compressor = new PayloadCompressor(codec)) {
+                assertArrayEquals(random, compressor.decompress(compressor.compress(random)), codec.name());
+            }
+        }
+    }
+
+    @Test
+    void testCorruptedGzipFails() {
+        try (PayloadCompressor compressor = new PayloadCompressor(CompressionCodec.gzip)) {
+            byte[] compressed = compressor.compressString(JSON);
+            compressed[compressed.length / 2] ^= 0x5A;
+            assertThrows(IllegalStateException.class, () -> compressor.decompress(compressed));
+        }
+    }
+
+    @Test
+    void testZstdDictionary() {
+        Random random = new Random(42);
+        List<byte[]> samples = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            samples.add(sample(random).getBytes(StandardCharsets.UTF_8));
+        }
+        byte[] dictionary = PayloadCompressor.trainZstdDictionary(samples, 2048);
+        String doc = sample(random);
+
+        try (PayloadCompressor withDict = new PayloadCompressor(CompressionCodec.zstd, 3, dictionary, 0);
+             PayloadCompressor plain = new PayloadCompressor(CompressionCodec.zstd)) {
+            byte[] compressed = withDict.compressString(doc);
+            assertTrue(compressed.length < plain.compressString(doc).length);
+            assertEquals(doc, withDict.decompressToString(compressed));
+            // 带字典的数据需要同一字典才能读取，不带字典的数据照常读取
+            assertThrows(IllegalStateException.class, () -> plain.decompress(compressed));
+            assertEquals(doc, withDict.decompressToString(plain.compressString(doc)));
+        }
+    }
+
+    @Test
+    void testConcurrentUseSharesPooledContexts() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try (PayloadCompressor compressor = new PayloadCompressor(CompressionCodec.gzip, 3, null, 2)) {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String doc = JSON + i;
+                results.add(pool.submit(() -> doc.equals(compressor.decompressToString(compressor.compressString(doc)))));
+            }
+            for (Future<Boolean> f : results) {
+                assertTrue(f.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String sample(Random random) {
+        return "{\"HotelId\":" + (20_000_000 + random.nextInt(1_000_000))
+                + ",\"HotelName\":\"酒店" + random.nextInt(10_000) + "\""
+                + ",\"Star\":" + random.nextInt(6)
+                + ",\"Address\":\"测试路" + random.nextInt(500) + "号\""
+                + ",\"Latitude\":" + random.nextDouble() * 90
+                + ",\"Longitude\":" + random.nextDouble() * 180
+                + ",\"Facilities\":[\"WiFi\",\"停车场\",\"游泳池\",\"健身房\",\"餐厅\"]"
+                + ",\"Policy\":{\"CheckIn\":\"14:00\",\"CheckOut\":\"12:00\",\"Pet\":false}}";
+    }
+}
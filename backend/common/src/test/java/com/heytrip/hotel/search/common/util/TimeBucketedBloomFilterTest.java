@@ -0,0 +1,53 @@
+package com.heytrip.hotel.search.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按时间分桶的布隆过滤器测试
+ */
+class TimeBucketedBloomFilterTest {
+
+    @Test
+    void testDetectsDuplicateWithinBucket() {
+        TimeBucketedBloomFilter filter = new TimeBucketedBloomFilter(10, 2, 1000, 1e-6);
+        assertTrue(filter.putIfAbsent("app:n1", 100));
+        assertFalse(filter.putIfAbsent("app:n1", 100));
+        assertFalse(filter.putIfAbsent("app:n1", 101), "同一时间桶内重复");
+        assertTrue(filter.putIfAbsent("app:n2", 100));
+    }
+
+    @Test
+    void testNoFalsePositivesAtCapacity() {
+        TimeBucketedBloomFilter filter = new TimeBucketedBloomFilter(10, 2, 10_000, 1e-6);
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.putIfAbsent("app:" + i, 100), "首次出现的元素被误判: " + i);
+        }
+    }
+
+    @Test
+    void testExpiredBucketIsReused() {
+        TimeBucketedBloomFilter filter = new TimeBucketedBloomFilter(10, 2, 1000, 1e-6);
+        assertTrue(filter.putIfAbsent("app:n1", 100));
+        // 远超窗口后落入同一槽位的新时间桶，旧元素已被清空
+        assertTrue(filter.putIfAbsent("app:n1", 100 + 2 * 12 * 10));
+    }
+
+    @Test
+    void testBucketsWithinWindowAreKept() {
+        TimeBucketedBloomFilter filter = new TimeBucketedBloomFilter(10, 2, 1000, 1e-6);
+        for (long ts = 100; ts <= 120; ts++) {
+            assertTrue(filter.putIfAbsent("app:" + ts, ts));
+        }
+        for (long ts = 100; ts <= 120; ts++) {
+            assertFalse(filter.putIfAbsent("app:" + ts, ts), "窗口内的时间桶不应被复用: " + ts);
+        }
+    }
+
+    @Test
+    void testRejectsInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeBucketedBloomFilter(0, 2, 1000, 1e-6));
+        assertThrows(IllegalArgumentException.class, () -> new TimeBucketedBloomFilter(10, 2, 1000, 1));
+    }
+}
@@ -64,12 +64,10 @@ public class ApiRequestLog {
     private Integer durationMs;
 
     /** 请求正文（压缩后字节，MySQL 使用 LONGBLOB 存储） */
-    @Lob
     @Column(name = "request_body_compressed", columnDefinition = "LONGBLOB")
     private byte[] requestBodyCompressed;
 
     /** 响应正文（压缩后字节，MySQL 使用 LONGBLOB 存储） */
-    @Lob
     @Column(name = "response_body_compressed", columnDefinition = "LONGBLOB")
     private byte[] responseBodyCompressed;
 
@@ -81,7 +79,7 @@ public class ApiRequestLog {
     @Column(name = "response_size_bytes")
     private Integer responseSizeBytes;
 
-    /** 压缩算法（固定 gzip），数据库类型为 ENUM */
+    /** 压缩算法（由 heytrip.compression.codec 配置，读取时也可按正文头部识别），数据库类型为 ENUM */
     @Enumerated(EnumType.STRING)
     @Column(name = "compression", nullable = false, columnDefinition = "ENUM('none','gzip','zstd','lz4')")
     private CompressionCodec compression = CompressionCodec.gzip;
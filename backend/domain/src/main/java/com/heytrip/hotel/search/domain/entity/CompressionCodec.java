@@ -4,5 +4,8 @@ package com.heytrip.hotel.search.domain.entity;
  * 数据压缩算法枚举，与数据库 enum compression_codec 对应。
  */
 public enum CompressionCodec {
-    gzip
+    none,
+    gzip,
+    zstd,
+    lz4
 }
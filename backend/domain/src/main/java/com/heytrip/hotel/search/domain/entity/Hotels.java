@@ -54,11 +54,18 @@ public class Hotels {
     private Long hotelId;
 
     /**
-     * 酒店原文压缩后存储（Base64 编码的 GZIP 压缩字符串）
+     * 酒店原文压缩后存储（Base64 编码的压缩字节，算法按数据头部识别；旧数据为 GZIP）
+     * 开启二进制存储（heytrip.compression.hotel-raw-binary）后写入 rawBinary，本列为空串
      */
     @Column(name = "raw_compressed", nullable = false, columnDefinition = "text")
     private String rawCompressed;
 
+    /**
+     * 酒店原文压缩后的二进制（不做 Base64，算法按数据头部识别），非空时优先于 rawCompressed
+     */
+    @Column(name = "raw_binary", columnDefinition = "LONGBLOB")
+    private byte[] rawBinary;
+
     /**
      * 中文名（从 origContent 解析，或后续翻译得到）
      */
@@ -225,6 +232,24 @@ public class Hotels {
     @Column(name = "score")
     private String score;
 
+    /**
+     * 内容指纹（MD5：规范化原文 JSON + 解析/人工修正字段），与库中一致时入库跳过写库、索引事件与重建索引
+     */
+    @Column(name = "content_hash", length = 32)
+    private String contentHash;
+
+    /**
+     * 待压缩原文（不持久化）：入库确认需要写库时才压缩为 rawCompressed / rawBinary
+     */
+    @Transient
+    private String rawContent;
+
+    /**
+     * 本次入库内容指纹未变化、已跳过写库（不持久化，用于跳过索引事件）
+     */
+    @Transient
+    private boolean contentUnchanged;
+
     /**
      * 抓取时间（入库时间戳）
      */
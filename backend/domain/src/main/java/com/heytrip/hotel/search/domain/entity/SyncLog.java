@@ -64,6 +64,22 @@ public class SyncLog {
     @Column(name = "fail_count")
     private Long failCount;
 
+    /** 入库新增记录数 */
+    @Column(name = "insert_count")
+    private Long insertCount;
+
+    /** 入库更新记录数（内容有变化） */
+    @Column(name = "update_count")
+    private Long updateCount;
+
+    /** 入库无变化记录数（内容与库中一致，未改写） */
+    @Column(name = "unchanged_count")
+    private Long unchangedCount;
+
+    /** 内容指纹未变化、跳过写库与索引的记录数 */
+    @Column(name = "skipped_count")
+    private Long skippedCount;
+
     /** 状态：RUNNING / SUCCESS / FAILED / PARTIAL */
     @Column(name = "status", length = 20)
     private String status; // RUNNING/SUCCESS/FAILED/PARTIAL
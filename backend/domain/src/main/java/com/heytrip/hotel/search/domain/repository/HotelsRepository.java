@@ -1,9 +1,14 @@
 package com.heytrip.hotel.search.domain.repository;
 
 import com.heytrip.hotel.search.domain.entity.Hotels;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -11,4 +16,13 @@ public interface HotelsRepository extends JpaRepository<Hotels, Long> {
     Optional<Hotels> findBySourceAndHotelId(String source, Long hotelId);
     Optional<Hotels> findByHotelId(Long hotelId);
     boolean existsByHotelId(Long hotelId);
+
+    /**
+     * 按主键游标分页扫描（全量重建索引）：id > lastId 顺序读取，只读且不进入脏检查
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    List<Hotels> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
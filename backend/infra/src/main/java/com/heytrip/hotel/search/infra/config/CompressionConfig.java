@@ -0,0 +1,50 @@
+package com.heytrip.hotel.search.infra.config;
+
+import com.heytrip.hotel.search.common.util.PayloadCompressor;
+import com.heytrip.hotel.search.domain.entity.CompressionCodec;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 正文压缩配置（酒店原文、api_request_log 请求/响应正文）
+ * prefix: heytrip.compression
+ * 读取时按数据头部识别算法，切换 codec 不影响旧数据读取；滚动发布时需全部节点升级后再切换 codec 或开启二进制存储
+ */
+@Slf4j
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "heytrip.compression")
+public class CompressionConfig {
+    /** 写入算法：none / gzip / zstd / lz4 */
+    private CompressionCodec codec = CompressionCodec.gzip;
+    /** zstd 压缩级别（1-19） */
+    private int zstdLevel = 3;
+    /** zstd 字典文件路径（可选）；已写入带字典的数据后不可移除或更换 */
+    private String zstdDictionary;
+    /** 压缩上下文池大小，0 表示 CPU 核数 */
+    private int poolSize = 0;
+    /** 酒店原文写入二进制列 raw_binary（不做 Base64），关闭时写入 raw_compressed */
+    private boolean hotelRawBinary = false;
+
+    @Bean
+    public PayloadCompressor payloadCompressor() {
+        byte[] dictionary = null;
+        if (zstdDictionary != null && !zstdDictionary.isBlank()) {
+            try {
+                dictionary = Files.readAllBytes(Path.of(zstdDictionary));
+            } catch (IOException e) {
+                throw new IllegalStateException("读取 zstd 字典失败: " + zstdDictionary, e);
+            }
+        }
+        log.info("[COMPRESSION] 正文压缩 codec={} zstdLevel={} dictionary={} hotelRawBinary={}",
+                codec, zstdLevel, dictionary == null ? "-" : zstdDictionary + "(" + dictionary.length + "B)", hotelRawBinary);
+        return new PayloadCompressor(codec, zstdLevel, dictionary, poolSize);
+    }
+}
@@ -38,6 +38,15 @@ public class HotelSearchWeights {
     private float keywordsBoost = 6.0f;              // 名称关键词权重（TopK提取的关键词）
     private float tokensBoost = 4.0f;                // 名称分词权重（精细分词召回）
 
+    // ===== ES排序模式 =====
+    // 开启后关键词搜索以 function_score 在ES端计算综合评分（与 HotelScoreCalculator 权重一致），只返回最终 TopN
+    private boolean esRanking = false;
+    private double rankingMinScore = 0.0;            // 综合评分下限（0-100），0 表示不过滤
+    private double rankingMinRelevance = 100.0;      // 召回查询原始 _score 下限（同应用内排序的 _score > 100 过滤），0 表示不过滤
+
+    // ===== 应用内评分 =====
+    // 开启后应用内评分以召回命中的实际 _score 作为相关性输入（与ES排序模式一致）；默认关闭，沿用常量 10.0
+    private boolean appActualScore = false;
 
     // 索引配置
     private String readAlias = "hotels_read";
@@ -0,0 +1,187 @@
+package com.heytrip.hotel.search.infra.log;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * 日志表批量写入（按数据库方言选择写入方式）
+ * - PostgreSQL：COPY FROM STDIN（CSV），行按块编码后流式写入，不在内存中拼接整批文本
+ * - MySQL：显式多行 INSERT（每条语句 rows-per-statement 行），效果等同 rewriteBatchedStatements，
+ *   但不需要在全局连接串开启该参数（开启后 hotels 批量 UPSERT 无法拿到逐行影响行数）
+ * - 整批失败（如个别行超长）时逐行重写，跳过无法写入的行，避免一行坏数据丢弃整批日志
+ * 不开启事务，每条语句自动提交；调用方不应处于事务中（PostgreSQL 事务内单行出错会使后续语句全部失败）。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkLogWriter {
+
+    /**
+     * 数据库方言
+     */
+    public enum Dialect {
+        MYSQL, POSTGRESQL
+    }
+
+    /**
+     * COPY 每次向服务端写出的编码缓冲大小
+     */
+    private static final int COPY_CHUNK_CHARS = 64 * 1024;
+
+    /**
+     * 单条语句占位符上限（MySQL/PostgreSQL 协议限制为 65535）
+     */
+    private static final int MAX_PLACEHOLDERS = 65_535;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * MySQL 多行 INSERT 每条语句的行数
+     */
+    @Value("${heytrip.log-writer.rows-per-statement:100}")
+    private int rowsPerStatement = 100;
+
+    private volatile Dialect dialect;
+
+    /**
+     * 批量写入
+     *
+     * @return 写入行数
+     */
+    public <T> int write(LogTable<T> table, List<T> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        if (dialect() == Dialect.MYSQL) {
+            return insertBatched(table, rows, now);
+        }
+        try {
+            return copy(table, rows, now);
+        } catch (Exception e) {
+            // COPY 整体失败不会写入任何行，全部逐行重写
+            log.warn("[LOG-WRITER] COPY 失败，改为逐行写入 table={} rows={} err={}", table.getName(), rows.size(), e.getMessage());
+            return insertRowByRow(table, rows, now);
+        }
+    }
+
+    /**
+     * 当前数据源方言（首次调用时从连接元数据识别）
+     */
+    public Dialect dialect() {
+        Dialect d = dialect;
+        if (d == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            d = product != null && product.toLowerCase().contains("postgres") ? Dialect.POSTGRESQL : Dialect.MYSQL;
+            dialect = d;
+            log.info("[LOG-WRITER] 日志批量写入方言识别 product={} dialect={}", product, d);
+        }
+        return d;
+    }
+
+    private <T> int copy(LogTable<T> table, List<T> rows, OffsetDateTime now) {
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) con -> {
+            CopyIn copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(table.copySql());
+            try {
+                StringBuilder sb = new StringBuilder(COPY_CHUNK_CHARS + 1024);
+                for (T row : rows) {
+                    table.appendCsv(sb, row, now);
+                    if (sb.length() >= COPY_CHUNK_CHARS) {
+                        writeChunk(copyIn, sb);
+                    }
+                }
+                writeChunk(copyIn, sb);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+        return copied == null ? 0 : copied.intValue();
+    }
+
+    private static void writeChunk(CopyIn copyIn, StringBuilder sb) throws SQLException {
+        if (sb.isEmpty()) {
+            return;
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        sb.setLength(0);
+    }
+
+    /**
+     * 满块的语句复用同一个 PreparedStatement，剩余行单独一条语句
+     * 每条多行 INSERT 单独执行（自动提交，语句级原子），某条失败时只对该条及之后的行逐行重写，已提交的行不重复写入
+     */
+    private <T> int insertBatched(LogTable<T> table, List<T> rows, OffsetDateTime now) {
+        int perStatement = Math.max(1, Math.min(rowsPerStatement, MAX_PLACEHOLDERS / table.columnCount()));
+        int fullBlocks = rows.size() / perStatement;
+        int remainder = rows.size() % perStatement;
+        int[] committed = new int[1];
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+                if (fullBlocks > 0) {
+                    try (PreparedStatement ps = con.prepareStatement(table.insertSql(perStatement))) {
+                        for (int b = 0; b < fullBlocks; b++) {
+                            bindRows(table, ps, rows.subList(b * perStatement, (b + 1) * perStatement), now);
+                            ps.executeUpdate();
+                            committed[0] += perStatement;
+                        }
+                    }
+                }
+                if (remainder > 0) {
+                    try (PreparedStatement ps = con.prepareStatement(table.insertSql(remainder))) {
+                        bindRows(table, ps, rows.subList(rows.size() - remainder, rows.size()), now);
+                        ps.executeUpdate();
+                        committed[0] += remainder;
+                    }
+                }
+                return null;
+            });
+            return rows.size();
+        } catch (Exception e) {
+            List<T> rest = rows.subList(committed[0], rows.size());
+            log.warn("[LOG-WRITER] 多行写入失败，剩余行改为逐行写入 table={} rows={} err={}", table.getName(), rest.size(), e.getMessage());
+            return committed[0] + insertRowByRow(table, rest, now);
+        }
+    }
+
+    private <T> int insertRowByRow(LogTable<T> table, List<T> rows, OffsetDateTime now) {
+        Integer written = jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            int ok = 0;
+            try (PreparedStatement ps = con.prepareStatement(table.insertSql(1))) {
+                for (T row : rows) {
+                    try {
+                        table.bind(ps, 1, row, now);
+                        ps.executeUpdate();
+                        ok++;
+                    } catch (SQLException e) {
+                        log.error("[LOG-WRITER] 日志行写入失败，已跳过 table={} err={}", table.getName(), e.getMessage());
+                    }
+                }
+            }
+            return ok;
+        });
+        return written == null ? 0 : written;
+    }
+
+    private static <T> void bindRows(LogTable<T> table, PreparedStatement ps, List<T> rows, OffsetDateTime now) throws SQLException {
+        int idx = 1;
+        for (T row : rows) {
+            idx = table.bind(ps, idx, row, now);
+        }
+    }
+}
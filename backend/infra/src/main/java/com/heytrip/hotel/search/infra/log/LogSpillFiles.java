@@ -0,0 +1,159 @@
+package com.heytrip.hotel.search.infra.log;
+
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 日志溢出文件（每行一个 JSON 对象）
+ * - 按表分段：&lt;table&gt;-&lt;创建时间毫秒&gt;-&lt;序号&gt;.jsonl，写满 segment-rows 行后换新段
+ * - 只回放已关闭的段；回放失败时剩余行写回新段，已写入的行不会重复回放
+ * 非线程安全，只由溢出线程访问。
+ */
+@Slf4j
+final class LogSpillFiles {
+
+    private static final String SUFFIX = ".jsonl";
+
+    private final Path dir;
+    private final int segmentRows;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Segment> open = new HashMap<>();
+    private long seq;
+
+    LogSpillFiles(Path dir, int segmentRows, ObjectMapper objectMapper) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.segmentRows = Math.max(1, segmentRows);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 追加到当前段
+     */
+    void append(LogTable<?> table, Object row) throws IOException {
+        Segment segment = open.get(table.getName());
+        if (segment == null) {
+            segment = new Segment(newSegmentPath(table.getName()));
+            open.put(table.getName(), segment);
+        }
+        segment.writer.write(objectMapper.writeValueAsString(row));
+        segment.writer.newLine();
+        if (++segment.rows >= segmentRows) {
+            closeSegment(table.getName());
+        }
+    }
+
+    /**
+     * 将打开的段写到操作系统（不关闭）
+     */
+    void flush() {
+        for (Segment segment : open.values()) {
+            try {
+                segment.writer.flush();
+            } catch (IOException e) {
+                log.warn("[LOG-WRITER] 溢出文件刷盘失败 path={} err={}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 刷盘并关闭所有打开的段
+     */
+    void closeAll() {
+        for (String table : new ArrayList<>(open.keySet())) {
+            closeSegment(table);
+        }
+    }
+
+    /**
+     * 已关闭的段，按创建顺序排列
+     */
+    List<Path> closedSegments(LogTable<?> table) throws IOException {
+        Segment current = open.get(table.getName());
+        String prefix = table.getName() + "-";
+        try (Stream<Path> files = Files.list(dir)) {
+            return files
+                    .filter(p -> p.getFileName().toString().startsWith(prefix) && p.getFileName().toString().endsWith(SUFFIX))
+                    .filter(p -> current == null || !p.equals(current.path))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 读取段内所有行；无法解析的行（如进程崩溃时写了一半的末行）跳过
+     */
+    <T> List<T> read(Path segment, LogTable<T> table) throws IOException {
+        List<T> rows = new ArrayList<>();
+        for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                rows.add(objectMapper.readValue(line, table.getRowType()));
+            } catch (JacksonException e) {
+                log.warn("[LOG-WRITER] 跳过无法解析的溢出行 path={} err={}", segment, e.getOriginalMessage());
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * 用剩余行替换段文件（先写新段再删除旧段，崩溃时最多重复回放，不会丢行）
+     */
+    <T> void replace(Path segment, LogTable<T> table, List<T> remaining) throws IOException {
+        if (!remaining.isEmpty()) {
+            Path path = newSegmentPath(table.getName());
+            try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                for (T row : remaining) {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.newLine();
+                }
+            }
+        }
+        Files.deleteIfExists(segment);
+    }
+
+    private void closeSegment(String table) {
+        Segment segment = open.remove(table);
+        if (segment == null) {
+            return;
+        }
+        try {
+            segment.writer.close();
+        } catch (IOException e) {
+            log.warn("[LOG-WRITER] 关闭溢出文件失败 path={} err={}", segment.path, e.getMessage());
+        }
+    }
+
+    private Path newSegmentPath(String table) {
+        return dir.resolve(String.format("%s-%013d-%06d%s", table, System.currentTimeMillis(), seq++ % 1_000_000, SUFFIX));
+    }
+
+    private static final class Segment {
+
+        private final Path path;
+        private final BufferedWriter writer;
+        private int rows;
+
+        Segment(Path path) throws IOException {
+            this.path = path;
+            this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.heytrip.hotel.search.infra.log;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 日志表写入描述：表名与按顺序排列的列（不含自增主键）
+ * - 生成 MySQL 多行 INSERT 与 PostgreSQL COPY 语句
+ * - 负责 JDBC 参数绑定与 COPY CSV 编码，两条路径的取值规则一致
+ *
+ * @param <T> 行类型（JPA 实体）
+ */
+public final class LogTable<T> {
+
+    /**
+     * 列类型
+     */
+    public enum Type {
+        TEXT, INT, LONG, TIMESTAMP, BYTES
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String name;
+    private final Class<T> rowType;
+    private final List<Column<T>> columns;
+
+    private LogTable(String name, Class<T> rowType, List<Column<T>> columns) {
+        this.name = name;
+        this.rowType = rowType;
+        this.columns = columns;
+    }
+
+    public static <T> Builder<T> builder(String name, Class<T> rowType) {
+        return new Builder<>(name, rowType);
+    }
+
+    /**
+     * 相同列定义、不同表名（基准测试写入临时表）
+     */
+    public LogTable<T> withName(String tableName) {
+        return new LogTable<>(tableName, rowType, columns);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 行类型（溢出文件反序列化使用）
+     */
+    public Class<T> getRowType() {
+        return rowType;
+    }
+
+    public int columnCount() {
+        return columns.size();
+    }
+
+    public List<String> columnNames() {
+        return columns.stream().map(c -> c.name).collect(Collectors.toList());
+    }
+
+    /**
+     * 多行 INSERT：INSERT INTO t (c1, c2) VALUES (?, ?), (?, ?)
+     */
+    String insertSql(int rows) {
+        String placeholders = columns.stream().map(c -> "?").collect(Collectors.joining(", ", "(", ")"));
+        StringBuilder sb = new StringBuilder("INSERT INTO ").append(name)
+                .append(" (").append(String.join(", ", columnNames())).append(") VALUES ");
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(placeholders);
+        }
+        return sb.toString();
+    }
+
+    String copySql() {
+        return "COPY " + name + " (" + String.join(", ", columnNames()) + ") FROM STDIN WITH (FORMAT csv)";
+    }
+
+    /**
+     * 绑定一行参数
+     *
+     * @param offset 该行第一个参数的下标（从 1 开始）
+     * @return 下一行第一个参数的下标
+     */
+    int bind(PreparedStatement ps, int offset, T row, OffsetDateTime now) throws SQLException {
+        int idx = offset;
+        for (Column<T> c : columns) {
+            c.bind(ps, idx++, row, now);
+        }
+        return idx;
+    }
+
+    /**
+     * 追加一行 COPY CSV：NULL 为空且不加引号，文本加引号以区分空串，bytea 使用 \x 十六进制
+     */
+    void appendCsv(StringBuilder sb, T row, OffsetDateTime now) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            Column<T> c = columns.get(i);
+            Object v = c.value(row, now);
+            if (v == null) {
+                continue;
+            }
+            switch (c.type) {
+                case TEXT -> {
+                    // PostgreSQL 文本不允许 NUL 字符
+                    String s = v.toString().replace("\u0000", "");
+                    sb.append('"').append(s.replace("\"", "\"\"")).append('"');
+                }
+                case BYTES -> {
+                    byte[] bytes = (byte[]) v;
+                    sb.append("\\x");
+                    for (byte b : bytes) {
+                        sb.append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+                    }
+                }
+                default -> sb.append(v);
+            }
+        }
+        sb.append('\n');
+    }
+
+    public static final class Builder<T> {
+
+        private final String name;
+        private final Class<T> rowType;
+        private final List<Column<T>> columns = new ArrayList<>();
+
+        private Builder(String name, Class<T> rowType) {
+            this.name = name;
+            this.rowType = rowType;
+        }
+
+        public Builder<T> text(String column, Function<T, ?> getter) {
+            columns.add(new Column<>(column, Type.TEXT, getter, false));
+            return this;
+        }
+
+        public Builder<T> intValue(String column, Function<T, Integer> getter) {
+            columns.add(new Column<>(column, Type.INT, getter, false));
+            return this;
+        }
+
+        public Builder<T> longValue(String column, Function<T, Long> getter) {
+            columns.add(new Column<>(column, Type.LONG, getter, false));
+            return this;
+        }
+
+        public Builder<T> bytes(String column, Function<T, byte[]> getter) {
+            columns.add(new Column<>(column, Type.BYTES, getter, false));
+            return this;
+        }
+
+        /**
+         * 时间列，为空时与数据库默认值一致取当前时间（显式写入 NULL 会违反 NOT NULL 约束）
+         */
+        public Builder<T> timestamp(String column, Function<T, OffsetDateTime> getter) {
+            columns.add(new Column<>(column, Type.TIMESTAMP, getter, true));
+            return this;
+        }
+
+        public LogTable<T> build() {
+            return new LogTable<>(name, rowType, Collections.unmodifiableList(new ArrayList<>(columns)));
+        }
+    }
+
+    private static final class Column<T> {
+
+        private final String name;
+        private final Type type;
+        private final Function<T, ?> getter;
+        private final boolean defaultNow;
+
+        private Column(String name, Type type, Function<T, ?> getter, boolean defaultNow) {
+            this.name = name;
+            this.type = type;
+            this.getter = getter;
+            this.defaultNow = defaultNow;
+        }
+
+        Object value(T row, OffsetDateTime now) {
+            Object v = getter.apply(row);
+            if (v == null && defaultNow) {
+                return now;
+            }
+            return v instanceof Enum<?> e ? e.name() : v;
+        }
+
+        void bind(PreparedStatement ps, int idx, T row, OffsetDateTime now) throws SQLException {
+            Object v = value(row, now);
+            switch (type) {
+                case TEXT -> ps.setString(idx, v == null ? null : v.toString());
+                case INT -> {
+                    if (v == null) {
+                        ps.setNull(idx, Types.INTEGER);
+                    } else {
+                        ps.setInt(idx, ((Number) v).intValue());
+                    }
+                }
+                case LONG -> {
+                    if (v == null) {
+                        ps.setNull(idx, Types.BIGINT);
+                    } else {
+                        ps.setLong(idx, ((Number) v).longValue());
+                    }
+                }
+                case TIMESTAMP -> ps.setTimestamp(idx, Timestamp.from(((OffsetDateTime) v).toInstant()));
+                case BYTES -> ps.setBytes(idx, (byte[]) v);
+            }
+        }
+    }
+}
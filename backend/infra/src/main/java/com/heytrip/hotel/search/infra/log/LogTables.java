@@ -0,0 +1,60 @@
+package com.heytrip.hotel.search.infra.log;
+
+import com.heytrip.hotel.search.domain.entity.ApiRequestLog;
+import com.heytrip.hotel.search.domain.entity.SearchLog;
+import com.heytrip.hotel.search.domain.entity.SyncLogDetail;
+
+import java.util.List;
+
+/**
+ * 高频日志表的列定义（与 JPA 实体映射一致，自增主键由数据库生成）
+ */
+public final class LogTables {
+
+    private LogTables() {}
+
+    public static final LogTable<SearchLog> SEARCH_LOGS = LogTable.builder("search_logs", SearchLog.class)
+            .text("query", SearchLog::getQuery)
+            .text("tag_source", SearchLog::getTagSource)
+            .intValue("result_count", SearchLog::getResultCount)
+            .longValue("clicked_hotel_id", SearchLog::getClickedHotelId)
+            .intValue("click_position", SearchLog::getClickPosition)
+            .longValue("duration_ms", SearchLog::getDurationMs)
+            .longValue("user_id", SearchLog::getUserId)
+            .text("user_ip", SearchLog::getUserIp)
+            .timestamp("created_at", SearchLog::getCreatedAt)
+            .build();
+
+    public static final LogTable<ApiRequestLog> API_REQUEST_LOG = LogTable.builder("api_request_log", ApiRequestLog.class)
+            .text("trace_id", ApiRequestLog::getTraceId)
+            .text("job_code", ApiRequestLog::getJobCode)
+            .text("source", ApiRequestLog::getSource)
+            .text("http_method", ApiRequestLog::getHttpMethod)
+            .text("url", ApiRequestLog::getUrl)
+            .text("request_headers", ApiRequestLog::getRequestHeaders)
+            .intValue("response_status", ApiRequestLog::getResponseStatus)
+            .intValue("duration_ms", ApiRequestLog::getDurationMs)
+            .bytes("request_body_compressed", ApiRequestLog::getRequestBodyCompressed)
+            .bytes("response_body_compressed", ApiRequestLog::getResponseBodyCompressed)
+            .intValue("request_size_bytes", ApiRequestLog::getRequestSizeBytes)
+            .intValue("response_size_bytes", ApiRequestLog::getResponseSizeBytes)
+            .text("compression", ApiRequestLog::getCompression)
+            .text("app", ApiRequestLog::getApp)
+            .timestamp("timestamp_utc", ApiRequestLog::getTimestampUtc)
+            .timestamp("created_at", ApiRequestLog::getCreatedAt)
+            .build();
+
+    public static final LogTable<SyncLogDetail> SYNC_LOG_DETAIL = LogTable.builder("sync_log_detail", SyncLogDetail.class)
+            .longValue("sync_log_id", SyncLogDetail::getSyncLogId)
+            .longValue("hotel_id", SyncLogDetail::getHotelId)
+            .text("stage", SyncLogDetail::getStage)
+            .text("error_code", SyncLogDetail::getErrorCode)
+            .text("error_message", SyncLogDetail::getErrorMessage)
+            .timestamp("created_at", SyncLogDetail::getCreatedAt)
+            .build();
+
+    /**
+     * 所有日志表（启动时回放上次运行遗留的溢出文件）
+     */
+    public static final List<LogTable<?>> ALL = List.of(SEARCH_LOGS, API_REQUEST_LOG, SYNC_LOG_DETAIL);
+}
@@ -0,0 +1,557 @@
+package com.heytrip.hotel.search.infra.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 日志表写后缓冲（每张表一个有界缓冲区）
+ * - 缓冲行数达到 batch-size 或最早一行等待超过 max-age-ms 时，由后台线程通过 BulkLogWriter 整批写入
+ * - 同一张表同时只有一个线程在写，批次按入队顺序写出
+ * - 生产者只做非阻塞入队，任何情况下都不会写库或等待；缓冲区满时按 overflow-policy 处理：
+ *   DROP_OLDEST - 丢弃缓冲中最早的一行，保留新行
+ *   SAMPLE      - 缓冲区占用超过 sample-watermark 后按 1/sample-every 采样入队；缓冲区满时丢弃新行
+ *   SPILL       - 溢出行交给溢出线程追加到本地文件（spill-dir），数据库恢复、缓冲回落后由同一线程回放；
+ *                 溢出队列也满时丢弃
+ * - 写入失败的批次：SPILL 策略下写入溢出文件，其他策略下丢弃
+ * - 指标：hotel.log.writer.queue{table} 缓冲长度，hotel.log.writer.spill.queue 溢出队列长度，
+ *   hotel.log.writer.flush{table} 批量写入耗时，
+ *   hotel.log.writer.rows{table,outcome=written|dropped|sampled|spilled|replayed|failed} 行数
+ */
+@Slf4j
+@Component
+public class LogWriteBuffer {
+
+    /**
+     * 缓冲区满载策略
+     */
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        SAMPLE,
+        SPILL
+    }
+
+    /**
+     * 单表写入统计
+     */
+    public record Stats(long written, long dropped, long sampled, long spilled, long replayed, long failed) {}
+
+    private enum Outcome {
+        WRITTEN, DROPPED, SAMPLED, SPILLED, REPLAYED, FAILED
+    }
+
+    /**
+     * 回放失败后的退避时间
+     */
+    private static final long REPLAY_BACKOFF_MS = 30_000;
+
+    private final BulkLogWriter writer;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    /**
+     * 纳秒时钟（测试注入）
+     */
+    private final LongSupplier nanoClock;
+
+    @Value("${heytrip.log-writer.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Value("${heytrip.log-writer.max-age-ms:2000}")
+    private long maxAgeMs = 2000;
+
+    @Value("${heytrip.log-writer.buffer-capacity:20000}")
+    private int bufferCapacity = 20_000;
+
+    @Value("${heytrip.log-writer.overflow-policy:SPILL}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.SPILL;
+
+    /**
+     * SAMPLE 策略下开始采样的缓冲区占用比例
+     */
+    @Value("${heytrip.log-writer.sample-watermark:0.8}")
+    private double sampleWatermark = 0.8;
+
+    /**
+     * SAMPLE 策略下每 N 行保留 1 行
+     */
+    @Value("${heytrip.log-writer.sample-every:10}")
+    private int sampleEvery = 10;
+
+    @Value("${heytrip.log-writer.spill-dir:data/log-spill}")
+    private String spillDir = "data/log-spill";
+
+    /**
+     * 等待写入溢出文件的行数上限
+     */
+    @Value("${heytrip.log-writer.spill-capacity:20000}")
+    private int spillCapacity = 20_000;
+
+    @Value("${heytrip.log-writer.spill-segment-rows:10000}")
+    private int spillSegmentRows = 10_000;
+
+    private final Map<LogTable<?>, TableBuffer<?>> buffers = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+    private MeterRegistry meterRegistry;
+
+    private BlockingQueue<SpillEntry> spillQueue;
+    private LogSpillFiles spillFiles;
+    private ExecutorService spiller;
+    private volatile boolean stopping;
+    private long replayNotBefore;
+
+    @Autowired
+    public LogWriteBuffer(BulkLogWriter writer, ObjectMapper objectMapper, ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this(writer, objectMapper, meterRegistryProvider, System::nanoTime);
+    }
+
+    LogWriteBuffer(BulkLogWriter writer, ObjectMapper objectMapper, ObjectProvider<MeterRegistry> meterRegistryProvider,
+                   LongSupplier nanoClock) {
+        this.writer = writer;
+        this.objectMapper = objectMapper;
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.nanoClock = nanoClock;
+    }
+
+    @PostConstruct
+    public void init() {
+        batchSize = Math.max(1, batchSize);
+        maxAgeMs = Math.max(1, maxAgeMs);
+        bufferCapacity = Math.max(batchSize, bufferCapacity);
+        sampleEvery = Math.max(1, sampleEvery);
+        meterRegistry = meterRegistryProvider.getIfAvailable();
+
+        spillQueue = new ArrayBlockingQueue<>(Math.max(1, spillCapacity));
+        if (meterRegistry != null) {
+            Gauge.builder("hotel.log.writer.spill.queue", spillQueue, BlockingQueue::size)
+                    .description("等待写入溢出文件的日志行数")
+                    .register(meterRegistry);
+        }
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            try {
+                spillFiles = new LogSpillFiles(Paths.get(spillDir), spillSegmentRows, objectMapper);
+                spiller = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("log-spill-"));
+                spiller.execute(this::spillLoop);
+            } catch (IOException e) {
+                log.error("[LOG-WRITER] 无法创建溢出目录，溢出行将被丢弃 dir={} err={}", spillDir, e.getMessage());
+            }
+        }
+
+        long checkMs = Math.max(10, Math.min(200, maxAgeMs / 4));
+        flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("log-writer-"));
+        flusher.scheduleWithFixedDelay(this::flushDueSafely, checkMs, checkMs, TimeUnit.MILLISECONDS);
+        log.info("[LOG-WRITER] 日志写入缓冲已初始化 batchSize={} maxAgeMs={} capacity={} overflowPolicy={} spillDir={}",
+                batchSize, maxAgeMs, bufferCapacity, overflowPolicy, spillFiles == null ? "-" : spillDir);
+    }
+
+    /**
+     * 停止后台线程并写出所有缓冲（写入失败的行在 SPILL 策略下落盘）
+     */
+    @PreDestroy
+    public void shutdown() {
+        awaitTermination(flusher);
+        flushAll();
+        stopping = true;
+        if (spiller != null) {
+            awaitTermination(spiller);
+        }
+    }
+
+    /**
+     * 加入缓冲（非阻塞）
+     */
+    public <T> void add(LogTable<T> table, T row) {
+        TableBuffer<T> buffer = buffer(table);
+        if (overflowPolicy == OverflowPolicy.SAMPLE && buffer.sampledOut()) {
+            buffer.record(Outcome.SAMPLED, 1);
+            return;
+        }
+        if (!buffer.offer(row)) {
+            overflow(buffer, row);
+        }
+        if (buffer.size() >= batchSize) {
+            scheduleFlush(buffer);
+        }
+    }
+
+    public <T> void addAll(LogTable<T> table, List<T> rows) {
+        for (T row : rows) {
+            add(table, row);
+        }
+    }
+
+    /**
+     * 写出所有表的缓冲（阻塞，供停机与运维调用）
+     */
+    public void flushAll() {
+        buffers.values().forEach(b -> b.flush(true));
+    }
+
+    /**
+     * 写出达到批量或超时的缓冲
+     */
+    void flushDue() {
+        long now = nanoClock.getAsLong();
+        for (TableBuffer<?> b : buffers.values()) {
+            if (b.size() >= batchSize || b.ageNanos(now) >= TimeUnit.MILLISECONDS.toNanos(maxAgeMs)) {
+                b.flush(false);
+            }
+        }
+    }
+
+    /**
+     * 缓冲行数
+     */
+    public int pending(LogTable<?> table) {
+        TableBuffer<?> b = buffers.get(table);
+        return b == null ? 0 : b.size();
+    }
+
+    /**
+     * 等待写入溢出文件的行数
+     */
+    public int pendingSpill() {
+        return spillQueue.size();
+    }
+
+    public Stats stats(LogTable<?> table) {
+        TableBuffer<?> b = buffers.get(table);
+        if (b == null) {
+            return new Stats(0, 0, 0, 0, 0, 0);
+        }
+        return new Stats(b.count(Outcome.WRITTEN), b.count(Outcome.DROPPED), b.count(Outcome.SAMPLED),
+                b.count(Outcome.SPILLED), b.count(Outcome.REPLAYED), b.count(Outcome.FAILED));
+    }
+
+    private <T> void overflow(TableBuffer<T> buffer, T row) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                // 并发生产者可能抢先占用腾出的位置，有限次重试后丢弃新行
+                for (int i = 0; i < 3; i++) {
+                    if (buffer.queue.poll() != null) {
+                        buffer.record(Outcome.DROPPED, 1);
+                    }
+                    if (buffer.offer(row)) {
+                        return;
+                    }
+                }
+                buffer.record(Outcome.DROPPED, 1);
+            }
+            case SPILL -> spill(buffer, List.of(row));
+            default -> buffer.record(Outcome.DROPPED, 1);
+        }
+    }
+
+    /**
+     * 交给溢出线程写入本地文件；溢出队列满或溢出不可用时丢弃
+     */
+    private void spill(TableBuffer<?> buffer, List<?> rows) {
+        if (spillFiles == null) {
+            buffer.record(Outcome.DROPPED, rows.size());
+            return;
+        }
+        int dropped = 0;
+        for (Object row : rows) {
+            if (!spillQueue.offer(new SpillEntry(buffer, row))) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            buffer.record(Outcome.DROPPED, dropped);
+            log.warn("[LOG-WRITER] 溢出队列已满，丢弃 {} 行 table={}", dropped, buffer.table.getName());
+        }
+    }
+
+    /**
+     * 溢出线程：有溢出行时追加到文件，空闲时回放已关闭的溢出段
+     */
+    private void spillLoop() {
+        try {
+            while (true) {
+                SpillEntry entry = spillQueue.poll(1, TimeUnit.SECONDS);
+                if (entry != null) {
+                    do {
+                        append(entry);
+                    } while ((entry = spillQueue.poll()) != null);
+                    spillFiles.flush();
+                    continue;
+                }
+                if (stopping) {
+                    break;
+                }
+                replaySafely();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            SpillEntry entry;
+            while ((entry = spillQueue.poll()) != null) {
+                append(entry);
+            }
+            spillFiles.closeAll();
+        }
+    }
+
+    private void append(SpillEntry entry) {
+        try {
+            spillFiles.append(entry.buffer.table, entry.row);
+            entry.buffer.record(Outcome.SPILLED, 1);
+        } catch (IOException e) {
+            entry.buffer.record(Outcome.DROPPED, 1);
+            log.error("[LOG-WRITER] 写入溢出文件失败，丢弃 1 行 table={} err={}", entry.buffer.table.getName(), e.getMessage());
+        }
+    }
+
+    private void replaySafely() {
+        long now = nanoClock.getAsLong();
+        if (replayNotBefore != 0 && now - replayNotBefore < 0) {
+            return;
+        }
+        replayNotBefore = 0;
+        spillFiles.closeAll();
+        try {
+            Set<LogTable<?>> tables = new LinkedHashSet<>(LogTables.ALL);
+            tables.addAll(buffers.keySet());
+            for (LogTable<?> table : tables) {
+                if (!replay(buffer(table))) {
+                    replayNotBefore = now + TimeUnit.MILLISECONDS.toNanos(REPLAY_BACKOFF_MS);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            replayNotBefore = now + TimeUnit.MILLISECONDS.toNanos(REPLAY_BACKOFF_MS);
+            log.error("[LOG-WRITER] 回放溢出文件异常 err={}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 回放一张表的溢出段（缓冲占用过半时跳过，避免与实时写入争抢）
+     *
+     * @return false 表示数据库写入失败，需要退避
+     */
+    private <T> boolean replay(TableBuffer<T> buffer) throws IOException {
+        for (Path segment : spillFiles.closedSegments(buffer.table)) {
+            if (buffer.size() >= bufferCapacity / 2 || stopping) {
+                return true;
+            }
+            List<T> rows = spillFiles.read(segment, buffer.table);
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                List<T> batch = rows.subList(from, Math.min(rows.size(), from + batchSize));
+                try {
+                    buffer.timed(() -> writer.write(buffer.table, batch));
+                    buffer.record(Outcome.REPLAYED, batch.size());
+                } catch (Exception e) {
+                    spillFiles.replace(segment, buffer.table, new ArrayList<>(rows.subList(from, rows.size())));
+                    log.warn("[LOG-WRITER] 回放溢出文件失败，{} 秒后重试 table={} remaining={} err={}",
+                            REPLAY_BACKOFF_MS / 1000, buffer.table.getName(), rows.size() - from, e.getMessage());
+                    return false;
+                }
+            }
+            spillFiles.replace(segment, buffer.table, List.of());
+            log.info("[LOG-WRITER] 溢出文件回放完成 table={} rows={} file={}", buffer.table.getName(), rows.size(), segment.getFileName());
+        }
+        return true;
+    }
+
+    private void flushDueSafely() {
+        try {
+            flushDue();
+        } catch (Exception e) {
+            log.error("[LOG-WRITER] 日志缓冲刷写异常 err={}", e.getMessage(), e);
+        }
+    }
+
+    private void scheduleFlush(TableBuffer<?> buffer) {
+        if (buffer.flushScheduled.compareAndSet(false, true)) {
+            try {
+                flusher.execute(() -> {
+                    buffer.flushScheduled.set(false);
+                    buffer.flush(false);
+                });
+            } catch (RejectedExecutionException e) {
+                buffer.flushScheduled.set(false);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> TableBuffer<T> buffer(LogTable<T> table) {
+        return (TableBuffer<T>) buffers.computeIfAbsent(table, t -> new TableBuffer<>(table));
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record SpillEntry(TableBuffer<?> buffer, Object row) {}
+
+    /**
+     * 单表缓冲
+     */
+    private final class TableBuffer<T> {
+
+        private final LogTable<T> table;
+        private final BlockingQueue<T> queue;
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private final AtomicLong sampleSeq = new AtomicLong();
+        private final Map<Outcome, AtomicLong> counts = new EnumMap<>(Outcome.class);
+        private final Map<Outcome, Counter> counters = new EnumMap<>(Outcome.class);
+        private final Timer flushTimer;
+
+        /**
+         * 当前缓冲中最早一行的入队时间，0 表示缓冲为空
+         */
+        private final AtomicLong oldestNanos = new AtomicLong();
+
+        TableBuffer(LogTable<T> table) {
+            this.table = table;
+            this.queue = new ArrayBlockingQueue<>(bufferCapacity);
+            for (Outcome outcome : Outcome.values()) {
+                counts.put(outcome, new AtomicLong());
+            }
+            if (meterRegistry != null) {
+                for (Outcome outcome : Outcome.values()) {
+                    counters.put(outcome, Counter.builder("hotel.log.writer.rows")
+                            .description("日志表写入结果行数")
+                            .tag("table", table.getName())
+                            .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                            .register(meterRegistry));
+                }
+                Gauge.builder("hotel.log.writer.queue", queue, BlockingQueue::size)
+                        .description("日志表写入缓冲长度")
+                        .tag("table", table.getName())
+                        .register(meterRegistry);
+                flushTimer = Timer.builder("hotel.log.writer.flush")
+                        .description("日志表批量写入耗时")
+                        .tag("table", table.getName())
+                        .register(meterRegistry);
+            } else {
+                flushTimer = null;
+            }
+        }
+
+        boolean offer(T row) {
+            if (!queue.offer(row)) {
+                return false;
+            }
+            oldestNanos.compareAndSet(0, Math.max(1, nanoClock.getAsLong()));
+            return true;
+        }
+
+        /**
+         * SAMPLE 策略：占用超过水位后每 sample-every 行保留 1 行
+         */
+        boolean sampledOut() {
+            if (queue.size() < bufferCapacity * sampleWatermark) {
+                return false;
+            }
+            return sampleSeq.incrementAndGet() % sampleEvery != 0;
+        }
+
+        int size() {
+            return queue.size();
+        }
+
+        long ageNanos(long now) {
+            long oldest = oldestNanos.get();
+            return oldest == 0 ? 0 : now - oldest;
+        }
+
+        void record(Outcome outcome, long rows) {
+            counts.get(outcome).addAndGet(rows);
+            Counter counter = counters.get(outcome);
+            if (counter != null) {
+                counter.increment(rows);
+            }
+        }
+
+        long count(Outcome outcome) {
+            return counts.get(outcome).get();
+        }
+
+        void timed(Runnable write) {
+            if (flushTimer == null) {
+                write.run();
+            } else {
+                flushTimer.record(write);
+            }
+        }
+
+        /**
+         * 按批写出缓冲中的所有行
+         *
+         * @param wait 其他线程正在写时是否等待（false 时直接返回，由正在写的线程处理）
+         */
+        void flush(boolean wait) {
+            if (wait) {
+                writeLock.lock();
+            } else if (!writeLock.tryLock()) {
+                return;
+            }
+            try {
+                List<T> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+                // 先重置入队时间再取出，之后入队的行会重新记录（只可能让超时判断提前，不会遗漏）
+                oldestNanos.set(0);
+                while (queue.drainTo(batch, batchSize) > 0) {
+                    try {
+                        timed(() -> writer.write(table, batch));
+                        record(Outcome.WRITTEN, batch.size());
+                    } catch (Exception e) {
+                        if (overflowPolicy == OverflowPolicy.SPILL) {
+                            log.warn("[LOG-WRITER] 日志批量写入失败，{} 行转入溢出文件 table={} err={}", batch.size(), table.getName(), e.getMessage());
+                            spill(this, batch);
+                        } else {
+                            record(Outcome.FAILED, batch.size());
+                            log.error("[LOG-WRITER] 日志批量写入失败，丢弃 {} 行 table={} err={}", batch.size(), table.getName(), e.getMessage());
+                        }
+                    }
+                    batch.clear();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.heytrip.hotel.search.infra.nlp;
+
+import com.heytrip.hotel.search.infra.nlp.SpellCheckService.SpellCheckRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 拼写纠错模糊匹配索引（SymSpell 删除索引，按业务领域划分，构建后不可变）
+ * - 规则加载/变更时整体重建，由 {@link SpellCheckService} 在写锁内原子替换
+ * - 构建：每个错误拼写按其允许的编辑距离（1 或 2）生成删除变体，变体哈希与词编号打包为 long 后排序
+ * - 查询：输入生成至多 2 次删除的变体，二分查找候选词，再以带上界的编辑距离校验（提前退出）
+ * - 结果与原线性扫描一致：在所有命中的错误拼写中，按 权重降序 → ALL 领域优先 → 规则加载顺序 取第一个
+ */
+public final class FuzzyRuleIndex {
+
+    public static final FuzzyRuleIndex EMPTY = new FuzzyRuleIndex(Collections.emptyMap());
+
+    static final String DOMAIN_ALL = "ALL";
+
+    /**
+     * 任意错误拼写允许的最大编辑距离
+     */
+    private static final int MAX_DISTANCE = 2;
+
+    private final Map<String, DomainIndex> domains;
+
+    private FuzzyRuleIndex(Map<String, DomainIndex> domains) {
+        this.domains = domains;
+    }
+
+    /**
+     * 由按领域分组的规则构建索引（调用方需保证构建期间规则不被修改）
+     */
+    public static FuzzyRuleIndex build(Map<String, List<SpellCheckRule>> rulesByDomain) {
+        if (rulesByDomain == null || rulesByDomain.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, DomainIndex> domains = new HashMap<>();
+        for (Map.Entry<String, List<SpellCheckRule>> e : rulesByDomain.entrySet()) {
+            DomainIndex index = DomainIndex.build(e.getValue(), DOMAIN_ALL.equals(e.getKey()));
+            if (index != null) {
+                domains.put(e.getKey(), index);
+            }
+        }
+        return new FuzzyRuleIndex(domains);
+    }
+
+    /**
+     * 查找模糊匹配的纠正结果
+     *
+     * @param text           已归一化的输入
+     * @param businessDomain 业务领域（ALL 规则始终参与）
+     * @return 纠正结果，无命中返回 null
+     */
+    public String findCorrection(String text, String businessDomain) {
+        Entry best = search(domains.get(DOMAIN_ALL), text, null);
+        if (businessDomain != null && !DOMAIN_ALL.equals(businessDomain)) {
+            best = search(domains.get(businessDomain), text, best);
+        }
+        return best == null ? null : best.correct;
+    }
+
+    private static Entry search(DomainIndex index, String text, Entry best) {
+        if (index == null) {
+            return best;
+        }
+        int len = text.length();
+        // 长度差超过最大编辑距离时不可能命中
+        if (len > index.maxWordLength + MAX_DISTANCE || len < index.minWordLength - MAX_DISTANCE) {
+            return best;
+        }
+        best = index.probe(text, deleteHash(text, -1, -1), best);
+        for (int i = 0; i < len; i++) {
+            best = index.probe(text, deleteHash(text, i, -1), best);
+            for (int j = i + 1; j < len; j++) {
+                best = index.probe(text, deleteHash(text, i, j), best);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 单个错误拼写允许的编辑距离（与原线性扫描规则一致）
+     */
+    static int maxDistance(String target) {
+        return Math.min(MAX_DISTANCE, Math.max(1, target.length() / 3));
+    }
+
+    /**
+     * 带上界的编辑距离：真实距离超过 bound 时返回 bound + 1
+     */
+    static int boundedDistance(String s1, String s2, int bound) {
+        int m = s1.length(), n = s2.length();
+        if (Math.abs(m - n) > bound) {
+            return bound + 1;
+        }
+        int[] prev = new int[n + 1];
+        int[] curr = new int[n + 1];
+        for (int j = 0; j <= n; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= m; i++) {
+            curr[0] = i;
+            int rowMin = i;
+            char c = s1.charAt(i - 1);
+            for (int j = 1; j <= n; j++) {
+                int v = c == s2.charAt(j - 1)
+                        ? prev[j - 1]
+                        : 1 + Math.min(Math.min(prev[j], curr[j - 1]), prev[j - 1]);
+                curr[j] = v;
+                if (v < rowMin) {
+                    rowMin = v;
+                }
+            }
+            if (rowMin > bound) {
+                return bound + 1;
+            }
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return Math.min(prev[n], bound + 1);
+    }
+
+    /**
+     * 删除位置 skip1、skip2（-1 表示不删除）后剩余字符串的哈希，不生成中间字符串
+     * 哈希冲突只会带来多余的候选，最终由编辑距离校验过滤
+     */
+    static int deleteHash(String s, int skip1, int skip2) {
+        int h = 0;
+        int len = 0;
+        for (int i = 0; i < s.length(); i++) {
+            if (i == skip1 || i == skip2) continue;
+            h = 31 * h + s.charAt(i);
+            len++;
+        }
+        h ^= len * 0x9E3779B9;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    /**
+     * 单个领域的删除索引
+     */
+    private static final class DomainIndex {
+        private final String[] words;
+        private final Entry[] entries;
+        /** 高 32 位为删除变体哈希，低 32 位为词编号，按值排序 */
+        private final long[] postings;
+        private final int minWordLength;
+        private final int maxWordLength;
+
+        private DomainIndex(String[] words, Entry[] entries, long[] postings, int minWordLength, int maxWordLength) {
+            this.words = words;
+            this.entries = entries;
+            this.postings = postings;
+            this.minWordLength = minWordLength;
+            this.maxWordLength = maxWordLength;
+        }
+
+        static DomainIndex build(List<SpellCheckRule> rules, boolean all) {
+            // 同一错误拼写出现多次：仅保留排序最靠前的
+            Map<String, Entry> unique = new LinkedHashMap<>();
+            int seq = 0;
+            for (SpellCheckRule rule : rules) {
+                String correct = rule.getCorrectSpellings().get(0);
+                for (String wrong : rule.getWrongSpellings()) {
+                    Entry entry = new Entry(correct, rule.getWeight(), all, seq++);
+                    unique.merge(wrong, entry, (a, b) -> b.before(a) ? b : a);
+                }
+            }
+            if (unique.isEmpty()) {
+                return null;
+            }
+            String[] words = unique.keySet().toArray(new String[0]);
+            Entry[] entries = unique.values().toArray(new Entry[0]);
+
+            int minLen = Integer.MAX_VALUE, maxLen = 0;
+            List<long[]> chunks = new ArrayList<>();
+            long[] chunk = new long[1024];
+            int chunkSize = 0, total = 0;
+            for (int id = 0; id < words.length; id++) {
+                String w = words[id];
+                minLen = Math.min(minLen, w.length());
+                maxLen = Math.max(maxLen, w.length());
+                for (int h : deleteHashes(w, maxDistance(w))) {
+                    if (chunkSize == chunk.length) {
+                        chunks.add(chunk);
+                        chunk = new long[chunk.length];
+                        chunkSize = 0;
+                    }
+                    chunk[chunkSize++] = ((long) h << 32) | id;
+                    total++;
+                }
+            }
+            long[] postings = new long[total];
+            int pos = 0;
+            for (long[] c : chunks) {
+                System.arraycopy(c, 0, postings, pos, c.length);
+                pos += c.length;
+            }
+            System.arraycopy(chunk, 0, postings, pos, chunkSize);
+            Arrays.sort(postings);
+            return new DomainIndex(words, entries, postings, minLen, maxLen);
+        }
+
+        /**
+         * 词的至多 maxDeletes 次删除变体哈希（去重）
+         */
+        private static int[] deleteHashes(String w, int maxDeletes) {
+            int len = w.length();
+            int[] hashes = new int[1 + len + (maxDeletes >= 2 ? len * (len - 1) / 2 : 0)];
+            int n = 0;
+            hashes[n++] = deleteHash(w, -1, -1);
+            for (int i = 0; i < len; i++) {
+                hashes[n++] = deleteHash(w, i, -1);
+                if (maxDeletes >= 2) {
+                    for (int j = i + 1; j < len; j++) {
+                        hashes[n++] = deleteHash(w, i, j);
+                    }
+                }
+            }
+            Arrays.sort(hashes, 0, n);
+            int unique = 0;
+            for (int i = 0; i < n; i++) {
+                if (i == 0 || hashes[i] != hashes[i - 1]) {
+                    hashes[unique++] = hashes[i];
+                }
+            }
+            return Arrays.copyOf(hashes, unique);
+        }
+
+        /**
+         * 校验与删除变体哈希 h 对应的所有候选词，返回更优的命中
+         */
+        Entry probe(String text, int h, Entry best) {
+            long key = (long) h << 32;
+            int idx = Arrays.binarySearch(postings, key);
+            if (idx < 0) {
+                idx = -idx - 1;
+            }
+            for (; idx < postings.length && (int) (postings[idx] >> 32) == h; idx++) {
+                int id = (int) postings[idx];
+                Entry entry = entries[id];
+                if (best != null && !entry.before(best)) {
+                    continue;
+                }
+                String word = words[id];
+                int max = maxDistance(word);
+                if (boundedDistance(text, word, max) <= max) {
+                    best = entry;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * 错误拼写对应的纠正结果与排序键
+     */
+    private static final class Entry {
+        private final String correct;
+        private final int weight;
+        private final boolean all;
+        private final int seq;
+
+        private Entry(String correct, int weight, boolean all, int seq) {
+            this.correct = correct;
+            this.weight = weight;
+            this.all = all;
+            this.seq = seq;
+        }
+
+        /**
+         * 是否排在 other 之前：权重降序，同权重 ALL 领域优先，再按加载顺序
+         */
+        boolean before(Entry other) {
+            if (weight != other.weight) return weight > other.weight;
+            if (all != other.all) return all;
+            return seq < other.seq;
+        }
+    }
+}
@@ -1,36 +1,100 @@
 package com.heytrip.hotel.search.infra.nlp;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.hankcs.hanlp.HanLP;
 import com.hankcs.hanlp.corpus.tag.Nature;
 import com.hankcs.hanlp.dictionary.CustomDictionary;
 import com.hankcs.hanlp.dictionary.py.Pinyin;
-import com.hankcs.hanlp.seg.Segment;
 import com.hankcs.hanlp.seg.common.Term;
+import com.hankcs.hanlp.summary.TextRankKeyword;
 import com.hankcs.hanlp.tokenizer.IndexTokenizer;
 import com.hankcs.hanlp.tokenizer.NLPTokenizer;
 import com.hankcs.hanlp.tokenizer.StandardTokenizer;
+import com.heytrip.hotel.search.infra.nlp.SegmenterRegistry.Profile;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * - 提供索引时与查询时的轻量能力
  * - 内部对 HanLP 不可用的情况做降级（避免影响主流程）
+ * - 分词器按线程隔离（SegmenterRegistry）：各线程按识别配置复用各自的分词器实例，不共享、不逐次创建
+ * - 结果记忆化：精细分词、地名/品牌识别、关键词、繁体、拼音按规范化输入缓存（按字符数计权限容），
+ *   自定义词典增删或纠错规则重载后自动失效；缓存结果为不可变列表，调用方不得修改
  */
 @Slf4j
 @Component
 public class NlpEnrichmentService {
 
-
     @Resource
     private SpellCheckService spellCheckService;
 
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${heytrip.nlp.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    /**
+     * 每个操作的缓存容量（输入 + 结果的字符数之和）
+     */
+    @Value("${heytrip.nlp.cache.max-weight:2000000}")
+    private long cacheMaxWeight;
+
+    /**
+     * 自定义词典版本，每次增删自定义词递增
+     */
+    private final AtomicLong dictionaryVersion = new AtomicLong();
+
+    /**
+     * 缓存当前对应的词典代数（自定义词典版本 + 纠错规则版本）
+     */
+    private volatile long cacheGeneration;
+
+    private NlpMemoCache<List<String>> tokenizeFineCache;
+    private NlpMemoCache<List<String>> nerPlacesCache;
+    private NlpMemoCache<List<String>> nerBrandsCache;
+    private NlpMemoCache<List<String>> extractKeywordsCache;
+    private NlpMemoCache<String> toTraditionalCache;
+    private NlpMemoCache<List<String>> toPinyinCache;
+    private List<NlpMemoCache<?>> caches = List.of();
+
+    @PostConstruct
+    public void init() {
+        if (!cacheEnabled) {
+            log.info("[NLP] 结果缓存未启用");
+            return;
+        }
+        tokenizeFineCache = NlpMemoCache.ofTokens("tokenizeFine", cacheMaxWeight);
+        nerPlacesCache = NlpMemoCache.ofTokens("nerPlaces", cacheMaxWeight);
+        nerBrandsCache = NlpMemoCache.ofTokens("nerBrands", cacheMaxWeight);
+        extractKeywordsCache = NlpMemoCache.ofTokens("extractKeywords", cacheMaxWeight);
+        toTraditionalCache = NlpMemoCache.ofText("toTraditional", cacheMaxWeight);
+        toPinyinCache = NlpMemoCache.ofTokens("toPinyin", cacheMaxWeight);
+        caches = List.of(tokenizeFineCache, nerPlacesCache, nerBrandsCache,
+                extractKeywordsCache, toTraditionalCache, toPinyinCache);
+        cacheGeneration = generation();
+
+        MeterRegistry registry = meterRegistryProvider == null ? null : meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            caches.forEach(cache -> cache.bindTo(registry));
+        }
+        log.info("[NLP] 结果缓存已初始化 maxWeightPerOperation={}", cacheMaxWeight);
+    }
+
     /**
      * 精细分词（用于索引侧生成 tokens）
      *
@@ -42,11 +106,13 @@ public class NlpEnrichmentService {
         if (t.isEmpty()) return Collections.emptyList();
 
         try {
-            // 首先进行拼写错误纠正（真正集成到搜索流程中）
-            String corrected = correctSpelling(t);
+            return memoize(tokenizeFineCache, t, key -> {
+                // 首先进行拼写错误纠正（真正集成到搜索流程中）
+                String corrected = correctSpelling(key);
 
-            // 酒店领域优化的精细分词
-            return segmentHotelDomain(corrected);
+                // 酒店领域优化的精细分词
+                return Collections.unmodifiableList(segmentHotelDomain(corrected));
+            });
         } catch (Throwable ex) {
             log.debug("[NLP] tokenizeFine degrade err={}", ex.getMessage());
             return simpleSplit(t);
@@ -59,7 +125,7 @@ public class NlpEnrichmentService {
      */
     private List<String> segmentHotelDomain(String text) {
         // 1. 先使用支持自定词典的segment
-        List<Term> terms = HanLP.segment(text);
+        List<Term> terms = SegmenterRegistry.get(Profile.DEFAULT).seg(text);
 
         // 2. 针对酒店领域进行后处理优化
         List<String> optimizedTokens = new ArrayList<>();
@@ -216,9 +282,11 @@ public class NlpEnrichmentService {
         if (t.isEmpty()) return Collections.emptyList();
         int k = Math.max(1, Math.min(topK, 10));
         try {
-            // 集成拼写错误纠正
-            String corrected = correctSpelling(t);
-            return HanLP.extractKeyword(corrected, k);
+            return memoize(extractKeywordsCache, k + "|" + t, key -> {
+                // 集成拼写错误纠正
+                String corrected = correctSpelling(t);
+                return Collections.unmodifiableList(new TextRankKeyword(SegmenterRegistry.get(Profile.DEFAULT)).getKeywords(corrected, k));
+            });
         } catch (Throwable ex) {
             log.debug("[NLP] extractKeywords degrade err={}", ex.getMessage());
             List<String> toks = simpleSplit(t);
@@ -248,6 +316,7 @@ public class NlpEnrichmentService {
         String t = normalize(text);
         if (t.isEmpty()) return Collections.emptyList();
         try {
+            // 感知机模型只读、每次调用独立构造标注状态，共享单例即可（模型较大，不按线程复制）
             return NLPTokenizer.segment(t).stream().map(term -> term.word).collect(Collectors.toList());
         } catch (Throwable ex) {
             log.debug("[NLP] nlpTokens degrade err={}", ex.getMessage());
@@ -284,17 +353,18 @@ public class NlpEnrichmentService {
         String t = normalize(text);
         if (t.isEmpty()) return Collections.emptyList();
         try {
-            // 集成拼写错误纠正
-            String corrected = correctSpelling(t);
-
-            // 使用 HanLP 的地名识别
-            Segment seg = HanLP.newSegment().enablePlaceRecognize(true);
-            return seg.seg(corrected).stream()
-                    .filter(term -> term.nature == Nature.ns)
-                    .map(term -> term.word)
-                    .distinct()
-                    .limit(20)
-                    .collect(Collectors.toList());
+            return memoize(nerPlacesCache, t, key -> {
+                // 集成拼写错误纠正
+                String corrected = correctSpelling(key);
+
+                // 使用 HanLP 的地名识别
+                return SegmenterRegistry.get(Profile.PLACE).seg(corrected).stream()
+                        .filter(term -> term.nature == Nature.ns)
+                        .map(term -> term.word)
+                        .distinct()
+                        .limit(20)
+                        .toList();
+            });
         } catch (Throwable ex) {
             return Collections.emptyList();
         }
@@ -310,8 +380,7 @@ public class NlpEnrichmentService {
         if (t.isEmpty()) return Collections.emptyList();
         try {
 
-            Segment seg = HanLP.newSegment().enableNameRecognize(true);
-            return seg.seg(text).stream()
+            return SegmenterRegistry.get(Profile.PERSON).seg(text).stream()
                     .filter(term -> term.nature == Nature.nr)
                     .map(term -> term.word)
                     .distinct()
@@ -330,8 +399,7 @@ public class NlpEnrichmentService {
         if (t.isEmpty()) return Collections.emptyList();
         try {
 
-            Segment seg = HanLP.newSegment().enableOrganizationRecognize(true);
-            return seg.seg(text).stream()
+            return SegmenterRegistry.get(Profile.ORG).seg(text).stream()
                     .filter(term -> term.nature == Nature.nt)
                     .map(term -> term.word)
                     .distinct()
@@ -342,6 +410,45 @@ public class NlpEnrichmentService {
         }
     }
 
+    /**
+     * 合并实体识别：一次分词同时返回地名（ns）、机构名（nt）与品牌（nb，自定义品牌词典）
+     * 替代对同一文本分别调用 nerPlaces / nerOrgs / nerBrands 的三次分词；
+     * 开启地名、机构名识别后分词粒度可能与默认分词略有差异，品牌结果以 nerBrands 为准的场景请单独调用
+     *
+     * @param text 输入文本
+     * @return 识别结果（各列表去重、保持出现顺序，地名最多 20 个）
+     */
+    public NerResult nerAll(String text) {
+        String t = normalize(text);
+        if (t.isEmpty()) return NerResult.EMPTY;
+        try {
+            String corrected = correctSpelling(t);
+            Set<String> places = new LinkedHashSet<>();
+            Set<String> orgs = new LinkedHashSet<>();
+            Set<String> brands = new LinkedHashSet<>();
+            for (Term term : SegmenterRegistry.get(Profile.NER).seg(corrected)) {
+                if (term.nature == Nature.ns) {
+                    if (places.size() < 20) places.add(term.word);
+                } else if (term.nature == Nature.nt) {
+                    orgs.add(term.word);
+                } else if ("nb".equals(term.nature.toString())) {
+                    brands.add(term.word);
+                }
+            }
+            return new NerResult(List.copyOf(places), List.copyOf(orgs), List.copyOf(brands));
+        } catch (Throwable ex) {
+            log.debug("[NLP] nerAll degrade err={}", ex.getMessage());
+            return NerResult.EMPTY;
+        }
+    }
+
+    /**
+     * 合并实体识别结果（不可变）
+     */
+    public record NerResult(List<String> places, List<String> orgs, List<String> brands) {
+        public static final NerResult EMPTY = new NerResult(List.of(), List.of(), List.of());
+    }
+
     /**
      * 简体/繁体转换
      */
@@ -354,8 +461,10 @@ public class NlpEnrichmentService {
     }
 
     public String toTraditional(String text) {
+        if (text == null || text.isEmpty()) return text;
         try {
-            return HanLP.convertToTraditionalChinese(text);
+            // 繁体转换不做空白规范化，按原文缓存
+            return memoize(toTraditionalCache, text, HanLP::convertToTraditionalChinese);
         } catch (Throwable ex) {
             return text;
         }
@@ -368,8 +477,9 @@ public class NlpEnrichmentService {
         String t = normalize(text);
         if (t.isEmpty()) return Collections.emptyList();
         try {
-            List<Pinyin> pys = HanLP.convertToPinyinList(t);
-            return pys.stream().map(Pinyin::getPinyinWithoutTone).collect(Collectors.toList());
+            return memoize(toPinyinCache, t, key -> HanLP.convertToPinyinList(key).stream()
+                    .map(Pinyin::getPinyinWithoutTone)
+                    .toList());
         } catch (Throwable ex) {
             return Collections.emptyList();
         }
@@ -400,12 +510,11 @@ public class NlpEnrichmentService {
         if (t.isEmpty()) return Collections.emptyList();
         try {
             // 分词并过滤出品牌词性（nb）
-            List<Term> terms = HanLP.segment(t);
-            return terms.stream()
+            return memoize(nerBrandsCache, t, key -> SegmenterRegistry.get(Profile.DEFAULT).seg(key).stream()
                     .filter(term -> "nb".equals(term.nature.toString()))
                     .map(term -> term.word)
                     .distinct()
-                    .collect(Collectors.toList());
+                    .toList());
         } catch (Throwable ex) {
             log.debug("[NLP] extractBrands degrade err={}", ex.getMessage());
             return Collections.emptyList();
@@ -418,7 +527,11 @@ public class NlpEnrichmentService {
     public boolean addCustomWord(String word, String natureAndFreq) {
         try {
             // 使用 add(word, attr) 更符合 HanLP 1.x API，返回 boolean
-            return CustomDictionary.add(word, natureAndFreq);
+            boolean added = CustomDictionary.add(word, natureAndFreq);
+            if (added) {
+                onDictionaryChanged();
+            }
+            return added;
         } catch (Throwable ex) {
             return false;
         }
@@ -430,12 +543,72 @@ public class NlpEnrichmentService {
     public boolean removeCustomWord(String word) {
         try {
             CustomDictionary.remove(word);
+            onDictionaryChanged();
             return true;
         } catch (Throwable ex) {
             return false;
         }
     }
 
+    /**
+     * 各操作结果缓存统计（命中率、命中/未命中次数、淘汰数、条目数）
+     */
+    public Map<String, Object> getCacheStatistics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (NlpMemoCache<?> cache : caches) {
+            CacheStats s = cache.stats();
+            Map<String, Object> op = new LinkedHashMap<>();
+            op.put("hitRate", s.hitRate());
+            op.put("hitCount", s.hitCount());
+            op.put("missCount", s.missCount());
+            op.put("evictionCount", s.evictionCount());
+            op.put("size", cache.size());
+            stats.put(cache.name(), op);
+        }
+        return stats;
+    }
+
+    /**
+     * 清空全部结果缓存
+     */
+    public void invalidateCaches() {
+        caches.forEach(NlpMemoCache::invalidateAll);
+    }
+
+    /**
+     * 读取记忆化结果；缓存未启用时直接计算
+     */
+    private <V> V memoize(NlpMemoCache<V> cache, String key, Function<String, V> loader) {
+        if (cache == null) {
+            return loader.apply(key);
+        }
+        return cache.get(key, currentGeneration(), loader);
+    }
+
+    /**
+     * 当前词典代数：自定义词典或纠错规则发生变化时清空缓存
+     */
+    private long currentGeneration() {
+        long generation = generation();
+        if (generation != cacheGeneration) {
+            cacheGeneration = generation;
+            invalidateCaches();
+            log.info("[NLP] 词典或纠错规则已变更，结果缓存已清空 generation={}", generation);
+        }
+        return generation;
+    }
+
+    private long generation() {
+        return dictionaryVersion.get() + (spellCheckService == null ? 0 : spellCheckService.getRuleVersion());
+    }
+
+    private void onDictionaryChanged() {
+        dictionaryVersion.incrementAndGet();
+        if (!caches.isEmpty()) {
+            currentGeneration();
+        }
+    }
+
     /**
      * 规范化（去空白/全半角/大小写等，可按需扩展简繁转换）
      */
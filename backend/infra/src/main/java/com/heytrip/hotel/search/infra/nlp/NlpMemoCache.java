@@ -0,0 +1,106 @@
+package com.heytrip.hotel.search.infra.nlp;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * NLP 单个操作的结果记忆化缓存
+ * - 按 输入 + 结果 的字符数计权限容（Caffeine maximumWeight），长文本占用更多配额
+ * - 条目记录写入时的词典代数：自定义词典或纠错规则变更后，旧代数条目视为未命中
+ * - 加载函数抛出异常时不缓存（降级结果不进入缓存）
+ * - 缓存值在调用方之间共享，必须是不可变对象
+ */
+final class NlpMemoCache<V> {
+
+    private final String name;
+    private final Cache<String, Memo<V>> cache;
+
+    private NlpMemoCache(String name, long maxWeight, ToIntFunction<V> valueWeigher) {
+        this.name = name;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                // 每个条目至少计 1，保证条目数同样有界
+                .weigher((String key, Memo<V> memo) -> 1 + key.length() + valueWeigher.applyAsInt(memo.value))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 分词类结果缓存（按词总字符数 + 词数计权）
+     */
+    static NlpMemoCache<List<String>> ofTokens(String name, long maxWeight) {
+        return new NlpMemoCache<>(name, maxWeight, NlpMemoCache::tokensWeight);
+    }
+
+    /**
+     * 文本类结果缓存（按字符数计权）
+     */
+    static NlpMemoCache<String> ofText(String name, long maxWeight) {
+        return new NlpMemoCache<>(name, maxWeight, v -> v == null ? 0 : v.length());
+    }
+
+    /**
+     * 读取缓存，未命中或代数不一致时计算并写入
+     *
+     * @param key        规范化后的输入
+     * @param generation 当前词典代数（计算前读取，保证并发变更期间算出的结果不会以新代数写入）
+     * @param loader     计算函数
+     */
+    V get(String key, long generation, Function<String, V> loader) {
+        Memo<V> memo = cache.getIfPresent(key);
+        if (memo != null && memo.generation == generation) {
+            return memo.value;
+        }
+        V value = loader.apply(key);
+        cache.put(key, new Memo<>(generation, value));
+        return value;
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 立即执行挂起的淘汰等维护工作
+     */
+    void cleanUp() {
+        cache.cleanUp();
+    }
+
+    String name() {
+        return name;
+    }
+
+    long size() {
+        return cache.estimatedSize();
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "nlp." + name);
+    }
+
+    private static int tokensWeight(List<String> tokens) {
+        if (tokens == null) {
+            return 0;
+        }
+        int weight = tokens.size();
+        for (String token : tokens) {
+            weight += token == null ? 0 : token.length();
+        }
+        return weight;
+    }
+
+    private record Memo<V>(long generation, V value) {
+    }
+}
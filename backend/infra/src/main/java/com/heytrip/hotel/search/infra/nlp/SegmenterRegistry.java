@@ -0,0 +1,53 @@
+package com.heytrip.hotel.search.infra.nlp;
+
+import com.hankcs.hanlp.HanLP;
+import com.hankcs.hanlp.seg.Segment;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * HanLP 分词器注册表（按识别配置划分，线程隔离）
+ * - HanLP 分词器实例不保证可在线程间安全共享，每个线程按需创建一份并复用，不再每次调用 HanLP.newSegment()
+ * - 分词器均启用自定义词典（默认行为），自定义词典的增删对已创建的实例立即生效
+ * - 线程数有界（索引富化线程池、搜索线程池、Web 线程），实例总数 = 线程数 × 使用到的配置数
+ */
+public final class SegmenterRegistry {
+
+    /**
+     * 识别配置
+     */
+    public enum Profile {
+        /** 默认分词（等价于 HanLP.segment） */
+        DEFAULT(HanLP::newSegment),
+        /** 地名识别 */
+        PLACE(() -> HanLP.newSegment().enablePlaceRecognize(true)),
+        /** 中国人名识别 */
+        PERSON(() -> HanLP.newSegment().enableNameRecognize(true)),
+        /** 机构名识别 */
+        ORG(() -> HanLP.newSegment().enableOrganizationRecognize(true)),
+        /** 合并识别：一次分词同时识别地名、机构名，自定义词典中的品牌词（nb）同样保留 */
+        NER(() -> HanLP.newSegment().enablePlaceRecognize(true).enableOrganizationRecognize(true));
+
+        private final Supplier<Segment> factory;
+
+        Profile(Supplier<Segment> factory) {
+            this.factory = factory;
+        }
+    }
+
+    private static final ThreadLocal<Map<Profile, Segment>> SEGMENTS =
+            ThreadLocal.withInitial(() -> new EnumMap<>(Profile.class));
+
+    private SegmenterRegistry() {
+    }
+
+    /**
+     * 当前线程指定配置的分词器（首次使用时创建）
+     * 返回的实例仅限当前线程使用，不得传递给其它线程或缓存到共享字段
+     */
+    public static Segment get(Profile profile) {
+        return SEGMENTS.get().computeIfAbsent(profile, p -> p.factory.get());
+    }
+}
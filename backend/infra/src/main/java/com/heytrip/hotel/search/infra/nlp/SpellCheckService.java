@@ -10,6 +10,7 @@ import org.springframework.stereotype.Component;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -24,6 +25,14 @@ public class SpellCheckService {
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
     private final Map<String, List<SpellCheckRule>> rulesCache = new ConcurrentHashMap<>();
     private final Map<String, String> directCorrectMap = new ConcurrentHashMap<>();
+    /**
+     * Immutable fuzzy index, rebuilt and swapped under the write lock whenever rules change
+     */
+    private volatile FuzzyRuleIndex fuzzyIndex = FuzzyRuleIndex.EMPTY;
+    /**
+     * Rule version, bumped on every rule change so dependent caches can detect stale entries
+     */
+    private final AtomicLong ruleVersion = new AtomicLong();
     
     @Value("${hotel.search.spellcheck.config.file:spellcheck.properties}")
     private String configFilePath;
@@ -108,6 +117,7 @@ public class SpellCheckService {
             rulesCache.putAll(newRulesCache);
             directCorrectMap.clear();
             directCorrectMap.putAll(newDirectMap);
+            rebuildFuzzyIndex();
             
             log.info("[SpellCheckService] Configuration loaded, total rules: {}, direct mappings: {}",
                     getAllRules().size(), directCorrectMap.size());
@@ -200,64 +210,26 @@ public class SpellCheckService {
     }
     
     /**
-     * Fuzzy matching (edit distance)
+     * Fuzzy matching (edit distance), served by the prebuilt SymSpell delete index.
+     * Same result as scanning ALL + domain rules by descending weight, without copying or sorting per call.
      */
     private String findFuzzyMatch(String text, String businessDomain) {
-        List<SpellCheckRule> rules = new ArrayList<>();
-        
-        // Get rules for relevant business domains
-        rules.addAll(getRules("ALL"));
-        if (!"ALL".equals(businessDomain)) {
-            rules.addAll(getRules(businessDomain));
-        }
-        
-        // Sort by weight
-        rules.sort((r1, r2) -> Integer.compare(r2.getWeight(), r1.getWeight()));
-        
-        for (SpellCheckRule rule : rules) {
-            for (String wrong : rule.getWrongSpellings()) {
-                if (isSimilar(text, wrong)) {
-                    return rule.getCorrectSpellings().get(0);
-                }
-            }
-        }
-        
-        return null;
+        return fuzzyIndex.findCorrection(text, businessDomain);
     }
     
     /**
-     * Check if two strings are similar (edit distance algorithm)
+     * Rebuild the fuzzy index from the current rules (caller must hold the write lock)
      */
-    private boolean isSimilar(String text, String target) {
-        int maxDistance = Math.min(2, Math.max(1, target.length() / 3));
-        return editDistance(text, target) <= maxDistance;
+    private void rebuildFuzzyIndex() {
+        fuzzyIndex = FuzzyRuleIndex.build(rulesCache);
+        ruleVersion.incrementAndGet();
     }
     
     /**
-     * Calculate edit distance
+     * Current rule version (changes after every load, reload, add, remove or import)
      */
-    private int editDistance(String s1, String s2) {
-        int m = s1.length(), n = s2.length();
-        int[][] dp = new int[m + 1][n + 1];
-        
-        for (int i = 0; i <= m; i++) {
-            dp[i][0] = i;
-        }
-        for (int j = 0; j <= n; j++) {
-            dp[0][j] = j;
-        }
-        
-        for (int i = 1; i <= m; i++) {
-            for (int j = 1; j <= n; j++) {
-                if (s1.charAt(i - 1) == s2.charAt(j - 1)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = 1 + Math.min(Math.min(dp[i - 1][j], dp[i][j - 1]), dp[i - 1][j - 1]);
-                }
-            }
-        }
-        
-        return dp[m][n];
+    public long getRuleVersion() {
+        return ruleVersion.get();
     }
     
     /**
@@ -328,14 +300,8 @@ public class SpellCheckService {
         
         lock.writeLock().lock();
         try {
-            // Add to rules cache
-            rulesCache.computeIfAbsent(rule.getBusinessDomain(), k -> new ArrayList<>()).add(rule);
-            
-            // Add to direct mapping
-            for (String wrong : rule.getWrongSpellings()) {
-                String normalizedWrong = normalizeText(wrong);
-                directCorrectMap.put(normalizedWrong, rule.getCorrectSpellings().get(0));
-            }
+            addRuleLocked(rule);
+            rebuildFuzzyIndex();
             
             log.info("[SpellCheckService] Rule added successfully: {} -> {}",
                     rule.getWrongSpellings(), rule.getCorrectSpellings());
@@ -344,6 +310,20 @@ public class SpellCheckService {
         }
     }
     
+    /**
+     * Add rule to caches without rebuilding the fuzzy index (caller must hold the write lock)
+     */
+    private void addRuleLocked(SpellCheckRule rule) {
+        // Add to rules cache
+        rulesCache.computeIfAbsent(rule.getBusinessDomain(), k -> new ArrayList<>()).add(rule);
+        
+        // Add to direct mapping
+        for (String wrong : rule.getWrongSpellings()) {
+            String normalizedWrong = normalizeText(wrong);
+            directCorrectMap.put(normalizedWrong, rule.getCorrectSpellings().get(0));
+        }
+    }
+    
     /**
      * Remove rule
      */
@@ -356,6 +336,7 @@ public class SpellCheckService {
             
             // Clean direct mapping
             directCorrectMap.entrySet().removeIf(entry -> entry.getKey().equals(ruleId));
+            rebuildFuzzyIndex();
             
             log.info("[SpellCheckService] Rule removed successfully: {}", ruleId);
         } finally {
@@ -446,10 +427,17 @@ public class SpellCheckService {
             List<SpellCheckRule> rules = mapper.readValue(jsonConfig, 
                     mapper.getTypeFactory().constructCollectionType(List.class, SpellCheckRule.class));
             
-            for (SpellCheckRule rule : rules) {
-                if (rule.isValid()) {
-                    addRule(rule);
+            // Add all rules under one write lock and rebuild the fuzzy index once
+            lock.writeLock().lock();
+            try {
+                for (SpellCheckRule rule : rules) {
+                    if (rule.isValid()) {
+                        addRuleLocked(rule);
+                    }
                 }
+                rebuildFuzzyIndex();
+            } finally {
+                lock.writeLock().unlock();
             }
             
             log.info("[SpellCheckService] Configuration imported successfully, count: {}", rules.size());
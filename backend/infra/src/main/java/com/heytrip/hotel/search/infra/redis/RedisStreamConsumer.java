@@ -1,27 +1,46 @@
 package com.heytrip.hotel.search.infra.redis;
 
+import lombok.Builder;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.AutoClaimResult;
+import org.redisson.api.PendingEntry;
+import org.redisson.api.PendingResult;
 import org.redisson.api.RStream;
 import org.redisson.api.RedissonClient;
+import org.redisson.api.StreamConsumer;
+import org.redisson.api.StreamGroup;
 import org.redisson.api.StreamMessageId;
 import org.redisson.api.stream.StreamCreateGroupArgs;
 import org.redisson.api.stream.StreamReadGroupArgs;
 import org.redisson.client.codec.StringCodec;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Redis Stream 消费工具
- * - 负责创建消费组、读取、ACK
+ * - 负责创建消费组、读取（含阻塞读取）、ACK（支持多ID批量）
+ * - 待处理消息认领（XAUTOCLAIM）、投递次数查询、闲置消费者清理与消费组统计（XINFO / XPENDING）
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class RedisStreamConsumer {
 
+    private static final int PENDING_PAGE_SIZE = 500;
+    private static final Comparator<StreamMessageId> ID_ORDER =
+            Comparator.comparingLong(StreamMessageId::getId0).thenComparingLong(StreamMessageId::getId1);
+
     private final RedissonClient redissonClient;
 
     public void ensureGroup(String streamName, String groupName) {
@@ -51,6 +70,142 @@ public class RedisStreamConsumer {
         }
     }
 
+    /**
+     * 阻塞读取一批未投递消息（XREADGROUP BLOCK ... >），无消息时最多阻塞 block 时长
+     * 异常向上抛出，由调用方决定退避策略
+     */
+    public Map<StreamMessageId, Map<String, String>> readBatchBlocking(String streamName, String groupName, String consumerName,
+                                                                      int count, Duration block) {
+        RStream<String, String> stream = redissonClient.getStream(streamName, StringCodec.INSTANCE);
+        Map<StreamMessageId, Map<String, String>> batch = stream.readGroup(groupName, consumerName,
+                StreamReadGroupArgs.neverDelivered().count(count).timeout(block));
+        return batch == null ? Collections.emptyMap() : batch;
+    }
+
+    /**
+     * 认领闲置超过 minIdle 的待处理消息（XAUTOCLAIM）
+     *
+     * @param startId 扫描起点（首次传 0-0，之后传上次返回的 nextId）
+     */
+    public AutoClaimResult<String, String> autoClaim(String streamName, String groupName, String consumerName,
+                                                     Duration minIdle, StreamMessageId startId, int count) {
+        RStream<String, String> stream = redissonClient.getStream(streamName, StringCodec.INSTANCE);
+        return stream.autoClaim(groupName, consumerName, minIdle.toMillis(), TimeUnit.MILLISECONDS, startId, count);
+    }
+
+    /**
+     * 查询指定消费者名下待处理消息的投递次数（XPENDING 扩展形式，按 ID 范围翻页）
+     *
+     * @param ids 需要查询的消息ID（不在 PEL 中的ID不会出现在结果里）
+     * @return 消息ID -> 投递次数
+     */
+    public Map<StreamMessageId, Long> deliveryCounts(String streamName, String groupName, String consumerName,
+                                                     Collection<StreamMessageId> ids) {
+        Map<StreamMessageId, Long> counts = new HashMap<>();
+        if (ids == null || ids.isEmpty()) return counts;
+        RStream<String, String> stream = redissonClient.getStream(streamName, StringCodec.INSTANCE);
+        StreamMessageId start = Collections.min(ids, ID_ORDER);
+        StreamMessageId end = Collections.max(ids, ID_ORDER);
+        while (true) {
+            List<PendingEntry> page = stream.listPending(groupName, consumerName, start, end, PENDING_PAGE_SIZE);
+            for (PendingEntry entry : page) {
+                if (ids.contains(entry.getId())) {
+                    counts.put(entry.getId(), entry.getLastTimeDelivered());
+                }
+            }
+            if (page.size() < PENDING_PAGE_SIZE || counts.size() == ids.size()) {
+                return counts;
+            }
+            StreamMessageId last = page.get(page.size() - 1).getId();
+            start = new StreamMessageId(last.getId0(), last.getId1() + 1);
+        }
+    }
+
+    /**
+     * 一次 XACK 确认多条消息
+     */
+    public void ackBatch(String streamName, String groupName, Collection<StreamMessageId> ids) {
+        if (ids == null || ids.isEmpty()) return;
+        try {
+            RStream<String, String> stream = redissonClient.getStream(streamName, StringCodec.INSTANCE);
+            stream.ack(groupName, ids.toArray(new StreamMessageId[0]));
+        } catch (Exception e) {
+            log.warn("[REDIS-STREAM] batch ack failed stream={} group={} count={} err={}", streamName, groupName, ids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 清理无待处理消息且闲置超过 minIdle 的消费者（节点重启后遗留的旧消费者名）
+     *
+     * @return 清理的消费者数
+     */
+    public int removeIdleConsumers(String streamName, String groupName, Duration minIdle, Collection<String> keep) {
+        int removed = 0;
+        try {
+            RStream<String, String> stream = redissonClient.getStream(streamName, StringCodec.INSTANCE);
+            for (StreamConsumer c : stream.listConsumers(groupName)) {
+                if (c.getPending() == 0 && c.getIdleTime() >= minIdle.toMillis() && !keep.contains(c.getName())) {
+                    stream.removeConsumer(groupName, c.getName());
+                    removed++;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[REDIS-STREAM] remove idle consumers failed stream={} group={} err={}", streamName, groupName, e.getMessage());
+        }
+        return removed;
+    }
+
+    /**
+     * 消费组统计：Stream 长度、积压（lag）、待处理（pending）及各消费者待处理数
+     */
+    public GroupStats groupStats(String streamName, String groupName) {
+        RStream<String, String> stream = redissonClient.getStream(streamName, StringCodec.INSTANCE);
+        GroupStats.GroupStatsBuilder builder = GroupStats.builder()
+                .stream(streamName)
+                .group(groupName)
+                .length(stream.size());
+        for (StreamGroup g : stream.listGroups()) {
+            if (groupName.equals(g.getName())) {
+                builder.lag((long) g.getLag())
+                        .pending((long) g.getPending())
+                        .lastDeliveredId(g.getLastDeliveredId() == null ? null : g.getLastDeliveredId().toString());
+            }
+        }
+        List<ConsumerStats> consumers = new ArrayList<>();
+        for (StreamConsumer c : stream.listConsumers(groupName)) {
+            consumers.add(new ConsumerStats(c.getName(), c.getPending(), c.getIdleTime()));
+        }
+        PendingResult pending = stream.getPendingInfo(groupName);
+        return builder.consumers(consumers)
+                .oldestPendingId(pending == null || pending.getLowestId() == null ? null : pending.getLowestId().toString())
+                .build();
+    }
+
+    /**
+     * 消费组统计
+     */
+    @Data
+    @Builder
+    public static class GroupStats {
+        private String stream;
+        private String group;
+        /** Stream 当前长度（XLEN） */
+        private long length;
+        /** 尚未投递给该组的消息数（XINFO GROUPS lag，Redis 7+） */
+        private Long lag;
+        /** 已投递未确认的消息数 */
+        private Long pending;
+        private String lastDeliveredId;
+        private String oldestPendingId;
+        private List<ConsumerStats> consumers;
+    }
+
+    /**
+     * 单个消费者统计
+     */
+    public record ConsumerStats(String name, long pending, long idleMs) {
+    }
+
     public void ack(String streamName, String groupName, StreamMessageId id) {
         try {
             RStream<String, String> stream = redissonClient.getStream(streamName,StringCodec.INSTANCE);
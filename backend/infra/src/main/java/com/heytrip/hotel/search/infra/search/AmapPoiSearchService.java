@@ -46,6 +46,8 @@ public class AmapPoiSearchService {
             SearchRequest request = SearchRequest.of(s -> s
                     .index(poiSearchWeights.getReadAlias())
                     .size(size)
+                    .timeout(SearchDeadline.esTimeout())
+                    .source(SearchSourceFilters.POI)
                     .query(q -> q
                             .bool(b -> b
                                     .should(sh -> sh
@@ -105,6 +107,8 @@ public class AmapPoiSearchService {
             SearchRequest request = SearchRequest.of(s -> s
                     .index(poiSearchWeights.getReadAlias())
                     .size(size)
+                    .timeout(SearchDeadline.esTimeout())
+                    .source(SearchSourceFilters.POI)
                     .query(q -> q
                             .bool(b -> b
                                     // 城市过滤
@@ -173,6 +177,8 @@ public class AmapPoiSearchService {
             SearchRequest request = SearchRequest.of(s -> s
                     .index(poiSearchWeights.getReadAlias())
                     .size(size)
+                    .timeout(SearchDeadline.esTimeout())
+                    .source(SearchSourceFilters.POI)
                     .query(q -> q
                             .geoDistance(gd -> gd
                                     .field("location")
@@ -249,6 +255,8 @@ public class AmapPoiSearchService {
             SearchRequest request = SearchRequest.of(s -> s
                     .index(poiSearchWeights.getReadAlias())
                     .size(size)
+                    .timeout(SearchDeadline.esTimeout())
+                    .source(SearchSourceFilters.POI)
                     .query(q -> q
                             .bool(b -> b
                                     // 地理位置过滤
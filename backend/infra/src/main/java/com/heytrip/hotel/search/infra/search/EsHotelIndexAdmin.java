@@ -0,0 +1,187 @@
+package com.heytrip.hotel.search.infra.search;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.HealthStatus;
+import co.elastic.clients.elasticsearch.cluster.HealthResponse;
+import co.elastic.clients.elasticsearch.indices.IndexSettings;
+import co.elastic.clients.elasticsearch.indices.IndexState;
+import co.elastic.clients.elasticsearch.indices.update_aliases.Action;
+import com.heytrip.hotel.search.infra.config.HotelSearchWeights;
+import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 酒店索引管理操作（全量重建用，替代 rebuild_hotels_index.sh 中的 curl 调用）
+ * - 影子索引创建：settings / mappings 与 EsIndexInitializer 相同（来自 HotelIndexDoc），命名 hotels_yyyyMMdd_HHmmss
+ * - 装载期设置、刷新、段合并、健康检查、别名原子切换、删除旧索引
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EsHotelIndexAdmin {
+
+    private static final DateTimeFormatter INDEX_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+    private static final long TASK_POLL_MS = 5000;
+
+    private final ElasticsearchClient elasticsearchClient;
+    private final ElasticsearchOperations operations;
+    private final HotelSearchWeights hotelSearchWeights;
+
+    /**
+     * 服务期索引设置（副本数、刷新间隔）
+     */
+    public record ServingSettings(String replicas, String refreshInterval) {
+    }
+
+    /**
+     * 创建影子索引并应用装载期设置（refresh_interval=-1、0 副本）
+     *
+     * @return 新索引名
+     */
+    public String createShadowIndex() throws IOException {
+        String index = "hotels_" + LocalDateTime.now().format(INDEX_SUFFIX);
+        IndexOperations entityOps = operations.indexOps(HotelIndexDoc.class);
+        IndexOperations indexOps = operations.indexOps(IndexCoordinates.of(index));
+        if (indexOps.exists()) {
+            throw new IllegalStateException("索引已存在: " + index);
+        }
+        indexOps.create(entityOps.createSettings(), entityOps.createMapping());
+        putSettings(index, "0", "-1");
+        log.info("[REINDEX] 影子索引已创建 index={} (replicas=0, refresh_interval=-1)", index);
+        return index;
+    }
+
+    /**
+     * 当前服务中的索引（读、写别名指向的索引并集）
+     */
+    public List<String> servingIndices() throws IOException {
+        TreeSet<String> indices = new TreeSet<>(aliasTargets(hotelSearchWeights.getReadAlias()));
+        indices.addAll(aliasTargets(hotelSearchWeights.getWriteAlias()));
+        return new ArrayList<>(indices);
+    }
+
+    /**
+     * 别名当前指向的索引（别名不存在时返回空列表）
+     */
+    public List<String> aliasTargets(String alias) throws IOException {
+        try {
+            return new ArrayList<>(new TreeSet<>(elasticsearchClient.indices().getAlias(g -> g.name(alias)).result().keySet()));
+        } catch (ElasticsearchException e) {
+            if (e.status() == 404) {
+                return new ArrayList<>();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 读取索引的副本数与刷新间隔；未显式设置的项返回 null
+     */
+    public ServingSettings servingSettings(String index) throws IOException {
+        Map<String, IndexState> result = elasticsearchClient.indices().getSettings(g -> g.index(index)).result();
+        IndexState state = result.get(index);
+        IndexSettings settings = state == null ? null : state.settings();
+        if (settings != null && settings.index() != null) {
+            settings = settings.index();
+        }
+        if (settings == null) {
+            return new ServingSettings(null, null);
+        }
+        String refresh = settings.refreshInterval() == null || !settings.refreshInterval().isTime()
+                ? null : settings.refreshInterval().time();
+        return new ServingSettings(settings.numberOfReplicas(), refresh);
+    }
+
+    /**
+     * 更新副本数与刷新间隔
+     */
+    public void putSettings(String index, String replicas, String refreshInterval) throws IOException {
+        elasticsearchClient.indices().putSettings(p -> p
+                .index(index)
+                .settings(s -> s
+                        .numberOfReplicas(replicas)
+                        .refreshInterval(t -> t.time(refreshInterval))));
+    }
+
+    public void refresh(String index) throws IOException {
+        elasticsearchClient.indices().refresh(r -> r.index(index));
+    }
+
+    /**
+     * 段合并：后台任务执行，轮询任务状态直到完成或超时
+     *
+     * @return 是否在超时前完成
+     */
+    public boolean forceMerge(String index, int maxNumSegments, long timeoutMs) throws IOException, InterruptedException {
+        String task = elasticsearchClient.indices()
+                .forcemerge(f -> f.index(index).maxNumSegments((long) maxNumSegments).waitForCompletion(false))
+                .task();
+        if (task == null) {
+            return true;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (System.currentTimeMillis() < deadline) {
+            if (elasticsearchClient.tasks().get(g -> g.taskId(task)).completed()) {
+                return true;
+            }
+            Thread.sleep(TASK_POLL_MS);
+        }
+        log.warn("[REINDEX] 段合并未在 {}ms 内完成，继续后续步骤（合并在后台继续执行） index={} task={}", timeoutMs, index, task);
+        return false;
+    }
+
+    /**
+     * 等待索引健康状态为 green
+     *
+     * @return 是否在超时前达到 green
+     */
+    public boolean waitForGreen(String index, long timeoutMs) throws IOException {
+        HealthResponse health = elasticsearchClient.cluster().health(h -> h
+                .index(index)
+                .waitForStatus(HealthStatus.Green)
+                .timeout(t -> t.time(timeoutMs + "ms")));
+        if (health.timedOut()) {
+            log.warn("[REINDEX] 索引未在 {}ms 内达到 green，当前状态={} index={}", timeoutMs, health.status(), index);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 读写别名原子切换到新索引（单次 _aliases 请求：从旧索引移除、添加到新索引）
+     */
+    public void swapAliases(List<String> oldIndices, String newIndex) throws IOException {
+        String readAlias = hotelSearchWeights.getReadAlias();
+        String writeAlias = hotelSearchWeights.getWriteAlias();
+        List<Action> actions = new ArrayList<>();
+        for (String old : oldIndices) {
+            if (old.equals(newIndex)) {
+                continue;
+            }
+            actions.add(Action.of(a -> a.remove(r -> r.index(old).aliases(readAlias, writeAlias).mustExist(false))));
+        }
+        actions.add(Action.of(a -> a.add(ad -> ad.index(newIndex).alias(readAlias))));
+        actions.add(Action.of(a -> a.add(ad -> ad.index(newIndex).alias(writeAlias))));
+        elasticsearchClient.indices().updateAliases(u -> u.actions(actions));
+        log.info("[REINDEX] 别名已切换 {},{} -> {} (旧索引={})", readAlias, writeAlias, newIndex, oldIndices);
+    }
+
+    public void deleteIndex(String index) throws IOException {
+        elasticsearchClient.indices().delete(d -> d.index(index));
+        log.info("[REINDEX] 索引已删除 index={}", index);
+    }
+}
@@ -31,6 +31,15 @@ public interface EsHotelIndexService {
                           Function<Hotels, String> tagSourceFn,
                           Function<Hotels, String> providerSourceFn);
 
+    /**
+     * 批量写入指定索引（全量重建装载影子索引），以更新时间作为外部版本，不经过写别名
+     */
+    BulkResult bulkIndex(String index,
+                         List<Hotels> hotels,
+                         Function<Hotels, HotelStructuredExtractor.Result> parsedSupplier,
+                         Function<Hotels, String> tagSourceFn,
+                         Function<Hotels, String> providerSourceFn);
+
     /**
      * 批量写入结果
      */
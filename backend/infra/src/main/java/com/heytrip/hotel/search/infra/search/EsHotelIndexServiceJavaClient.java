@@ -1,6 +1,7 @@
 package com.heytrip.hotel.search.infra.search;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.VersionType;
 import co.elastic.clients.elasticsearch.core.BulkRequest;
 import co.elastic.clients.elasticsearch.core.BulkResponse;
 import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
@@ -22,6 +23,7 @@ import java.util.function.Function;
 
 /**
  * ES 写入实现：基于 Elasticsearch Java Client（Bulk API，返回 per-item 失败）
+ * 全量重建期间（HotelIndexDualWrite 有影子索引）同一批次同时写入影子索引，影子索引写入失败只记录日志
  */
 @Slf4j
 @Service
@@ -32,6 +34,10 @@ public class EsHotelIndexServiceJavaClient implements EsHotelIndexService {
     private final ElasticsearchClient elasticsearchClient;
     private final NlpEnrichmentService nlpEnrichmentService;
     private final HotelSearchWeights hotelSearchWeights;
+    private final IndexEnrichExecutor indexEnrichExecutor;
+    private final HotelIndexDualWrite hotelIndexDualWrite;
+
+    private static final String VERSION_CONFLICT = "version_conflict_engine_exception";
 
 
     /**
@@ -45,17 +51,26 @@ public class EsHotelIndexServiceJavaClient implements EsHotelIndexService {
     public void upsert(String tagSource, String providerSource, Hotels s, HotelStructuredExtractor.Result p) {
         try {
             HotelIndexDoc doc = mapDoc(tagSource, providerSource, s, p);
-            BulkRequest req = new BulkRequest.Builder()
-                    .operations(op -> op.index(i -> i.index(hotelSearchWeights.getWriteAlias()).id(doc.getId()).document(doc)))
-                    .build();
-            BulkResponse resp = elasticsearchClient.bulk(req);
+            String shadow = shadowIndex();
+            BulkRequest.Builder br = new BulkRequest.Builder()
+                    .operations(indexOp(hotelSearchWeights.getWriteAlias(), doc, false));
+            if (shadow != null) {
+                br.operations(indexOp(shadow, doc, true));
+            }
+            BulkResponse resp = elasticsearchClient.bulk(br.build());
             if (resp.errors()) {
-                String details = resp.items() == null ? "unknown error" : resp.items().stream()
+                List<BulkResponseItem> items = resp.items() == null ? List.of() : resp.items();
+                if (shadow != null && items.size() > 1) {
+                    logShadowFailures(shadow, items.subList(1, items.size()));
+                }
+                String details = items.isEmpty() ? "unknown error" : items.subList(0, 1).stream()
                         .filter(it -> it != null && it.error() != null)
                         .map(it -> (it.id() == null ? "" : it.id()) + ":" + it.error().reason())
                         .reduce((a, b) -> a + "; " + b)
-                        .orElse("unknown error");
-                throw new RuntimeException("es upsert failed (bulk errors): " + details);
+                        .orElse(null);
+                if (details != null || items.isEmpty()) {
+                    throw new RuntimeException("es upsert failed (bulk errors): " + (details == null ? "unknown error" : details));
+                }
             }
         } catch (Exception e) {
             throw new RuntimeException("es upsert failed: " + e.getMessage(), e);
@@ -80,27 +95,32 @@ public class EsHotelIndexServiceJavaClient implements EsHotelIndexService {
             return new BulkResult(Collections.emptyList(), Collections.emptyMap());
         }
         try {
-            // 构造文档与 hotelId 顺序列表
-            List<HotelIndexDoc> docs = new ArrayList<>(hotels.size());
+            // 构造文档与 hotelId 顺序列表（NLP 衍生字段并行计算，文档顺序与 hotels 一致）
+            List<HotelIndexDoc> docs = mapDocs(hotels, parsedSupplier, tagSourceFn, providerSourceFn);
             List<Long> hotelIds = new ArrayList<>(hotels.size());
             for (Hotels s : hotels) {
-                String tag = tagSourceFn.apply(s);
-                String prov = providerSourceFn.apply(s);
-                HotelStructuredExtractor.Result p = parsedSupplier.apply(s);
-                docs.add(mapDoc(tag, prov, s, p));
                 hotelIds.add(s.getHotelId());
             }
-            // 构造 BulkRequest（按顺序与 hotelIds 对齐）
+            // 构造 BulkRequest（按顺序与 hotelIds 对齐；双写时影子索引操作追加在后）
+            String shadow = shadowIndex();
             BulkRequest.Builder br = new BulkRequest.Builder();
             for (HotelIndexDoc d : docs) {
-                br.operations(BulkOperation.of(o -> o.index(i -> i.index(hotelSearchWeights.getWriteAlias()).id(d.getId()).document(d))));
+                br.operations(indexOp(hotelSearchWeights.getWriteAlias(), d, false));
+            }
+            if (shadow != null) {
+                for (HotelIndexDoc d : docs) {
+                    br.operations(indexOp(shadow, d, true));
+                }
             }
             BulkResponse resp = elasticsearchClient.bulk(br.build());
             Map<Long, String> failed = new LinkedHashMap<>();
             List<Long> success = new ArrayList<>();
             // 逐项解析：items 与请求顺序一致
             List<BulkResponseItem> items = resp.items();
-            for (int i = 0; i < items.size(); i++) {
+            if (shadow != null && items.size() > docs.size()) {
+                logShadowFailures(shadow, items.subList(docs.size(), items.size()));
+            }
+            for (int i = 0; i < items.size() && i < docs.size(); i++) {
                 Long hid = hotelIds.get(i);
                 BulkResponseItem item = items.get(i);
                 if (item.error() != null) {
@@ -124,7 +144,103 @@ public class EsHotelIndexServiceJavaClient implements EsHotelIndexService {
         }
     }
 
-    private HotelIndexDoc mapDoc(String tagSource, String providerSource, Hotels hotels, HotelStructuredExtractor.Result p) {
+    /**
+     * 批量写入指定索引（全量重建装载影子索引用），不经过写别名、不双写
+     * 以 hotels.updated_at 作为外部版本（external_gte）：与双写并发时较旧的数据不会覆盖较新的文档，版本冲突视为成功
+     */
+    @Override
+    public BulkResult bulkIndex(String index,
+                                List<Hotels> hotels,
+                                Function<Hotels, HotelStructuredExtractor.Result> parsedSupplier,
+                                Function<Hotels, String> tagSourceFn,
+                                Function<Hotels, String> providerSourceFn) {
+        if (hotels == null || hotels.isEmpty()) {
+            return new BulkResult(Collections.emptyList(), Collections.emptyMap());
+        }
+        List<Long> hotelIds = new ArrayList<>(hotels.size());
+        for (Hotels s : hotels) {
+            hotelIds.add(s.getHotelId());
+        }
+        try {
+            List<HotelIndexDoc> docs = mapDocs(hotels, parsedSupplier, tagSourceFn, providerSourceFn);
+            BulkRequest.Builder br = new BulkRequest.Builder();
+            for (HotelIndexDoc d : docs) {
+                br.operations(indexOp(index, d, true));
+            }
+            BulkResponse resp = elasticsearchClient.bulk(br.build());
+            Map<Long, String> failed = new LinkedHashMap<>();
+            List<Long> success = new ArrayList<>(hotels.size());
+            List<BulkResponseItem> items = resp.items();
+            for (int i = 0; i < items.size() && i < hotelIds.size(); i++) {
+                BulkResponseItem item = items.get(i);
+                if (item.error() != null && !VERSION_CONFLICT.equals(item.error().type())) {
+                    failed.put(hotelIds.get(i), item.error().reason());
+                } else {
+                    success.add(hotelIds.get(i));
+                }
+            }
+            if (items.isEmpty() && resp.errors()) {
+                for (Long hid : hotelIds) failed.put(hid, "bulk errors");
+            }
+            return new BulkResult(success, failed);
+        } catch (Exception e) {
+            log.error("[ES] bulk index exception index={} err={}", index, e.getMessage(), e);
+            Map<Long, String> failed = new LinkedHashMap<>();
+            for (Long hid : hotelIds) failed.put(hid, e.getMessage());
+            return new BulkResult(Collections.emptyList(), failed);
+        }
+    }
+
+    /**
+     * 单个索引操作；versioned 时以文档更新时间作为外部版本（无更新时间时不带版本）
+     */
+    private static BulkOperation indexOp(String index, HotelIndexDoc d, boolean versioned) {
+        return BulkOperation.of(o -> o.index(i -> {
+            i.index(index).id(d.getId()).document(d);
+            if (versioned && d.getUpdatedAt() != null) {
+                i.version(d.getUpdatedAt().getTime()).versionType(VersionType.ExternalGte);
+            }
+            return i;
+        }));
+    }
+
+    private String shadowIndex() {
+        return hotelIndexDualWrite == null ? null : hotelIndexDualWrite.shadowIndex();
+    }
+
+    /**
+     * 影子索引写入失败只记录日志（版本冲突说明影子索引已有更新的文档，不算失败）
+     */
+    private static void logShadowFailures(String shadow, List<BulkResponseItem> items) {
+        long failures = items.stream()
+                .filter(it -> it.error() != null && !VERSION_CONFLICT.equals(it.error().type()))
+                .count();
+        if (failures > 0) {
+            String sample = items.stream()
+                    .filter(it -> it.error() != null && !VERSION_CONFLICT.equals(it.error().type()))
+                    .findFirst()
+                    .map(it -> it.id() + ":" + it.error().reason())
+                    .orElse("");
+            log.warn("[ES] 影子索引双写失败 index={} failures={} sample={}", shadow, failures, sample);
+        }
+    }
+
+    /**
+     * 批量映射索引文档：在索引富化线程池上并行计算，结果顺序与 hotels 一致，不访问 ES
+     * 传入的提供函数会被多个线程并发调用，需保证只读
+     */
+    public List<HotelIndexDoc> mapDocs(List<Hotels> hotels,
+                                       Function<Hotels, HotelStructuredExtractor.Result> parsedSupplier,
+                                       Function<Hotels, String> tagSourceFn,
+                                       Function<Hotels, String> providerSourceFn) {
+        return indexEnrichExecutor.mapOrdered(hotels,
+                s -> mapDoc(tagSourceFn.apply(s), providerSourceFn.apply(s), s, parsedSupplier.apply(s)));
+    }
+
+    /**
+     * 持久化实体 + 解析结果 -> 索引文档（含 NLP 衍生字段），不访问 ES
+     */
+    public HotelIndexDoc mapDoc(String tagSource, String providerSource, Hotels hotels, HotelStructuredExtractor.Result p) {
         HotelIndexDoc d = new HotelIndexDoc();
         d.setId((tagSource == null ? "" : tagSource) + "_" + hotels.getHotelId());
         d.setTagSource(tagSource);
@@ -3,9 +3,16 @@ package com.heytrip.hotel.search.infra.search;
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
 import co.elastic.clients.elasticsearch._types.DistanceUnit;
 import co.elastic.clients.elasticsearch._types.GeoDistanceType;
+import co.elastic.clients.elasticsearch._types.LatLonGeoLocation;
+import co.elastic.clients.elasticsearch._types.SortOptions;
 import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.MsearchRequest;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
 import com.heytrip.hotel.search.infra.config.HotelSearchWeights;
 import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
 import com.heytrip.hotel.search.infra.search.dto.HotelGeoResult;
@@ -30,6 +37,8 @@ public class HotelGeoSearchService {
 
     private final ElasticsearchClient elasticsearchClient;
     private final HotelSearchWeights hotelSearchWeights;
+    private final HotelSearchCacheService cacheService;
+    private final HotelKeywordQueryTemplate queryTemplate;
 
     /**
      * 搜索指定位置附近的酒店
@@ -42,6 +51,15 @@ public class HotelGeoSearchService {
      * @return 酒店列表（按距离排序）
      */
     public List<HotelGeoResult> searchNearby(double lat, double lon, double radiusKm, String tag, int size) {
+        // 两级缓存读取，未命中时同Key只回源一次ES
+        return cacheService.getOrLoadNearbySearch(lat, lon, radiusKm, tag, size,
+                () -> doSearchNearby(lat, lon, radiusKm, tag, size));
+    }
+
+    /**
+     * 附近酒店ES查询（缓存未命中时回源）
+     */
+    private List<HotelGeoResult> doSearchNearby(double lat, double lon, double radiusKm, String tag, int size) {
         try {
             log.debug("[Hotel GEO] 附近酒店搜索 lat={} lon={} radius={}km tag='{}' size={} index={}",
                     lat, lon, radiusKm, tag, size, hotelSearchWeights.getReadAlias());
@@ -50,47 +68,10 @@ public class HotelGeoSearchService {
             SearchRequest request = SearchRequest.of(s -> s
                     .index(hotelSearchWeights.getReadAlias())
                     .size(size)
-                    .query(q -> q
-                            .bool(b -> {
-                                var boolQuery = b
-                                        .filter(f -> f.geoDistance(gd -> gd
-                                    .field("location")
-                                    .distance(radiusKm + "km")
-                                    .location(gl -> gl
-                                            .latlon(ll -> ll
-                                                    .lat(lat)
-                                                    .lon(lon)
-                                            )
-                                    )
-                                    .distanceType(GeoDistanceType.Arc)
-                            ));
-                                
-                                // 如果指定了tag，添加tagSource过滤
-                                if (StringUtils.hasText(tag)) {
-                                    boolQuery.filter(f -> f
-                                            .term(t -> t
-                                                    .field("tagSource")
-                                                    .value(tag)
-                                            )
-                                    );
-                                }
-                                
-                                return boolQuery;
-                            })
-                    )
-                    .sort(sort -> sort
-                            .geoDistance(gd -> gd
-                                    .field("location")
-                                    .location(gl -> gl
-                                            .latlon(ll -> ll
-                                                    .lat(lat)
-                                                    .lon(lon)
-                                            )
-                                    )
-                                    .order(SortOrder.Asc)
-                                    .unit(DistanceUnit.Kilometers)
-                            )
-                    )
+                    .timeout(SearchDeadline.esTimeout())
+                    .source(SearchSourceFilters.HOTEL_GEO)
+                    .query(nearbyQuery(lat, lon, radiusKm, tag))
+                    .sort(distanceSort(lat, lon))
             );
 
             if (log.isDebugEnabled()) {
@@ -99,27 +80,15 @@ public class HotelGeoSearchService {
 
             SearchResponse<HotelIndexDoc> response = elasticsearchClient.search(request, HotelIndexDoc.class);
 
-            return response.hits().hits().stream()
-                    .map(hit -> {
-                        HotelIndexDoc hotel = hit.source();
-                        // 设置相关性得分
-                        hotel.setScore(hit.score());
-                        
-                        // 从排序字段中获取距离
-                        Double distance = null;
-                        if (hit.sort() != null && !hit.sort().isEmpty()) {
-                            Object sortValue = hit.sort().get(0);
-                            if (sortValue instanceof Number) {
-                                distance = ((Number) sortValue).doubleValue();
-                            }
-                        }
-                        // 如果排序字段中没有距离，则手动计算
-                        if (distance == null && hotel.getLat() != null && hotel.getLon() != null) {
-                            distance = calculateDistance(lat, lon, hotel.getLat(), hotel.getLon());
-                        }
-                        return new HotelGeoResult(hotel, distance);
-                    })
+            List<HotelGeoResult> geoResults = response.hits().hits().stream()
+                    .map(hit -> toGeoResult(hit, lat, lon))
                     .collect(Collectors.toList());
+            if (response.timedOut()) {
+                // 截止时间内只收集到部分分片结果：本次返回，不写入缓存
+                log.warn("[Hotel GEO] ES查询超时，返回部分结果且不缓存 lat={} lon={} 结果数={}", lat, lon, geoResults.size());
+                return HotelSearchCacheService.uncacheable(geoResults);
+            }
+            return geoResults;
 
         } catch (Exception e) {
             log.error("[Hotel GEO] 附近酒店搜索失败 lat={} lon={} radius={}km index={} err={}",
@@ -131,6 +100,8 @@ public class HotelGeoSearchService {
                 SearchRequest fallbackRequest = SearchRequest.of(s -> s
                         .index(hotelSearchWeights.getReadAlias())
                         .size(size)
+                        .timeout(SearchDeadline.esTimeout())
+                        .source(SearchSourceFilters.HOTEL_GEO)
                 );
                 SearchResponse<HotelIndexDoc> response = elasticsearchClient.search(fallbackRequest, HotelIndexDoc.class);
                 
@@ -157,6 +128,98 @@ public class HotelGeoSearchService {
 
 
 
+    /**
+     * 批量搜索多个中心点附近的酒店
+     * 所有未命中缓存的中心点合并为一次 _msearch 请求，避免逐个中心点串行查询ES
+     *
+     * @param centers  搜索中心点列表（WGS84 坐标系）
+     * @param radiusKm 搜索半径（公里）
+     * @param tag      业务域过滤（可选：CN/INTL/HMT）
+     * @param size     每个中心点返回数量
+     * @return 与 centers 顺序一一对应的酒店列表（按距离排序），单个子查询失败时对应位置为空列表
+     */
+    public List<List<HotelGeoResult>> searchNearbyBatch(List<LatLonGeoLocation> centers, double radiusKm, String tag, int size) {
+        if (centers == null || centers.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // 1. 批量读取缓存
+        List<List<HotelGeoResult>> results = cacheService.getNearbySearchCaches(centers, radiusKm, tag, size);
+        List<Integer> missIndexes = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i) == null) {
+                missIndexes.add(i);
+            }
+        }
+        if (missIndexes.isEmpty()) {
+            log.debug("[Hotel GEO-BATCH] 全部命中缓存 centers={}", centers.size());
+            return results;
+        }
+
+        // 2. 未命中的中心点合并为一次 _msearch
+        try {
+            log.debug("[Hotel GEO-BATCH] 批量附近酒店搜索 centers={} miss={} radius={}km tag='{}' size={} index={}",
+                    centers.size(), missIndexes.size(), radiusKm, tag, size, hotelSearchWeights.getReadAlias());
+
+            MsearchRequest request = MsearchRequest.of(m -> {
+                for (Integer index : missIndexes) {
+                    LatLonGeoLocation center = centers.get(index);
+                    m.searches(item -> item
+                            .header(h -> h.index(hotelSearchWeights.getReadAlias()))
+                            .body(b -> b
+                                    .size(size)
+                                    .timeout(SearchDeadline.esTimeout())
+                                    .source(SearchSourceFilters.HOTEL_GEO)
+                                    .query(nearbyQuery(center.lat(), center.lon(), radiusKm, tag))
+                                    .sort(distanceSort(center.lat(), center.lon()))
+                            )
+                    );
+                }
+                return m;
+            });
+
+            MsearchResponse<HotelIndexDoc> response = elasticsearchClient.msearch(request, HotelIndexDoc.class);
+            List<MultiSearchResponseItem<HotelIndexDoc>> items = response.responses();
+
+            for (int j = 0; j < missIndexes.size(); j++) {
+                int index = missIndexes.get(j);
+                LatLonGeoLocation center = centers.get(index);
+                MultiSearchResponseItem<HotelIndexDoc> item = j < items.size() ? items.get(j) : null;
+
+                if (item == null || !item.isResult()) {
+                    log.warn("[Hotel GEO-BATCH] 子查询失败 lat={} lon={} err={}", center.lat(), center.lon(),
+                            item != null && item.isFailure() ? item.failure().error().reason() : "missing response");
+                    results.set(index, new ArrayList<>());
+                    continue;
+                }
+
+                List<HotelGeoResult> geoResults = item.result().hits().hits().stream()
+                        .map(hit -> toGeoResult(hit, center.lat(), center.lon()))
+                        .collect(Collectors.toList());
+                results.set(index, geoResults);
+                if (item.result().timedOut()) {
+                    // 子查询超时只返回部分分片结果：本次使用，不写入缓存
+                    log.warn("[Hotel GEO-BATCH] 子查询超时，返回部分结果且不缓存 lat={} lon={} 结果数={}",
+                            center.lat(), center.lon(), geoResults.size());
+                    continue;
+                }
+                cacheService.setNearbySearchCache(center.lat(), center.lon(), radiusKm, tag, size, geoResults);
+            }
+
+            log.debug("[Hotel GEO-BATCH] 批量搜索完成 centers={} 查询数={}", centers.size(), missIndexes.size());
+            return results;
+
+        } catch (Exception e) {
+            log.error("[Hotel GEO-BATCH] 批量附近酒店搜索失败 centers={} index={} err={}，降级为逐个查询",
+                    missIndexes.size(), hotelSearchWeights.getReadAlias(), e.getMessage(), e);
+            for (Integer index : missIndexes) {
+                LatLonGeoLocation center = centers.get(index);
+                results.set(index, searchNearby(center.lat(), center.lon(), radiusKm, tag, size));
+            }
+            return results;
+        }
+    }
+
     /**
      * 在指定位置附近搜索符合关键词的酒店
      *
@@ -166,9 +229,10 @@ public class HotelGeoSearchService {
      * @param keyword  关键词（酒店名称、品牌等）
      * @param tag      业务域过滤（可选：CN/INTL/HMT）
      * @param size     返回数量
-     * @return 酒店列表（按距离排序）
+     * @return 酒店列表（按距离排序；ES排序模式下按综合评分排序）
      */
     public List<HotelGeoResult> searchNearbyWithKeyword(double lat, double lon, double radiusKm, String keyword, String tag, int size) {
+        boolean ranking = hotelSearchWeights.isEsRanking() && StringUtils.hasText(keyword);
         try {
             log.debug("[Hotel GEO-KEYWORD] 附近关键词搜索 lat={} lon={} radius={}km keyword='{}' tag='{}' size={} index={}",
                     lat, lon, radiusKm, keyword, tag, size, hotelSearchWeights.getReadAlias());
@@ -176,78 +240,13 @@ public class HotelGeoSearchService {
             SearchRequest request = SearchRequest.of(s -> s
                     .index(hotelSearchWeights.getReadAlias())
                     .size(size)
-                    .query(q -> q
-                            .bool(b -> {
-                                var boolQuery = b
-                                    // 地理位置过滤（使用geo_distance）
-                                    .filter(f -> f
-                                            .geoDistance(gd -> gd
-                                                    .field("location")
-                                                    .distance(radiusKm + "km")
-                                                    .location(gl -> gl
-                                                            .latlon(ll -> ll
-                                                                    .lat(lat)
-                                                                    .lon(lon)
-                                                            )
-                                                    )
-                                                    .distanceType(GeoDistanceType.Arc)
-                                            )
-                                    )
-                                    // === 关键词匹配（与HotelKeywordSearchService保持一致）===
-                                    
-                                    // 中文酒店名称
-                                    .should(sh -> sh.match(m -> m.field("nameCn").query(keyword).boost(hotelSearchWeights.getNameCnBoost())))
-                                    // 英文酒店名称 - 分词匹配
-                                    .should(sh -> sh.match(m -> m.field("nameEn").query(keyword).boost(hotelSearchWeights.getNameEnBoost())))
-                                    // 英文酒店名称 - 短语匹配
-                                    .should(sh -> sh.matchPhrase(m -> m.field("nameEn").query(keyword).boost(hotelSearchWeights.getNameEnBoost() * 2.0f)))
-                                    // 英文酒店名称 - 精确匹配
-                                    .should(sh -> sh.term(t -> t.field("nameEn.keyword").value(keyword).boost(hotelSearchWeights.getNameEnBoost() * 3.0f)))
-                                    // 繁体名称
-                                    .should(sh -> sh.match(m -> m.field("nameTraditional").query(keyword).boost(hotelSearchWeights.getNameTraditionalBoost())))
-                                    
-                                    // 品牌
-                                    .should(sh -> sh.match(m -> m.field("brandCn").query(keyword).boost(hotelSearchWeights.getNerBrandsBoost())))
-                                    .should(sh -> sh.match(m -> m.field("brandEn").query(keyword).boost(hotelSearchWeights.getNerBrandsBoost())))
-                                    .should(sh -> sh.term(t -> t.field("nerBrands").value(keyword).boost(hotelSearchWeights.getNerBrandsBoost())))
-                                    
-                                    // 地址
-                                    .should(sh -> sh.match(m -> m.field("addressCn").query(keyword).boost(hotelSearchWeights.getAddressBoost())))
-                                    .should(sh -> sh.match(m -> m.field("addressEn").query(keyword).boost(hotelSearchWeights.getAddressBoost())))
-                                    .should(sh -> sh.term(t -> t.field("addressTokens").value(keyword).boost(hotelSearchWeights.getAddressTokensBoost())))
-                                    .should(sh -> sh.match(m -> m.field("addressTraditional").query(keyword).boost(hotelSearchWeights.getAddressTraditionalBoost())))
-
-                                    // 衍生字段
-                                    .should(sh -> sh.term(t -> t.field("nameTokens").value(keyword).boost(hotelSearchWeights.getNameEnBoost())))
-
-                                    .minimumShouldMatch("1");
-                                
-                                // 如果指定了tag，添加tagSource过滤
-                                if (StringUtils.hasText(tag)) {
-                                    boolQuery.filter(f -> f
-                                            .term(t -> t
-                                                    .field("tagSource")
-                                                    .value(tag)
-                                            )
-                                    );
-                                }
-                                
-                                return boolQuery;
-                            })
-                    )
-                    .sort(sort -> sort
-                            .geoDistance(gd -> gd
-                                    .field("location")
-                                    .location(gl -> gl
-                                            .latlon(ll -> ll
-                                                    .lat(lat)
-                                                    .lon(lon)
-                                            )
-                                    )
-                                    .order(SortOrder.Asc)
-                                    .unit(DistanceUnit.Kilometers)
-                            )
-                    )
+                    .timeout(SearchDeadline.esTimeout())
+                    .source(SearchSourceFilters.HOTEL_KEYWORD)
+                    .query(rank(nearbyKeywordQuery(lat, lon, radiusKm, keyword, tag), keyword, lat, lon))
+                    .minScore(minScore())
+                    // ES排序模式按综合评分排序（距离已计入评分），否则按距离升序；应用内评分使用实际 _score 时才需返回相关性得分
+                    .sort(ranking ? List.of() : List.of(distanceSort(lat, lon)))
+                    .trackScores(!ranking && hotelSearchWeights.isAppActualScore())
             );
 
             if (log.isDebugEnabled()) {
@@ -288,6 +287,8 @@ public class HotelGeoSearchService {
                 SearchRequest fallbackRequest = SearchRequest.of(s -> s
                         .index(hotelSearchWeights.getReadAlias())
                         .size(size)
+                        .timeout(SearchDeadline.esTimeout())
+                        .source(SearchSourceFilters.HOTEL_KEYWORD)
                         .query(q -> q
                                 .bool(b -> b
                                         .should(sh -> sh.match(m -> m.field("nameCn").query(keyword)))
@@ -320,6 +321,122 @@ public class HotelGeoSearchService {
         }
     }
 
+    /**
+     * 附近酒店查询：geo_distance 过滤 + 可选 tagSource 过滤
+     */
+    private Query nearbyQuery(double lat, double lon, double radiusKm, String tag) {
+        return Query.of(q -> q
+                .bool(b -> {
+                    var boolQuery = b
+                            .filter(f -> f.geoDistance(gd -> gd
+                                    .field("location")
+                                    .distance(radiusKm + "km")
+                                    .location(gl -> gl
+                                            .latlon(ll -> ll
+                                                    .lat(lat)
+                                                    .lon(lon)
+                                            )
+                                    )
+                                    .distanceType(GeoDistanceType.Arc)
+                            ));
+
+                    // 如果指定了tag，添加tagSource过滤
+                    if (StringUtils.hasText(tag)) {
+                        boolQuery.filter(f -> f
+                                .term(t -> t
+                                        .field("tagSource")
+                                        .value(tag)
+                                )
+                        );
+                    }
+
+                    return boolQuery;
+                })
+        );
+    }
+
+    /**
+     * 附近关键词查询：地理位置过滤 + 关键词匹配（与HotelKeywordSearchService共用查询模板，不含城市词项匹配）
+     */
+    private Query nearbyKeywordQuery(double lat, double lon, double radiusKm, String keyword, String tag) {
+        return queryTemplate.bind(keyword, HotelKeywordQueryTemplate.ClauseSet.WITHOUT_CITY, tag)
+                .filter(f -> f.geoDistance(gd -> gd
+                        .field("location")
+                        .distance(radiusKm + "km")
+                        .location(gl -> gl
+                                .latlon(ll -> ll
+                                        .lat(lat)
+                                        .lon(lon)
+                                )
+                        )
+                        .distanceType(GeoDistanceType.Arc)
+                ))
+                .build()
+                ._toQuery();
+    }
+
+    /**
+     * ES排序模式：以综合评分包装召回查询，距离以 linear 衰减计入评分
+     */
+    private Query rank(Query matchQuery, String keyword, double lat, double lon) {
+        if (!hotelSearchWeights.isEsRanking() || !StringUtils.hasText(keyword)) {
+            return matchQuery;
+        }
+        return HotelRankingQuery.wrap(matchQuery, keyword, lat, lon, hotelSearchWeights.getRankingMinRelevance());
+    }
+
+    /**
+     * ES排序模式的综合评分下限，未开启或未配置时不过滤
+     */
+    private Double minScore() {
+        if (!hotelSearchWeights.isEsRanking() || hotelSearchWeights.getRankingMinScore() <= 0) {
+            return null;
+        }
+        return hotelSearchWeights.getRankingMinScore();
+    }
+
+    /**
+     * 按距离升序排序（公里）
+     */
+    private SortOptions distanceSort(double lat, double lon) {
+        return SortOptions.of(sort -> sort
+                .geoDistance(gd -> gd
+                        .field("location")
+                        .location(gl -> gl
+                                .latlon(ll -> ll
+                                        .lat(lat)
+                                        .lon(lon)
+                                )
+                        )
+                        .order(SortOrder.Asc)
+                        .unit(DistanceUnit.Kilometers)
+                )
+        );
+    }
+
+    /**
+     * 将ES命中结果转换为地理搜索结果（带距离）
+     */
+    private HotelGeoResult toGeoResult(Hit<HotelIndexDoc> hit, double lat, double lon) {
+        HotelIndexDoc hotel = hit.source();
+        // 设置相关性得分
+        hotel.setScore(hit.score());
+
+        // 从排序字段中获取距离
+        Double distance = null;
+        if (hit.sort() != null && !hit.sort().isEmpty()) {
+            Object sortValue = hit.sort().get(0);
+            if (sortValue instanceof Number) {
+                distance = ((Number) sortValue).doubleValue();
+            }
+        }
+        // 如果排序字段中没有距离，则手动计算
+        if (distance == null && hotel.getLat() != null && hotel.getLon() != null) {
+            distance = calculateDistance(lat, lon, hotel.getLat(), hotel.getLon());
+        }
+        return new HotelGeoResult(hotel, distance);
+    }
+
     /**
      * 使用 Haversine 公式计算两点间距离（公里）
      *
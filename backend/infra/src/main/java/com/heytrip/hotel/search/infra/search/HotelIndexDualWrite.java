@@ -0,0 +1,101 @@
+package com.heytrip.hotel.search.infra.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * 全量重建期间的索引双写目标（影子索引）
+ * - 目标索引名保存在 Redis，各节点的索引写入（hotel:events 消费）在写入别名之外同时写入影子索引
+ * - 本地缓存 refresh-ms 毫秒，重建任务开启双写后需等待超过该时长再开始全表扫描，保证扫描开始后提交的变更都会双写
+ * - 键带过期时间，由重建任务定期续期；重建节点异常退出时双写自动停止
+ */
+@Slf4j
+@Component
+public class HotelIndexDualWrite {
+
+    static final String SHADOW_KEY = "hotel:index:reindex:shadow";
+
+    /**
+     * 本地缓存时长（毫秒）
+     */
+    public static final long REFRESH_MS = 1000;
+
+    private final RedissonClient redissonClient;
+    private final LongSupplier clock;
+
+    private volatile String cached;
+    private volatile long cachedAt = Long.MIN_VALUE;
+
+    @Autowired
+    public HotelIndexDualWrite(RedissonClient redissonClient) {
+        this(redissonClient, System::currentTimeMillis);
+    }
+
+    HotelIndexDualWrite(RedissonClient redissonClient, LongSupplier clock) {
+        this.redissonClient = redissonClient;
+        this.clock = clock;
+    }
+
+    /**
+     * 当前影子索引（未在重建时返回 null）；Redis 不可用时按未重建处理，不影响正常写入
+     */
+    public String shadowIndex() {
+        long now = clock.getAsLong();
+        if (now - cachedAt < REFRESH_MS) {
+            return cached;
+        }
+        try {
+            cached = bucket().get();
+        } catch (Exception e) {
+            log.warn("[REINDEX] 读取双写目标失败，按未重建处理 err={}", e.getMessage());
+            cached = null;
+        }
+        cachedAt = now;
+        return cached;
+    }
+
+    /**
+     * 开启或续期双写
+     */
+    public void start(String index, Duration ttl) {
+        bucket().set(index, ttl);
+        cached = index;
+        cachedAt = clock.getAsLong();
+    }
+
+    /**
+     * 续期双写：仅当标记仍指向 index 时延长有效期，不会重建已过期的标记
+     *
+     * @return 标记是否仍有效（false 表示期间已有节点停止双写，影子索引可能缺少增量）
+     */
+    public boolean renew(String index, Duration ttl) {
+        RBucket<String> bucket = bucket();
+        return index.equals(bucket.get()) && bucket.expire(ttl);
+    }
+
+    /**
+     * 双写标记是否仍指向 index（直接读取 Redis，不使用本地缓存）
+     */
+    public boolean isActive(String index) {
+        return index.equals(bucket().get());
+    }
+
+    /**
+     * 停止双写
+     */
+    public void stop() {
+        bucket().delete();
+        cached = null;
+        cachedAt = clock.getAsLong();
+    }
+
+    private RBucket<String> bucket() {
+        return redissonClient.getBucket(SHADOW_KEY);
+    }
+}
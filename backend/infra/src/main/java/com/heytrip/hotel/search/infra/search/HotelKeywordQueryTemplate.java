@@ -0,0 +1,187 @@
+package com.heytrip.hotel.search.infra.search;
+
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.MatchPhraseQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.MatchQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermQuery;
+import com.heytrip.hotel.search.infra.config.HotelSearchWeights;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 酒店关键词查询模板
+ * - 多层级 should 子句骨架（字段、查询类型、权重）由 HotelSearchWeights 预编译一次，权重变更后自动重建
+ * - 每次请求只绑定关键词与过滤条件：关键词 FieldValue 全部子句共用，权重预先装箱，不再经由逐层 lambda 构建
+ * - 全库/区域搜索包含城市词项子句；城市搜索（已按城市过滤）与周边搜索不含
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotelKeywordQueryTemplate {
+
+    private final HotelSearchWeights searchWeights;
+
+    private volatile Skeleton skeleton;
+
+    /**
+     * 子句集合
+     */
+    public enum ClauseSet {
+        /** 全部子句（含城市词项匹配） */
+        ALL,
+        /** 不含城市词项匹配 */
+        WITHOUT_CITY
+    }
+
+    /**
+     * 绑定关键词，返回已填充 should 子句的 bool 查询构建器（调用方可继续追加过滤条件）
+     *
+     * @param keyword 搜索关键词（非空）
+     * @param clauses 子句集合
+     * @param tag     业务域过滤（可选：CN/INTL/HMT）
+     */
+    public BoolQuery.Builder bind(String keyword, ClauseSet clauses, String tag) {
+        BoolQuery.Builder bool = new BoolQuery.Builder();
+        if (StringUtils.hasText(keyword)) {
+            Clause[] skeletonClauses = current().clauses(clauses);
+            FieldValue value = FieldValue.of(keyword);
+            List<Query> should = new ArrayList<>(skeletonClauses.length);
+            for (Clause clause : skeletonClauses) {
+                should.add(clause.bind(keyword, value));
+            }
+            bool.should(should).minimumShouldMatch("1");
+        }
+        if (StringUtils.hasText(tag)) {
+            bool.filter(term("tagSource", tag));
+        }
+        return bool;
+    }
+
+    /**
+     * 绑定关键词并构建查询
+     */
+    public Query query(String keyword, ClauseSet clauses, String tag) {
+        return bind(keyword, clauses, tag).build()._toQuery();
+    }
+
+    /**
+     * 词项过滤
+     */
+    static Query term(String field, String value) {
+        return new TermQuery.Builder().field(field).value(FieldValue.of(value)).build()._toQuery();
+    }
+
+    /**
+     * 当前权重对应的骨架，权重变更时重建
+     */
+    Skeleton current() {
+        Skeleton current = skeleton;
+        if (current == null || !current.matches(searchWeights)) {
+            current = new Skeleton(searchWeights);
+            skeleton = current;
+            log.info("[Hotel KEYWORD-TEMPLATE] 查询模板已按权重重建 nameCn={} nameEn={} brands={} address={} places={}",
+                    current.nameCn, current.nameEn, current.nerBrands, current.address, current.nerPlaces);
+        }
+        return current;
+    }
+
+    enum Kind {
+        MATCH,
+        MATCH_PHRASE,
+        TERM
+    }
+
+    /**
+     * 子句骨架：字段、查询类型与权重（权重预先装箱）
+     */
+    record Clause(Kind kind, String field, Float boost) {
+
+        Query bind(String keyword, FieldValue value) {
+            return switch (kind) {
+                case MATCH -> new MatchQuery.Builder().field(field).query(value).boost(boost).build()._toQuery();
+                case MATCH_PHRASE -> new MatchPhraseQuery.Builder().field(field).query(keyword).boost(boost).build()._toQuery();
+                case TERM -> new TermQuery.Builder().field(field).value(value).boost(boost).build()._toQuery();
+            };
+        }
+    }
+
+    /**
+     * 预编译骨架（记录构建时的权重，用于判断是否需要重建）
+     */
+    static final class Skeleton {
+
+        final float nameCn;
+        final float nameEn;
+        final float nameTraditional;
+        final float nerBrands;
+        final float address;
+        final float addressTokens;
+        final float addressTraditional;
+        final float nerPlaces;
+
+        final Clause[] all;
+        final Clause[] withoutCity;
+
+        Skeleton(HotelSearchWeights w) {
+            this.nameCn = w.getNameCnBoost();
+            this.nameEn = w.getNameEnBoost();
+            this.nameTraditional = w.getNameTraditionalBoost();
+            this.nerBrands = w.getNerBrandsBoost();
+            this.address = w.getAddressBoost();
+            this.addressTokens = w.getAddressTokensBoost();
+            this.addressTraditional = w.getAddressTraditionalBoost();
+            this.nerPlaces = w.getNerPlacesBoost();
+
+            List<Clause> clauses = new ArrayList<>();
+            // 酒店名称（中文、英文分词/短语/精确、繁体）
+            clauses.add(new Clause(Kind.MATCH, "nameCn", nameCn));
+            clauses.add(new Clause(Kind.MATCH, "nameEn", nameEn));
+            clauses.add(new Clause(Kind.MATCH_PHRASE, "nameEn", nameEn * 2.0f));
+            clauses.add(new Clause(Kind.TERM, "nameEn.keyword", nameEn * 3.0f));
+            clauses.add(new Clause(Kind.MATCH, "nameTraditional", nameTraditional));
+            // 品牌
+            clauses.add(new Clause(Kind.MATCH, "brandCn", nerBrands));
+            clauses.add(new Clause(Kind.MATCH, "brandEn", nerBrands));
+            clauses.add(new Clause(Kind.TERM, "nerBrands", nerBrands));
+            // 地址
+            clauses.add(new Clause(Kind.MATCH, "addressCn", address));
+            clauses.add(new Clause(Kind.MATCH, "addressEn", address));
+            clauses.add(new Clause(Kind.TERM, "addressTokens", addressTokens));
+            clauses.add(new Clause(Kind.MATCH, "addressTraditional", addressTraditional));
+            Clause nameTokens = new Clause(Kind.TERM, "nameTokens", nameEn);
+
+            List<Clause> withCity = new ArrayList<>(clauses);
+            // 城市/地点
+            withCity.add(new Clause(Kind.TERM, "cityCn", nerPlaces));
+            withCity.add(new Clause(Kind.TERM, "cityEn", nerPlaces));
+            // 衍生字段
+            withCity.add(nameTokens);
+            clauses.add(nameTokens);
+
+            this.all = withCity.toArray(new Clause[0]);
+            this.withoutCity = clauses.toArray(new Clause[0]);
+        }
+
+        Clause[] clauses(ClauseSet set) {
+            return set == ClauseSet.ALL ? all : withoutCity;
+        }
+
+        boolean matches(HotelSearchWeights w) {
+            return nameCn == w.getNameCnBoost()
+                    && nameEn == w.getNameEnBoost()
+                    && nameTraditional == w.getNameTraditionalBoost()
+                    && nerBrands == w.getNerBrandsBoost()
+                    && address == w.getAddressBoost()
+                    && addressTokens == w.getAddressTokensBoost()
+                    && addressTraditional == w.getAddressTraditionalBoost()
+                    && nerPlaces == w.getNerPlacesBoost();
+        }
+    }
+}
@@ -1,12 +1,21 @@
 package com.heytrip.hotel.search.infra.search;
 
 import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch.core.SearchRequest;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Highlight;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
 import com.heytrip.hotel.search.infra.config.HotelSearchWeights;
 import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import com.heytrip.hotel.search.infra.search.dto.KeywordRegionResult;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import com.heytrip.hotel.search.infra.util.ESDebugUtil;
@@ -14,6 +23,7 @@ import com.heytrip.hotel.search.infra.util.ESDebugUtil;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 酒店关键词搜索服务
@@ -27,6 +37,30 @@ public class HotelKeywordSearchService {
     private final ElasticsearchClient elasticsearchClient;
     private final HotelSearchWeights searchWeights;
     private final HotelSearchCacheService cacheService;
+    private final HotelKeywordQueryTemplate queryTemplate;
+
+    private static final String AGG_COUNTRIES = "countries";
+    private static final String AGG_REGIONS = "regions";
+    private static final String AGG_TOP_HITS = "top_hits";
+
+    /**
+     * 关键词高亮配置（全库查询与分桶 top_hits 共用）
+     */
+    private static final Highlight KEYWORD_HIGHLIGHT = Highlight.of(h -> h
+            .fields("nameCn", f -> f.numberOfFragments(0))
+            .fields("nameEn", f -> f.numberOfFragments(0))
+            .fields("nameTraditional", f -> f.numberOfFragments(0))
+            .fields("addressCn", f -> f.numberOfFragments(0))
+            .fields("addressEn", f -> f.numberOfFragments(0))
+            .preTags("<em>")
+            .postTags("</em>")
+    );
+
+    /**
+     * 区域聚合每层分桶数（国家、每个国家下的区域）
+     */
+    @Value("${heytrip.search.smart.region-agg-buckets:3}")
+    private int regionAggBuckets;
 
     /**
      * 关键词搜索酒店（全库搜索）
@@ -41,186 +75,27 @@ public class HotelKeywordSearchService {
             return new ArrayList<>();
         }
 
-        // 1. 尝试从缓存获取
-        List<HotelIndexDoc> cachedResults = cacheService.getKeywordSearchCache(keyword, tag, size);
-        if (cachedResults != null) {
-            log.debug("[Hotel KEYWORD-SEARCH] 缓存命中 keyword='{}' tag='{}' size={} 结果数={}", 
-                    keyword, tag, size, cachedResults.size());
-            return cachedResults;
-        }
+        // 两级缓存读取，未命中时同Key只回源一次ES
+        return cacheService.getOrLoadKeywordSearch(keyword, tag, size,
+                () -> doSearchByKeyword(keyword, tag, size));
+    }
 
-        // 2. 缓存未命中，查询ES
+    /**
+     * 关键词搜索ES查询（缓存未命中时回源）
+     */
+    private List<HotelIndexDoc> doSearchByKeyword(String keyword, String tag, int size) {
         try {
             log.debug("[Hotel KEYWORD-SEARCH] 全库关键词搜索 keyword='{}' tag='{}' size={}", keyword, tag, size);
 
             SearchRequest request = SearchRequest.of(s -> s
                     .index(searchWeights.getReadAlias())
                     .size(size)
-                    .query(q -> q
-                            .bool(b -> {
-                                var boolQuery = b
-                                    // === 酒店名称匹配（多层级权重） ===
-                                    
-                                    // 1. 中文酒店名称（最高权重）
-                                    .should(sh -> sh
-                                            .match(m -> m
-                                                    .field("nameCn")
-                                                    .query(keyword)
-                                                    .boost(searchWeights.getNameCnBoost())
-                                            )
-                                    )
-                                    // 2. 英文酒店名称 - 分词匹配
-                                    .should(sh -> sh
-                                            .match(m -> m
-                                                    .field("nameEn")
-                                                    .query(keyword)
-                                                    .boost(searchWeights.getNameEnBoost())
-                                            )
-                                    )
-                                    // 3. 英文酒店名称 - 短语匹配（完整短语得分更高）
-                                    .should(sh -> sh
-                                            .matchPhrase(m -> m
-                                                    .field("nameEn")
-                                                    .query(keyword)
-                                                    .boost(searchWeights.getNameEnBoost() * 2.0f)
-                                            )
-                                    )
-                                    // 4. 英文酒店名称 - 精确匹配（使用keyword子字段，权重最高）
-                                    .should(sh -> sh
-                                            .term(t -> t
-                                                    .field("nameEn.keyword")
-                                                    .value(keyword)
-                                                    .boost(searchWeights.getNameEnBoost() * 3.0f)
-                                            )
-                                    )
-                                    // 5. 繁体名称匹配
-                                    .should(sh -> sh
-                                            .match(m -> m
-                                                    .field("nameTraditional")
-                                                    .query(keyword)
-                                                    .boost(searchWeights.getNameTraditionalBoost())
-                                            )
-                                    )
-                                    
-                                    // === 品牌匹配 ===
-                                    
-                                    // 中文品牌
-                                    .should(sh -> sh
-                                            .match(m -> m
-                                                    .field("brandCn")
-                                                    .query(keyword)
-                                                    .boost(searchWeights.getNerBrandsBoost())
-                                            )
-                                    )
-                                    // 英文品牌
-                                    .should(sh -> sh
-                                            .match(m -> m
-                                                    .field("brandEn")
-                                                    .query(keyword)
-                                                    .boost(searchWeights.getNerBrandsBoost())
-                                            )
-                                    )
-                                    // NER品牌实体
-                                    .should(sh -> sh
-                                            .term(t -> t
-                                                    .field("nerBrands")
-                                                    .value(keyword)
-                                                    .boost(searchWeights.getNerBrandsBoost())
-                                            )
-                                    )
-                                    
-                                    // === 地址匹配 ===
-                                    
-                                    // 中文地址
-                                    .should(sh -> sh
-                                            .match(m -> m
-                                                    .field("addressCn")
-                                                    .query(keyword)
-                                                    .boost(searchWeights.getAddressBoost())
-                                            )
-                                    )
-                                    // 英文地址
-                                    .should(sh -> sh
-                                            .match(m -> m
-                                                    .field("addressEn")
-                                                    .query(keyword)
-                                                    .boost(searchWeights.getAddressBoost())
-                                            )
-                                    )
-                                    // 地址分词（精细粒度）
-                                    .should(sh -> sh
-                                            .term(t -> t
-                                                    .field("addressTokens")
-                                                    .value(keyword)
-                                                    .boost(searchWeights.getAddressTokensBoost())
-                                            )
-                                    )
-                                    // 繁体地址
-                                    .should(sh -> sh
-                                            .match(m -> m
-                                                    .field("addressTraditional")
-                                                    .query(keyword)
-                                                    .boost(searchWeights.getAddressTraditionalBoost())
-                                            )
-                                    )
-                                    
-                                    // === 城市/地点匹配 ===
-                                    
-                                    // 中文城市
-                                    .should(sh -> sh
-                                            .term(t -> t
-                                                    .field("cityCn")
-                                                    .value(keyword)
-                                                    .boost(searchWeights.getNerPlacesBoost())
-                                            )
-                                    )
-                                    // 英文城市
-                                    .should(sh -> sh
-                                            .term(t -> t
-                                                    .field("cityEn")
-                                                    .value(keyword)
-                                                    .boost(searchWeights.getNerPlacesBoost())
-                                            )
-                                    )
-                                    
-                                    // === 其他衍生字段 ===
-                                    
-                                    // 名称分词（精细粒度）
-                                    .should(sh -> sh
-                                            .term(t -> t
-                                                    .field("nameTokens")
-                                                    .value(keyword)
-                                                    .boost(searchWeights.getNameEnBoost())
-                                            )
-                                    )
-
-                                    
-                                    // 至少匹配一个
-                                    .minimumShouldMatch("1");
-                                
-                                // 如果指定了tag，添加tagSource过滤
-                                if (StringUtils.hasText(tag)) {
-                                    boolQuery.filter(f -> f
-                                            .term(t -> t
-                                                    .field("tagSource")
-                                                    .value(tag)
-                                            )
-                                    );
-                                }
-                                
-                                return boolQuery;
-                            })
-                    )
+                    .timeout(SearchDeadline.esTimeout())
+                    .source(SearchSourceFilters.HOTEL_KEYWORD)
+                    .query(rank(keywordQuery(keyword, tag), keyword))
+                    .minScore(minScore(keyword))
                     // 添加高亮配置
-                    .highlight(h -> h
-                            .fields("nameCn", f -> f.numberOfFragments(0))
-                            .fields("nameEn", f -> f.numberOfFragments(0))
-                            .fields("nameTraditional", f -> f.numberOfFragments(0))
-                            .fields("addressCn", f -> f.numberOfFragments(0))
-                            .fields("addressEn", f -> f.numberOfFragments(0))
-                            .preTags("<em>")
-                            .postTags("</em>")
-                    )
+                    .highlight(KEYWORD_HIGHLIGHT)
             );
 
             if (log.isDebugEnabled()) {
@@ -230,40 +105,11 @@ public class HotelKeywordSearchService {
             SearchResponse<HotelIndexDoc> response = elasticsearchClient.search(request, HotelIndexDoc.class);
 
             List<HotelIndexDoc> hotels = response.hits().hits().stream()
-                    .map(hit -> {
-                        HotelIndexDoc hotel = hit.source();
-                        // 设置相关性得分
-                        hotel.setScore(hit.score());
-
-                        // 提取高亮结果
-                        if (hit.highlight() != null && !hit.highlight().isEmpty()) {
-                            var highlights = hit.highlight();
-                            if (highlights.containsKey("nameCn") && !highlights.get("nameCn").isEmpty()) {
-                                hotel.setHighlightedNameCn(highlights.get("nameCn").get(0));
-                            }
-                            if (highlights.containsKey("nameEn") && !highlights.get("nameEn").isEmpty()) {
-                                hotel.setHighlightedNameEn(highlights.get("nameEn").get(0));
-                            }
-                            if (highlights.containsKey("nameTraditional") && !highlights.get("nameTraditional").isEmpty()) {
-                                hotel.setHighlightedNameTraditional(highlights.get("nameTraditional").get(0));
-                            }
-                            if (highlights.containsKey("addressCn") && !highlights.get("addressCn").isEmpty()) {
-                                hotel.setHighlightedAddressCn(highlights.get("addressCn").get(0));
-                            }
-                            if (highlights.containsKey("addressEn") && !highlights.get("addressEn").isEmpty()) {
-                                hotel.setHighlightedAddressEn(highlights.get("addressEn").get(0));
-                            }
-                        }
-                        return hotel;
-                    })
+                    .map(hit -> toHotel(hit.source(), hit.score(), hit.highlight()))
                     .toList();
 
             log.debug("[Hotel KEYWORD-SEARCH] 搜索完成 keyword='{}' 结果数={}", keyword, hotels.size());
-            
-            // 3. 设置缓存
-            cacheService.setKeywordSearchCache(keyword, tag, size, hotels);
-            
-            return hotels;
+            return partialIfTimedOut(response, hotels, keyword);
 
         } catch (IOException e) {
             log.error("[Hotel KEYWORD-SEARCH] 搜索失败 keyword='{}'", keyword, e);
@@ -271,6 +117,99 @@ public class HotelKeywordSearchService {
         }
     }
 
+    /**
+     * 关键词搜索 + 国别区域聚合（全库搜索，一次ES请求）
+     * 在全库关键词查询上附加 countryCn / regionCn 两级 terms 聚合，每个分桶通过 top_hits 返回桶内相关性最高的酒店，
+     * 桶内结果与 {@link #searchByKeywordWithRegion} 按国家/区域过滤后的结果一致，常见情况下无需二次查询
+     *
+     * @param keyword 搜索关键词
+     * @param tag     业务域过滤（可选：CN/INTL/HMT）
+     * @param size    返回数量（全库结果与每个分桶相同）
+     * @return 聚合结果，无命中时 hits 为空
+     */
+    public KeywordRegionResult searchByKeywordWithRegionBuckets(String keyword, String tag, int size) {
+        if (!StringUtils.hasText(keyword)) {
+            return new KeywordRegionResult();
+        }
+
+        // 两级缓存读取，未命中时同Key只回源一次ES
+        List<KeywordRegionResult> results = cacheService.getOrLoadKeywordRegionSearch(keyword, tag, size,
+                () -> doSearchByKeywordWithRegionBuckets(keyword, tag, size));
+        return results.isEmpty() ? new KeywordRegionResult() : results.get(0);
+    }
+
+    /**
+     * 关键词搜索 + 国别区域聚合ES查询（缓存未命中时回源）
+     *
+     * @return 单元素列表，无命中或查询失败时为空列表（不缓存）
+     */
+    private List<KeywordRegionResult> doSearchByKeywordWithRegionBuckets(String keyword, String tag, int size) {
+        try {
+            log.debug("[Hotel KEYWORD-SEARCH] 全库关键词+区域聚合搜索 keyword='{}' tag='{}' size={} buckets={}",
+                    keyword, tag, size, regionAggBuckets);
+
+            SearchRequest request = SearchRequest.of(s -> s
+                    .index(searchWeights.getReadAlias())
+                    .size(size)
+                    .timeout(SearchDeadline.esTimeout())
+                    .source(SearchSourceFilters.HOTEL_KEYWORD)
+                    .query(rank(keywordQuery(keyword, tag), keyword))
+                    .minScore(minScore(keyword))
+                    // 添加高亮配置
+                    .highlight(KEYWORD_HIGHLIGHT)
+                    // 国家 → 区域两级分桶，每个分桶返回桶内相关性最高的酒店
+                    .aggregations(AGG_COUNTRIES, a -> a
+                            .terms(t -> t.field("countryCn").size(regionAggBuckets))
+                            .aggregations(AGG_TOP_HITS, sub -> sub
+                                    .topHits(th -> th.size(size).source(SearchSourceFilters.HOTEL_KEYWORD).highlight(KEYWORD_HIGHLIGHT)))
+                            .aggregations(AGG_REGIONS, sub -> sub
+                                    .terms(t -> t.field("regionCn").size(regionAggBuckets))
+                                    .aggregations(AGG_TOP_HITS, r -> r
+                                            .topHits(th -> th.size(size).source(SearchSourceFilters.HOTEL_KEYWORD).highlight(KEYWORD_HIGHLIGHT))))
+                    )
+            );
+
+            if (log.isDebugEnabled()) {
+                log.debug("[Hotel KEYWORD-SEARCH] ES查询JSON:\n{}", ESDebugUtil.toJson(request));
+            }
+
+            SearchResponse<HotelIndexDoc> response = elasticsearchClient.search(request, HotelIndexDoc.class);
+
+            List<HotelIndexDoc> hotels = response.hits().hits().stream()
+                    .map(hit -> toHotel(hit.source(), hit.score(), hit.highlight()))
+                    .toList();
+            if (hotels.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            List<KeywordRegionResult.RegionBucket> buckets = new ArrayList<>();
+            Aggregate countries = response.aggregations().get(AGG_COUNTRIES);
+            if (countries != null && countries.isSterms()) {
+                for (StringTermsBucket countryBucket : countries.sterms().buckets().array()) {
+                    String country = countryBucket.key().stringValue();
+                    buckets.add(new KeywordRegionResult.RegionBucket(country, null,
+                            topHits(countryBucket.aggregations().get(AGG_TOP_HITS))));
+
+                    Aggregate regions = countryBucket.aggregations().get(AGG_REGIONS);
+                    if (regions != null && regions.isSterms()) {
+                        for (StringTermsBucket regionBucket : regions.sterms().buckets().array()) {
+                            buckets.add(new KeywordRegionResult.RegionBucket(country, regionBucket.key().stringValue(),
+                                    topHits(regionBucket.aggregations().get(AGG_TOP_HITS))));
+                        }
+                    }
+                }
+            }
+
+            log.debug("[Hotel KEYWORD-SEARCH] 区域聚合搜索完成 keyword='{}' 结果数={} 分桶数={}",
+                    keyword, hotels.size(), buckets.size());
+            return partialIfTimedOut(response, List.of(new KeywordRegionResult(hotels, buckets)), keyword);
+
+        } catch (IOException e) {
+            log.error("[Hotel KEYWORD-SEARCH] 区域聚合搜索失败 keyword='{}'", keyword, e);
+            return new ArrayList<>();
+        }
+    }
+
     /**
      * 关键词 + 城市搜索
      *
@@ -285,78 +224,25 @@ public class HotelKeywordSearchService {
             return new ArrayList<>();
         }
 
-        // 1. 尝试从缓存获取
-        List<HotelIndexDoc> cachedResults = cacheService.getKeywordCitySearchCache(keyword, city, tag, size);
-        if (cachedResults != null) {
-            log.debug("[Hotel KEYWORD-SEARCH] 缓存命中 keyword='{}' city='{}' tag='{}' size={} 结果数={}", 
-                    keyword, city, tag, size, cachedResults.size());
-            return cachedResults;
-        }
+        // 两级缓存读取，未命中时同Key只回源一次ES
+        return cacheService.getOrLoadKeywordCitySearch(keyword, city, tag, size,
+                () -> doSearchByKeywordAndCity(keyword, city, tag, size));
+    }
 
-        // 2. 缓存未命中，查询ES
+    /**
+     * 关键词 + 城市搜索ES查询（缓存未命中时回源）
+     */
+    private List<HotelIndexDoc> doSearchByKeywordAndCity(String keyword, String city, String tag, int size) {
         try {
             log.debug("[Hotel KEYWORD-SEARCH] 城市关键词搜索 keyword='{}' city='{}' tag='{}' size={}", keyword, city, tag, size);
 
             SearchRequest request = SearchRequest.of(s -> s
                     .index(searchWeights.getReadAlias())
                     .size(size)
-                    .query(q -> q
-                            .bool(b -> {
-                                // 城市过滤
-                                if (StringUtils.hasText(city)) {
-                                    b.filter(f -> f
-                                            .bool(fb -> fb
-                                                    .should(sh -> sh
-                                                            .term(t -> t.field("cityCn").value(city))
-                                                    )
-                                                    .should(sh -> sh
-                                                            .term(t -> t.field("cityEn").value(city))
-                                                    )
-                                                    .minimumShouldMatch("1")
-                                            )
-                                    );
-                                }
-
-                                // 关键词匹配（与searchByKeyword保持一致的多层级匹配）
-                                if (StringUtils.hasText(keyword)) {
-                                    b
-                                            // 中文酒店名称
-                                            .should(sh -> sh.match(m -> m.field("nameCn").query(keyword).boost(searchWeights.getNameCnBoost())))
-                                            // 英文酒店名称 - 分词匹配
-                                            .should(sh -> sh.match(m -> m.field("nameEn").query(keyword).boost(searchWeights.getNameEnBoost())))
-                                            // 英文酒店名称 - 短语匹配
-                                            .should(sh -> sh.matchPhrase(m -> m.field("nameEn").query(keyword).boost(searchWeights.getNameEnBoost() * 2.0f)))
-                                            // 英文酒店名称 - 精确匹配
-                                            .should(sh -> sh.term(t -> t.field("nameEn.keyword").value(keyword).boost(searchWeights.getNameEnBoost() * 3.0f)))
-                                            // 繁体名称
-                                            .should(sh -> sh.match(m -> m.field("nameTraditional").query(keyword).boost(searchWeights.getNameTraditionalBoost())))
-                                            // 品牌
-                                            .should(sh -> sh.match(m -> m.field("brandCn").query(keyword).boost(searchWeights.getNerBrandsBoost())))
-                                            .should(sh -> sh.match(m -> m.field("brandEn").query(keyword).boost(searchWeights.getNerBrandsBoost())))
-                                            .should(sh -> sh.term(t -> t.field("nerBrands").value(keyword).boost(searchWeights.getNerBrandsBoost())))
-                                            // 地址
-                                            .should(sh -> sh.match(m -> m.field("addressCn").query(keyword).boost(searchWeights.getAddressBoost())))
-                                            .should(sh -> sh.match(m -> m.field("addressEn").query(keyword).boost(searchWeights.getAddressBoost())))
-                                            .should(sh -> sh.term(t -> t.field("addressTokens").value(keyword).boost(searchWeights.getAddressTokensBoost())))
-                                            .should(sh -> sh.match(m -> m.field("addressTraditional").query(keyword).boost(searchWeights.getAddressTraditionalBoost())))
-                                            // 衍生字段
-                                            .should(sh -> sh.term(t -> t.field("nameTokens").value(keyword).boost(searchWeights.getNameEnBoost())))
-                                            .minimumShouldMatch("1");
-                                }
-
-                                // 如果指定了tag，添加tagSource过滤
-                                if (StringUtils.hasText(tag)) {
-                                    b.filter(f -> f
-                                            .term(t -> t
-                                                    .field("tagSource")
-                                                    .value(tag)
-                                            )
-                                    );
-                                }
-
-                                return b;
-                            })
-                    )
+                    .timeout(SearchDeadline.esTimeout())
+                    .source(SearchSourceFilters.HOTEL_KEYWORD)
+                    .query(rank(keywordCityQuery(keyword, city, tag), keyword))
+                    .minScore(minScore(keyword))
             );
 
             if (log.isDebugEnabled()) {
@@ -375,11 +261,7 @@ public class HotelKeywordSearchService {
                     .toList();
 
             log.debug("[Hotel KEYWORD-SEARCH] 搜索完成 keyword='{}' city='{}' 结果数={}", keyword, city, hotels.size());
-            
-            // 3. 设置缓存
-            cacheService.setKeywordCitySearchCache(keyword, city, tag, size, hotels);
-            
-            return hotels;
+            return partialIfTimedOut(response, hotels, keyword);
 
         } catch (IOException e) {
             log.error("[Hotel KEYWORD-SEARCH] 城市搜索失败 keyword='{}' city='{}'", keyword, city, e);
@@ -410,53 +292,12 @@ public class HotelKeywordSearchService {
             SearchRequest request = SearchRequest.of(s -> s
                     .index(searchWeights.getReadAlias())
                     .size(size)
-                    .query(q -> q
-                            .bool(b -> {
-                                var boolQuery = b
-                                    // === 关键词匹配（与searchByKeyword相同的查询逻辑） ===
-                                    .should(sh -> sh.match(m -> m.field("nameCn").query(keyword).boost(searchWeights.getNameCnBoost())))
-                                    .should(sh -> sh.match(m -> m.field("nameEn").query(keyword).boost(searchWeights.getNameEnBoost())))
-                                    .should(sh -> sh.matchPhrase(m -> m.field("nameEn").query(keyword).boost(searchWeights.getNameEnBoost() * 2.0f)))
-                                    .should(sh -> sh.term(t -> t.field("nameEn.keyword").value(keyword).boost(searchWeights.getNameEnBoost() * 3.0f)))
-                                    .should(sh -> sh.match(m -> m.field("nameTraditional").query(keyword).boost(searchWeights.getNameTraditionalBoost())))
-                                    .should(sh -> sh.match(m -> m.field("brandCn").query(keyword).boost(searchWeights.getNerBrandsBoost())))
-                                    .should(sh -> sh.match(m -> m.field("brandEn").query(keyword).boost(searchWeights.getNerBrandsBoost())))
-                                    .should(sh -> sh.term(t -> t.field("nerBrands").value(keyword).boost(searchWeights.getNerBrandsBoost())))
-                                    .should(sh -> sh.match(m -> m.field("addressCn").query(keyword).boost(searchWeights.getAddressBoost())))
-                                    .should(sh -> sh.match(m -> m.field("addressEn").query(keyword).boost(searchWeights.getAddressBoost())))
-                                    .should(sh -> sh.term(t -> t.field("addressTokens").value(keyword).boost(searchWeights.getAddressTokensBoost())))
-                                    .should(sh -> sh.match(m -> m.field("addressTraditional").query(keyword).boost(searchWeights.getAddressTraditionalBoost())))
-                                    .should(sh -> sh.term(t -> t.field("cityCn").value(keyword).boost(searchWeights.getNerPlacesBoost())))
-                                    .should(sh -> sh.term(t -> t.field("cityEn").value(keyword).boost(searchWeights.getNerPlacesBoost())))
-                                    .should(sh -> sh.term(t -> t.field("nameTokens").value(keyword).boost(searchWeights.getNameEnBoost())))
-                                    .minimumShouldMatch("1")
-                                    
-                                    // === 国家过滤（必须匹配） ===
-                                    .filter(f -> f.term(t -> t.field("countryCn").value(country)));
-                                
-                                // 如果指定了区域，添加区域过滤
-                                if (StringUtils.hasText(region)) {
-                                    boolQuery.filter(f -> f.term(t -> t.field("regionCn").value(region)));
-                                }
-                                
-                                // 如果指定了tag，添加tagSource过滤
-                                if (StringUtils.hasText(tag)) {
-                                    boolQuery.filter(f -> f.term(t -> t.field("tagSource").value(tag)));
-                                }
-                                
-                                return boolQuery;
-                            })
-                    )
+                    .timeout(SearchDeadline.esTimeout())
+                    .source(SearchSourceFilters.HOTEL_KEYWORD)
+                    .query(rank(keywordRegionQuery(keyword, country, region, tag), keyword))
+                    .minScore(minScore(keyword))
                     // 添加高亮配置
-                    .highlight(h -> h
-                            .fields("nameCn", f -> f.numberOfFragments(0))
-                            .fields("nameEn", f -> f.numberOfFragments(0))
-                            .fields("nameTraditional", f -> f.numberOfFragments(0))
-                            .fields("addressCn", f -> f.numberOfFragments(0))
-                            .fields("addressEn", f -> f.numberOfFragments(0))
-                            .preTags("<em>")
-                            .postTags("</em>")
-                    )
+                    .highlight(KEYWORD_HIGHLIGHT)
             );
 
             if (log.isDebugEnabled()) {
@@ -466,32 +307,7 @@ public class HotelKeywordSearchService {
             SearchResponse<HotelIndexDoc> response = elasticsearchClient.search(request, HotelIndexDoc.class);
 
             List<HotelIndexDoc> hotels = response.hits().hits().stream()
-                    .map(hit -> {
-                        HotelIndexDoc hotel = hit.source();
-                        // 设置相关性得分
-                        hotel.setScore(hit.score());
-                        
-                        // 提取高亮结果
-                        if (hit.highlight() != null && !hit.highlight().isEmpty()) {
-                            var highlights = hit.highlight();
-                            if (highlights.containsKey("nameCn") && !highlights.get("nameCn").isEmpty()) {
-                                hotel.setHighlightedNameCn(highlights.get("nameCn").get(0));
-                            }
-                            if (highlights.containsKey("nameEn") && !highlights.get("nameEn").isEmpty()) {
-                                hotel.setHighlightedNameEn(highlights.get("nameEn").get(0));
-                            }
-                            if (highlights.containsKey("nameTraditional") && !highlights.get("nameTraditional").isEmpty()) {
-                                hotel.setHighlightedNameTraditional(highlights.get("nameTraditional").get(0));
-                            }
-                            if (highlights.containsKey("addressCn") && !highlights.get("addressCn").isEmpty()) {
-                                hotel.setHighlightedAddressCn(highlights.get("addressCn").get(0));
-                            }
-                            if (highlights.containsKey("addressEn") && !highlights.get("addressEn").isEmpty()) {
-                                hotel.setHighlightedAddressEn(highlights.get("addressEn").get(0));
-                            }
-                        }
-                        return hotel;
-                    })
+                    .map(hit -> toHotel(hit.source(), hit.score(), hit.highlight()))
                     .toList();
 
             log.debug("[Hotel KEYWORD-SEARCH] 区域搜索完成 keyword='{}' country='{}' region='{}' 结果数={}", 
@@ -504,4 +320,115 @@ public class HotelKeywordSearchService {
             return new ArrayList<>();
         }
     }
+
+    /**
+     * ES查询超时（截止时间内只收集到部分分片结果）时标记结果不可缓存，避免不完整结果在缓存TTL内持续返回
+     */
+    private static <T> List<T> partialIfTimedOut(SearchResponse<?> response, List<T> results, String keyword) {
+        if (!response.timedOut()) {
+            return results;
+        }
+        log.warn("[Hotel KEYWORD-SEARCH] ES查询超时，返回部分结果且不缓存 keyword='{}' 结果数={}", keyword, results.size());
+        return HotelSearchCacheService.uncacheable(results);
+    }
+
+    /**
+     * 全库关键词查询（多层级匹配，与区域聚合查询共用，保证两者命中与打分一致）
+     */
+    private Query keywordQuery(String keyword, String tag) {
+        return queryTemplate.query(keyword, HotelKeywordQueryTemplate.ClauseSet.ALL, tag);
+    }
+
+    /**
+     * 城市关键词查询（已按城市过滤，不含城市词项匹配；关键词为空时仅按城市过滤）
+     */
+    private Query keywordCityQuery(String keyword, String city, String tag) {
+        BoolQuery.Builder bool = queryTemplate.bind(keyword, HotelKeywordQueryTemplate.ClauseSet.WITHOUT_CITY, tag);
+        if (StringUtils.hasText(city)) {
+            bool.filter(f -> f
+                    .bool(fb -> fb
+                            .should(HotelKeywordQueryTemplate.term("cityCn", city))
+                            .should(HotelKeywordQueryTemplate.term("cityEn", city))
+                            .minimumShouldMatch("1")
+                    )
+            );
+        }
+        return bool.build()._toQuery();
+    }
+
+    /**
+     * 国家/区域关键词查询（与全库查询相同的匹配子句，国家必须匹配，区域可选）
+     */
+    private Query keywordRegionQuery(String keyword, String country, String region, String tag) {
+        BoolQuery.Builder bool = queryTemplate.bind(keyword, HotelKeywordQueryTemplate.ClauseSet.ALL, tag)
+                .filter(HotelKeywordQueryTemplate.term("countryCn", country));
+        if (StringUtils.hasText(region)) {
+            bool.filter(HotelKeywordQueryTemplate.term("regionCn", region));
+        }
+        return bool.build()._toQuery();
+    }
+
+    /**
+     * ES排序模式：以综合评分包装召回查询，_score 即最终排序分（0-100）
+     */
+    private Query rank(Query matchQuery, String keyword) {
+        if (!searchWeights.isEsRanking() || !StringUtils.hasText(keyword)) {
+            return matchQuery;
+        }
+        return HotelRankingQuery.wrap(matchQuery, keyword, null, null, searchWeights.getRankingMinRelevance());
+    }
+
+    /**
+     * ES排序模式的综合评分下限，未开启或未配置时不过滤
+     */
+    private Double minScore(String keyword) {
+        if (!searchWeights.isEsRanking() || !StringUtils.hasText(keyword) || searchWeights.getRankingMinScore() <= 0) {
+            return null;
+        }
+        return searchWeights.getRankingMinScore();
+    }
+
+    /**
+     * 分桶 top_hits 结果转换
+     */
+    private List<HotelIndexDoc> topHits(Aggregate aggregate) {
+        if (aggregate == null || !aggregate.isTopHits()) {
+            return new ArrayList<>();
+        }
+        List<HotelIndexDoc> hotels = new ArrayList<>();
+        for (Hit<JsonData> hit : aggregate.topHits().hits().hits()) {
+            if (hit.source() != null) {
+                hotels.add(toHotel(hit.source().to(HotelIndexDoc.class), hit.score(), hit.highlight()));
+            }
+        }
+        return hotels;
+    }
+
+    /**
+     * 设置相关性得分与高亮结果
+     */
+    private static HotelIndexDoc toHotel(HotelIndexDoc hotel, Double score, Map<String, List<String>> highlights) {
+        // 设置相关性得分
+        hotel.setScore(score);
+
+        // 提取高亮结果
+        if (highlights != null && !highlights.isEmpty()) {
+            if (highlights.containsKey("nameCn") && !highlights.get("nameCn").isEmpty()) {
+                hotel.setHighlightedNameCn(highlights.get("nameCn").get(0));
+            }
+            if (highlights.containsKey("nameEn") && !highlights.get("nameEn").isEmpty()) {
+                hotel.setHighlightedNameEn(highlights.get("nameEn").get(0));
+            }
+            if (highlights.containsKey("nameTraditional") && !highlights.get("nameTraditional").isEmpty()) {
+                hotel.setHighlightedNameTraditional(highlights.get("nameTraditional").get(0));
+            }
+            if (highlights.containsKey("addressCn") && !highlights.get("addressCn").isEmpty()) {
+                hotel.setHighlightedAddressCn(highlights.get("addressCn").get(0));
+            }
+            if (highlights.containsKey("addressEn") && !highlights.get("addressEn").isEmpty()) {
+                hotel.setHighlightedAddressEn(highlights.get("addressEn").get(0));
+            }
+        }
+        return hotel;
+    }
 }
@@ -0,0 +1,258 @@
+package com.heytrip.hotel.search.infra.search;
+
+import co.elastic.clients.elasticsearch._types.GeoLocation;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionBoostMode;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionScore;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionScoreMode;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.heytrip.hotel.search.infra.search.HotelScoreCalculator.DISTANCE_WEIGHT;
+import static com.heytrip.hotel.search.infra.search.HotelScoreCalculator.ES_SCORE_SATURATION;
+import static com.heytrip.hotel.search.infra.search.HotelScoreCalculator.ES_SCORE_WEIGHT;
+import static com.heytrip.hotel.search.infra.search.HotelScoreCalculator.HIT_RATE_WEIGHT;
+import static com.heytrip.hotel.search.infra.search.HotelScoreCalculator.MAX_DISTANCE_KM;
+
+/**
+ * 酒店综合评分的ES端表达（ES排序模式）
+ * 将 {@link HotelScoreCalculator} 的权重改写为 function_score，由ES在分片上完成打分、min_score 过滤与 TopN 截断：
+ * - ES相关性（50分）：script_score，log(1 + _score) / log(1 + 200) 归一化；原始 _score 低于下限的文档由该子查询的 min_score 排除
+ * - 关键词命中率（30分）：按 split 规则拆分关键词，「至少命中k个词 + 精确/短语加成」分级过滤函数，score_mode=max 取最高满足级，等价于 min(1, k/n + bonus)
+ * - 距离（20分）：linear 衰减，scale=50km、decay=0.5，即 1 - d/100km；无用户位置或酒店无坐标时取中间分10分
+ * 命中率按索引字段近似：中文名称依赖 nameTokens（HanLP 精细分词）与 nameCn.keyword，与应用内 split 分词存在少量差异
+ */
+public final class HotelRankingQuery {
+
+    /**
+     * ES相关性归一化脚本（与 HotelScoreCalculator.normalizeEsScore 一致）
+     */
+    static final String RELEVANCE_SCRIPT =
+            "Math.min(1.0, Math.log(1 + _score) / Math.log(1 + params.saturation)) * params.points";
+
+    /**
+     * 命中率词匹配字段（keyword 类型，忽略大小写精确匹配）
+     */
+    static final List<String> TOKEN_KEYWORD_FIELDS =
+            List.of("nameTokens", "nameKeywords", "nerBrands", "brandCn", "brandEn", "nameCn.keyword");
+
+    /**
+     * 命中率词匹配字段（text 类型，std_lc 分词后匹配）
+     */
+    static final List<String> TOKEN_TEXT_FIELDS = List.of("nameEn");
+
+    /**
+     * 精确匹配加成字段（完整名称，忽略大小写）
+     */
+    static final List<String> EXACT_FIELDS = List.of("nameEn.keyword", "nameCn.keyword");
+
+    /**
+     * 短语匹配加成字段
+     */
+    static final List<String> PHRASE_FIELDS = List.of("nameEn", "nameCn");
+
+    static final String LOCATION_FIELD = "location";
+
+    /**
+     * linear 衰减：scale / (1 - decay) = MAX_DISTANCE_KM，距离得分 = 1 - d / MAX_DISTANCE_KM
+     */
+    static final double DISTANCE_DECAY = 0.5;
+    static final double DISTANCE_SCALE_KM = MAX_DISTANCE_KM * (1 - DISTANCE_DECAY);
+
+    private HotelRankingQuery() {
+    }
+
+    /**
+     * 命中率加成（与 KeywordHitRateCalculator.calculatePreciseHitRate 一致）
+     */
+    enum Bonus {
+        NONE(0.0),
+        PHRASE(0.3),
+        EXACT(0.5);
+
+        final double rate;
+
+        Bonus(double rate) {
+            this.rate = rate;
+        }
+    }
+
+    /**
+     * 命中率分级：至少命中 minTokenHits 个关键词且满足加成条件时得 points 分
+     */
+    record HitRateLevel(int minTokenHits, Bonus bonus, double points) {
+    }
+
+    /**
+     * 用综合评分包装召回查询
+     *
+     * @param matchQuery   召回查询（关键词匹配 + 过滤条件），其 _score 作为ES相关性输入
+     * @param keyword      搜索关键词（计算命中率）
+     * @param userLat      用户纬度（可选）
+     * @param userLon      用户经度（可选）
+     * @param minRelevance 召回查询原始 _score 下限（≤0 不过滤）
+     * @return 综合评分查询，_score 为 0-100 的综合得分
+     */
+    public static Query wrap(Query matchQuery, String keyword, Double userLat, Double userLon, double minRelevance) {
+        String normalizedKeyword = keyword == null ? "" : keyword.trim();
+        List<String> tokens = new ArrayList<>(KeywordHitRateCalculator.splitTokens(normalizedKeyword));
+
+        return Query.of(q -> q
+                .bool(b -> b
+                        // 1. ES相关性（0-50分）
+                        .must(m -> m
+                                .functionScore(fs -> fs
+                                        .query(matchQuery)
+                                        .functions(f -> f
+                                                .scriptScore(ss -> ss
+                                                        .script(s -> s
+                                                                .source(RELEVANCE_SCRIPT)
+                                                                .params("saturation", JsonData.of(ES_SCORE_SATURATION))
+                                                                .params("points", JsonData.of(ES_SCORE_WEIGHT * 100))
+                                                        )
+                                                )
+                                        )
+                                        .boostMode(FunctionBoostMode.Replace)
+                                        .minScore(minRelevance > 0 ? relevancePoints(minRelevance) : null)
+                                )
+                        )
+                        // 2. 关键词命中率（0-30分）
+                        .should(sh -> sh
+                                .functionScore(fs -> fs
+                                        .functions(hitRateFunctions(normalizedKeyword, tokens))
+                                        .scoreMode(FunctionScoreMode.Max)
+                                        .boostMode(FunctionBoostMode.Replace)
+                                )
+                        )
+                        // 3. 距离（0-20分）
+                        .should(sh -> sh
+                                .functionScore(fs -> fs
+                                        .functions(distanceFunctions(userLat, userLon))
+                                        .scoreMode(FunctionScoreMode.Sum)
+                                        .boostMode(FunctionBoostMode.Replace)
+                                )
+                        )
+                )
+        );
+    }
+
+    /**
+     * 原始 _score 对应的相关性得分（与 RELEVANCE_SCRIPT 相同的单调映射，用于把原始得分下限换算为子查询 min_score）
+     */
+    static double relevancePoints(double esScore) {
+        return Math.min(1.0, Math.log(1 + esScore) / Math.log(1 + ES_SCORE_SATURATION)) * ES_SCORE_WEIGHT * 100;
+    }
+
+    /**
+     * 命中率分级：k = 0..n，加成 = 无/短语/精确，得分 30 * min(1, k/n + bonus)
+     * 得分为0或与 k-1 级相同的分级被更弱条件覆盖，省略
+     */
+    static List<HitRateLevel> hitRateLevels(int tokenCount) {
+        List<HitRateLevel> levels = new ArrayList<>();
+        for (Bonus bonus : Bonus.values()) {
+            double previous = 0.0;
+            for (int k = 0; k <= tokenCount; k++) {
+                double base = tokenCount == 0 ? 0.0 : (double) k / tokenCount;
+                double points = Math.min(1.0, base + bonus.rate) * HIT_RATE_WEIGHT * 100;
+                if (points > previous) {
+                    levels.add(new HitRateLevel(k, bonus, points));
+                }
+                previous = points;
+            }
+        }
+        return levels;
+    }
+
+    private static List<FunctionScore> hitRateFunctions(String keyword, List<String> tokens) {
+        List<FunctionScore> functions = new ArrayList<>();
+        // 未满足任何分级时得0分（function_score 无函数命中时默认得1分）
+        functions.add(FunctionScore.of(f -> f.weight(0.0)));
+        if (keyword.isEmpty()) {
+            return functions;
+        }
+        for (HitRateLevel level : hitRateLevels(tokens.size())) {
+            functions.add(FunctionScore.of(f -> f
+                    .filter(levelFilter(keyword, tokens, level))
+                    .weight(level.points())
+            ));
+        }
+        return functions;
+    }
+
+    private static Query levelFilter(String keyword, List<String> tokens, HitRateLevel level) {
+        return Query.of(q -> q.bool(b -> {
+            if (level.minTokenHits() > 0) {
+                b.filter(f -> f.bool(hits -> {
+                    for (String token : tokens) {
+                        hits.should(tokenFilter(token));
+                    }
+                    return hits.minimumShouldMatch(String.valueOf(level.minTokenHits()));
+                }));
+            }
+            if (level.bonus() == Bonus.EXACT) {
+                b.filter(f -> f.bool(exact -> {
+                    for (String field : EXACT_FIELDS) {
+                        exact.should(sh -> sh.term(t -> t.field(field).value(keyword).caseInsensitive(true)));
+                    }
+                    return exact.minimumShouldMatch("1");
+                }));
+            } else if (level.bonus() == Bonus.PHRASE) {
+                b.filter(f -> f.bool(phrase -> {
+                    for (String field : PHRASE_FIELDS) {
+                        phrase.should(sh -> sh.matchPhrase(m -> m.field(field).query(keyword)));
+                    }
+                    return phrase.minimumShouldMatch("1");
+                }));
+            }
+            return b;
+        }));
+    }
+
+    /**
+     * 单个关键词在任一名称/品牌字段命中
+     */
+    private static Query tokenFilter(String token) {
+        return Query.of(q -> q.bool(b -> {
+            for (String field : TOKEN_KEYWORD_FIELDS) {
+                b.should(sh -> sh.term(t -> t.field(field).value(token).caseInsensitive(true)));
+            }
+            for (String field : TOKEN_TEXT_FIELDS) {
+                b.should(sh -> sh.term(t -> t.field(field).value(token)));
+            }
+            return b.minimumShouldMatch("1");
+        }));
+    }
+
+    private static List<FunctionScore> distanceFunctions(Double userLat, Double userLon) {
+        double points = DISTANCE_WEIGHT * 100;
+        if (userLat == null || userLon == null) {
+            // 无用户位置：距离得分取中间分
+            return List.of(FunctionScore.of(f -> f.weight(points * 0.5)));
+        }
+        GeoLocation origin = GeoLocation.of(g -> g.latlon(ll -> ll.lat(userLat).lon(userLon)));
+        return List.of(
+                FunctionScore.of(f -> f
+                        .filter(q -> q.exists(e -> e.field(LOCATION_FIELD)))
+                        .linear(d -> d
+                                .geo(g -> g
+                                        .field(LOCATION_FIELD)
+                                        .placement(p -> p
+                                                .origin(origin)
+                                                .scale(DISTANCE_SCALE_KM + "km")
+                                                .offset("0km")
+                                                .decay(DISTANCE_DECAY)
+                                        )
+                                )
+                        )
+                        .weight(points)
+                ),
+                // 酒店无坐标：距离得分取中间分
+                FunctionScore.of(f -> f
+                        .filter(q -> q.bool(b -> b.mustNot(mn -> mn.exists(e -> e.field(LOCATION_FIELD)))))
+                        .weight(points * 0.5)
+                )
+        );
+    }
+}
@@ -23,23 +23,28 @@ public class HotelScoreCalculator {
      * ES相关性得分权重（50%）
      * 已包含多层级匹配：标准match、matchPhrase、keyword精确匹配
      */
-    private static final double ES_SCORE_WEIGHT = 0.5;
+    static final double ES_SCORE_WEIGHT = 0.5;
 
     /**
      * 关键词命中率权重（30%）
      * 使用简单split分词，性能开销小（<1ms/次）
      */
-    private static final double HIT_RATE_WEIGHT = 0.3;
+    static final double HIT_RATE_WEIGHT = 0.3;
 
     /**
      * 距离用户位置权重（20%）
      */
-    private static final double DISTANCE_WEIGHT = 0.2;
+    static final double DISTANCE_WEIGHT = 0.2;
 
     /**
      * 最大距离（公里）- 超过此距离评分为0
      */
-    private static final double MAX_DISTANCE_KM = 100.0;
+    static final double MAX_DISTANCE_KM = 100.0;
+
+    /**
+     * ES得分归一化上限：log(1 + score) / log(1 + 200)
+     */
+    static final double ES_SCORE_SATURATION = 200.0;
 
     /**
      * 计算酒店综合得分（带关键词命中率）
@@ -158,7 +163,7 @@ public class HotelScoreCalculator {
         // 使用对数函数压缩分数，避免极端值
         // log(1 + score) / log(1 + 200) 将0-200映射到0-1
         // 这样可以适应更高的ES得分（多层级匹配后得分更高）
-        double normalized = Math.log(1 + score) / Math.log(1 + 200);
+        double normalized = Math.log(1 + score) / Math.log(1 + ES_SCORE_SATURATION);
         return Math.min(1.0, normalized);
     }
 
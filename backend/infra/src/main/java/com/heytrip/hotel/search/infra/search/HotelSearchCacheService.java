@@ -1,20 +1,42 @@
 package com.heytrip.hotel.search.infra.search;
 
+import co.elastic.clients.elasticsearch._types.LatLonGeoLocation;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import com.heytrip.hotel.search.infra.search.dto.HotelGeoResult;
+import com.heytrip.hotel.search.infra.search.dto.KeywordRegionResult;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 
 /**
  * 酒店搜索结果缓存服务
  * 用于缓存ES查询结果，减少ES查询压力，提升响应速度
+ *
+ * 两级缓存：
+ * - L1：进程内 Caffeine 缓存，按结果条数计权限容，短TTL，命中时无网络往返、无JSON解码
+ * - L2：Redis（hotel:search: 前缀），5分钟TTL，多节点共享
+ *
+ * 单飞加载（single-flight）：
+ * 同一缓存Key并发未命中时，只有第一个请求回源（Redis/ES），其余请求等待其结果，
+ * 避免热门关键词缓存过期瞬间的并发击穿。
+ *
+ * 注意：L1 返回的列表与文档对象在请求间共享，调用方只读，不得修改。
  */
 @Slf4j
 @Service
@@ -24,6 +46,50 @@ public class HotelSearchCacheService {
     private final StringRedisTemplate redisTemplate;
     private final ObjectMapper objectMapper;
 
+    private static final TypeReference<List<HotelIndexDoc>> HOTEL_LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<HotelGeoResult>> GEO_RESULT_LIST_TYPE = new TypeReference<>() {};
+    private static final TypeReference<List<KeywordRegionResult>> KEYWORD_REGION_LIST_TYPE = new TypeReference<>() {};
+
+    /**
+     * L1 最大权重（所有缓存结果列表的总条数上限）
+     */
+    @Value("${heytrip.search.smart.local-cache-max-weight:20000}")
+    private long localCacheMaxWeight;
+
+    /**
+     * L1 TTL（秒），应明显短于 Redis TTL，控制多节点间的数据不一致窗口
+     */
+    @Value("${heytrip.search.smart.local-cache-ttl-seconds:30}")
+    private long localCacheTtlSeconds;
+
+    /**
+     * ES排序模式下关键词类结果的 _score 为综合评分，与普通模式的缓存Key区分，避免切换期间混用
+     */
+    @Value("${heytrip.search.hotel.es-ranking:false}")
+    private boolean esRanking;
+
+    /**
+     * L1 进程内缓存
+     */
+    private Cache<String, List<?>> localCache;
+
+    /**
+     * 正在回源中的Key -> 加载结果（单飞）
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<List<?>>> inFlightLoads = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        localCache = Caffeine.newBuilder()
+                .maximumWeight(localCacheMaxWeight)
+                // 每个条目至少计1，保证条目数同样有界
+                .weigher((String key, List<?> value) -> 1 + weight(value))
+                .expireAfterWrite(Duration.ofSeconds(localCacheTtlSeconds))
+                .recordStats()
+                .build();
+        log.info("[CACHE] L1本地缓存已初始化 maxWeight={} ttl={}s", localCacheMaxWeight, localCacheTtlSeconds);
+    }
+
     /**
      * 缓存TTL：5分钟
      */
@@ -60,6 +126,34 @@ public class HotelSearchCacheService {
         setCache(cacheKey, results);
     }
 
+    /**
+     * 关键词搜索：两级缓存读取，未命中时单飞回源
+     *
+     * @param keyword 搜索关键词
+     * @param tag     业务域标签
+     * @param size    返回数量
+     * @param loader  回源加载（ES查询）
+     * @return 搜索结果
+     */
+    public List<HotelIndexDoc> getOrLoadKeywordSearch(String keyword, String tag, int size,
+                                                      Supplier<List<HotelIndexDoc>> loader) {
+        return getOrLoad(buildKeywordCacheKey(keyword, tag, size), HOTEL_LIST_TYPE, loader);
+    }
+
+    /**
+     * 关键词搜索 + 国别区域聚合：两级缓存读取，未命中时单飞回源
+     *
+     * @param keyword 搜索关键词
+     * @param tag     业务域标签
+     * @param size    返回数量
+     * @param loader  回源加载（ES查询，无命中时返回空列表，不缓存）
+     * @return 搜索结果（单元素列表），无命中时为空列表
+     */
+    public List<KeywordRegionResult> getOrLoadKeywordRegionSearch(String keyword, String tag, int size,
+                                                                  Supplier<List<KeywordRegionResult>> loader) {
+        return getOrLoad(buildKeywordRegionCacheKey(keyword, tag, size), KEYWORD_REGION_LIST_TYPE, loader);
+    }
+
     /**
      * 获取关键词+城市搜索缓存
      *
@@ -88,6 +182,21 @@ public class HotelSearchCacheService {
         setCache(cacheKey, results);
     }
 
+    /**
+     * 关键词+城市搜索：两级缓存读取，未命中时单飞回源
+     *
+     * @param keyword 搜索关键词
+     * @param city    城市
+     * @param tag     业务域标签
+     * @param size    返回数量
+     * @param loader  回源加载（ES查询）
+     * @return 搜索结果
+     */
+    public List<HotelIndexDoc> getOrLoadKeywordCitySearch(String keyword, String city, String tag, int size,
+                                                          Supplier<List<HotelIndexDoc>> loader) {
+        return getOrLoad(buildKeywordCityCacheKey(keyword, city, tag, size), HOTEL_LIST_TYPE, loader);
+    }
+
     /**
      * 获取地理+关键词搜索缓存
      *
@@ -124,16 +233,205 @@ public class HotelSearchCacheService {
     }
 
     /**
-     * 从缓存获取数据
+     * 附近酒店搜索（仅地理位置）：两级缓存读取，未命中时单飞回源
+     *
+     * @param lat    纬度
+     * @param lon    经度
+     * @param radius 搜索半径（公里）
+     * @param tag    业务域标签
+     * @param size   返回数量
+     * @param loader 回源加载（ES查询）
+     * @return 搜索结果
+     */
+    public List<HotelGeoResult> getOrLoadNearbySearch(double lat, double lon, double radius, String tag, int size,
+                                                      Supplier<List<HotelGeoResult>> loader) {
+        return getOrLoad(buildNearbyCacheKey(lat, lon, radius, tag, size), GEO_RESULT_LIST_TYPE, loader);
+    }
+
+    /**
+     * 批量获取附近酒店搜索缓存（L1 → Redis MGET，一次网络往返）
+     *
+     * @param centers 搜索中心点列表
+     * @param radius  搜索半径（公里）
+     * @param tag     业务域标签
+     * @param size    返回数量
+     * @return 与 centers 顺序一一对应的缓存结果，未命中位置为null
+     */
+    public List<List<HotelGeoResult>> getNearbySearchCaches(List<LatLonGeoLocation> centers, double radius,
+                                                            String tag, int size) {
+        List<List<HotelGeoResult>> results = new ArrayList<>(Collections.nCopies(centers.size(), null));
+        List<Integer> remoteIndexes = new ArrayList<>();
+        List<String> remoteKeys = new ArrayList<>();
+        for (int i = 0; i < centers.size(); i++) {
+            LatLonGeoLocation center = centers.get(i);
+            String cacheKey = buildNearbyCacheKey(center.lat(), center.lon(), radius, tag, size);
+            @SuppressWarnings("unchecked")
+            List<HotelGeoResult> local = (List<HotelGeoResult>) localCache.getIfPresent(cacheKey);
+            if (local != null) {
+                results.set(i, local);
+            } else {
+                remoteIndexes.add(i);
+                remoteKeys.add(cacheKey);
+            }
+        }
+        if (remoteKeys.isEmpty()) {
+            return results;
+        }
+
+        try {
+            List<String> jsons = redisTemplate.opsForValue().multiGet(remoteKeys);
+            if (jsons != null) {
+                for (int j = 0; j < jsons.size(); j++) {
+                    String json = jsons.get(j);
+                    if (json == null) {
+                        continue;
+                    }
+                    List<HotelGeoResult> remote = objectMapper.readValue(json, GEO_RESULT_LIST_TYPE);
+                    results.set(remoteIndexes.get(j), remote);
+                    putLocal(remoteKeys.get(j), remote);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("[CACHE-ERROR] 批量缓存读取失败 keys={}", remoteKeys.size(), e);
+        }
+        return results;
+    }
+
+    /**
+     * 设置附近酒店搜索缓存（L2 + L1）
+     *
+     * @param lat     纬度
+     * @param lon     经度
+     * @param radius  搜索半径（公里）
+     * @param tag     业务域标签
+     * @param size    返回数量
+     * @param results 搜索结果
      */
+    public void setNearbySearchCache(double lat, double lon, double radius, String tag, int size,
+                                     List<HotelGeoResult> results) {
+        String cacheKey = buildNearbyCacheKey(lat, lon, radius, tag, size);
+        setRemote(cacheKey, results);
+        putLocal(cacheKey, results);
+    }
+
+    /**
+     * 获取L1缓存统计信息
+     */
+    public String getLocalCacheStats() {
+        return String.format("HotelSearchL1Cache: size=%d, inFlight=%d, stats=%s",
+                localCache.estimatedSize(), inFlightLoads.size(), localCache.stats());
+    }
+
+    /**
+     * 两级缓存读取 + 单飞回源
+     * 1. L1命中直接返回
+     * 2. 同Key已有回源中的请求 → 等待其结果
+     * 3. 否则由当前请求回源：先查Redis，再调用loader，结果回填L2与L1
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> getOrLoad(String cacheKey, TypeReference<List<T>> type, Supplier<List<T>> loader) {
+        List<T> local = (List<T>) localCache.getIfPresent(cacheKey);
+        if (local != null) {
+            log.debug("[CACHE-L1-HIT] 本地缓存命中 key={} 结果数={}", cacheKey, local.size());
+            return local;
+        }
+
+        CompletableFuture<List<?>> flight = new CompletableFuture<>();
+        CompletableFuture<List<?>> existing = inFlightLoads.putIfAbsent(cacheKey, flight);
+        if (existing != null) {
+            log.debug("[CACHE-WAIT] 等待同Key回源结果 key={}", cacheKey);
+            return (List<T>) awaitInFlight(cacheKey, existing);
+        }
+
+        try {
+            // 双重检查：上一个回源请求可能刚刚完成并回填了L1
+            List<T> results = (List<T>) localCache.getIfPresent(cacheKey);
+            if (results == null) {
+                results = readRemote(cacheKey, type);
+                if (results == null) {
+                    results = loader.get();
+                    if (results instanceof UncacheableList) {
+                        log.debug("[CACHE-SKIP] 回源结果不完整，不写入缓存 key={} 结果数={}", cacheKey, results.size());
+                        flight.complete(results);
+                        return results;
+                    }
+                    setRemote(cacheKey, results);
+                }
+                putLocal(cacheKey, results);
+            }
+            flight.complete(results);
+            return results;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(cacheKey, flight);
+        }
+    }
+
+    /**
+     * 标记回源结果不可缓存（如ES查询超时返回的部分分片结果）：本次原样返回，不写入 L1 / L2
+     */
+    public static <T> List<T> uncacheable(List<T> results) {
+        return new UncacheableList<>(results);
+    }
+
+    /**
+     * 不可缓存的回源结果
+     */
+    private static final class UncacheableList<T> extends ArrayList<T> {
+        private UncacheableList(List<T> results) {
+            super(results);
+        }
+    }
+
+    /**
+     * 等待其它请求的回源结果
+     */
+    private List<?> awaitInFlight(String cacheKey, CompletableFuture<List<?>> flight) {
+        try {
+            return flight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.debug("[CACHE-WAIT] 等待回源被中断 key={}", cacheKey);
+            return new ArrayList<>();
+        } catch (ExecutionException e) {
+            log.warn("[CACHE-WAIT] 同Key回源失败 key={} err={}", cacheKey, e.getCause().getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * 从缓存获取数据（L1 → L2）
+     */
+    @SuppressWarnings("unchecked")
     private List<HotelIndexDoc> getCache(String cacheKey) {
+        List<HotelIndexDoc> local = (List<HotelIndexDoc>) localCache.getIfPresent(cacheKey);
+        if (local != null) {
+            log.debug("[CACHE-L1-HIT] 本地缓存命中 key={} 结果数={}", cacheKey, local.size());
+            return local;
+        }
+        List<HotelIndexDoc> results = readRemote(cacheKey, HOTEL_LIST_TYPE);
+        putLocal(cacheKey, results);
+        return results;
+    }
+
+    /**
+     * 设置缓存（L2 + L1）
+     */
+    private void setCache(String cacheKey, List<HotelIndexDoc> results) {
+        setRemote(cacheKey, results);
+        putLocal(cacheKey, results);
+    }
+
+    /**
+     * 从Redis获取数据
+     */
+    private <T> List<T> readRemote(String cacheKey, TypeReference<List<T>> type) {
         try {
             String cachedJson = redisTemplate.opsForValue().get(cacheKey);
             if (cachedJson != null) {
-                List<HotelIndexDoc> results = objectMapper.readValue(
-                        cachedJson, 
-                        new TypeReference<List<HotelIndexDoc>>() {}
-                );
+                List<T> results = objectMapper.readValue(cachedJson, type);
                 log.debug("[CACHE-HIT] 缓存命中 key={} 结果数={}", cacheKey, results.size());
                 return results;
             }
@@ -146,9 +444,9 @@ public class HotelSearchCacheService {
     }
 
     /**
-     * 设置缓存
+     * 写入Redis
      */
-    private void setCache(String cacheKey, List<HotelIndexDoc> results) {
+    private void setRemote(String cacheKey, List<?> results) {
         if (results == null || results.isEmpty()) {
             // 不缓存空结果
             return;
@@ -164,23 +462,62 @@ public class HotelSearchCacheService {
         }
     }
 
+    /**
+     * 写入L1（不缓存空结果，与L2保持一致）
+     */
+    private void putLocal(String cacheKey, List<?> results) {
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+        localCache.put(cacheKey, List.copyOf(results));
+    }
+
+    /**
+     * L1 计权：按结果条数，聚合结果按其包含的酒店总条数
+     */
+    private static int weight(List<?> value) {
+        int weight = 0;
+        for (Object item : value) {
+            weight += item instanceof KeywordRegionResult r ? r.getTotalHits() : 1;
+        }
+        return weight;
+    }
+
+    /**
+     * 关键词类缓存Key前缀
+     */
+    private String keywordPrefix() {
+        return esRanking ? CACHE_PREFIX + "ranked:" : CACHE_PREFIX;
+    }
+
     /**
      * 构建关键词搜索缓存Key
      */
     private String buildKeywordCacheKey(String keyword, String tag, int size) {
         return String.format("%skeyword:%s:tag:%s:size:%d", 
-                CACHE_PREFIX, 
+                keywordPrefix(), 
                 keyword.toLowerCase(), 
                 tag != null ? tag : "all", 
                 size);
     }
 
+    /**
+     * 构建关键词搜索 + 国别区域聚合缓存Key（与关键词Key区分，缓存值类型不同）
+     */
+    private String buildKeywordRegionCacheKey(String keyword, String tag, int size) {
+        return String.format("%skeyword-region:%s:tag:%s:size:%d",
+                keywordPrefix(),
+                keyword.toLowerCase(),
+                tag != null ? tag : "all",
+                size);
+    }
+
     /**
      * 构建关键词+城市搜索缓存Key
      */
     private String buildKeywordCityCacheKey(String keyword, String city, String tag, int size) {
         return String.format("%skeyword:%s:city:%s:tag:%s:size:%d", 
-                CACHE_PREFIX, 
+                keywordPrefix(), 
                 keyword.toLowerCase(), 
                 city.toLowerCase(), 
                 tag != null ? tag : "all", 
@@ -198,7 +535,7 @@ public class HotelSearchCacheService {
         String radiusStr = String.format("%.1f", radius);
         
         return String.format("%sgeo:%s,%s:radius:%s:keyword:%s:tag:%s:size:%d", 
-                CACHE_PREFIX, 
+                keywordPrefix(), 
                 latStr, 
                 lonStr, 
                 radiusStr, 
@@ -206,4 +543,18 @@ public class HotelSearchCacheService {
                 tag != null ? tag : "all", 
                 size);
     }
+
+    /**
+     * 构建附近酒店搜索缓存Key（与地理+关键词Key区分，缓存值类型不同）
+     * 坐标精确到小数点后3位（约111米精度）
+     */
+    private String buildNearbyCacheKey(double lat, double lon, double radius, String tag, int size) {
+        return String.format("%snearby:%.3f,%.3f:radius:%.1f:tag:%s:size:%d",
+                CACHE_PREFIX,
+                lat,
+                lon,
+                radius,
+                tag != null ? tag : "all",
+                size);
+    }
 }
@@ -0,0 +1,147 @@
+package com.heytrip.hotel.search.infra.search;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 索引文档 NLP 衍生字段并行计算线程池（CPU 密集，平台线程，JDK17）
+ * - 有界：线程数默认等于 CPU 核数，有界队列，满载时由调用线程自行计算（不丢弃、不无限排队）
+ * - 保序：批次按连续分片切分，每个分片写入结果数组的固定区间，输出顺序与输入一致
+ * - 调用线程参与计算第一个分片，小批次直接串行，避免线程切换开销
+ * - HanLP 分词器由 NlpEnrichmentService 按线程隔离，工作线程之间不共享分词器实例
+ * - 指标：线程池活跃数/队列长度/完成数（executor.* name=index-enrich）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class IndexEnrichExecutor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    /**
+     * 并行线程数，0 表示使用 CPU 核数
+     */
+    @Value("${heytrip.index.enrich.threads:0}")
+    private int threads;
+
+    @Value("${heytrip.index.enrich.queue-capacity:64}")
+    private int queueCapacity;
+
+    /**
+     * 每个分片的最小文档数，批次小于两个分片时串行计算
+     */
+    @Value("${heytrip.index.enrich.min-chunk-size:16}")
+    private int minChunkSize;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        minChunkSize = Math.max(1, minChunkSize);
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                new CustomizableThreadFactory("index-enrich-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            new ExecutorServiceMetrics(executor, "index-enrich", Tags.empty()).bindTo(registry);
+        }
+        log.info("[INDEX] 索引富化线程池已初始化 threads={} queue={} minChunkSize={}", threads, queueCapacity, minChunkSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 并行映射并保持输入顺序
+     *
+     * @param items  输入列表
+     * @param mapper 映射函数（需自行处理可降级的异常，抛出的异常将传播给调用方）
+     * @return 与输入一一对应的结果列表
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> List<R> mapOrdered(List<T> items, Function<T, R> mapper) {
+        int size = items.size();
+        int chunks = Math.min(threads + 1, size / minChunkSize);
+        if (chunks < 2) {
+            List<R> out = new ArrayList<>(size);
+            for (T item : items) {
+                out.add(mapper.apply(item));
+            }
+            return out;
+        }
+
+        Object[] results = new Object[size];
+        List<Future<?>> futures = new ArrayList<>(chunks - 1);
+        try {
+            // 分片 1..n-1 提交线程池，被拒绝的分片由调用线程计算
+            for (int c = 1; c < chunks; c++) {
+                int from = (int) ((long) size * c / chunks);
+                int to = (int) ((long) size * (c + 1) / chunks);
+                Runnable task = () -> mapRange(items, mapper, results, from, to);
+                try {
+                    futures.add(executor.submit(task));
+                } catch (RejectedExecutionException e) {
+                    log.debug("[INDEX] 索引富化线程池已满，调用线程计算分片 from={} to={}", from, to);
+                    task.run();
+                }
+            }
+            // 分片 0 由调用线程计算
+            mapRange(items, mapper, results, 0, (int) ((long) size / chunks));
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("index enrich interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException re ? re : new IllegalStateException(cause);
+        } catch (RuntimeException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        }
+        return new ArrayList<>((List<R>) Arrays.asList(results));
+    }
+
+    private static <T, R> void mapRange(List<T> items, Function<T, R> mapper, Object[] results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            results[i] = mapper.apply(items.get(i));
+        }
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+}
@@ -149,6 +149,13 @@ public class KeywordHitRateCalculator {
      * 分词：将文本转为小写token集合（简单split分词，性能优先）
      */
     private Set<String> tokenize(String text) {
+        return splitTokens(text);
+    }
+
+    /**
+     * 简单split分词规则（小写、按空格和标点分割、忽略单字符），ES排序模式按同一规则拆分关键词
+     */
+    static Set<String> splitTokens(String text) {
         if (!StringUtils.hasText(text)) {
             return Collections.emptySet();
         }
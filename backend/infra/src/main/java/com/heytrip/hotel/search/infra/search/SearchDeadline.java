@@ -0,0 +1,51 @@
+package com.heytrip.hotel.search.infra.search;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 搜索请求截止时间（线程上下文）
+ * 由 SearchExecutor 在执行搜索分支前绑定到工作线程，ES查询构建时读取剩余时间作为查询 timeout，
+ * 使ES在请求整体预算耗尽前返回已收集到的部分结果，而不是继续占用分片资源。
+ * 未绑定截止时间的调用（如后台任务）不设置 timeout，保持原有行为。
+ */
+public final class SearchDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    /**
+     * 下发给ES的最小 timeout（毫秒），避免 0ms 导致直接返回空结果
+     */
+    private static final long MIN_ES_TIMEOUT_MS = 1;
+
+    private SearchDeadline() {
+    }
+
+    static void bind(long deadlineNanos) {
+        DEADLINE_NANOS.set(deadlineNanos);
+    }
+
+    static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /**
+     * 当前线程剩余时间（毫秒），未绑定截止时间时返回 Long.MAX_VALUE
+     */
+    public static long remainingMillis() {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    /**
+     * ES查询 timeout 参数（如 "850ms"），未绑定截止时间时返回 null（不设置）
+     */
+    public static String esTimeout() {
+        if (DEADLINE_NANOS.get() == null) {
+            return null;
+        }
+        return Math.max(MIN_ES_TIMEOUT_MS, remainingMillis()) + "ms";
+    }
+}
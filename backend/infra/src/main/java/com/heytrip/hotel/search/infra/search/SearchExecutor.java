@@ -0,0 +1,149 @@
+package com.heytrip.hotel.search.infra.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 智能搜索专用线程池
+ * 替代 ForkJoinPool.commonPool()，与JVM内其它并行任务隔离：
+ * - 有界：固定线程数 + 有界队列，满载时直接拒绝，分支按失败处理（快速失败，不堆积排队）
+ * - 截止时间：任务执行前绑定 SearchDeadline，超时分支通过中断取消，而不是放任其继续占用线程与ES
+ * - 指标：线程池活跃数/队列长度/完成数（executor.* name=search），分支结果计数 hotel.search.branch
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchExecutor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${heytrip.search.executor.threads:64}")
+    private int threads;
+
+    @Value("${heytrip.search.executor.queue-capacity:256}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    private Counter completedCounter;
+    private Counter timeoutCounter;
+    private Counter failedCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(
+                threads, threads,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("search-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            new ExecutorServiceMetrics(executor, "search", Tags.empty()).bindTo(registry);
+            completedCounter = branchCounter(registry, "completed");
+            timeoutCounter = branchCounter(registry, "timeout");
+            failedCounter = branchCounter(registry, "failed");
+            rejectedCounter = branchCounter(registry, "rejected");
+        }
+        log.info("[SearchExecutor] 搜索线程池已初始化 threads={} queue={}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交搜索分支任务，任务执行期间绑定请求截止时间
+     * 线程池满载时返回已失败的Future，调用方按分支失败处理
+     *
+     * @param deadlineNanos 请求截止时间（System.nanoTime() 基准）
+     * @param task          搜索任务
+     * @return 任务Future（cancel(true) 会中断执行线程）
+     */
+    public <T> Future<T> submit(long deadlineNanos, Callable<T> task) {
+        try {
+            return executor.submit(() -> {
+                SearchDeadline.bind(deadlineNanos);
+                try {
+                    return task.call();
+                } finally {
+                    SearchDeadline.clear();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            increment(rejectedCounter);
+            log.warn("[SearchExecutor] 搜索线程池已满，拒绝任务 active={} queue={}",
+                    executor.getActiveCount(), executor.getQueue().size());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 在截止时间前等待分支结果，超时则中断取消该分支
+     *
+     * @param future        分支Future
+     * @param deadlineNanos 请求截止时间（System.nanoTime() 基准）
+     * @param branch        分支名称（用于日志）
+     * @return 分支结果；超时、失败或被拒绝时返回null
+     */
+    public <T> T await(Future<T> future, long deadlineNanos, String branch) {
+        long remainingNanos = deadlineNanos - System.nanoTime();
+        try {
+            T result = future.get(Math.max(0, remainingNanos), TimeUnit.NANOSECONDS);
+            increment(completedCounter);
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            increment(timeoutCounter);
+            log.warn("[SearchExecutor] 搜索分支超过请求截止时间，已取消 branch={}", branch);
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof RejectedExecutionException)) {
+                increment(failedCounter);
+                log.warn("[SearchExecutor] 搜索分支失败 branch={}", branch, e.getCause());
+            }
+            return null;
+        }
+    }
+
+    private Counter branchCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("hotel.search.branch")
+                .description("智能搜索分支执行结果")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.heytrip.hotel.search.infra.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.ObjectRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 搜索/点击日志缓冲发布器
+ * <p>
+ * - 请求线程只把日志放入有界内存缓冲区（不访问 Redis、不阻塞），后台单线程按固定间隔批量取出，
+ *   通过 Redis 管道一次往返写入 search:logs:stream
+ * - 缓冲区满载策略（overflow-policy）：
+ *   DROP   - 缓冲区满时丢弃新日志
+ *   SAMPLE - 缓冲区占用超过 sample-watermark 后搜索日志按 1/sample-every 采样写入，点击日志不采样；缓冲区满时丢弃
+ * - 写入失败的批次直接丢弃（日志允许少量丢失，不重试以免挤占后续批次）
+ * - 指标：hotel.search.log{outcome=flushed|dropped|sampled|failed} 计数，hotel.search.log.buffer 缓冲区长度
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchLogPublisher {
+
+    /**
+     * 缓冲区满载策略
+     */
+    public enum OverflowPolicy {
+        DROP,
+        SAMPLE
+    }
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${heytrip.search-log.stream-key:search:logs:stream}")
+    private String streamKey = "search:logs:stream";
+
+    @Value("${heytrip.search-log.publish.buffer-capacity:10000}")
+    private int bufferCapacity = 10_000;
+
+    @Value("${heytrip.search-log.publish.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${heytrip.search-log.publish.flush-interval-ms:200}")
+    private long flushIntervalMs = 200;
+
+    @Value("${heytrip.search-log.publish.overflow-policy:SAMPLE}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.SAMPLE;
+
+    /**
+     * SAMPLE 策略下开始采样的缓冲区占用比例
+     */
+    @Value("${heytrip.search-log.publish.sample-watermark:0.8}")
+    private double sampleWatermark = 0.8;
+
+    /**
+     * SAMPLE 策略下每 N 条搜索日志保留 1 条
+     */
+    @Value("${heytrip.search-log.publish.sample-every:10}")
+    private int sampleEvery = 10;
+
+    private BlockingQueue<Map<String, Object>> buffer;
+    private int sampleThreshold;
+    private ScheduledExecutorService flusher;
+
+    private final AtomicLong sampleSeq = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private Counter flushedCounter;
+    private Counter droppedCounter;
+    private Counter sampledCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    public void init() {
+        bufferCapacity = Math.max(1, bufferCapacity);
+        batchSize = Math.max(1, batchSize);
+        flushIntervalMs = Math.max(1, flushIntervalMs);
+        sampleEvery = Math.max(1, sampleEvery);
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        sampleThreshold = (int) Math.max(0, Math.min(bufferCapacity, bufferCapacity * sampleWatermark));
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            flushedCounter = outcomeCounter(registry, "flushed");
+            droppedCounter = outcomeCounter(registry, "dropped");
+            sampledCounter = outcomeCounter(registry, "sampled");
+            failedCounter = outcomeCounter(registry, "failed");
+            Gauge.builder("hotel.search.log.buffer", buffer, BlockingQueue::size)
+                    .description("搜索日志发布缓冲区长度")
+                    .register(registry);
+        }
+
+        flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("search-log-flush-"));
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("[SEARCH_LOG] 搜索日志缓冲发布器已初始化 capacity={} batchSize={} flushIntervalMs={} policy={}",
+                bufferCapacity, batchSize, flushIntervalMs, overflowPolicy);
+    }
+
+    /**
+     * 停止后台刷写并尽量写出缓冲区剩余日志
+     */
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(5, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flusher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        flushSafely();
+    }
+
+    /**
+     * 放入缓冲区（非阻塞），被丢弃或采样舍弃时返回 false
+     *
+     * @param logData 日志内容（type=search|click）
+     */
+    public boolean publish(Map<String, Object> logData) {
+        if (overflowPolicy == OverflowPolicy.SAMPLE
+                && "search".equals(logData.get("type"))
+                && buffer.size() >= sampleThreshold
+                && sampleSeq.getAndIncrement() % sampleEvery != 0) {
+            sampled.incrementAndGet();
+            increment(sampledCounter);
+            return false;
+        }
+        if (!buffer.offer(logData)) {
+            if (dropped.incrementAndGet() % 1000 == 1) {
+                log.warn("[SEARCH_LOG] 搜索日志缓冲区已满，丢弃日志 capacity={} dropped={}", bufferCapacity, dropped.get());
+            }
+            increment(droppedCounter);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 取出缓冲区中的日志并按批写入 Redis Stream
+     *
+     * @return 本次写入条数
+     */
+    int flush() {
+        int total = 0;
+        List<Map<String, Object>> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                write(batch);
+                total += batch.size();
+                flushed.addAndGet(batch.size());
+                increment(flushedCounter, batch.size());
+            } catch (Exception e) {
+                failed.addAndGet(batch.size());
+                increment(failedCounter, batch.size());
+                log.warn("[SEARCH_LOG] 批量写入搜索日志失败，丢弃 {} 条 err={}", batch.size(), e.getMessage());
+            }
+            batch.clear();
+        }
+        return total;
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("[SEARCH_LOG] 搜索日志刷写异常 err={}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 管道批量 XADD，一个批次一次网络往返
+     */
+    private void write(List<Map<String, Object>> batch) {
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                for (Map<String, Object> logData : batch) {
+                    ObjectRecord<String, Map<String, Object>> record = StreamRecords
+                            .newRecord()
+                            .ofObject(logData)
+                            .withStreamKey(streamKey);
+                    ops.opsForStream().add(record);
+                }
+                return null;
+            }
+        });
+    }
+
+    private Counter outcomeCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("hotel.search.log")
+                .description("搜索日志发布结果")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private void increment(Counter counter) {
+        increment(counter, 1);
+    }
+
+    private void increment(Counter counter, int amount) {
+        if (counter != null) {
+            counter.increment(amount);
+        }
+    }
+
+    public int getBufferSize() {
+        return buffer.size();
+    }
+
+    public long getFlushedCount() {
+        return flushed.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getSampledCount() {
+        return sampled.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+}
@@ -4,9 +4,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.heytrip.hotel.search.domain.repository.SearchLogRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.connection.stream.ObjectRecord;
-import org.springframework.data.redis.connection.stream.StreamRecords;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
@@ -16,17 +13,16 @@ import java.util.Map;
 /**
  * 搜索日志服务
  * 职责：通过 Redis Stream 异步收集搜索日志，不影响主搜索流程
+ * 日志先进入 SearchLogPublisher 的内存缓冲区，由后台线程批量写入 Redis Stream，请求线程不访问 Redis
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SearchLogService {
 
-    private final RedisTemplate<String, Object> redisTemplate;
+    private final SearchLogPublisher searchLogPublisher;
     private final SearchLogRepository searchLogRepository;
     private final ObjectMapper objectMapper;
-    
-    private static final String SEARCH_LOG_STREAM = "search:logs:stream";
 
     /**
      * 通过 Redis Stream 记录搜索日志（非阻塞）
@@ -60,13 +56,8 @@ public class SearchLogService {
             logData.put("longitude", longitude);
             logData.put("createdAt", OffsetDateTime.now().toString());
             
-            // 发送到 Redis Stream（非阻塞）
-            ObjectRecord<String, Map<String, Object>> record = StreamRecords
-                    .newRecord()
-                    .ofObject(logData)
-                    .withStreamKey(SEARCH_LOG_STREAM);
-            
-            redisTemplate.opsForStream().add(record);
+            // 放入发布缓冲区（非阻塞，由后台线程批量写入 Redis Stream）
+            searchLogPublisher.publish(logData);
             
             log.debug("[SEARCH_LOG] 发送搜索日志到 Stream query='{}' ip='{}' country='{}' city='{}' resultCount={} durationMs={}", 
                     query, userIp, country, city, resultCount, durationMs);
@@ -105,13 +96,8 @@ public class SearchLogService {
             logData.put("clickPosition", position);
             logData.put("createdAt", OffsetDateTime.now().toString());
             
-            // 发送到 Redis Stream（非阻塞）
-            ObjectRecord<String, Map<String, Object>> record = StreamRecords
-                    .newRecord()
-                    .ofObject(logData)
-                    .withStreamKey(SEARCH_LOG_STREAM);
-            
-            redisTemplate.opsForStream().add(record);
+            // 放入发布缓冲区（非阻塞，由后台线程批量写入 Redis Stream）
+            searchLogPublisher.publish(logData);
             
             log.debug("[SEARCH_LOG] 发送点击日志到 Stream query='{}' hotelId={} position={}", 
                     query, hotelId, position);
@@ -0,0 +1,71 @@
+package com.heytrip.hotel.search.infra.search;
+
+import co.elastic.clients.elasticsearch.core.search.SourceConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 搜索请求 _source 字段裁剪（按查询类型）
+ * - 命中结果只返回展示字段与应用内打分所需字段，分词/NER 等索引期衍生字段不随命中返回
+ * - score 由命中的 _score 覆盖、highlighted* 由高亮结果填充，均无需从 _source 读取
+ * - 展示字段与 {@link com.heytrip.hotel.search.infra.search.dto.HotelSearchHit} 保持一致
+ */
+public final class SearchSourceFilters {
+
+    /**
+     * 酒店展示字段（HTTP 响应投影所需）
+     */
+    static final List<String> HOTEL_DISPLAY_FIELDS = List.of(
+            "id", "tagSource", "providerSource", "hotelId",
+            "nameCn", "nameEn",
+            "countryCn", "countryEn", "countryCode",
+            "cityCn", "cityEn", "regionCn", "regionEn", "continentCn", "continentEn",
+            "addressCn", "addressEn", "addressTraditional",
+            "lat", "lon",
+            "groupCn", "groupEn", "brandCn", "brandEn",
+            "accommodationType", "tel"
+    );
+
+    /**
+     * 关键词命中率计算字段（KeywordHitRateCalculator 读取，nameCn/nameEn/brandCn/brandEn 已在展示字段中）
+     */
+    static final List<String> HOTEL_HIT_RATE_FIELDS = List.of(
+            "nameTraditional", "nameTokens", "nameKeywords", "nerBrands"
+    );
+
+    /**
+     * POI 字段（作为酒店周边搜索的中心点，仅需名称与坐标等少量字段）
+     */
+    static final List<String> POI_FIELDS = List.of(
+            "id", "name", "type", "typecode", "address", "lat", "lon", "cityname", "adname"
+    );
+
+    /**
+     * 关键词类酒店查询（全库/城市/区域关键词搜索、周边关键词搜索）：结果参与命中率打分
+     */
+    public static final SourceConfig HOTEL_KEYWORD = includes(concat(HOTEL_DISPLAY_FIELDS, HOTEL_HIT_RATE_FIELDS));
+
+    /**
+     * 纯地理位置酒店查询（周边搜索、POI 周边批量搜索）：结果不计算命中率
+     */
+    public static final SourceConfig HOTEL_GEO = includes(HOTEL_DISPLAY_FIELDS);
+
+    /**
+     * POI 查询
+     */
+    public static final SourceConfig POI = includes(POI_FIELDS);
+
+    private SearchSourceFilters() {
+    }
+
+    private static SourceConfig includes(List<String> fields) {
+        return SourceConfig.of(sc -> sc.filter(f -> f.includes(fields)));
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> fields = new ArrayList<>(first);
+        fields.addAll(second);
+        return List.copyOf(fields);
+    }
+}
@@ -1,10 +1,14 @@
 package com.heytrip.hotel.search.infra.search;
 
+import co.elastic.clients.elasticsearch._types.LatLonGeoLocation;
 import com.heytrip.hotel.search.common.util.IpLocation;
 import com.heytrip.hotel.search.common.util.IpLocationUtil;
 import com.heytrip.hotel.search.infra.config.HotelSearchWeights;
 import com.heytrip.hotel.search.infra.search.doc.AmapPoiIndexDoc;
 import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import com.heytrip.hotel.search.infra.search.dto.HotelGeoResult;
+import com.heytrip.hotel.search.infra.search.dto.HotelSearchHit;
+import com.heytrip.hotel.search.infra.search.dto.KeywordRegionResult;
 import com.heytrip.hotel.search.infra.search.dto.PoiSearchResult;
 import com.heytrip.hotel.search.infra.search.dto.ScoredHotelResult;
 import com.heytrip.hotel.search.infra.search.dto.SmartSearchRequest;
@@ -16,10 +20,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 /**
  * 智能酒店搜索编排服务
@@ -37,6 +44,14 @@ public class SmartHotelSearchService {
     private final HotelScoreCalculator scoreCalculator;
     private final HotelResultMerger resultMerger;
     private final SearchLogService searchLogService;
+    private final SearchExecutor searchExecutor;
+    private final HotelSearchWeights searchWeights;
+
+    // 应用内评分的默认相关性输入（未开启 app-actual-score 时所有关键词命中使用同一相关性）
+    static final double DEFAULT_RELEVANCE_SCORE = 10.0;
+
+    // IP定位最长等待时间（毫秒）：定位只用于补充位置，不值得占用搜索分支的时间预算
+    private static final long IP_WAIT_MS = 30;
 
     // 酒店索引搜索结果数量
     @Value("${heytrip.search.smart.hotel-index-size:5}")
@@ -50,7 +65,7 @@ public class SmartHotelSearchService {
     @Value("${heytrip.search.smart.search-radius-km:10}")
     private double searchRadiusKm;
 
-    // 异步搜索超时时间（秒）
+    // 异步搜索总超时时间（秒）：整个请求共享一个截止时间，各分支只能使用剩余时间
     @Value("${heytrip.search.smart.async-timeout-seconds:3}")
     private int asyncTimeoutSeconds;
 
@@ -64,13 +79,15 @@ public class SmartHotelSearchService {
      */
     public SmartSearchResult smartSearch(SmartSearchRequest request) {
         long startTime = System.currentTimeMillis();
+        // 请求级截止时间：IP定位与所有搜索分支共享同一预算
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(asyncTimeoutSeconds);
 
         log.info("[SMART-SEARCH] 开始智能搜索 keyword='{}' userIp='{}' country='{}' city='{}'",
                 request.getKeyword(), request.getUserIp(), request.getCountry(), request.getCity());
 
         // 第一步：异步获取IP定位（如果提供了IP且没有提供地理位置）
         long ipPhaseStart = System.currentTimeMillis();
-        CompletableFuture<IpLocation> ipLocationFuture = null;
+        Future<IpLocation> ipLocationFuture = null;
 
         String requestUserIp = request.getUserIp();
         //requestUserIp = "183.6.6.101"; //调式使用固定IP
@@ -82,7 +99,7 @@ public class SmartHotelSearchService {
         
         if (isValidIp && request.getUserLat() == null && request.getUserLon() == null) {
             String finalIp = requestUserIp;
-            ipLocationFuture = CompletableFuture.supplyAsync(() -> {
+            ipLocationFuture = searchExecutor.submit(deadlineNanos, () -> {
                 try {
                     log.info("[SMART-SEARCH] 开始IP定位 ip={}", finalIp);
                     return ipLocationUtil.locate(finalIp);
@@ -101,40 +118,32 @@ public class SmartHotelSearchService {
         String searchCountry = request.getCountry();
         String searchCity = request.getCity();
 
-        // 尝试快速获取IP定位结果（不阻塞，最多等待100ms）
+        // 尝试快速获取IP定位结果：最多等待30ms且不超过请求截止时间，超时则取消并使用纯关键词搜索
         if (ipLocationFuture != null) {
             long ipWaitStart = System.currentTimeMillis();
-            try {
-                // 只等待100ms，避免阻塞搜索
-                IpLocation ipLocation = ipLocationFuture.get(30, TimeUnit.MILLISECONDS);
-                long ipWaitDuration = System.currentTimeMillis() - ipWaitStart;
-                log.info("[PERF] IP定位快速获取完成 耗时={}ms", ipWaitDuration);
-                
-                if (ipLocation != null && ipLocation.getSuccess()) {
-                    if (searchLat == null && ipLocation.getLatitude() != null) {
-                        searchLat = ipLocation.getLatitude();
-                        searchLon = ipLocation.getLongitude();
-                    }
-                    if (!StringUtils.hasText(searchCountry)) {
-                        searchCountry = ipLocation.getCountry();
-                    }
-                    if (!StringUtils.hasText(searchCity)) {
-                        searchCity = ipLocation.getCity();
-                    }
-                    log.info("[SMART-SEARCH] IP定位成功 ip={} country={} city={} lat={} lon={}",
-                            request.getUserIp(), searchCountry, searchCity, searchLat, searchLon);
+            long ipDeadlineNanos = Math.min(deadlineNanos, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(IP_WAIT_MS));
+            IpLocation ipLocation = searchExecutor.await(ipLocationFuture, ipDeadlineNanos, "ip");
+            log.info("[PERF] IP定位等待完成 耗时={}ms 成功={}", System.currentTimeMillis() - ipWaitStart, ipLocation != null);
+
+            if (ipLocation != null && ipLocation.getSuccess()) {
+                if (searchLat == null && ipLocation.getLatitude() != null) {
+                    searchLat = ipLocation.getLatitude();
+                    searchLon = ipLocation.getLongitude();
+                }
+                if (!StringUtils.hasText(searchCountry)) {
+                    searchCountry = ipLocation.getCountry();
+                }
+                if (!StringUtils.hasText(searchCity)) {
+                    searchCity = ipLocation.getCity();
                 }
-            } catch (TimeoutException e) {
-                // IP定位超过100ms，放弃等待，直接进行搜索
-                log.info("[PERF] IP定位超过100ms，放弃等待，使用纯关键词搜索");
-            } catch (Exception e) {
-                log.warn("[SMART-SEARCH] IP定位失败 ip={}", request.getUserIp());
+                log.info("[SMART-SEARCH] IP定位成功 ip={} country={} city={} lat={} lon={}",
+                        request.getUserIp(), searchCountry, searchCity, searchLat, searchLon);
             }
         }
 
         // 第三步：异步多源搜索
         long searchPhaseStart = System.currentTimeMillis();
-        List<CompletableFuture<List<ScoredHotelResult>>> futures = new ArrayList<>();
+        Map<String, Future<List<ScoredHotelResult>>> futures = new LinkedHashMap<>();
 
         // 创建final变量副本供lambda使用
         final String finalKeyword = request.getKeyword();
@@ -146,45 +155,38 @@ public class SmartHotelSearchService {
 
         // 3.1 纯关键词搜索（无地理位置时）
         if (StringUtils.hasText(finalKeyword) && finalLat == null) {
-            CompletableFuture<List<ScoredHotelResult>> keywordFuture = CompletableFuture.supplyAsync(() ->
-                    searchByKeywordOnly(finalKeyword, finalCity, finalTag));
-            futures.add(keywordFuture);
+            futures.put("keyword_only", searchExecutor.submit(deadlineNanos, () ->
+                    searchByKeywordOnly(finalKeyword, finalCity, finalTag)));
         }
         
         // 3.2 地理位置+关键词搜索
         else if (StringUtils.hasText(finalKeyword) && finalLat != null) {
-            CompletableFuture<List<ScoredHotelResult>> geoKeywordFuture = CompletableFuture.supplyAsync(() ->
-                    searchByGeoAndKeyword(finalKeyword, finalLat, finalLon, finalTag));
-            futures.add(geoKeywordFuture);
+            futures.put("geo_keyword", searchExecutor.submit(deadlineNanos, () ->
+                    searchByGeoAndKeyword(finalKeyword, finalLat, finalLon, finalTag)));
         }
         
         // 3.3 仅地理位置搜索
         else if (finalLat != null) {
-            CompletableFuture<List<ScoredHotelResult>> geoOnlyFuture = CompletableFuture.supplyAsync(() ->
-                    searchByGeoOnly(finalLat, finalLon, finalTag));
-            futures.add(geoOnlyFuture);
+            futures.put("geo_only", searchExecutor.submit(deadlineNanos, () ->
+                    searchByGeoOnly(finalLat, finalLon, finalTag)));
         }
 
         // 3.4 AMap POI地标搜索（仅当有关键词时）
         if (StringUtils.hasText(finalKeyword)) {
-            CompletableFuture<List<ScoredHotelResult>> poiFuture = CompletableFuture.supplyAsync(() ->
-                    searchHotelsNearPoi(finalKeyword, finalLat, finalLon, finalCity, finalTag));
-            futures.add(poiFuture);
+            futures.put("poi_nearby", searchExecutor.submit(deadlineNanos, () ->
+                    searchHotelsNearPoi(finalKeyword, finalLat, finalLon, finalCity, finalTag)));
         }
 
         // 第四步：等待所有搜索完成并合并结果
         long waitStart = System.currentTimeMillis();
         log.info("[PERF] 异步任务启动完成 futures数量={} 耗时={}ms", futures.size(), waitStart - searchPhaseStart);
         
+        // 所有分支共享同一截止时间，超时分支被中断取消
         List<ScoredHotelResult> allResults = new ArrayList<>();
-        for (CompletableFuture<List<ScoredHotelResult>> future : futures) {
-            try {
-                List<ScoredHotelResult> results = future.get(asyncTimeoutSeconds, TimeUnit.SECONDS);
-                if (results != null && !results.isEmpty()) {
-                    allResults.addAll(results);
-                }
-            } catch (Exception e) {
-                log.warn("[SMART-SEARCH] 某个搜索源超时或失败", e);
+        for (Map.Entry<String, Future<List<ScoredHotelResult>>> entry : futures.entrySet()) {
+            List<ScoredHotelResult> results = searchExecutor.await(entry.getValue(), deadlineNanos, entry.getKey());
+            if (results != null && !results.isEmpty()) {
+                allResults.addAll(results);
             }
         }
 
@@ -208,11 +210,19 @@ public class SmartHotelSearchService {
         List<ScoredHotelResult> topResults = resultMerger.selectTopN(mergedResults, topN);
 
         // 第八步：提取酒店文档列表
-        List<HotelIndexDoc> hotels = topResults.stream()
-                .map(ScoredHotelResult::getHotel)
-                .filter(hh -> hh.getScore()>100) // 过滤掉分数过低的酒店
-                .sorted((s1,s2) -> ( Double.compare(s1.getScore(), s2.getScore()) * -1)) // 按最终分数降序
-                .toList();
+        List<HotelIndexDoc> hotels;
+        if (searchWeights.isEsRanking()) {
+            // ES排序模式：低分已由ES过滤（ranking-min-relevance 对应下方 _score > 100），保持综合评分顺序
+            hotels = topResults.stream()
+                    .map(ScoredHotelResult::getHotel)
+                    .toList();
+        } else {
+            hotels = topResults.stream()
+                    .map(ScoredHotelResult::getHotel)
+                    .filter(hh -> hh.getScore()>100) // 过滤掉分数过低的酒店
+                    .sorted((s1,s2) -> ( Double.compare(s1.getScore(), s2.getScore()) * -1)) // 按最终分数降序
+                    .toList();
+        }
 
         long duration = System.currentTimeMillis() - startTime;
         log.info("[SMART-SEARCH] 搜索完成 keyword='{}' 结果数={} 耗时={}ms",
@@ -254,7 +264,7 @@ public class SmartHotelSearchService {
         return SmartSearchResult.builder()
                 .keyword(request.getKeyword())
                 .total((long) hotels.size())
-                .hotels(hotels)
+                .hotels(hotels.stream().map(HotelSearchHit::from).toList())
                 .searchLat(searchLat)
                 .searchLon(searchLon)
                 .searchCountry(searchCountry)
@@ -268,7 +278,8 @@ public class SmartHotelSearchService {
 
     /**
      * 纯关键词搜索（无地理位置）
-     * 优化：识别最高分结果的国别区域，进行二次过滤搜索
+     * 优化：识别最高分结果的国别区域，补充同国别区域的更多结果
+     * 全库搜索时国别区域结果来自同一次ES请求的分桶聚合，最高分结果的国别区域不在分桶中时才发起二次过滤搜索
      */
     private List<ScoredHotelResult> searchByKeywordOnly(String keyword, String city, String tag) {
         long methodStart = System.currentTimeMillis();
@@ -276,18 +287,23 @@ public class SmartHotelSearchService {
             log.info("[PERF] 开始纯关键词搜索 keyword='{}'", keyword);
 
             List<HotelIndexDoc> hotels;
+            KeywordRegionResult regionResult = null;
             if (StringUtils.hasText(city)) {
                 // 关键词 + 城市
                 hotels = hotelKeywordSearchService.searchByKeywordAndCity(keyword, city, tag, hotelIndexSize);
             } else {
-                // 仅关键词全库搜索
-                hotels = hotelKeywordSearchService.searchByKeyword(keyword, tag, hotelIndexSize);
+                // 仅关键词全库搜索（附带国别区域分桶）
+                regionResult = hotelKeywordSearchService.searchByKeywordWithRegionBuckets(keyword, tag, hotelIndexSize);
+                hotels = regionResult.getHits();
             }
 
             List<ScoredHotelResult> results = new ArrayList<>();
+            // 已加入结果的酒店（去重）
+            Set<String> seen = new HashSet<>();
             for (HotelIndexDoc hotel : hotels) {
+                seen.add(dedupeKey(hotel));
                 // 纯关键词搜索，使用命中率计算提升准确性
-                double score = scoreCalculator.calculateScore(hotel, keyword, 10.0, null, null, null);
+                double score = keywordScore(hotel, keyword, null, null, null);
                 results.add(ScoredHotelResult.builder()
                         .hotel(hotel)
                         .keywordScore(10.0)
@@ -297,8 +313,8 @@ public class SmartHotelSearchService {
                         .build());
             }
 
-            // 优化：识别最高分结果的国别区域，进行二次搜索
-            if (!results.isEmpty() && !StringUtils.hasText(city)) {
+            // 优化：识别最高分结果的国别区域，补充同国别区域结果
+            if (!results.isEmpty() && regionResult != null) {
                 // 获取最高分结果
                 ScoredHotelResult topResult = results.stream()
                         .max((a, b) -> Double.compare(a.getFinalScore(), b.getFinalScore()))
@@ -310,16 +326,19 @@ public class SmartHotelSearchService {
                     
                     log.info("[SMART-SEARCH] 识别国别区域 country='{}' region='{}'", detectedCountry, detectedRegion);
                     
-                    // 二次搜索：获取同国家/区域的更多结果
-                    List<HotelIndexDoc> regionHotels = hotelKeywordSearchService.searchByKeywordWithRegion(
-                            keyword, detectedCountry, detectedRegion, tag, hotelIndexSize);
+                    // 优先使用同一次请求的分桶结果，国别区域不在分桶中时二次搜索
+                    List<HotelIndexDoc> regionHotels = regionResult.findRegionHits(detectedCountry, detectedRegion);
+                    if (regionHotels == null) {
+                        log.debug("[SMART-SEARCH] 国别区域不在聚合分桶中，二次搜索 country='{}' region='{}'",
+                                detectedCountry, detectedRegion);
+                        regionHotels = hotelKeywordSearchService.searchByKeywordWithRegion(
+                                keyword, detectedCountry, detectedRegion, tag, hotelIndexSize);
+                    }
                     
                     // 合并区域结果（去重）
                     for (HotelIndexDoc hotel : regionHotels) {
-                        boolean exists = results.stream()
-                                .anyMatch(r -> r.getHotel().getId().equals(hotel.getId()));
-                        if (!exists) {
-                            double score = scoreCalculator.calculateScore(hotel, keyword, 10.0, null, null, null);
+                        if (seen.add(dedupeKey(hotel))) {
+                            double score = keywordScore(hotel, keyword, null, null, null);
                             results.add(ScoredHotelResult.builder()
                                     .hotel(hotel)
                                     .keywordScore(10.0)
@@ -344,6 +363,26 @@ public class SmartHotelSearchService {
         }
     }
 
+    /**
+     * 关键词直接匹配的酒店评分
+     * ES排序模式下 _score 已是ES端计算的综合评分（0-100），不再在应用内重复计算；
+     * 否则相关性输入默认为常量 {@link #DEFAULT_RELEVANCE_SCORE}，开启 app-actual-score 后改用召回查询的实际 _score
+     */
+    private double keywordScore(HotelIndexDoc hotel, String keyword, Double distanceKm, Double lat, Double lon) {
+        if (searchWeights.isEsRanking() && hotel.getScore() != null) {
+            return hotel.getScore();
+        }
+        Double relevance = searchWeights.isAppActualScore() ? hotel.getScore() : DEFAULT_RELEVANCE_SCORE;
+        return scoreCalculator.calculateScore(hotel, keyword, relevance, distanceKm, lat, lon);
+    }
+
+    /**
+     * 酒店去重Key：优先使用文档ID（{tagSource}_{hotelId}），缺失时使用hotelId
+     */
+    private static String dedupeKey(HotelIndexDoc hotel) {
+        return hotel.getId() != null ? hotel.getId() : String.valueOf(hotel.getHotelId());
+    }
+
     /**
      * 地理位置 + 关键词搜索
      */
@@ -358,13 +397,7 @@ public class SmartHotelSearchService {
             List<ScoredHotelResult> results = new ArrayList<>();
             for (var geoResult : geoResults) {
                 // 地理+关键词搜索，使用命中率计算
-                double score = scoreCalculator.calculateScore(
-                        geoResult.getHotel(),
-                        keyword,
-                        10.0,
-                        geoResult.getDistanceKm(),
-                        lat, lon
-                );
+                double score = keywordScore(geoResult.getHotel(), keyword, geoResult.getDistanceKm(), lat, lon);
 
                 results.add(ScoredHotelResult.builder()
                         .hotel(geoResult.getHotel())
@@ -449,8 +482,8 @@ public class SmartHotelSearchService {
 
             log.debug("[Amap POI-SEARCH] POI搜索完成 结果数={}", poiResults.size());
 
-            // 对每个POI，查找附近的酒店
-            List<ScoredHotelResult> hotelResults = new ArrayList<>();
+            // 过滤低得分/坐标无效的POI
+            List<PoiSearchResult> validPois = new ArrayList<>();
             for (PoiSearchResult poiResult : poiResults) {
                 AmapPoiIndexDoc poi = poiResult.getPoi();
                 Double poiScore = poiResult.getScore();
@@ -474,35 +507,41 @@ public class SmartHotelSearchService {
                             poi.getName(), poi.getLat(), poi.getLon());
                     continue;
                 }
-                
-                try {
-                    log.debug("[Amap POI-SEARCH] 查找POI附近酒店 poi={} lat={} lon={}",
-                            poi.getName(), poi.getLat(), poi.getLon());
-                    
-                    var nearbyHotels = hotelGeoSearchService.searchNearby(
-                            poi.getLat(), poi.getLon(), searchRadiusKm, tag, hotelIndexSize); // 搜索POI周边3公里内的5个酒店
-
-                    for (var hotelGeoResult : nearbyHotels) {
-                        // POI间接匹配，关键词命中率基于POI得分判断
-                        double score = scoreCalculator.calculateScore(
-                                hotelGeoResult.getHotel(),
-                                null, // POI间接匹配不传关键词，避免误判命中率
-                                poiScore,
-                                hotelGeoResult.getDistanceKm(),
-                                poi.getLat(), poi.getLon()
-                        );
-                        hotelResults.add(ScoredHotelResult.builder()
-                                .hotel(hotelGeoResult.getHotel())
-                                .keywordScore(poiScore)
-                                .distance(hotelGeoResult.getDistanceKm())
-                                .finalScore(score * 0.6) // POI间接匹配权重降低40%，确保酒店直接匹配优先
-                                .source("poi_nearby")
-                                .build());
-                    }
-                } catch (Exception e) {
-                    log.warn("[Amap POI-SEARCH] POI附近酒店搜索失败 poi={} lat={} lon={} err={}",
-                            poi.getName(), poi.getLat(), poi.getLon(), e.getMessage());
-                    // 单个POI失败不影响整体搜索，继续处理下一个
+                validPois.add(poiResult);
+            }
+
+            if (validPois.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            // 所有POI的附近酒店查询合并为一次 _msearch 往返
+            List<LatLonGeoLocation> centers = validPois.stream()
+                    .map(p -> LatLonGeoLocation.of(ll -> ll.lat(p.getPoi().getLat()).lon(p.getPoi().getLon())))
+                    .toList();
+            List<List<HotelGeoResult>> nearbyByPoi = hotelGeoSearchService.searchNearbyBatch(
+                    centers, searchRadiusKm, tag, hotelIndexSize);
+
+            List<ScoredHotelResult> hotelResults = new ArrayList<>();
+            for (int i = 0; i < validPois.size(); i++) {
+                AmapPoiIndexDoc poi = validPois.get(i).getPoi();
+                Double poiScore = validPois.get(i).getScore();
+
+                for (var hotelGeoResult : nearbyByPoi.get(i)) {
+                    // POI间接匹配，关键词命中率基于POI得分判断
+                    double score = scoreCalculator.calculateScore(
+                            hotelGeoResult.getHotel(),
+                            null, // POI间接匹配不传关键词，避免误判命中率
+                            poiScore,
+                            hotelGeoResult.getDistanceKm(),
+                            poi.getLat(), poi.getLon()
+                    );
+                    hotelResults.add(ScoredHotelResult.builder()
+                            .hotel(hotelGeoResult.getHotel())
+                            .keywordScore(poiScore)
+                            .distance(hotelGeoResult.getDistanceKm())
+                            .finalScore(score * 0.6) // POI间接匹配权重降低40%，确保酒店直接匹配优先
+                            .source("poi_nearby")
+                            .build());
                 }
             }
 
@@ -1,6 +1,7 @@
 package com.heytrip.hotel.search.infra.search.doc;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.Column;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
@@ -13,9 +14,12 @@ import java.util.Map;
 
 /**
  * ES 酒店索引文档
+ * - 空值字段不序列化（索引 _source 与 Redis 缓存均不写出 null）
+ * - 衍生字段完整保留在 _source（rebuild 脚本的 _reindex 只复制 _source），搜索请求按 SearchSourceFilters 裁剪返回字段
  */
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
 @Setting(useServerConfiguration = false, shards = 1, replicas = 1, refreshInterval = "5s", 
         settingPath = "es/elasticsearch-settings.json")
 @Document(indexName = "hotels_read") // 默认读别名，实际运行时通过配置动态指定
@@ -231,6 +235,7 @@ public class HotelIndexDoc extends  HotelSearchResultDoc {
 
     /**
      * 地址精细分词（用于地名召回与匹配）
+     * 仅用于召回，搜索请求不返回
      */
     @Field(type = FieldType.Keyword)
     private List<String> addressTokens;
@@ -244,6 +249,7 @@ public class HotelIndexDoc extends  HotelSearchResultDoc {
 
     /**
      * 地点实体（NER）
+     * 仅用于召回，搜索请求不返回
      */
     @Field(type = FieldType.Keyword)
     private List<String> nerPlaces;
@@ -271,6 +277,7 @@ public class HotelIndexDoc extends  HotelSearchResultDoc {
 
     /**
      * 品牌名称（基于自定义品牌词典识别）
+     * 仅用于召回，搜索请求不返回
      */
     @Field(type = FieldType.Keyword)
     private List<String> brandNames;
@@ -278,7 +285,7 @@ public class HotelIndexDoc extends  HotelSearchResultDoc {
     /**
      * 地理层级路径（从大到小）
      * 示例：["亚洲", "中国", "上海", "浦东新区"]
-     * 用于地理层级过滤和聚合
+     * 用于地理层级过滤和聚合，搜索请求不返回
      */
     @Field(type = FieldType.Keyword)
     private List<String> geoHierarchy;
@@ -0,0 +1,124 @@
+package com.heytrip.hotel.search.infra.search.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 酒店搜索结果（HTTP 响应投影）
+ * 仅保留展示字段、得分与高亮，不含分词、NER 等索引期衍生字段；空值字段不输出
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class HotelSearchHit {
+
+    /**
+     * 文档ID，格式：{tagSource}_{hotelId}
+     */
+    private String id;
+
+    /**
+     * 业务域（CN|INTL|HMT）
+     */
+    private String tagSource;
+
+    /**
+     * 数据提供商（Elong/Agoda/Booking 等）
+     */
+    private String providerSource;
+
+    /**
+     * 酒店ID
+     */
+    private Long hotelId;
+
+    private String nameCn;
+    private String nameEn;
+
+    private String countryCn;
+    private String countryEn;
+    private String countryCode;
+    private String cityCn;
+    private String cityEn;
+    private String regionCn;
+    private String regionEn;
+    private String continentCn;
+    private String continentEn;
+
+    private String addressCn;
+    private String addressEn;
+    private String addressTraditional;
+
+    private Double lat;
+    private Double lon;
+
+    private String groupCn;
+    private String groupEn;
+    private String brandCn;
+    private String brandEn;
+
+    /**
+     * 住宿类型
+     */
+    private String accommodationType;
+
+    /**
+     * 电话
+     */
+    private String tel;
+
+    /**
+     * 得分（ES相关性或综合评分）
+     */
+    private Double score;
+
+    // ==================== 高亮结果 ====================
+
+    private String highlightedNameCn;
+    private String highlightedNameEn;
+    private String highlightedNameTraditional;
+    private String highlightedAddressCn;
+    private String highlightedAddressEn;
+
+    /**
+     * 由索引文档投影
+     */
+    public static HotelSearchHit from(HotelIndexDoc doc) {
+        HotelSearchHit hit = new HotelSearchHit();
+        hit.setId(doc.getId());
+        hit.setTagSource(doc.getTagSource());
+        hit.setProviderSource(doc.getProviderSource());
+        hit.setHotelId(doc.getHotelId());
+        hit.setNameCn(doc.getNameCn());
+        hit.setNameEn(doc.getNameEn());
+        hit.setCountryCn(doc.getCountryCn());
+        hit.setCountryEn(doc.getCountryEn());
+        hit.setCountryCode(doc.getCountryCode());
+        hit.setCityCn(doc.getCityCn());
+        hit.setCityEn(doc.getCityEn());
+        hit.setRegionCn(doc.getRegionCn());
+        hit.setRegionEn(doc.getRegionEn());
+        hit.setContinentCn(doc.getContinentCn());
+        hit.setContinentEn(doc.getContinentEn());
+        hit.setAddressCn(doc.getAddressCn());
+        hit.setAddressEn(doc.getAddressEn());
+        hit.setAddressTraditional(doc.getAddressTraditional());
+        hit.setLat(doc.getLat());
+        hit.setLon(doc.getLon());
+        hit.setGroupCn(doc.getGroupCn());
+        hit.setGroupEn(doc.getGroupEn());
+        hit.setBrandCn(doc.getBrandCn());
+        hit.setBrandEn(doc.getBrandEn());
+        hit.setAccommodationType(doc.getAccommodationType());
+        hit.setTel(doc.getTel());
+        hit.setScore(doc.getScore());
+        hit.setHighlightedNameCn(doc.getHighlightedNameCn());
+        hit.setHighlightedNameEn(doc.getHighlightedNameEn());
+        hit.setHighlightedNameTraditional(doc.getHighlightedNameTraditional());
+        hit.setHighlightedAddressCn(doc.getHighlightedAddressCn());
+        hit.setHighlightedAddressEn(doc.getHighlightedAddressEn());
+        return hit;
+    }
+}
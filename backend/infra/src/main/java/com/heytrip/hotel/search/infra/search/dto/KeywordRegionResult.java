@@ -0,0 +1,95 @@
+package com.heytrip.hotel.search.infra.search.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 关键词搜索 + 国别区域聚合结果（一次ES请求）
+ * - hits：全库关键词搜索结果
+ * - buckets：按国家（及省/州）分桶的关键词搜索结果，与按国家/区域过滤后的二次搜索结果一致
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeywordRegionResult {
+
+    /**
+     * 全库关键词搜索结果（按相关性排序）
+     */
+    private List<HotelIndexDoc> hits = new ArrayList<>();
+
+    /**
+     * 国别区域分桶（按命中文档数排序，仅包含前N个国家/区域）
+     */
+    private List<RegionBucket> buckets = new ArrayList<>();
+
+    /**
+     * 查找国家/区域对应的分桶结果
+     *
+     * @param country 国家名称（中文）
+     * @param region  区域/省份名称（中文，可选，为空时返回国家级结果）
+     * @return 分桶内的酒店列表（按相关性排序），国家/区域不在聚合分桶中时返回null
+     */
+    public List<HotelIndexDoc> findRegionHits(String country, String region) {
+        if (country == null || buckets == null) {
+            return null;
+        }
+        boolean hasRegion = region != null && !region.isBlank();
+        for (RegionBucket bucket : buckets) {
+            if (!country.equals(bucket.getCountry())) {
+                continue;
+            }
+            if (!hasRegion && bucket.getRegion() == null) {
+                return bucket.getHits();
+            }
+            if (hasRegion && region.equals(bucket.getRegion())) {
+                return bucket.getHits();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 结果总条数（本地缓存计权）
+     */
+    @JsonIgnore
+    public int getTotalHits() {
+        int total = hits == null ? 0 : hits.size();
+        if (buckets != null) {
+            for (RegionBucket bucket : buckets) {
+                total += bucket.getHits() == null ? 0 : bucket.getHits().size();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 国别区域分桶
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RegionBucket {
+
+        /**
+         * 国家名称（中文）
+         */
+        private String country;
+
+        /**
+         * 区域/省份名称（中文），为null表示国家级分桶
+         */
+        private String region;
+
+        /**
+         * 分桶内的酒店列表（按相关性排序）
+         */
+        private List<HotelIndexDoc> hits = new ArrayList<>();
+    }
+}
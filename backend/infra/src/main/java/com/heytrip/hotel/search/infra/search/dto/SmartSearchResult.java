@@ -1,6 +1,5 @@
 package com.heytrip.hotel.search.infra.search.dto;
 
-import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -28,9 +27,9 @@ public class SmartSearchResult {
     private Long total;
     
     /**
-     * 酒店列表
+     * 酒店列表（展示字段投影）
      */
-    private List<HotelIndexDoc> hotels;
+    private List<HotelSearchHit> hotels;
     
     /**
      * 实际搜索使用的纬度
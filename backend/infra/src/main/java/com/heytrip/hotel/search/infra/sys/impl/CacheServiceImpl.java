@@ -1,5 +1,6 @@
 package com.heytrip.hotel.search.infra.sys.impl;
 
+import com.heytrip.hotel.search.common.interceptor.AppCredentialCache;
 import com.heytrip.hotel.search.domain.entity.App;
 import com.heytrip.hotel.search.domain.entity.User;
 import com.heytrip.hotel.search.infra.sys.CacheService;
@@ -16,6 +17,7 @@ import java.util.concurrent.TimeUnit;
 public class CacheServiceImpl implements CacheService {
     
     private final RedisTemplate<String, Object> redisTemplate;
+    private final AppCredentialCache appCredentialCache;
     
     private static final String APP_CACHE_PREFIX = "auth:app:";
     private static final String USER_CACHE_PREFIX = "auth:user:";
@@ -25,6 +27,8 @@ public class CacheServiceImpl implements CacheService {
     public void cacheApp(App app) {
         String key = APP_CACHE_PREFIX + app.getAppId();
         redisTemplate.opsForValue().set(key, app, CACHE_TTL_MINUTES, TimeUnit.MINUTES);
+        // 清除各节点签名认证的本地缓存（含未知 appId 的负缓存）
+        appCredentialCache.publishInvalidation(app.getAppId());
         log.debug("缓存应用: {}", app.getAppId());
     }
     
@@ -43,6 +47,7 @@ public class CacheServiceImpl implements CacheService {
     public void evictApp(String appId) {
         String key = APP_CACHE_PREFIX + appId;
         redisTemplate.delete(key);
+        appCredentialCache.publishInvalidation(appId);
         log.debug("清除应用缓存: {}", appId);
     }
     
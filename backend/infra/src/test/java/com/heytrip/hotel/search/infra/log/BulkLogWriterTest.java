@@ -0,0 +1,110 @@
+package com.heytrip.hotel.search.infra.log;
+
+import com.heytrip.hotel.search.domain.entity.SyncLogDetail;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 日志批量写入测试（MySQL 多行 INSERT 分块与失败回退；连接为 Mock）
+ */
+class BulkLogWriterTest {
+
+    private final List<String> executed = new ArrayList<>();
+    private int failOnGroups = -1;
+    private long failRowHotelId = -1;
+    private int multiRowStatements;
+    private Connection connection;
+    private BulkLogWriter writer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn("MySQL");
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.prepareStatement(anyString())).thenAnswer(inv -> statement(inv.getArgument(0)));
+
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(inv -> ((ConnectionCallback<Object>) inv.getArgument(0)).doInConnection(connection));
+        writer = new BulkLogWriter(jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "rowsPerStatement", 4);
+    }
+
+    @Test
+    void testMysqlWritesMultiRowStatements() {
+        assertEquals(10, writer.write(LogTables.SYNC_LOG_DETAIL, rows(10)));
+
+        assertEquals(BulkLogWriter.Dialect.MYSQL, writer.dialect());
+        // 4 + 4 + 2
+        assertEquals(List.of(4, 4, 2), executed.stream().map(BulkLogWriterTest::groups).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testFailedStatementFallsBackRowByRowForRemainingRows() {
+        failOnGroups = 2;
+        failRowHotelId = 7L;
+
+        // 第 1 块成功，第 2 块失败后剩余 6 行逐行写入，hotelId=7 的行被跳过
+        assertEquals(9, writer.write(LogTables.SYNC_LOG_DETAIL, rows(10)));
+        long singleRows = executed.stream().filter(sql -> groups(sql) == 1).count();
+        assertEquals(5, singleRows);
+    }
+
+    @Test
+    void testEmptyBatchDoesNotTouchDatabase() {
+        assertEquals(0, writer.write(LogTables.SYNC_LOG_DETAIL, List.of()));
+        verifyNoInteractions(connection);
+    }
+
+    private PreparedStatement statement(String sql) throws SQLException {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        long[] hotelId = new long[1];
+        doAnswer(inv -> {
+            if ((int) inv.getArgument(0) == 2) {
+                hotelId[0] = inv.getArgument(1);
+            }
+            return null;
+        }).when(ps).setLong(anyInt(), anyLong());
+        when(ps.executeUpdate()).thenAnswer(inv -> {
+            int groups = groups(sql);
+            if (groups > 1 && ++multiRowStatements == failOnGroups) {
+                throw new SQLException("Data too long");
+            }
+            if (groups == 1 && hotelId[0] == failRowHotelId) {
+                throw new SQLException("Data too long");
+            }
+            executed.add(sql);
+            return groups;
+        });
+        return ps;
+    }
+
+    private static int groups(String sql) {
+        return sql.split("\\), \\(", -1).length;
+    }
+
+    private static List<SyncLogDetail> rows(int n) {
+        return LongStream.range(0, n)
+                .mapToObj(i -> SyncLogDetail.builder().syncLogId(1L).hotelId(i).stage("SINK").build())
+                .collect(Collectors.toList());
+    }
+}
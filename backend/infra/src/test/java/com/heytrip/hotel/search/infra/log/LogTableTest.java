@@ -0,0 +1,83 @@
+package com.heytrip.hotel.search.infra.log;
+
+import com.heytrip.hotel.search.domain.entity.ApiRequestLog;
+import com.heytrip.hotel.search.domain.entity.CompressionCodec;
+import com.heytrip.hotel.search.domain.entity.SearchLog;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 日志表列定义测试（SQL 生成、COPY CSV 编码、参数绑定）
+ */
+class LogTableTest {
+
+    private static final OffsetDateTime NOW = OffsetDateTime.of(2026, 1, 2, 3, 4, 5, 0, ZoneOffset.ofHours(8));
+
+    @Test
+    void testInsertSqlHasOneGroupPerRow() {
+        String sql = LogTables.SYNC_LOG_DETAIL.insertSql(2);
+        assertEquals("INSERT INTO sync_log_detail (sync_log_id, hotel_id, stage, error_code, error_message, created_at)"
+                + " VALUES (?, ?, ?, ?, ?, ?), (?, ?, ?, ?, ?, ?)", sql);
+    }
+
+    @Test
+    void testCopySql() {
+        assertEquals("COPY bench_search_logs (query, tag_source, result_count, clicked_hotel_id, click_position,"
+                        + " duration_ms, user_id, user_ip, created_at) FROM STDIN WITH (FORMAT csv)",
+                LogTables.SEARCH_LOGS.withName("bench_search_logs").copySql());
+    }
+
+    @Test
+    void testCsvEscapesTextAndKeepsNullsUnquoted() {
+        SearchLog row = SearchLog.builder()
+                .query("say \"hi\", 上海\n外滩")
+                .tagSource("")
+                .resultCount(3)
+                .createdAt(NOW)
+                .build();
+        StringBuilder sb = new StringBuilder();
+        LogTables.SEARCH_LOGS.appendCsv(sb, row, NOW);
+        assertEquals("\"say \"\"hi\"\", 上海\n外滩\",\"\",3,,,,,,2026-01-02T03:04:05+08:00\n", sb.toString());
+    }
+
+    @Test
+    void testCsvEncodesBytesAsHexAndEnumsByName() {
+        ApiRequestLog row = ApiRequestLog.builder()
+                .traceId("t").jobCode("j").source("CN").httpMethod("GET").url("u").requestHeaders("{}")
+                .responseBodyCompressed(new byte[]{0x00, 0x1f, (byte) 0xff})
+                .compression(CompressionCodec.gzip)
+                .build();
+        StringBuilder sb = new StringBuilder();
+        LogTables.API_REQUEST_LOG.appendCsv(sb, row, NOW);
+        String[] cols = sb.toString().trim().split(",", -1);
+        assertEquals("\\x001fff", cols[9]);
+        assertEquals("\"gzip\"", cols[12]);
+        // 时间列为空时取当前时间
+        assertEquals(NOW.toString(), cols[14]);
+        assertEquals(NOW.toString(), cols[15]);
+    }
+
+    @Test
+    void testBindSetsNullsByType() throws Exception {
+        PreparedStatement ps = mock(PreparedStatement.class);
+        SearchLog row = SearchLog.builder().query("q").clickedHotelId(7L).build();
+
+        int next = LogTables.SEARCH_LOGS.bind(ps, 10, row, NOW);
+
+        assertEquals(19, next);
+        verify(ps).setString(10, "q");
+        verify(ps).setString(11, null);
+        verify(ps).setNull(12, Types.INTEGER);
+        verify(ps).setLong(13, 7L);
+        verify(ps).setNull(16, Types.BIGINT);
+        verify(ps).setTimestamp(18, Timestamp.from(NOW.toInstant()));
+    }
+}
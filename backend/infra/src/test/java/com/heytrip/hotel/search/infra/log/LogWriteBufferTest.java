@@ -0,0 +1,267 @@
+package com.heytrip.hotel.search.infra.log;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heytrip.hotel.search.domain.entity.SyncLogDetail;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * 日志写后缓冲测试（按批量/超时写出、满载策略、溢出落盘与回放；后台检查间隔设为很长，由测试直接驱动）
+ */
+class LogWriteBufferTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final List<Integer> batches = new ArrayList<>();
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private BulkLogWriter writer;
+    private LogWriteBuffer buffer;
+    private CountDownLatch release;
+
+    @TempDir
+    Path spillDir;
+
+    @BeforeEach
+    void setUp() {
+        writer = mock(BulkLogWriter.class);
+        when(writer.write(eq(LogTables.SYNC_LOG_DETAIL), any())).thenAnswer(inv -> {
+            List<?> rows = inv.getArgument(1);
+            synchronized (batches) {
+                batches.add(rows.size());
+            }
+            return rows.size();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (release != null) {
+            release.countDown();
+        }
+        if (buffer != null) {
+            buffer.shutdown();
+        }
+    }
+
+    @Test
+    void testFlushesWhenOldestRowIsTooOld() {
+        buffer = newBuffer(100, 1000, LogWriteBuffer.OverflowPolicy.DROP_OLDEST);
+        buffer.add(LogTables.SYNC_LOG_DETAIL, row(1));
+        buffer.flushDue();
+        assertTrue(batches.isEmpty());
+
+        // 后台检查与测试共用同一时钟，由谁写出不确定，只校验写出结果
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        buffer.flushDue();
+        verify(writer, timeout(2000)).write(eq(LogTables.SYNC_LOG_DETAIL), any());
+        assertEquals(List.of(1), batches);
+        assertEquals(0, buffer.pending(LogTables.SYNC_LOG_DETAIL));
+    }
+
+    @Test
+    void testFlushesFullBatchesInBackground() {
+        buffer = newBuffer(10, 3_600_000, LogWriteBuffer.OverflowPolicy.DROP_OLDEST);
+        for (int i = 0; i < 25; i++) {
+            buffer.add(LogTables.SYNC_LOG_DETAIL, row(i));
+        }
+        verify(writer, timeout(2000).atLeast(2)).write(eq(LogTables.SYNC_LOG_DETAIL), any());
+        buffer.flushAll();
+        synchronized (batches) {
+            assertEquals(25, batches.stream().mapToInt(Integer::intValue).sum());
+            assertTrue(batches.stream().allMatch(size -> size <= 10));
+        }
+        assertEquals(25, buffer.stats(LogTables.SYNC_LOG_DETAIL).written());
+    }
+
+    @Test
+    void testDropOldestKeepsNewestRowsWithoutWritingOnCallerThread() {
+        buffer = newBuffer(5, 3_600_000, LogWriteBuffer.OverflowPolicy.DROP_OLDEST);
+        blockFlusher();
+
+        for (int i = 0; i < 7; i++) {
+            buffer.add(LogTables.SYNC_LOG_DETAIL, row(i));
+        }
+        verify(writer, never()).write(any(), any());
+        assertEquals(5, buffer.pending(LogTables.SYNC_LOG_DETAIL));
+        assertEquals(2, buffer.stats(LogTables.SYNC_LOG_DETAIL).dropped());
+
+        // 写入后批次列表会被复用，在写入时记录内容
+        List<Long> written = new ArrayList<>();
+        doAnswer(inv -> {
+            List<SyncLogDetail> rows = inv.getArgument(1);
+            synchronized (written) {
+                rows.forEach(r -> written.add(r.getHotelId()));
+            }
+            return rows.size();
+        }).when(writer).write(eq(LogTables.SYNC_LOG_DETAIL), any());
+        release.countDown();
+        buffer.flushAll();
+        synchronized (written) {
+            assertEquals(List.of(2L, 3L, 4L, 5L, 6L), written);
+        }
+    }
+
+    @Test
+    void testSampleKeepsOneInEveryNAboveWatermark() {
+        buffer = newBuffer(10, 3_600_000, LogWriteBuffer.OverflowPolicy.SAMPLE);
+        ReflectionTestUtils.setField(buffer, "sampleEvery", 5);
+        blockFlusher();
+
+        // 占用达到 80% 前全部入队
+        for (int i = 0; i < 8; i++) {
+            buffer.add(LogTables.SYNC_LOG_DETAIL, row(i));
+        }
+        // 之后每 5 行保留 1 行
+        for (int i = 0; i < 10; i++) {
+            buffer.add(LogTables.SYNC_LOG_DETAIL, row(100 + i));
+        }
+        assertEquals(10, buffer.pending(LogTables.SYNC_LOG_DETAIL));
+        assertEquals(8, buffer.stats(LogTables.SYNC_LOG_DETAIL).sampled());
+        assertEquals(0, buffer.stats(LogTables.SYNC_LOG_DETAIL).dropped());
+    }
+
+    @Test
+    void testWriteFailureDropsBatchWithoutSpill() {
+        doThrow(new IllegalStateException("db down")).when(writer).write(eq(LogTables.SYNC_LOG_DETAIL), any());
+        buffer = newBuffer(100, 3_600_000, LogWriteBuffer.OverflowPolicy.DROP_OLDEST);
+        buffer.add(LogTables.SYNC_LOG_DETAIL, row(1));
+        buffer.flushAll();
+        assertEquals(0, buffer.pending(LogTables.SYNC_LOG_DETAIL));
+        assertEquals(1, buffer.stats(LogTables.SYNC_LOG_DETAIL).failed());
+    }
+
+    @Test
+    void testFailedBatchSpillsToFileAndReplays() throws Exception {
+        List<Long> replayed = new ArrayList<>();
+        doThrow(new IllegalStateException("db down"))
+                .doAnswer(inv -> {
+                    List<SyncLogDetail> rows = inv.getArgument(1);
+                    synchronized (replayed) {
+                        rows.forEach(r -> replayed.add(r.getHotelId()));
+                    }
+                    return rows.size();
+                })
+                .when(writer).write(eq(LogTables.SYNC_LOG_DETAIL), any());
+        buffer = newBuffer(100, 3_600_000, LogWriteBuffer.OverflowPolicy.SPILL);
+        for (int i = 0; i < 3; i++) {
+            buffer.add(LogTables.SYNC_LOG_DETAIL, row(i));
+        }
+        buffer.flushAll();
+
+        awaitStats(s -> s.spilled() == 3 && s.replayed() == 3);
+        synchronized (replayed) {
+            assertEquals(List.of(0L, 1L, 2L), replayed);
+        }
+        assertEquals(0, spillFileCount());
+    }
+
+    @Test
+    void testOverflowSpillsWithoutBlockingProducer() throws Exception {
+        buffer = newBuffer(2, 3_600_000, LogWriteBuffer.OverflowPolicy.SPILL);
+        blockFlusher();
+
+        for (int i = 0; i < 3; i++) {
+            buffer.add(LogTables.SYNC_LOG_DETAIL, row(i));
+        }
+        assertEquals(2, buffer.pending(LogTables.SYNC_LOG_DETAIL));
+        verify(writer, never()).write(any(), any());
+
+        // 溢出的一行由溢出线程落盘，缓冲回落后回放
+        release.countDown();
+        buffer.flushAll();
+        awaitStats(s -> s.spilled() == 1 && s.replayed() == 1);
+        assertEquals(0, buffer.stats(LogTables.SYNC_LOG_DETAIL).dropped());
+    }
+
+    @Test
+    void testShutdownWritesPendingRows() {
+        buffer = newBuffer(100, 3_600_000, LogWriteBuffer.OverflowPolicy.SPILL);
+        buffer.add(LogTables.SYNC_LOG_DETAIL, row(1));
+        buffer.shutdown();
+        assertEquals(List.of(1), batches);
+        buffer = null;
+    }
+
+    @Test
+    void testShutdownKeepsUnwrittenRowsInSpillFile() throws Exception {
+        doThrow(new IllegalStateException("db down")).when(writer).write(eq(LogTables.SYNC_LOG_DETAIL), any());
+        buffer = newBuffer(100, 3_600_000, LogWriteBuffer.OverflowPolicy.SPILL);
+        buffer.add(LogTables.SYNC_LOG_DETAIL, row(1));
+        buffer.add(LogTables.SYNC_LOG_DETAIL, row(2));
+        buffer.shutdown();
+        buffer = null;
+
+        LogSpillFiles files = new LogSpillFiles(spillDir, 100, objectMapper);
+        List<SyncLogDetail> rows = new ArrayList<>();
+        for (Path segment : files.closedSegments(LogTables.SYNC_LOG_DETAIL)) {
+            rows.addAll(files.read(segment, LogTables.SYNC_LOG_DETAIL));
+        }
+        assertEquals(List.of(1L, 2L), rows.stream().map(SyncLogDetail::getHotelId).toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private LogWriteBuffer newBuffer(int batchSize, long maxAgeMs, LogWriteBuffer.OverflowPolicy policy) {
+        LogWriteBuffer b = new LogWriteBuffer(writer, objectMapper, mock(ObjectProvider.class), now::get);
+        ReflectionTestUtils.setField(b, "batchSize", batchSize);
+        ReflectionTestUtils.setField(b, "maxAgeMs", maxAgeMs);
+        ReflectionTestUtils.setField(b, "bufferCapacity", batchSize);
+        ReflectionTestUtils.setField(b, "overflowPolicy", policy);
+        ReflectionTestUtils.setField(b, "spillDir", spillDir.toString());
+        b.init();
+        return b;
+    }
+
+    /**
+     * 阻塞后台写线程，缓冲中的行只会留在缓冲区
+     */
+    private void blockFlusher() {
+        release = new CountDownLatch(1);
+        ScheduledExecutorService flusher = (ScheduledExecutorService) ReflectionTestUtils.getField(buffer, "flusher");
+        flusher.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private void awaitStats(Predicate<LogWriteBuffer.Stats> condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.test(buffer.stats(LogTables.SYNC_LOG_DETAIL))) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("统计未达到预期：" + buffer.stats(LogTables.SYNC_LOG_DETAIL));
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private long spillFileCount() throws Exception {
+        try (Stream<Path> files = Files.list(spillDir)) {
+            return files.count();
+        }
+    }
+
+    private static SyncLogDetail row(long hotelId) {
+        return SyncLogDetail.builder().syncLogId(1L).hotelId(hotelId).stage("SINK").build();
+    }
+}
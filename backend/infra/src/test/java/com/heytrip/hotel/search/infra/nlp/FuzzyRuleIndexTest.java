@@ -0,0 +1,108 @@
+package com.heytrip.hotel.search.infra.nlp;
+
+import com.heytrip.hotel.search.infra.nlp.SpellCheckService.SpellCheckRule;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 拼写纠错模糊索引测试（与原线性扫描结果一致）
+ */
+class FuzzyRuleIndexTest {
+
+    private static final String ALPHABET = "abcdefgh北京上海深圳酒店机场";
+
+    @Test
+    void testBoundedDistance() {
+        assertEquals(0, FuzzyRuleIndex.boundedDistance("希尔顿", "希尔顿", 2));
+        assertEquals(1, FuzzyRuleIndex.boundedDistance("希尔敦", "希尔顿", 2));
+        assertEquals(3, FuzzyRuleIndex.boundedDistance("kitten", "sitting", 5));
+        // 超过上界时返回 bound + 1
+        assertEquals(3, FuzzyRuleIndex.boundedDistance("abcdef", "uvwxyz", 2));
+        assertEquals(2, FuzzyRuleIndex.boundedDistance("a", "abcdef", 1));
+    }
+
+    @Test
+    void testWeightAndDomainPriority() {
+        Map<String, List<SpellCheckRule>> rules = new HashMap<>();
+        rules.computeIfAbsent("ALL", k -> new ArrayList<>()).add(rule("希尔敦", "希尔顿", 9));
+        rules.computeIfAbsent("CN", k -> new ArrayList<>()).add(rule("希尔登", "希尔顿酒店", 9));
+        rules.computeIfAbsent("CN", k -> new ArrayList<>()).add(rule("希尔盾", "希尔顿集团", 10));
+        FuzzyRuleIndex index = FuzzyRuleIndex.build(rules);
+
+        // CN：权重更高的领域规则优先
+        assertEquals("希尔顿集团", index.findCorrection("希尔屯", "CN"));
+        // ALL：仅 ALL 规则参与
+        assertEquals("希尔顿", index.findCorrection("希尔屯", "ALL"));
+        assertEquals("希尔顿", index.findCorrection("希尔屯", "INTL"));
+        assertNull(index.findCorrection("万豪", "CN"));
+        assertNull(FuzzyRuleIndex.EMPTY.findCorrection("希尔屯", "CN"));
+    }
+
+    @Test
+    void testMatchesLinearScan() {
+        Random random = new Random(42);
+        Map<String, List<SpellCheckRule>> rules = new HashMap<>();
+        String[] domains = {"ALL", "CN", "INTL"};
+        for (int i = 0; i < 2000; i++) {
+            String domain = domains[random.nextInt(domains.length)];
+            SpellCheckRule rule = new SpellCheckRule();
+            rule.setWrongSpellings(List.of(randomWord(random), randomWord(random)));
+            rule.setCorrectSpellings(List.of("c" + i));
+            rule.setWeight(1 + random.nextInt(10));
+            rule.setBusinessDomain(domain);
+            rules.computeIfAbsent(domain, k -> new ArrayList<>()).add(rule);
+        }
+        FuzzyRuleIndex index = FuzzyRuleIndex.build(rules);
+
+        for (int i = 0; i < 2000; i++) {
+            String text = randomWord(random);
+            String domain = domains[random.nextInt(domains.length)];
+            assertEquals(linearScan(rules, text, domain), index.findCorrection(text, domain),
+                    "text=" + text + " domain=" + domain);
+        }
+    }
+
+    /**
+     * 原 SpellCheckService.findFuzzyMatch 的线性扫描实现
+     */
+    private String linearScan(Map<String, List<SpellCheckRule>> rulesByDomain, String text, String domain) {
+        List<SpellCheckRule> rules = new ArrayList<>(rulesByDomain.getOrDefault("ALL", List.of()));
+        if (!"ALL".equals(domain)) {
+            rules.addAll(rulesByDomain.getOrDefault(domain, List.of()));
+        }
+        rules.sort((r1, r2) -> Integer.compare(r2.getWeight(), r1.getWeight()));
+        for (SpellCheckRule rule : rules) {
+            for (String wrong : rule.getWrongSpellings()) {
+                int maxDistance = Math.min(2, Math.max(1, wrong.length() / 3));
+                if (FuzzyRuleIndex.boundedDistance(text, wrong, Integer.MAX_VALUE - 1) <= maxDistance) {
+                    return rule.getCorrectSpellings().get(0);
+                }
+            }
+        }
+        return null;
+    }
+
+    private String randomWord(Random random) {
+        int len = 2 + random.nextInt(7);
+        StringBuilder sb = new StringBuilder(len);
+        for (int i = 0; i < len; i++) {
+            sb.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return sb.toString();
+    }
+
+    private SpellCheckRule rule(String wrong, String correct, int weight) {
+        SpellCheckRule rule = new SpellCheckRule();
+        rule.setWrongSpellings(List.of(wrong));
+        rule.setCorrectSpellings(List.of(correct));
+        rule.setWeight(weight);
+        return rule;
+    }
+}
@@ -0,0 +1,71 @@
+package com.heytrip.hotel.search.infra.nlp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NLP 结果记忆化缓存测试（命中、代数失效、异常不缓存、按字符计权限容）
+ */
+class NlpMemoCacheTest {
+
+    @Test
+    void testHitAndGenerationInvalidation() {
+        NlpMemoCache<List<String>> cache = NlpMemoCache.ofTokens("test", 10_000);
+        AtomicInteger loads = new AtomicInteger();
+
+        List<String> first = cache.get("北京希尔顿酒店", 1, key -> {
+            loads.incrementAndGet();
+            return List.of("北京", "希尔顿", "酒店");
+        });
+        List<String> second = cache.get("北京希尔顿酒店", 1, key -> {
+            loads.incrementAndGet();
+            return List.of("unexpected");
+        });
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hitCount());
+
+        // 词典代数变化：旧条目视为未命中并重新计算
+        List<String> third = cache.get("北京希尔顿酒店", 2, key -> {
+            loads.incrementAndGet();
+            return List.of("北京", "希尔顿酒店");
+        });
+        assertEquals(List.of("北京", "希尔顿酒店"), third);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testFailedLoadNotCached() {
+        NlpMemoCache<String> cache = NlpMemoCache.ofText("test", 10_000);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("酒店", 0, key -> {
+            throw new IllegalStateException("hanlp unavailable");
+        }));
+        assertEquals("酒店!", cache.get("酒店", 0, key -> key + "!"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testBoundedByCharacterWeight() {
+        NlpMemoCache<String> cache = NlpMemoCache.ofText("test", 1_000);
+        String longText = "酒".repeat(200);
+
+        for (int i = 0; i < 100; i++) {
+            cache.get(i + longText, 0, key -> key);
+        }
+        cache.invalidateAll();
+        cache.cleanUp();
+        assertEquals(0, cache.size());
+
+        for (int i = 0; i < 100; i++) {
+            cache.get(i + longText, 0, key -> key);
+        }
+        cache.cleanUp();
+        // 每个条目约 400 字符，容量 1000 时最多保留 2 个
+        assertTrue(cache.size() <= 2, "size=" + cache.size());
+    }
+}
@@ -0,0 +1,28 @@
+package com.heytrip.hotel.search.infra.nlp;
+
+import com.hankcs.hanlp.seg.Segment;
+import com.heytrip.hotel.search.infra.nlp.SegmenterRegistry.Profile;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分词器注册表测试（同线程复用、跨线程隔离、按配置区分）
+ */
+class SegmenterRegistryTest {
+
+    @Test
+    void testReusedWithinThread() {
+        assertSame(SegmenterRegistry.get(Profile.PLACE), SegmenterRegistry.get(Profile.PLACE));
+        assertNotSame(SegmenterRegistry.get(Profile.PLACE), SegmenterRegistry.get(Profile.ORG));
+    }
+
+    @Test
+    void testConfinedToThread() throws Exception {
+        Segment local = SegmenterRegistry.get(Profile.DEFAULT);
+        Segment other = CompletableFuture.supplyAsync(() -> SegmenterRegistry.get(Profile.DEFAULT)).get();
+        assertNotSame(local, other);
+    }
+}
@@ -0,0 +1,144 @@
+package com.heytrip.hotel.search.infra.search;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.LatLonGeoLocation;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heytrip.hotel.search.infra.config.HotelSearchWeights;
+import com.heytrip.hotel.search.infra.search.dto.HotelGeoResult;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 批量附近酒店搜索测试（本地桩ES，不依赖真实集群）
+ */
+class HotelGeoSearchServiceTest {
+
+    private HttpServer stubServer;
+    private RestClient restClient;
+    private final AtomicInteger httpCalls = new AtomicInteger();
+    private final List<String> requestPaths = new CopyOnWriteArrayList<>();
+
+    private HotelGeoSearchService geoSearchService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        // 本地桩ES：按请求中的子查询数返回对应数量的 _msearch 响应
+        stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubServer.createContext("/", exchange -> {
+            httpCalls.incrementAndGet();
+            requestPaths.add(exchange.getRequestURI().getPath());
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            long lines = body.lines().filter(l -> !l.isBlank()).count();
+            byte[] response = msearchResponse((int) (lines / 2)).getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(response);
+            }
+        });
+        stubServer.start();
+
+        restClient = RestClient.builder(new HttpHost("127.0.0.1", stubServer.getAddress().getPort(), "http")).build();
+        ElasticsearchClient client = new ElasticsearchClient(new RestClientTransport(restClient, new JacksonJsonpMapper()));
+
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> valueOps = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(valueOps.multiGet(anyList())).thenAnswer(inv ->
+                new ArrayList<>(Collections.nCopies(((List<?>) inv.getArgument(0)).size(), null)));
+
+        HotelSearchCacheService cacheService = new HotelSearchCacheService(redisTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(cacheService, "localCacheMaxWeight", 1000L);
+        ReflectionTestUtils.setField(cacheService, "localCacheTtlSeconds", 30L);
+        cacheService.init();
+
+        HotelSearchWeights weights = new HotelSearchWeights();
+        geoSearchService = new HotelGeoSearchService(client, weights, cacheService, new HotelKeywordQueryTemplate(weights));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        restClient.close();
+        stubServer.stop(0);
+    }
+
+    @Test
+    void testBatchUsesSingleHttpCall() {
+        List<LatLonGeoLocation> centers = List.of(
+                center(31.2304, 121.4737),
+                center(39.9042, 116.4074),
+                center(22.5431, 114.0579),
+                center(30.5728, 104.0668)
+        );
+
+        List<List<HotelGeoResult>> results = geoSearchService.searchNearbyBatch(centers, 10, null, 5);
+
+        assertEquals(1, httpCalls.get());
+        assertTrue(requestPaths.get(0).endsWith("_msearch"));
+        assertEquals(centers.size(), results.size());
+        for (int i = 0; i < centers.size(); i++) {
+            // 响应按请求顺序映射回中心点
+            assertEquals(1, results.get(i).size());
+            assertEquals(i + 1L, results.get(i).get(0).getHotel().getHotelId());
+            assertNotNull(results.get(i).get(0).getDistanceKm());
+        }
+    }
+
+    @Test
+    void testBatchSecondCallServedFromCache() {
+        List<LatLonGeoLocation> centers = List.of(center(31.2304, 121.4737), center(39.9042, 116.4074));
+
+        geoSearchService.searchNearbyBatch(centers, 10, "CN", 5);
+        List<List<HotelGeoResult>> cached = geoSearchService.searchNearbyBatch(centers, 10, "CN", 5);
+
+        assertEquals(1, httpCalls.get());
+        assertEquals(2L, cached.get(1).get(0).getHotel().getHotelId());
+    }
+
+    private LatLonGeoLocation center(double lat, double lon) {
+        return LatLonGeoLocation.of(ll -> ll.lat(lat).lon(lon));
+    }
+
+    private String msearchResponse(int count) {
+        StringBuilder sb = new StringBuilder("{\"took\":1,\"responses\":[");
+        for (int i = 0; i < count; i++) {
+            long hotelId = i + 1L;
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"took\":1,\"timed_out\":false,")
+                    .append("\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},")
+                    .append("\"hits\":{\"total\":{\"value\":1,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[")
+                    .append("{\"_index\":\"hotels_v1\",\"_id\":\"CN_").append(hotelId).append("\",\"_score\":null,")
+                    .append("\"_source\":{\"id\":\"CN_").append(hotelId).append("\",\"hotelId\":").append(hotelId)
+                    .append(",\"nameCn\":\"测试酒店").append(hotelId).append("\",\"lat\":31.23,\"lon\":121.47},")
+                    .append("\"sort\":[0.5]}]},\"status\":200}");
+        }
+        return sb.append("]}").toString();
+    }
+}
@@ -0,0 +1,97 @@
+package com.heytrip.hotel.search.infra.search;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import com.heytrip.hotel.search.infra.config.HotelSearchWeights;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 酒店关键词查询模板测试
+ */
+class HotelKeywordQueryTemplateTest {
+
+    private HotelSearchWeights weights;
+    private HotelKeywordQueryTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        weights = new HotelSearchWeights();
+        template = new HotelKeywordQueryTemplate(weights);
+    }
+
+    @Test
+    void testAllClausesBindKeyword() {
+        BoolQuery bool = template.query("希尔顿", HotelKeywordQueryTemplate.ClauseSet.ALL, "CN").bool();
+
+        assertEquals(15, bool.should().size());
+        assertEquals("1", bool.minimumShouldMatch());
+        assertEquals(1, bool.filter().size());
+        assertEquals("CN", bool.filter().get(0).term().value().stringValue());
+
+        Query nameCn = bool.should().get(0);
+        assertEquals("nameCn", nameCn.match().field());
+        assertEquals("希尔顿", nameCn.match().query().stringValue());
+        assertEquals(weights.getNameCnBoost(), nameCn.match().boost(), 1e-6f);
+
+        Query phrase = bool.should().get(2);
+        assertEquals("nameEn", phrase.matchPhrase().field());
+        assertEquals(weights.getNameEnBoost() * 2.0f, phrase.matchPhrase().boost(), 1e-6f);
+
+        Query exact = bool.should().get(3);
+        assertEquals("nameEn.keyword", exact.term().field());
+        assertEquals(weights.getNameEnBoost() * 3.0f, exact.term().boost(), 1e-6f);
+
+        assertTrue(fields(bool).containsAll(List.of("cityCn", "cityEn", "nameTokens")));
+    }
+
+    @Test
+    void testWithoutCityClauses() {
+        BoolQuery bool = template.query("希尔顿", HotelKeywordQueryTemplate.ClauseSet.WITHOUT_CITY, null).bool();
+
+        assertEquals(13, bool.should().size());
+        assertTrue(bool.filter().isEmpty());
+        assertFalse(fields(bool).contains("cityCn"));
+        assertFalse(fields(bool).contains("cityEn"));
+        assertEquals("nameTokens", fields(bool).get(12));
+    }
+
+    @Test
+    void testBlankKeywordOnlyFilters() {
+        BoolQuery bool = template.query(" ", HotelKeywordQueryTemplate.ClauseSet.WITHOUT_CITY, "HMT").bool();
+
+        assertTrue(bool.should().isEmpty());
+        assertNull(bool.minimumShouldMatch());
+        assertEquals(1, bool.filter().size());
+    }
+
+    @Test
+    void testSkeletonReusedUntilWeightsChange() {
+        HotelKeywordQueryTemplate.Skeleton first = template.current();
+        template.query("希尔顿", HotelKeywordQueryTemplate.ClauseSet.ALL, null);
+        assertSame(first, template.current());
+
+        weights.setNameCnBoost(12.0f);
+        HotelKeywordQueryTemplate.Skeleton rebuilt = template.current();
+        assertNotSame(first, rebuilt);
+
+        BoolQuery bool = template.query("希尔顿", HotelKeywordQueryTemplate.ClauseSet.ALL, null).bool();
+        assertEquals(12.0f, bool.should().get(0).match().boost(), 1e-6f);
+        assertSame(rebuilt, template.current());
+    }
+
+    private static List<String> fields(BoolQuery bool) {
+        return bool.should().stream()
+                .map(q -> switch (q._kind()) {
+                    case Match -> q.match().field();
+                    case MatchPhrase -> q.matchPhrase().field();
+                    case Term -> q.term().field();
+                    default -> throw new IllegalStateException(q._kind().name());
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,333 @@
+package com.heytrip.hotel.search.infra.search;
+
+import co.elastic.clients.elasticsearch._types.GeoLocation;
+import co.elastic.clients.elasticsearch._types.LatLonGeoLocation;
+import co.elastic.clients.elasticsearch._types.Script;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.DecayPlacement;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionBoostMode;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionScore;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionScoreMode;
+import co.elastic.clients.elasticsearch._types.query_dsl.FunctionScoreQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermQuery;
+import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ES排序模式与应用内评分一致性测试
+ * 在固定语料上按 function_score 语义解释生成的查询树（模拟ES打分），与 HotelScoreCalculator 的得分和排序逐一比对
+ * 应用侧按 SmartHotelSearchService 的两种相关性输入分别比对：
+ * 默认（线上）以常量 DEFAULT_RELEVANCE_SCORE 作为相关性输入，开启 app-actual-score 后以召回命中的实际 _score（HotelIndexDoc.score）作为输入
+ */
+class HotelRankingQueryTest {
+
+    private final HotelScoreCalculator calculator = new HotelScoreCalculator(new KeywordHitRateCalculator(null));
+
+    /**
+     * 召回查询占位：其 _score 由语料中的ES得分给出
+     */
+    private final Query matchQuery = Query.of(q -> q.matchAll(m -> m));
+
+    private final List<HotelIndexDoc> corpus = List.of(
+            hotel(1L, "Hilton Beijing", "北京希尔顿酒店", "Hilton", "希尔顿", List.of("北京", "希尔顿", "酒店"), List.of(), 39.91, 116.45),
+            hotel(2L, "Hilton Garden Inn Beijing", "北京希尔顿花园酒店", "Hilton", "希尔顿", List.of("北京", "希尔顿", "花园", "酒店"), List.of(), 39.95, 116.40),
+            hotel(3L, "Hilton", "希尔顿", "Hilton", "希尔顿", List.of("希尔顿"), List.of(), 31.23, 121.47),
+            hotel(4L, "Beijing Marriott Hotel", "北京万豪酒店", "Marriott", "万豪", List.of("北京", "万豪", "酒店"), List.of("万豪"), 39.90, 116.46),
+            hotel(5L, "Garden Hotel", "花园酒店", null, null, List.of("花园", "酒店"), List.of(), null, null),
+            hotel(6L, "Conrad Beijing", "北京康莱德酒店", "Conrad", null, List.of("北京", "康莱德", "酒店"), List.of("希尔顿"), 39.92, 116.47)
+    );
+
+    /**
+     * 召回查询的ES相关性得分（按 hotelId）
+     */
+    private final Map<Long, Double> esScores = Map.of(1L, 42.0, 2L, 35.5, 3L, 12.0, 4L, 8.0, 5L, 3.5, 6L, 20.0);
+
+    @Test
+    void testParityWithUserLocation() {
+        assertParity("Hilton Beijing", 39.91, 116.40);
+        assertParity("hilton", 39.91, 116.40);
+        assertParity("北京 酒店", 39.91, 116.40);
+        assertParity("希尔顿", 39.91, 116.40);
+    }
+
+    @Test
+    void testParityWithoutUserLocation() {
+        assertParity("希尔顿", null, null);
+        assertParity("Garden Hotel", null, null);
+        assertParity("Marriott", null, null);
+    }
+
+    @Test
+    void testParityWithBonusOnlyKeyword() {
+        // 单字关键词无可拆分词，仅短语/精确加成生效
+        assertParity("万", null, null);
+        assertParity("万", 39.91, 116.40);
+    }
+
+    @Test
+    void testMinRelevanceMatchesAppThreshold() {
+        // 原始 _score 下限 15：仅 1(42.0)、2(35.5)、6(20.0) 保留，与应用内按 _score 过滤的结果一致
+        Query ranking = HotelRankingQuery.wrap(matchQuery, "希尔顿", 39.91, 116.40, 15.0);
+        List<Long> kept = new ArrayList<>();
+        for (HotelIndexDoc doc : corpus) {
+            double esScore = esScores.get(doc.getHotelId());
+            if (passesMinScore(ranking, doc, esScore)) {
+                kept.add(doc.getHotelId());
+            }
+            assertEquals(esScore >= 15.0, passesMinScore(ranking, doc, esScore), "hotelId=" + doc.getHotelId());
+        }
+        assertEquals(List.of(1L, 2L, 6L), kept);
+
+        // 下限 ≤0 时不设置 min_score
+        Query unfiltered = HotelRankingQuery.wrap(matchQuery, "希尔顿", null, null, 0);
+        assertNull(unfiltered.bool().must().get(0).functionScore().minScore());
+    }
+
+    @Test
+    void testHitRateLevelsSkipDominated() {
+        List<HotelRankingQuery.HitRateLevel> levels = HotelRankingQuery.hitRateLevels(2);
+
+        // 无加成：命中1/2个词；短语加成：0/1/2个词；精确加成：0/1个词（命中1个词时已达上限）
+        assertEquals(7, levels.size());
+        assertEquals(30.0, levels.stream().mapToDouble(HotelRankingQuery.HitRateLevel::points).max().orElse(0), 1e-9);
+        assertTrue(levels.stream().noneMatch(l -> l.bonus() == HotelRankingQuery.Bonus.EXACT && l.minTokenHits() == 2));
+    }
+
+    private void assertParity(String keyword, Double userLat, Double userLon) {
+        // 线上默认：应用内相关性输入固定，ES端在相同相关性输入下应得到相同得分（命中率与距离部分完全一致）
+        assertParity(keyword, userLat, userLon, false);
+        // app-actual-score：应用内与ES端均以召回命中的实际 _score 作为相关性输入
+        assertParity(keyword, userLat, userLon, true);
+    }
+
+    private void assertParity(String keyword, Double userLat, Double userLon, boolean actualScore) {
+        Query ranking = HotelRankingQuery.wrap(matchQuery, keyword, userLat, userLon, 0);
+
+        Map<Long, Double> appScores = new LinkedHashMap<>();
+        Map<Long, Double> esModeScores = new LinkedHashMap<>();
+        for (HotelIndexDoc doc : corpus) {
+            // 应用内排序：召回命中的 _score 写入 HotelIndexDoc.score，按开关决定是否作为相关性输入
+            doc.setScore(esScores.get(doc.getHotelId()));
+            double relevance = actualScore ? doc.getScore() : SmartHotelSearchService.DEFAULT_RELEVANCE_SCORE;
+            appScores.put(doc.getHotelId(), calculator.calculateScore(doc, keyword, relevance, null, userLat, userLon));
+            assertTrue(matches(ranking, doc));
+            esModeScores.put(doc.getHotelId(), score(ranking, doc, relevance));
+        }
+
+        for (Long hotelId : appScores.keySet()) {
+            assertEquals(appScores.get(hotelId), esModeScores.get(hotelId), 1e-6,
+                    "keyword='" + keyword + "' actualScore=" + actualScore + " hotelId=" + hotelId);
+        }
+        assertEquals(order(appScores), order(esModeScores), "keyword='" + keyword + "' actualScore=" + actualScore);
+    }
+
+    private static List<Long> order(Map<Long, Double> scores) {
+        List<Long> ids = new ArrayList<>(scores.keySet());
+        ids.sort(Comparator.<Long>comparingDouble(id -> -Math.round(scores.get(id) * 1e6))
+                .thenComparing(Comparator.naturalOrder()));
+        return ids;
+    }
+
+    // ===== function_score 语义解释（仅覆盖 HotelRankingQuery 用到的查询类型） =====
+
+    /**
+     * must 子句中 function_score 的 min_score 过滤（得分低于 min_score 的文档不匹配）
+     */
+    private boolean passesMinScore(Query query, HotelIndexDoc doc, double matchScore) {
+        for (Query must : query.bool().must()) {
+            Double minScore = must.isFunctionScore() ? must.functionScore().minScore() : null;
+            if (minScore != null && score(must, doc, matchScore) < minScore) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double score(Query query, HotelIndexDoc doc, double matchScore) {
+        if (query.isBool()) {
+            BoolQuery bool = query.bool();
+            double sum = 0.0;
+            for (Query must : bool.must()) {
+                sum += score(must, doc, matchScore);
+            }
+            for (Query should : bool.should()) {
+                if (matches(should, doc)) {
+                    sum += score(should, doc, matchScore);
+                }
+            }
+            return sum;
+        }
+        if (query.isFunctionScore()) {
+            FunctionScoreQuery fs = query.functionScore();
+            double queryScore = fs.query() != null ? matchScore : 1.0;
+            List<Double> values = new ArrayList<>();
+            for (FunctionScore function : fs.functions()) {
+                if (function.filter() == null || matches(function.filter(), doc)) {
+                    values.add(functionValue(function, doc, queryScore));
+                }
+            }
+            double combined = 1.0;
+            if (!values.isEmpty()) {
+                FunctionScoreMode mode = fs.scoreMode() != null ? fs.scoreMode() : FunctionScoreMode.Multiply;
+                combined = switch (mode) {
+                    case Max -> values.stream().mapToDouble(Double::doubleValue).max().orElseThrow();
+                    case Sum -> values.stream().mapToDouble(Double::doubleValue).sum();
+                    case Multiply -> values.stream().reduce(1.0, (a, b) -> a * b);
+                    default -> fail("unsupported score_mode " + mode);
+                };
+            }
+            return fs.boostMode() == FunctionBoostMode.Replace ? combined : queryScore * combined;
+        }
+        if (query.isMatchAll()) {
+            return 1.0;
+        }
+        return fail("unsupported scoring query " + query._kind());
+    }
+
+    private double functionValue(FunctionScore function, HotelIndexDoc doc, double queryScore) {
+        double value = 1.0;
+        if (function.isScriptScore()) {
+            Script script = function.scriptScore().script();
+            assertEquals(HotelRankingQuery.RELEVANCE_SCRIPT, script.source());
+            double saturation = script.params().get("saturation").to(Double.class);
+            double points = script.params().get("points").to(Double.class);
+            value = Math.min(1.0, Math.log(1 + queryScore) / Math.log(1 + saturation)) * points;
+        } else if (function.isLinear()) {
+            assertEquals(HotelRankingQuery.LOCATION_FIELD, function.linear().geo().field());
+            DecayPlacement<GeoLocation, String> placement = function.linear().geo().placement();
+            LatLonGeoLocation origin = placement.origin().latlon();
+            double scaleKm = km(placement.scale());
+            double offsetKm = km(placement.offset());
+            double s = scaleKm / (1 - placement.decay());
+            double d = haversine(origin.lat(), origin.lon(), doc.getLat(), doc.getLon());
+            value = Math.max(0.0, (s - Math.max(0.0, d - offsetKm)) / s);
+        } else if (function._kind() != null) {
+            fail("unsupported function " + function._kind());
+        }
+        return function.weight() != null ? value * function.weight() : value;
+    }
+
+    private boolean matches(Query query, HotelIndexDoc doc) {
+        if (query.isBool()) {
+            BoolQuery bool = query.bool();
+            if (!bool.must().stream().allMatch(q -> matches(q, doc))
+                    || !bool.filter().stream().allMatch(q -> matches(q, doc))
+                    || bool.mustNot().stream().anyMatch(q -> matches(q, doc))) {
+                return false;
+            }
+            long shouldHits = bool.should().stream().filter(q -> matches(q, doc)).count();
+            if (bool.minimumShouldMatch() != null) {
+                return shouldHits >= Integer.parseInt(bool.minimumShouldMatch());
+            }
+            return !bool.should().isEmpty() && bool.must().isEmpty() && bool.filter().isEmpty() ? shouldHits > 0 : true;
+        }
+        if (query.isTerm()) {
+            TermQuery term = query.term();
+            String value = term.value().stringValue();
+            boolean caseInsensitive = Boolean.TRUE.equals(term.caseInsensitive());
+            return indexedTerms(doc, term.field()).stream()
+                    .anyMatch(t -> caseInsensitive ? t.equalsIgnoreCase(value) : t.equals(value));
+        }
+        if (query.isMatchPhrase()) {
+            String text = storedText(doc, query.matchPhrase().field());
+            return text != null && text.toLowerCase(Locale.ROOT).contains(query.matchPhrase().query().toLowerCase(Locale.ROOT));
+        }
+        if (query.isExists()) {
+            assertEquals(HotelRankingQuery.LOCATION_FIELD, query.exists().field());
+            return doc.getLat() != null && doc.getLon() != null;
+        }
+        if (query.isFunctionScore()) {
+            return query.functionScore().query() == null || matches(query.functionScore().query(), doc);
+        }
+        if (query.isMatchAll()) {
+            return true;
+        }
+        return fail("unsupported filter query " + query._kind());
+    }
+
+    /**
+     * 字段索引后的词项：keyword 字段为原值，nameEn（std_lc）按非字母数字切分并小写
+     */
+    private static List<String> indexedTerms(HotelIndexDoc doc, String field) {
+        List<String> terms = new ArrayList<>();
+        switch (field) {
+            case "nameTokens" -> addAll(terms, doc.getNameTokens());
+            case "nameKeywords" -> addAll(terms, doc.getNameKeywords());
+            case "nerBrands" -> addAll(terms, doc.getNerBrands());
+            case "brandCn" -> addIfPresent(terms, doc.getBrandCn());
+            case "brandEn" -> addIfPresent(terms, doc.getBrandEn());
+            case "nameCn.keyword" -> addIfPresent(terms, doc.getNameCn());
+            case "nameEn.keyword" -> addIfPresent(terms, doc.getNameEn());
+            case "nameEn" -> {
+                if (doc.getNameEn() != null) {
+                    for (String token : doc.getNameEn().toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                        addIfPresent(terms, token);
+                    }
+                }
+            }
+            default -> fail("unexpected term field " + field);
+        }
+        return terms;
+    }
+
+    private static String storedText(HotelIndexDoc doc, String field) {
+        return switch (field) {
+            case "nameEn" -> doc.getNameEn();
+            case "nameCn" -> doc.getNameCn();
+            default -> fail("unexpected phrase field " + field);
+        };
+    }
+
+    private static void addAll(List<String> terms, List<String> values) {
+        if (values != null) {
+            values.forEach(v -> addIfPresent(terms, v));
+        }
+    }
+
+    private static void addIfPresent(List<String> terms, String value) {
+        if (value != null && !value.isEmpty()) {
+            terms.add(value);
+        }
+    }
+
+    private static double km(String distance) {
+        assertTrue(distance.endsWith("km"), distance);
+        return Double.parseDouble(distance.substring(0, distance.length() - 2));
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        final int R = 6371;
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        return R * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+
+    private static HotelIndexDoc hotel(Long hotelId, String nameEn, String nameCn, String brandEn, String brandCn,
+                                       List<String> nameTokens, List<String> nerBrands, Double lat, Double lon) {
+        HotelIndexDoc doc = new HotelIndexDoc();
+        doc.setId("CN_" + hotelId);
+        doc.setHotelId(hotelId);
+        doc.setNameEn(nameEn);
+        doc.setNameCn(nameCn);
+        doc.setBrandEn(brandEn);
+        doc.setBrandCn(brandCn);
+        doc.setNameTokens(nameTokens);
+        doc.setNerBrands(nerBrands);
+        doc.setLat(lat);
+        doc.setLon(lon);
+        return doc;
+    }
+}
@@ -0,0 +1,176 @@
+package com.heytrip.hotel.search.infra.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import com.heytrip.hotel.search.infra.search.dto.KeywordRegionResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 酒店搜索两级缓存与单飞加载测试
+ */
+class HotelSearchCacheServiceTest {
+
+    private HotelSearchCacheService cacheService;
+    private ValueOperations<String, String> valueOps;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        valueOps = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        when(valueOps.get(anyString())).thenReturn(null);
+
+        cacheService = new HotelSearchCacheService(redisTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(cacheService, "localCacheMaxWeight", 1000L);
+        ReflectionTestUtils.setField(cacheService, "localCacheTtlSeconds", 30L);
+        cacheService.init();
+    }
+
+    @Test
+    void testConcurrentMissesLoadOnce() throws Exception {
+        int callers = 16;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<List<HotelIndexDoc>>> futures = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return cacheService.getOrLoadKeywordSearch("希尔顿", null, 5, () -> {
+                        loads.incrementAndGet();
+                        try {
+                            // 模拟ES查询耗时，保证其余请求在回源期间到达
+                            release.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return List.of(hotel(1L));
+                    });
+                }));
+            }
+            start.countDown();
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<List<HotelIndexDoc>> future : futures) {
+                List<HotelIndexDoc> result = future.get(5, TimeUnit.SECONDS);
+                assertEquals(1, result.size());
+                assertEquals(1L, result.get(0).getHotelId());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, loads.get());
+        // 仅回源的请求读取并回写Redis一次
+        verify(valueOps, times(1)).get(anyString());
+    }
+
+    @Test
+    void testLocalHitSkipsRedis() {
+        AtomicInteger loads = new AtomicInteger();
+        cacheService.getOrLoadKeywordSearch("hilton", "CN", 5, () -> {
+            loads.incrementAndGet();
+            return List.of(hotel(2L));
+        });
+        List<HotelIndexDoc> second = cacheService.getOrLoadKeywordSearch("HILTON", "CN", 5, () -> {
+            loads.incrementAndGet();
+            return List.of(hotel(3L));
+        });
+
+        assertEquals(1, loads.get());
+        assertEquals(2L, second.get(0).getHotelId());
+        verify(valueOps, times(1)).get(anyString());
+    }
+
+    @Test
+    void testEmptyResultNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        cacheService.getOrLoadKeywordSearch("unknown", null, 5, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        cacheService.getOrLoadKeywordSearch("unknown", null, 5, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testUncacheableResultNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        List<HotelIndexDoc> partial = cacheService.getOrLoadKeywordSearch("hilton", null, 5, () -> {
+            loads.incrementAndGet();
+            return HotelSearchCacheService.uncacheable(List.of(hotel(1L)));
+        });
+        List<HotelIndexDoc> full = cacheService.getOrLoadKeywordSearch("hilton", null, 5, () -> {
+            loads.incrementAndGet();
+            return List.of(hotel(1L), hotel(2L));
+        });
+
+        // 超时的部分结果本次返回，但不写入 L1 / Redis，下一次请求重新回源
+        assertEquals(1, partial.size());
+        assertEquals(2, full.size());
+        assertEquals(2, loads.get());
+        verify(valueOps, times(1)).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void testKeywordRegionResultReadFromRedis() throws Exception {
+        KeywordRegionResult cached = new KeywordRegionResult(
+                List.of(hotel(1L), hotel(2L)),
+                List.of(new KeywordRegionResult.RegionBucket("中国", null, List.of(hotel(1L), hotel(3L))),
+                        new KeywordRegionResult.RegionBucket("中国", "广东", List.of(hotel(3L)))));
+        when(valueOps.get(anyString())).thenReturn(new ObjectMapper().writeValueAsString(List.of(cached)));
+
+        AtomicInteger loads = new AtomicInteger();
+        List<KeywordRegionResult> result = cacheService.getOrLoadKeywordRegionSearch("希尔顿", null, 5, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertEquals(0, loads.get());
+        assertEquals(1, result.size());
+        KeywordRegionResult regionResult = result.get(0);
+        assertEquals(2, regionResult.getHits().size());
+        assertEquals(5, regionResult.getTotalHits());
+        assertEquals(3L, regionResult.findRegionHits("中国", "广东").get(0).getHotelId());
+        // 区域为空时返回国家级分桶
+        assertEquals(2, regionResult.findRegionHits("中国", null).size());
+        // 不在分桶中的国别区域需要二次搜索
+        assertNull(regionResult.findRegionHits("中国", "浙江"));
+        assertNull(regionResult.findRegionHits("日本", null));
+    }
+
+    private HotelIndexDoc hotel(Long hotelId) {
+        HotelIndexDoc doc = new HotelIndexDoc();
+        doc.setHotelId(hotelId);
+        doc.setNameCn("测试酒店" + hotelId);
+        return doc;
+    }
+}
@@ -0,0 +1,93 @@
+package com.heytrip.hotel.search.infra.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 索引富化线程池测试（保序、多线程、队列满载回退、异常传播）
+ */
+class IndexEnrichExecutorTest {
+
+    private IndexEnrichExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testKeepsInputOrder() {
+        executor = executor(4, 64, 8);
+        List<Integer> input = IntStream.range(0, 500).boxed().collect(Collectors.toList());
+        Set<String> threadNames = ConcurrentHashMap.newKeySet();
+
+        List<String> out = executor.mapOrdered(input, i -> {
+            threadNames.add(Thread.currentThread().getName());
+            return "doc-" + i;
+        });
+
+        assertEquals(input.size(), out.size());
+        for (int i = 0; i < input.size(); i++) {
+            assertEquals("doc-" + i, out.get(i));
+        }
+        assertTrue(threadNames.stream().anyMatch(n -> n.startsWith("index-enrich-")));
+    }
+
+    @Test
+    void testSmallBatchRunsInCaller() {
+        executor = executor(4, 64, 16);
+        String caller = Thread.currentThread().getName();
+
+        List<String> out = executor.mapOrdered(List.of(1, 2, 3), i -> Thread.currentThread().getName());
+
+        assertEquals(List.of(caller, caller, caller), out);
+    }
+
+    @Test
+    void testRejectedChunksRunInCaller() {
+        // 单线程 + 单元素队列：多余分片被拒绝后由调用线程计算，结果仍完整有序
+        executor = executor(1, 1, 1);
+        List<Integer> input = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+        List<Integer> out = executor.mapOrdered(input, i -> i * 2);
+
+        assertEquals(input.stream().map(i -> i * 2).collect(Collectors.toList()), out);
+    }
+
+    @Test
+    void testMapperExceptionPropagates() {
+        executor = executor(4, 64, 4);
+        List<Integer> input = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> executor.mapOrdered(input, i -> {
+            if (i == 77) {
+                throw new IllegalArgumentException("bad doc " + i);
+            }
+            return i;
+        }));
+        assertEquals("bad doc 77", e.getMessage());
+    }
+
+    @SuppressWarnings("unchecked")
+    private IndexEnrichExecutor executor(int threads, int queueCapacity, int minChunkSize) {
+        IndexEnrichExecutor e = new IndexEnrichExecutor(mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(e, "threads", threads);
+        ReflectionTestUtils.setField(e, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(e, "minChunkSize", minChunkSize);
+        e.init();
+        return e;
+    }
+}
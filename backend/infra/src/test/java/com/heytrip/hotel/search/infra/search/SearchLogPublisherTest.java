@@ -0,0 +1,140 @@
+package com.heytrip.hotel.search.infra.search;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.stream.ObjectRecord;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 搜索日志缓冲发布器测试（刷写间隔设为很长，只在 flush/shutdown 时写出，结果确定）
+ */
+class SearchLogPublisherTest {
+
+    private RedisTemplate<String, Object> redisTemplate;
+    private List<Map<String, Object>> written;
+    private int pipelines;
+    private SearchLogPublisher publisher;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        RedisOperations<String, Object> operations = mock(RedisOperations.class);
+        StreamOperations<String, Object, Object> streamOps = mock(StreamOperations.class);
+        when(operations.opsForStream()).thenReturn(streamOps);
+        written = new ArrayList<>();
+        when(streamOps.add(any(ObjectRecord.class))).thenAnswer(inv -> {
+            ObjectRecord<String, Map<String, Object>> record = inv.getArgument(0);
+            assertEquals("search:logs:stream", record.getStream());
+            written.add(record.getValue());
+            return null;
+        });
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(inv -> {
+            pipelines++;
+            ((SessionCallback<Object>) inv.getArgument(0)).execute(operations);
+            return List.of();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.shutdown();
+        }
+    }
+
+    @Test
+    void testFlushesInPipelinedBatches() {
+        publisher = newPublisher(100, 4, SearchLogPublisher.OverflowPolicy.DROP);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(publisher.publish(Map.of("type", "search", "query", "q" + i)));
+        }
+        verifyNoInteractions(redisTemplate);
+
+        assertEquals(10, publisher.flush());
+        assertEquals(3, pipelines, "4 + 4 + 2");
+        assertEquals("q0", written.get(0).get("query"));
+        assertEquals("q9", written.get(9).get("query"));
+        assertEquals(10, publisher.getFlushedCount());
+        assertEquals(0, publisher.getBufferSize());
+    }
+
+    @Test
+    void testDropPolicyDropsWhenFull() {
+        publisher = newPublisher(3, 10, SearchLogPublisher.OverflowPolicy.DROP);
+        for (int i = 0; i < 5; i++) {
+            publisher.publish(Map.of("type", "search", "query", "q" + i));
+        }
+        assertEquals(2, publisher.getDroppedCount());
+        assertEquals(3, publisher.flush());
+    }
+
+    @Test
+    void testSamplePolicySamplesSearchLogsAboveWatermark() {
+        publisher = newPublisher(10, 10, SearchLogPublisher.OverflowPolicy.SAMPLE);
+        ReflectionTestUtils.setField(publisher, "sampleEvery", 2);
+
+        // 水位 8：前 8 条直接写入，之后搜索日志每 2 条保留 1 条
+        for (int i = 0; i < 12; i++) {
+            publisher.publish(Map.of("type", "search", "query", "q" + i));
+        }
+        assertEquals(10, publisher.getBufferSize());
+        assertEquals(2, publisher.getSampledCount());
+        assertEquals(0, publisher.getDroppedCount());
+    }
+
+    @Test
+    void testSamplePolicyKeepsClicksUntilFull() {
+        publisher = newPublisher(10, 10, SearchLogPublisher.OverflowPolicy.SAMPLE);
+        for (int i = 0; i < 12; i++) {
+            publisher.publish(Map.of("type", "click", "query", "q" + i));
+        }
+        assertEquals(0, publisher.getSampledCount());
+        assertEquals(2, publisher.getDroppedCount());
+    }
+
+    @Test
+    void testFailedBatchIsDiscarded() {
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenThrow(new IllegalStateException("redis down"));
+        publisher = newPublisher(100, 10, SearchLogPublisher.OverflowPolicy.DROP);
+        publisher.publish(Map.of("type", "search", "query", "q"));
+
+        assertEquals(0, publisher.flush());
+        assertEquals(1, publisher.getFailedCount());
+        assertEquals(0, publisher.getBufferSize());
+    }
+
+    @Test
+    void testShutdownFlushesRemaining() {
+        publisher = newPublisher(100, 10, SearchLogPublisher.OverflowPolicy.DROP);
+        publisher.publish(Map.of("type", "search", "query", "q"));
+        publisher.shutdown();
+        assertEquals(1, written.size());
+        publisher = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private SearchLogPublisher newPublisher(int capacity, int batchSize, SearchLogPublisher.OverflowPolicy policy) {
+        SearchLogPublisher p = new SearchLogPublisher(redisTemplate, mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(p, "bufferCapacity", capacity);
+        ReflectionTestUtils.setField(p, "batchSize", batchSize);
+        ReflectionTestUtils.setField(p, "flushIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(p, "overflowPolicy", policy);
+        p.init();
+        return p;
+    }
+}
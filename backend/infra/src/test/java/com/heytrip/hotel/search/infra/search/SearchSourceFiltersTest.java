@@ -0,0 +1,154 @@
+package com.heytrip.hotel.search.infra.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.heytrip.hotel.search.infra.nlp.NlpEnrichmentService;
+import com.heytrip.hotel.search.infra.search.doc.AmapPoiIndexDoc;
+import com.heytrip.hotel.search.infra.search.doc.HotelIndexDoc;
+import com.heytrip.hotel.search.infra.search.dto.HotelSearchHit;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.elasticsearch.annotations.Field;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 搜索结果 _source 裁剪与 HTTP 响应投影测试
+ */
+class SearchSourceFiltersTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testIncludedFieldsExistOnIndexDoc() {
+        Set<String> properties = objectMapper.getSerializationConfig()
+                .introspect(objectMapper.constructType(HotelIndexDoc.class))
+                .findProperties().stream()
+                .map(p -> p.getName())
+                .collect(Collectors.toSet());
+
+        for (String field : SearchSourceFilters.HOTEL_DISPLAY_FIELDS) {
+            assertTrue(properties.contains(field), "unknown display field: " + field);
+        }
+        for (String field : SearchSourceFilters.HOTEL_HIT_RATE_FIELDS) {
+            assertTrue(properties.contains(field), "unknown hit rate field: " + field);
+        }
+    }
+
+    @Test
+    void testRecallFieldsStoredButNotRequested() throws Exception {
+        for (String name : List.of("addressTokens", "nerPlaces", "brandNames", "geoHierarchy")) {
+            Field field = HotelIndexDoc.class.getDeclaredField(name).getAnnotation(Field.class);
+            // _reindex 只复制 _source：召回字段必须保留在 _source，仅在查询时裁剪
+            assertFalse(field.excludeFromSource(), name + " must stay in _source");
+            assertFalse(SearchSourceFilters.HOTEL_DISPLAY_FIELDS.contains(name));
+            assertFalse(SearchSourceFilters.HOTEL_HIT_RATE_FIELDS.contains(name));
+        }
+        for (String name : List.of("nameTokens", "typeTokens")) {
+            Field field = AmapPoiIndexDoc.class.getDeclaredField(name).getAnnotation(Field.class);
+            assertFalse(field.excludeFromSource(), name + " must stay in _source");
+            assertFalse(SearchSourceFilters.POI_FIELDS.contains(name));
+        }
+    }
+
+    @Test
+    void testKeywordSourceKeepsHitRateInputs() {
+        KeywordHitRateCalculator calculator = new KeywordHitRateCalculator(mock(NlpEnrichmentService.class));
+        HotelIndexDoc full = enrichedDoc();
+        HotelIndexDoc filtered = filter(full, keywordIncludes());
+
+        for (String keyword : List.of("希尔顿", "王府井 希尔顿", "Hilton Beijing", "北京王府井希尔顿酒店", "喜來登")) {
+            assertEquals(calculator.calculateHitRate(keyword, full), calculator.calculateHitRate(keyword, filtered), 1e-9, keyword);
+            assertEquals(calculator.calculatePreciseHitRate(keyword, full), calculator.calculatePreciseHitRate(keyword, filtered), 1e-9, keyword);
+        }
+        assertNull(filtered.getAddressTokens());
+        assertNull(filtered.getGeoHierarchy());
+        assertNull(filtered.getLocation());
+    }
+
+    @Test
+    void testHitProjectionOmitsDerivedAndNullFields() throws Exception {
+        HotelIndexDoc doc = enrichedDoc();
+        doc.setScore(87.5);
+        doc.setHighlightedNameCn("北京王府井<em>希尔顿</em>酒店");
+        doc.setTel(null);
+
+        Map<String, Object> json = objectMapper.readValue(
+                objectMapper.writeValueAsString(HotelSearchHit.from(doc)), Map.class);
+
+        assertEquals("CN_20000001", json.get("id"));
+        assertEquals(87.5, json.get("score"));
+        assertEquals("北京王府井<em>希尔顿</em>酒店", json.get("highlightedNameCn"));
+        assertFalse(json.containsKey("tel"));
+        for (String derived : List.of("nameTokens", "nameKeywords", "nerBrands", "nerPlaces", "addressTokens",
+                "brandNames", "geoHierarchy", "nameTraditional", "location", "updatedAt")) {
+            assertFalse(json.containsKey(derived), derived);
+        }
+    }
+
+    @Test
+    void testBytesPerHitReduced() throws Exception {
+        HotelIndexDoc doc = enrichedDoc();
+        int stored = objectMapper.writeValueAsBytes(doc).length;
+        int keywordSource = objectMapper.writeValueAsBytes(filter(doc, keywordIncludes())).length;
+        int geoSource = objectMapper.writeValueAsBytes(filter(doc, SearchSourceFilters.HOTEL_DISPLAY_FIELDS)).length;
+        int http = objectMapper.writeValueAsBytes(HotelSearchHit.from(doc)).length;
+
+        assertTrue(keywordSource < stored, keywordSource + " >= " + stored);
+        assertTrue(geoSource < keywordSource, geoSource + " >= " + keywordSource);
+        assertTrue(http < stored, http + " >= " + stored);
+    }
+
+    private static List<String> keywordIncludes() {
+        return SearchSourceFilters.HOTEL_KEYWORD.filter().includes();
+    }
+
+    /**
+     * 模拟ES按 includes 裁剪 _source 后的命中文档
+     */
+    private HotelIndexDoc filter(HotelIndexDoc doc, List<String> includes) {
+        ObjectNode source = objectMapper.valueToTree(doc);
+        source.retain(includes);
+        return objectMapper.convertValue(source, HotelIndexDoc.class);
+    }
+
+    private static HotelIndexDoc enrichedDoc() {
+        HotelIndexDoc d = new HotelIndexDoc();
+        d.setId("CN_20000001");
+        d.setTagSource("CN");
+        d.setProviderSource("Elong");
+        d.setHotelId(20_000_001L);
+        d.setNameCn("北京王府井希尔顿酒店");
+        d.setNameEn("Hilton Beijing Wangfujing");
+        d.setCountryCn("中国");
+        d.setCountryEn("China");
+        d.setCountryCode("CN");
+        d.setCityCn("北京");
+        d.setCityEn("Beijing");
+        d.setRegionCn("东城区");
+        d.setRegionEn("Dongcheng District");
+        d.setAddressCn("北京市东城区王府井东街8号");
+        d.setAddressEn("8 Wangfujing East Street, Dongcheng District, Beijing");
+        d.setLat(39.914889);
+        d.setLon(116.414316);
+        d.setLocation(Map.of("lat", 39.914889, "lon", 116.414316));
+        d.setBrandCn("希尔顿");
+        d.setBrandEn("Hilton");
+        d.setTel("010-58128888");
+        d.setNameTokens(List.of("北京", "王府井", "希尔顿", "酒店"));
+        d.setAddressTokens(List.of("北京市", "东城区", "王府井", "东街", "8号"));
+        d.setNameKeywords(List.of("希尔顿", "王府井"));
+        d.setNerPlaces(List.of("北京", "王府井", "东城区"));
+        d.setNerBrands(List.of("希尔顿"));
+        d.setNameTraditional("北京王府井希爾頓酒店");
+        d.setAddressTraditional("北京市東城區王府井東街8號");
+        d.setBrandNames(List.of("希尔顿", "Hilton"));
+        d.setGeoHierarchy(List.of("亚洲", "中国", "北京", "东城区"));
+        return d;
+    }
+}
@@ -1,7 +1,7 @@
 package com.heytrip.hotel.search.ingest.route;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.heytrip.hotel.search.common.util.GzipCompressor;
+import com.heytrip.hotel.search.common.util.PayloadCompressor;
 import com.heytrip.hotel.search.common.util.HotelStructuredExtractor;
 import com.heytrip.hotel.search.common.util.Md5Signer;
 import com.heytrip.hotel.search.domain.entity.*;
@@ -14,11 +14,15 @@ import com.heytrip.hotel.search.ingest.dto.HotelIdsResponse;
 import com.heytrip.hotel.search.ingest.model.HotelIdsIngestContext;
 import com.heytrip.hotel.search.ingest.model.JobScheduleParams;
 import com.heytrip.hotel.search.ingest.service.AsyncLogService;
+import com.heytrip.hotel.search.ingest.service.HotelContentFingerprint;
+import com.heytrip.hotel.search.ingest.service.HotelDetailFetcher;
 import com.heytrip.hotel.search.ingest.service.HotelsSinkService;
 import com.heytrip.hotel.search.ingest.service.JobScheduleCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
+import org.apache.camel.http.base.HttpOperationFailedException;
 import org.apache.camel.builder.RouteBuilder;
 import org.springframework.stereotype.Component;
 
@@ -33,7 +37,7 @@ import java.util.stream.Collectors;
  * - DB驱动Cron：从 job_schedule 读取 cron_expr 与 enabled
  * - 签名： MD5("app"+app+"secret"+secret+"timestamp"+ts)
  * - 并发控制：Redisson 全局信号量，许可数来源 job_schedule.max_concurrency（≤10）
- * - 详情采集：按20/批调用详情接口，解析并批量入库 hotels（每1000条提交一次）
+ * - 详情采集：按20/批并发调用详情接口（HotelDetailFetcher，JVM共享AIMD限流），按批次顺序解析并批量入库 hotels（每1000条提交一次）
  * - API日志：请求/响应写入 api_request_log（正文GZIP压缩）
  */
 @Slf4j
@@ -58,6 +62,8 @@ public class HotelIdsIngestRoute extends RouteBuilder {
     private final RedisStreamPublisher redisStreamPublisher;
     private final AsyncLogService asyncLogService;
     private final JobScheduleCacheService jobScheduleCacheService;
+    private final HotelDetailFetcher hotelDetailFetcher; // 详情并发拉取（JVM共享AIMD限流）
+    private final PayloadCompressor payloadCompressor; // 接口日志正文压缩（算法由 heytrip.compression.codec 配置）
 
     @Override
     public void configure() {
@@ -436,14 +442,10 @@ public class HotelIdsIngestRoute extends RouteBuilder {
                     log.info("[INGEST-CONTINUOUS] ========== 进度: 已处理 {} 页，共 {} 个ID，耗时 {}秒 ==========",
                             pageCount, totalIds, elapsedSeconds);
                     
-                    // 页间延迟（避免对API造成过大压力，使用缓存）
+                    // 页间延迟（避免对API造成过大压力，使用缓存）；AIMD 限流处于收缩状态时额外等待其恢复
                     JobScheduleParams currentPz = jobScheduleCacheService.getJobScheduleParams(JOB_CODE);
-                    //延长 1s
                     int delayMs = currentPz.pageDelayOrDefault(1000);
-                    if (delayMs > 0) {
-                        log.debug("[INGEST-CONTINUOUS] 页间延迟 {}ms", delayMs);
-                        Thread.sleep(delayMs);
-                    }
+                    hotelDetailFetcher.pacePage(delayMs);
                     
                     // 递归调用继续下一页
                     exchange.getContext().createFluentProducerTemplate()
@@ -681,7 +683,7 @@ public class HotelIdsIngestRoute extends RouteBuilder {
                     } catch (Exception e) {
                         headersJson = "{}";
                     }
-                    byte[] respCompressed = body == null ? null : GzipCompressor.compress(body.getBytes(StandardCharsets.UTF_8));
+                    byte[] respCompressed = body == null ? null : payloadCompressor.compress(body.getBytes(StandardCharsets.UTF_8));
 
                     ApiRequestLog logRow = ApiRequestLog.builder()
                             .traceId(ctxPage.getTraceId())
@@ -694,7 +696,7 @@ public class HotelIdsIngestRoute extends RouteBuilder {
                             .durationMs(durationMs)
                             .responseBodyCompressed(respCompressed)
                             .responseSizeBytes(body == null ? 0 : body.length())
-                            .compression(CompressionCodec.gzip)
+                            .compression(payloadCompressor.codec())
                             .timestampUtc(OffsetDateTime.now())
                             .createdAt(OffsetDateTime.now())
                             .build();
@@ -732,67 +734,42 @@ public class HotelIdsIngestRoute extends RouteBuilder {
                         int retryDelayMs = detailCtx.getRetryDelayMs();
                         int retryJitterMs = detailCtx.getRetryJitterMs();
                         int retryBaseDelayMs429 = detailCtx.getRetryBaseDelayMs429();
+                        List<List<Long>> subBatches = new ArrayList<>();
                         for (int i = 0; i < ids.size(); i += detailBatchSize) {
-                            List<Long> sub = ids.subList(i, Math.min(i + detailBatchSize, ids.size()));
-                            log.info("[INGEST] 详情批次开始 traceId={} batchIndex={} batchSize={} hotelIds={}",
-                                    detailCtx.getTraceId(), (i / detailBatchSize) + 1, sub.size(), sub);
-
-                            String detailUrl = buildDetailUrl(detailCtx, sub);
-                            String detailBody = null;
-                            Integer detailStatus = null;
-                            Exception lastEx = null;
-                            int attemptsUsed = 0;
-                            int hit429 = 0;
-                            long batchStartNs = System.nanoTime();
-                            for (int attempt = 1; attempt <= retryTimes; attempt++) {
-                                try {
-                                    // 每次重试重新计算时间戳与签名，避免跨时间窗导致认证失败
-                                    long tsAttempt = System.currentTimeMillis() / 1000;
-                                    var detEx = exchange.getContext().createFluentProducerTemplate()
-                                            .withHeader(Exchange.HTTP_METHOD, "GET")
-                                            // 注意：FluentProducerTemplate 默认不会继承当前 Exchange 的 headers，这里需要显式传入
-                                            .withHeader("app", detailCtx.getApp())
-                                            .withHeader("timestamp", tsAttempt)
-                                            .withHeader("sign", detailCtx.sign(tsAttempt))
-                                            .to(detailUrl)
-                                            .request(org.apache.camel.Exchange.class);
-                                    detailStatus = detEx.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class);
-                                    detailBody = detEx.getMessage().getBody(String.class);
-                                    attemptsUsed = attempt;
-                                    if (detailStatus != null && detailStatus == 429) hit429++;
-                                    if (detailStatus != null && (detailStatus == 429 || detailStatus >= 500)) {
-                                        lastEx = new RuntimeException("HTTP status " + detailStatus);
-                                    } else {
-                                        lastEx = null;
-                                        int durMs = (int) ((System.nanoTime() - batchStartNs) / 1_000_000);
-                                        log.info("[INGEST] 详情批次成功 status={} bodySize={} batchSize={}", detailStatus, detailBody == null ? 0 : detailBody.length(), sub.size());
-                                        log.info("[METRIC][DETAIL] success batchSize={} attemptsUsed={} status={} durationMs={} hit429={}",
-                                                sub.size(), attemptsUsed, detailStatus, durMs, hit429);
-                                        break;
-                                    }
-                                } catch (Exception ex) {
-                                    lastEx = ex;
-                                    if (attempt > 1) {
-                                        log.warn("[INGEST] 详情批次重试 attempt={} status={} err={}", attempt, detailStatus, ex.getMessage());
-                                    }
-                                }
-                                long base = (detailStatus != null && detailStatus == 429) ? retryBaseDelayMs429 : retryDelayMs;
-                                long backoff = base * (1L << (attempt - 1));
-                                long jitter = retryJitterMs <= 0 ? 0 : java.util.concurrent.ThreadLocalRandom.current().nextLong(0, retryJitterMs + 1L);
-                                long sleepMs = Math.max(0, backoff + jitter);
-                                try {
-                                    Thread.sleep(sleepMs);
-                                } catch (InterruptedException ie) {
-                                    Thread.currentThread().interrupt();
-                                }
+                            subBatches.add(ids.subList(i, Math.min(i + detailBatchSize, ids.size())));
+                        }
+                        HotelDetailFetcher.RetryPolicy retryPolicy = new HotelDetailFetcher.RetryPolicy(
+                                retryTimes, retryDelayMs, retryJitterMs, retryBaseDelayMs429);
+                        // 详情子批并发拉取（受JVM共享AIMD限流约束），按批次顺序交付后串行解析入库；
+                        // 中途异常退出时，已发起的请求（不超过拉取窗口）自然完成并归还许可
+                        HotelDetailFetcher.Session session = hotelDetailFetcher.open(subBatches, detailCtx.getMaxConcurrency() * 2,
+                                sub -> buildDetailUrl(detailCtx, sub),
+                                targetUrl -> requestDetail(exchange.getContext(), detailCtx, targetUrl),
+                                retryPolicy);
+                        for (int b = 0; b < subBatches.size(); b++) {
+                            List<Long> sub = subBatches.get(b);
+                            HotelDetailFetcher.FetchResult fetched = session.await(b);
+                            log.info("[INGEST] 详情批次完成 traceId={} batchIndex={} batchSize={} hotelIds={}",
+                                    detailCtx.getTraceId(), b + 1, sub.size(), sub);
+
+                            String detailUrl = fetched.url();
+                            String detailBody = fetched.body();
+                            Integer detailStatus = fetched.status();
+                            Exception lastEx = fetched.lastError();
+                            int attemptsUsed = fetched.attemptsUsed();
+                            int hit429 = fetched.hit429();
+                            if (!fetched.failed()) {
+                                log.info("[INGEST] 详情批次成功 status={} bodySize={} batchSize={}", detailStatus, detailBody == null ? 0 : detailBody.length(), sub.size());
+                                log.info("[METRIC][DETAIL] success batchSize={} attemptsUsed={} status={} durationMs={} hit429={}",
+                                        sub.size(), attemptsUsed, detailStatus, fetched.durationMs(), hit429);
                             }
-                            if ((detailBody == null && lastEx != null) || (detailStatus != null && (detailStatus == 429 || detailStatus >= 400))) {
+                            if (fetched.failed()) {
                                 log.error("[INGEST] 详情批次失败 status={} err={} hotelIds={}", detailStatus, lastEx == null ? null : lastEx.getMessage(), sub);
-                                int durMs = (int) ((System.nanoTime() - batchStartNs) / 1_000_000);
+                                long durMs = fetched.durationMs();
                                 log.warn("[METRIC][DETAIL] failed batchSize={} attemptsUsed={} status={} durationMs={} hit429={} err={}",
                                         sub.size(), attemptsUsed == 0 ? retryTimes : attemptsUsed, detailStatus, durMs, hit429, lastEx == null ? null : lastEx.getMessage());
                                 if (syncLogId != null) {
-                                    final String msg = lastEx.getMessage();
+                                    final String msg = lastEx == null ? "HTTP status " + detailStatus : lastEx.getMessage();
                                     String err;
                                     if (detailStatus != null) {
                                         if (detailStatus == 429) err = "HTTP_429";
@@ -916,24 +893,18 @@ public class HotelIdsIngestRoute extends RouteBuilder {
                                     }
                                     // ========== 人工修正字段覆盖结束 ==========
 
-                                    // 原始内容 GZIP 压缩后入库（原文 -> GZIP -> Base64）
+                                    // 内容指纹（规范化原文 + 业务列）；原文由入库服务在确认需要写库时再按配置算法压缩
                                     String origContent = it.getOrigContent();
-                                    byte[] compressedRaw = GzipCompressor.compressString(origContent);
-                                    String base64Compressed = Base64.getEncoder().encodeToString(compressedRaw);
-                                    row.setRawCompressed(base64Compressed);
+                                    row.setRawContent(origContent);
+                                    row.setContentHash(HotelContentFingerprint.of(origContent, row));
 
 
                                     batch.add(row);
                                     if (batch.size() >= submitBatchSize) {
                                         log.info("[INGEST] 批次入库提交 size={} submitBatchSize={}", batch.size(), submitBatchSize);
                                         hotelsSinkService.saveInBatches(batch, submitBatchSize, syncLogId);
-                                        // 入库成功后，逐条写入 Redis Stream 事件
-                                        try {
-                                            String trace = traceId;
-                                            writeXaddEvents(batch, trace, syncLogId);
-                                        } catch (Exception ex) {
-                                            log.error("[INGEST] 生产 Redis Stream 事件失败", ex);
-                                        }
+                                        // 入库成功后，逐条写入 Redis Stream 事件（内容无变化的行跳过）；发布失败的行清除内容指纹
+                                        hotelsSinkService.clearContentHash(writeXaddEvents(batch, traceId, syncLogId));
                                         batch.clear();
                                     }
                                 }
@@ -967,24 +938,20 @@ public class HotelIdsIngestRoute extends RouteBuilder {
                                     .requestHeaders("{}")
                                     .responseStatus(detailStatus)
                                     .durationMs(null)
-                                    .responseBodyCompressed(detailBody == null ? null : GzipCompressor.compress(detailBody.getBytes(StandardCharsets.UTF_8)))
+                                    .responseBodyCompressed(detailBody == null ? null : payloadCompressor.compress(detailBody.getBytes(StandardCharsets.UTF_8)))
                                     .responseSizeBytes(detailBody == null ? 0 : detailBody.length())
-                                    .compression(CompressionCodec.gzip)
+                                    .compression(payloadCompressor.codec())
                                     .timestampUtc(OffsetDateTime.now())
                                     .createdAt(OffsetDateTime.now())
                                     .build();
                             // 异步保存 API 日志，不阻塞主流程
                             asyncLogService.saveApiRequestLogAsync(dlog);
                         }
+                        session.close();
                         if (!batch.isEmpty()) {
                             log.info("[INGEST] 末尾批次入库提交 size={}", batch.size());
                             hotelsSinkService.saveInBatches(batch, submitBatchSize, ctxPage.getSyncLogId());
-                            try {
-                                String trace = traceId;
-                                writeXaddEvents(batch, trace, ctxPage.getSyncLogId());
-                            } catch (Exception ex) {
-                                log.error("[INGEST] 生产 Redis Stream 事件失败(末尾批次)", ex);
-                            }
+                            hotelsSinkService.clearContentHash(writeXaddEvents(batch, traceId, ctxPage.getSyncLogId()));
                             batch.clear();
                         }
                     }
@@ -1049,16 +1016,50 @@ public class HotelIdsIngestRoute extends RouteBuilder {
     }
 
     /**
-     * 写入 Redis Stream 事件
+     * 发起一次详情请求（在详情拉取线程上执行）
+     * 每次尝试重新计算时间戳与签名，避免跨时间窗导致认证失败；
+     * HTTP 非2xx 响应转换为状态码返回，交由拉取器判定重试与限流
+     */
+    private HotelDetailFetcher.HttpReply requestDetail(CamelContext camelContext, HotelIdsIngestContext ctx, String detailUrl) throws Exception {
+        long tsAttempt = System.currentTimeMillis() / 1000;
+        var detEx = camelContext.createFluentProducerTemplate()
+                .withHeader(Exchange.HTTP_METHOD, "GET")
+                // 注意：FluentProducerTemplate 默认不会继承当前 Exchange 的 headers，这里需要显式传入
+                .withHeader("app", ctx.getApp())
+                .withHeader("timestamp", tsAttempt)
+                .withHeader("sign", ctx.sign(tsAttempt))
+                .to(detailUrl)
+                .request(Exchange.class);
+        Exception failure = detEx.getException();
+        if (failure instanceof HttpOperationFailedException httpFailure) {
+            return new HotelDetailFetcher.HttpReply(httpFailure.getStatusCode(), httpFailure.getResponseBody());
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return new HotelDetailFetcher.HttpReply(
+                detEx.getMessage().getHeader(Exchange.HTTP_RESPONSE_CODE, Integer.class),
+                detEx.getMessage().getBody(String.class));
+    }
+
+    /**
+     * 写入 Redis Stream 事件（内容指纹未变化、已跳过写库的行不发事件，避免重复解析与重建索引）
+     * 某行发布失败后不再尝试后续行（Redis 大概率不可用），这些行一并返回，由调用方清除其内容指纹
      * @param rows
      * @param traceId
      * @param syncLogId
+     * @return 事件未发布的行
      */
-    private void writeXaddEvents(List<Hotels> rows, String traceId, Long syncLogId) {
-        if (rows == null || rows.isEmpty()) return;
+    private List<Hotels> writeXaddEvents(List<Hotels> rows, String traceId, Long syncLogId) {
+        List<Hotels> unpublished = new ArrayList<>();
+        if (rows == null || rows.isEmpty()) return unpublished;
         for (Hotels r : rows) {
             Long hotelId = r.getHotelId();
-            if (hotelId == null) continue;
+            if (hotelId == null || r.isContentUnchanged()) continue;
+            if (!unpublished.isEmpty()) {
+                unpublished.add(r);
+                continue;
+            }
             String providerSource = r.getSource(); // 期望为 Elong/Agoda
             String tagSource = r.getTagSource();   // 期望为 CN/INTL/HMT
 
@@ -1072,8 +1073,17 @@ public class HotelIdsIngestRoute extends RouteBuilder {
             msg.put("traceId", traceId == null ? "" : traceId);
             msg.put("syncLogId", syncLogId == null ? "" : String.valueOf(syncLogId));
             msg.put("fetchedAt", r.getFetchedAt() == null ? "" : r.getFetchedAt().toString());
-            redisStreamPublisher.xadd(REDIS_STREAM, msg);
+            try {
+                redisStreamPublisher.xadd(REDIS_STREAM, msg);
+            } catch (Exception ex) {
+                log.error("[INGEST] 生产 Redis Stream 事件失败 hotelId={}", hotelId, ex);
+                unpublished.add(r);
+            }
+        }
+        if (!unpublished.isEmpty()) {
+            log.warn("[INGEST] 本批次 {} 行事件未发布 traceId={}", unpublished.size(), traceId);
         }
+        return unpublished;
     }
 
     /**
@@ -6,24 +6,19 @@ import com.heytrip.hotel.search.common.parser.HotelParser;
 import com.heytrip.hotel.search.common.parser.HotelParserSelector;
 import com.heytrip.hotel.search.common.util.HotelStructuredExtractor;
 import com.heytrip.hotel.search.infra.redis.RedisStreamConsumer;
-import com.heytrip.hotel.search.ingest.service.IndexBackfillService;
+import com.heytrip.hotel.search.ingest.service.HotelEventConsumerPool;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.camel.Exchange;
 import org.apache.camel.LoggingLevel;
 import org.apache.camel.builder.RouteBuilder;
-import org.redisson.api.StreamMessageId;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-
 /**
  * 索引构建消费者路由
  * 阶段目标：
  * - 先使用 SEDA 端点模拟事件消费，验证解析器链路
- * - 后续接入 Redisson XREADGROUP 读取 Redis Stream
+ * - Redis Stream 由 {@link HotelEventConsumerPool} 以 XREADGROUP BLOCK 多消费者阻塞读取，启动时在此创建消费组并启动消费者池
  */
 @Slf4j
 @Component
@@ -33,26 +28,21 @@ public class IndexBuildRoute extends RouteBuilder {
     private final ObjectMapper objectMapper;
     private final HotelParserSelector parserSelector;
     private final RedisStreamConsumer redisStreamConsumer;
-    private final IndexBackfillService indexBackfillService;
+    private final HotelEventConsumerPool hotelEventConsumerPool;
 
-    private static final String STREAM = "hotel:events";
-    private static final String GROUP  = "hotel-indexer";
-    private static final String CONSUMER = "indexer-1";
-    private static final int BATCH = 500;
+    private static final String STREAM = HotelEventConsumerPool.STREAM;
+    private static final String GROUP  = HotelEventConsumerPool.GROUP;
 
     @Override
     public void configure() {
-        // 启动时确保消费组存在（启动一次）
+        // 启动时确保消费组存在，随后启动阻塞读取的消费者池（启动一次）
         from("timer:index-init?repeatCount=1")
                 .routeId("route-index-init")
-                .process(e -> redisStreamConsumer.ensureGroup(STREAM, GROUP))
-                .log(LoggingLevel.INFO,"[INDEX-BUILD] init group ensured: stream=" + STREAM + ", group=" + GROUP);
-
-        // 定时轮询 Redis Stream（每秒一次），批量读取并处理
-        from("timer:index-poll?period=1000")
-                .routeId("route-index-poll")
-                .process(e -> processBatch())
-                .log(LoggingLevel.DEBUG,"[INDEX-BUILD] poll done");
+                .process(e -> {
+                    redisStreamConsumer.ensureGroup(STREAM, GROUP);
+                    hotelEventConsumerPool.start();
+                })
+                .log(LoggingLevel.INFO,"[INDEX-BUILD] init group ensured and consumers started: stream=" + STREAM + ", group=" + GROUP);
 
         // 本地测试入口：保持 SEDA 路径
         from("seda:index:consume")
@@ -80,48 +70,4 @@ public class IndexBuildRoute extends RouteBuilder {
                 evt.getHotelId(), evt.getProviderSource(), evt.getTagSource(),
                 parsed.getNameCn(), parsed.getNameEn(), parsed.getCountryEn(), parsed.getCityEn(), parsed.getLatitude(), parsed.getLongitude());
     }
-
-    /**
-     * 批量处理 Redis Stream 消息
-     */
-    private void processBatch() {
-        Map<StreamMessageId, Map<String, String>> batch = redisStreamConsumer.readBatch(STREAM, GROUP, CONSUMER, BATCH);
-        if (batch == null || batch.isEmpty()) return;
-        List<HotelEvent> events = new ArrayList<>(batch.size());
-        List<StreamMessageId> ids = new ArrayList<>(batch.size());
-        for (Map.Entry<StreamMessageId, Map<String, String>> e : batch.entrySet()) {
-            StreamMessageId msgId = e.getKey();
-            try {
-                Map<String, String> fields = e.getValue();
-                HotelEvent evt = mapToEvent(fields);
-                events.add(evt);
-                ids.add(msgId);
-            } catch (Exception ex) {
-                log.error("[INDEX-BUILD] parse message failed id={} err={}", msgId, ex.getMessage(), ex);
-                redisStreamConsumer.ack(STREAM, GROUP, msgId);
-            }
-        }
-        if (events.isEmpty()) return;
-        // 批处理：内部包含回填与 ES bulk 写入与错误处理
-        indexBackfillService.processEventsBatch(events);
-        // 全部尝试处理后统一 ACK（即便失败会写入 DLQ）
-        ids.forEach(id -> redisStreamConsumer.ack(STREAM, GROUP, id));
-    }
-
-    private HotelEvent mapToEvent(Map<String, String> m) {
-        HotelEvent evt = new HotelEvent();
-        evt.setEventType(m.getOrDefault("eventType", "UPSERT"));
-        evt.setRowId(parseLong(m.get("rowId")));
-        evt.setHotelId(parseLong(m.get("hotelId")));
-        evt.setProviderSource(m.get("providerSource"));
-        evt.setTagSource(m.get("tagSource"));
-        evt.setTraceId(m.get("traceId"));
-        evt.setSyncLogId(parseLong(m.get("syncLogId")));
-        evt.setFetchedAt(m.get("fetchedAt"));
-        return evt;
-    }
-
-    private Long parseLong(String s) {
-        try { return (s == null || s.isBlank()) ? null : Long.parseLong(s); } catch (Exception e) { return null; }
-    }
 }
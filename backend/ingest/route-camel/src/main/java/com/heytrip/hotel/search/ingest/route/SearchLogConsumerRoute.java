@@ -1,7 +1,8 @@
 package com.heytrip.hotel.search.ingest.route;
 
 import com.heytrip.hotel.search.domain.entity.SearchLog;
-import com.heytrip.hotel.search.domain.repository.SearchLogRepository;
+import com.heytrip.hotel.search.infra.log.BulkLogWriter;
+import com.heytrip.hotel.search.infra.log.LogTables;
 import com.heytrip.hotel.search.ingest.service.RedisStreamConsumerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -21,14 +22,14 @@ import java.util.Map;
  * 配置：
  * - 每2秒轮询一次
  * - 每次最多读取500条
- * - 批量插入数据库
+ * - 批量插入数据库（PostgreSQL COPY / MySQL 多行 INSERT）
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class SearchLogConsumerRoute extends RouteBuilder {
 
-    private final SearchLogRepository searchLogRepository;
+    private final BulkLogWriter bulkLogWriter;
     private final RedisStreamConsumerService redisStreamConsumerService;
 
     private static final String STREAM_KEY = "search:logs:stream";
@@ -99,9 +100,9 @@ public class SearchLogConsumerRoute extends RouteBuilder {
             }
             
             if (!logs.isEmpty()) {
-                searchLogRepository.saveAll(logs);
-                log.info("[SEARCH_LOG_ROUTE] 批量插入 {} 条搜索日志", logs.size());
-                return logs.size();
+                int written = bulkLogWriter.write(LogTables.SEARCH_LOGS, logs);
+                log.info("[SEARCH_LOG_ROUTE] 批量插入 {} 条搜索日志", written);
+                return written;
             }
             
         } catch (Exception e) {
@@ -0,0 +1,159 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD（加性增、乘性减）并发限流器
+ * - 成功：并发上限每个窗口约 +1（每次成功 +1/limit）
+ * - 过载（HTTP 429 / 5xx / 超时）：并发上限乘以 backoffRatio，冷却期内只收缩一次，避免同一波失败把上限打到底
+ * - 上限始终落在 [minLimit, maxLimit] 内，minLimit ≥ 1 保证不会饿死
+ * 线程安全，供同一JVM内所有调用方共享同一实例。
+ */
+public class AimdConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long decreaseCooldownNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition stateChanged = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    public AimdConcurrencyLimiter(int minLimit, int maxLimit, double backoffRatio, long decreaseCooldownMs) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("invalid limit range: [" + minLimit + ", " + maxLimit + "]");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be in (0, 1): " + backoffRatio);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.decreaseCooldownNanos = TimeUnit.MILLISECONDS.toNanos(decreaseCooldownMs);
+        this.limit = maxLimit;
+        this.lastDecreaseNanos = System.nanoTime() - this.decreaseCooldownNanos;
+    }
+
+    /**
+     * 非阻塞获取一个并发许可
+     *
+     * @return 当前在途数未达上限时返回true
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放一个并发许可（每次成功的 tryAcquire 必须对应一次 release）
+     */
+    public void release() {
+        lock.lock();
+        try {
+            if (inFlight > 0) {
+                inFlight--;
+            }
+            stateChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录一次成功请求：加性增
+     */
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (limit < maxLimit) {
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+                stateChanged.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录一次过载信号（429 / 5xx / 超时）：乘性减
+     */
+    public void onOverload() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (now - lastDecreaseNanos >= decreaseCooldownNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = now;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待出现空闲许可（不占用许可），最多等待 maxWaitMs
+     *
+     * @return 返回时是否存在空闲许可
+     */
+    public boolean awaitPermit(long maxWaitMs) throws InterruptedException {
+        long remainingNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        lock.lock();
+        try {
+            while (inFlight >= currentLimit()) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = stateChanged.awaitNanos(remainingNanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前生效的并发上限（向下取整）
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前在途请求数
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    private int currentLimit() {
+        return Math.max(minLimit, (int) limit);
+    }
+}
@@ -0,0 +1,84 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.heytrip.hotel.search.domain.entity.Hotels;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * 酒店内容指纹（MD5，32 位十六进制）
+ * - 原文先规范化（解析后按键名排序、去除空白再序列化），供应商调整字段顺序或格式不会产生新指纹
+ * - 同时纳入 hotels 的解析/人工修正业务列：人工修正字段或解析规则变化时指纹随之变化，不会误判为无变化
+ * - 原文不是合法 JSON 时按原样参与计算
+ */
+public final class HotelContentFingerprint {
+
+    private static final ObjectMapper CANONICAL = JsonMapper.builder()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .build();
+
+    /**
+     * 字段分隔符与空值标记（不会出现在正常文本中）
+     */
+    private static final byte SEPARATOR = 0x1F;
+    private static final byte NULL_MARK = 0x00;
+
+    private HotelContentFingerprint() {}
+
+    /**
+     * 计算指纹（需在业务列全部赋值后调用）
+     *
+     * @param rawJson 供应商原文
+     * @param row     已填充业务列的酒店行
+     */
+    public static String of(String rawJson, Hotels row) {
+        MessageDigest md = md5();
+        update(md, canonicalJson(rawJson));
+        for (Object v : HotelsBulkUpserter.fingerprintValues(row)) {
+            md.update(SEPARATOR);
+            if (v == null) {
+                md.update(NULL_MARK);
+            } else if (v instanceof BigDecimal d) {
+                // 经纬度按数值比较，1.50 与 1.5 视为相同
+                update(md, d.stripTrailingZeros().toPlainString());
+            } else {
+                update(md, v.toString());
+            }
+        }
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    /**
+     * 规范化 JSON：对象键按名称排序，去除格式空白；无法解析时返回原文
+     */
+    static String canonicalJson(String rawJson) {
+        if (rawJson == null) {
+            return "";
+        }
+        try {
+            Object tree = CANONICAL.readValue(rawJson, Object.class);
+            return CANONICAL.writeValueAsString(tree);
+        } catch (JsonProcessingException e) {
+            return rawJson;
+        }
+    }
+
+    private static void update(MessageDigest md, String s) {
+        md.update(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
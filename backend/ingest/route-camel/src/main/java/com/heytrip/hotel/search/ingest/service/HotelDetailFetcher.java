@@ -0,0 +1,325 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 供应商酒店详情并发拉取器
+ * - 专用有界线程池（平台线程，JDK17），与 Camel 路由线程、异步日志线程池隔离
+ * - JVM 内共享一个 AIMD 限流器：所有采集任务的详情请求共同受其约束，429/5xx/超时收缩并发，成功后逐步恢复
+ * - 重试退避通过延迟调度重新提交，退避期间不在拉取线程上 Thread.sleep
+ * - 结果按批次顺序交付给调用方，入库、事件与日志逻辑保持串行语义不变
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotelDetailFetcher {
+
+    private static final long PERMIT_WAIT_MS = 100;
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+    @Value("${heytrip.supplier.detail-fetch.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${heytrip.supplier.detail-fetch.min-concurrency:1}")
+    private int minConcurrency;
+
+    @Value("${heytrip.supplier.detail-fetch.backoff-ratio:0.5}")
+    private double backoffRatio;
+
+    @Value("${heytrip.supplier.detail-fetch.decrease-cooldown-ms:1000}")
+    private long decreaseCooldownMs;
+
+    private ThreadPoolExecutor executor;
+
+    private AimdConcurrencyLimiter limiter;
+
+    @PostConstruct
+    public void init() {
+        limiter = new AimdConcurrencyLimiter(minConcurrency, maxConcurrency, backoffRatio, decreaseCooldownMs);
+        // 在途请求数受限流器约束（≤maxConcurrency），线程数与之相同即可保证许可拿到后立即执行
+        executor = new ThreadPoolExecutor(
+                maxConcurrency, maxConcurrency,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxConcurrency * 2),
+                new CustomizableThreadFactory("detail-fetch-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+
+        MeterRegistry registry = meterRegistryProvider.getIfAvailable();
+        if (registry != null) {
+            new ExecutorServiceMetrics(executor, "detail-fetch", Tags.empty()).bindTo(registry);
+            Gauge.builder("hotel.ingest.detail.limit", limiter, AimdConcurrencyLimiter::getLimit)
+                    .description("详情拉取AIMD当前并发上限")
+                    .register(registry);
+            Gauge.builder("hotel.ingest.detail.inflight", limiter, AimdConcurrencyLimiter::getInFlight)
+                    .description("详情拉取在途请求数")
+                    .register(registry);
+        }
+        log.info("[DetailFetcher] 详情拉取器已初始化 concurrency=[{}, {}] backoffRatio={}",
+                minConcurrency, maxConcurrency, backoffRatio);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 打开一次详情拉取会话：按批次并发拉取，按批次顺序交付
+     *
+     * @param batches    详情子批（每批为一组酒店ID）
+     * @param window     本次会话最多预取（已发起未交付）的批次数，限制内存占用；≤0 时使用最大并发数
+     * @param urlBuilder 子批 -> 详情请求URL
+     * @param transport  HTTP 调用（每次尝试调用一次，需自行重算签名）
+     * @param policy     重试策略
+     */
+    public Session open(List<List<Long>> batches, int window,
+                        Function<List<Long>, String> urlBuilder,
+                        DetailTransport transport, RetryPolicy policy) {
+        int effectiveWindow = window <= 0 ? maxConcurrency : window;
+        Session session = new Session(batches, effectiveWindow, urlBuilder, transport, policy, executor);
+        session.pump();
+        return session;
+    }
+
+    /**
+     * 页间节流：等待配置的页间延迟（与原供应商节奏一致）
+     * 页间没有在途请求，限流上限不会在等待期间恢复，收缩状态下不额外等待，仅记录
+     */
+    public void pacePage(long delayMs) throws InterruptedException {
+        if (delayMs <= 0) {
+            return;
+        }
+        if (limiter.getLimit() < limiter.getMaxLimit()) {
+            log.debug("[DetailFetcher] 供应商处于限流收缩状态 limit={}/{}", limiter.getLimit(), limiter.getMaxLimit());
+        }
+        Thread.sleep(delayMs);
+    }
+
+    public AimdConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    /**
+     * 详情HTTP调用抽象（生产环境由路由通过 Camel HTTP 实现，测试可使用本地桩）
+     */
+    @FunctionalInterface
+    public interface DetailTransport {
+        HttpReply get(String url) throws Exception;
+    }
+
+    /**
+     * HTTP 响应
+     */
+    public record HttpReply(Integer status, String body) {
+    }
+
+    /**
+     * 重试策略（来源 job_schedule.params）
+     */
+    public record RetryPolicy(int retryTimes, int retryDelayMs, int retryJitterMs, int retryBaseDelayMs429) {
+    }
+
+    /**
+     * 单个子批的拉取结果
+     */
+    public record FetchResult(List<Long> hotelIds, String url, Integer status, String body,
+                              Exception lastError, int attemptsUsed, int hit429, long durationMs) {
+
+        /**
+         * 与原串行实现一致的失败判定：无响应且有异常，或最终状态为 429/4xx/5xx
+         */
+        public boolean failed() {
+            return (body == null && lastError != null) || (status != null && (status == 429 || status >= 400));
+        }
+    }
+
+    /**
+     * 一次详情拉取会话
+     * 发起顺序与交付顺序一致；后台完成回调与调用方消费共同推动后续批次发起。
+     */
+    public final class Session implements AutoCloseable {
+
+        private final List<List<Long>> batches;
+        private final int window;
+        private final Function<List<Long>, String> urlBuilder;
+        private final DetailTransport transport;
+        private final RetryPolicy policy;
+        private final Executor executor;
+        private final List<CompletableFuture<FetchResult>> results;
+
+        private int nextToLaunch;
+        private int consumed;
+        private boolean closed;
+
+        private Session(List<List<Long>> batches, int window, Function<List<Long>, String> urlBuilder,
+                        DetailTransport transport, RetryPolicy policy, Executor executor) {
+            this.batches = batches;
+            this.window = window;
+            this.urlBuilder = urlBuilder;
+            this.transport = transport;
+            this.policy = policy;
+            this.executor = executor;
+            this.results = new ArrayList<>(batches.size());
+            for (int i = 0; i < batches.size(); i++) {
+                results.add(new CompletableFuture<>());
+            }
+        }
+
+        /**
+         * 等待第 index 个子批的结果（需按顺序调用）
+         */
+        public FetchResult await(int index) throws InterruptedException {
+            synchronized (this) {
+                consumed = Math.max(consumed, index);
+            }
+            while (true) {
+                pump();
+                synchronized (this) {
+                    if (index < nextToLaunch) {
+                        break;
+                    }
+                }
+                // 许可被其它采集任务占满：等待任一请求归还许可后再尝试发起
+                limiter.awaitPermit(PERMIT_WAIT_MS);
+            }
+            try {
+                return results.get(index).get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                Exception ex = cause instanceof Exception ? (Exception) cause : new RuntimeException(cause);
+                return new FetchResult(batches.get(index), null, null, null, ex, 0, 0, 0);
+            }
+        }
+
+        /**
+         * 在窗口与限流许可允许的范围内尽量多地发起后续子批
+         */
+        private synchronized void pump() {
+            while (!closed
+                    && nextToLaunch < batches.size()
+                    && nextToLaunch < consumed + window
+                    && limiter.tryAcquire()) {
+                launch(nextToLaunch++);
+            }
+        }
+
+        private void launch(int index) {
+            List<Long> ids = batches.get(index);
+            Attempt attempt = new Attempt(index, ids, urlBuilder.apply(ids), System.nanoTime());
+            try {
+                executor.execute(attempt);
+            } catch (RejectedExecutionException e) {
+                attempt.finish(null, null, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            // 未发起的批次直接取消；已发起的请求自然完成并归还许可
+            for (CompletableFuture<FetchResult> f : results) {
+                f.cancel(false);
+            }
+        }
+
+        /**
+         * 单个子批的一次（含后续重试）请求，重试时通过延迟调度重新进入线程池
+         */
+        private final class Attempt implements Runnable {
+            private final int index;
+            private final List<Long> ids;
+            private final String url;
+            private final long startNs;
+            private int attemptNo = 1;
+            private int hit429;
+
+            private Attempt(int index, List<Long> ids, String url, long startNs) {
+                this.index = index;
+                this.ids = ids;
+                this.url = url;
+                this.startNs = startNs;
+            }
+
+            @Override
+            public void run() {
+                Integer status = null;
+                String body = null;
+                Exception error = null;
+                try {
+                    HttpReply reply = transport.get(url);
+                    status = reply.status();
+                    body = reply.body();
+                    if (status != null && status == 429) hit429++;
+                    if (status != null && (status == 429 || status >= 500)) {
+                        error = new RuntimeException("HTTP status " + status);
+                    }
+                } catch (Exception ex) {
+                    error = ex;
+                    if (attemptNo > 1) {
+                        log.warn("[INGEST] 详情批次重试 attempt={} status={} err={}", attemptNo, status, ex.getMessage());
+                    }
+                }
+
+                if (error == null) {
+                    limiter.onSuccess();
+                    finish(status, body, null);
+                    return;
+                }
+                limiter.onOverload();
+                if (attemptNo >= policy.retryTimes()) {
+                    finish(status, body, error);
+                    return;
+                }
+                long base = (status != null && status == 429) ? policy.retryBaseDelayMs429() : policy.retryDelayMs();
+                long backoff = base * (1L << (attemptNo - 1));
+                long jitter = policy.retryJitterMs() <= 0 ? 0 : ThreadLocalRandom.current().nextLong(0, policy.retryJitterMs() + 1L);
+                attemptNo++;
+                final Integer lastStatus = status;
+                final String lastBody = body;
+                // 延迟到期后仅做一次重新提交，退避期间不占用拉取线程
+                CompletableFuture.delayedExecutor(Math.max(0, backoff + jitter), TimeUnit.MILLISECONDS)
+                        .execute(() -> {
+                            try {
+                                executor.execute(this);
+                            } catch (RejectedExecutionException e) {
+                                finish(lastStatus, lastBody, e);
+                            }
+                        });
+            }
+
+            private void finish(Integer status, String body, Exception error) {
+                long durationMs = (System.nanoTime() - startNs) / 1_000_000;
+                limiter.release();
+                results.get(index).complete(new FetchResult(ids, url, status, body, error, attemptNo, hit429, durationMs));
+                pump();
+            }
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import com.heytrip.hotel.search.common.event.HotelEvent;
+import com.heytrip.hotel.search.infra.redis.RedisStreamConsumer;
+import com.heytrip.hotel.search.infra.redis.RedisStreamPublisher;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.AutoClaimResult;
+import org.redisson.api.StreamMessageId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * hotel:events 消费者池
+ * - 每个节点启动 N 个消费者线程（平台线程，JDK17），消费者名 = 主机名-进程号-序号，多节点共用同一消费组互不冲突
+ * - 消费线程使用 XREADGROUP BLOCK 阻塞读取，取代定时轮询；一批处理完成后一次 XACK 确认整批ID
+ * - 后台定时 XAUTOCLAIM 认领闲置超时的待处理消息（消费者宕机、节点下线遗留），处理后确认；
+ *   投递次数超过上限的消息不再重试，转入死信队列 hotel:events:dlq 后确认
+ * - 定期清理无待处理消息且长期闲置的旧消费者名（节点重启后进程号变化遗留）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotelEventConsumerPool {
+
+    public static final String STREAM = "hotel:events";
+    public static final String GROUP = "hotel-indexer";
+    public static final String DLQ = "hotel:events:dlq";
+
+    private static final long ERROR_BACKOFF_MS = 1000;
+    private static final StreamMessageId CLAIM_START = new StreamMessageId(0, 0);
+
+    private final RedisStreamConsumer redisStreamConsumer;
+    private final IndexBackfillService indexBackfillService;
+    private final RedisStreamPublisher redisStreamPublisher;
+
+    @Value("${heytrip.index.consumer.count:2}")
+    private int consumerCount;
+
+    @Value("${heytrip.index.consumer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${heytrip.index.consumer.block-ms:2000}")
+    private long blockMs;
+
+    @Value("${heytrip.index.consumer.claim-min-idle-ms:300000}")
+    private long claimMinIdleMs;
+
+    @Value("${heytrip.index.consumer.claim-interval-ms:30000}")
+    private long claimIntervalMs;
+
+    @Value("${heytrip.index.consumer.stale-consumer-idle-ms:86400000}")
+    private long staleConsumerIdleMs;
+
+    @Value("${heytrip.index.consumer.max-deliveries:5}")
+    private int maxDeliveries;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final List<String> consumerNames = new ArrayList<>();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private ExecutorService workers;
+    private ScheduledExecutorService claimer;
+
+    /**
+     * 启动消费者线程与认领任务（幂等，需在消费组创建后调用）
+     */
+    public synchronized void start() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        String prefix = "indexer-" + hostName() + "-" + ProcessHandle.current().pid();
+        workers = Executors.newFixedThreadPool(consumerCount, new CustomizableThreadFactory("index-consumer-"));
+        for (int i = 1; i <= consumerCount; i++) {
+            String consumer = prefix + "-" + i;
+            consumerNames.add(consumer);
+            workers.execute(() -> consumeLoop(consumer));
+        }
+        // 认领任务使用独立消费者名，认领到的消息归属本节点处理
+        String claimConsumer = prefix + "-claim";
+        claimer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("index-claim-"));
+        claimer.scheduleWithFixedDelay(() -> claimIdle(claimConsumer), claimIntervalMs, claimIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("[INDEX-BUILD] 消费者池已启动 stream={} group={} consumers={} blockMs={} claimMinIdleMs={}",
+                STREAM, GROUP, consumerNames, blockMs, claimMinIdleMs);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (!running.compareAndSet(true, false)) {
+            return;
+        }
+        claimer.shutdownNow();
+        // 等待当前阻塞读取超时返回、在处理的批次完成确认
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(blockMs + 10_000, TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        log.info("[INDEX-BUILD] 消费者池已停止 consumers={}", consumerNames);
+    }
+
+    /**
+     * 消费组统计（Stream 长度、积压、待处理及各消费者待处理数）
+     */
+    public RedisStreamConsumer.GroupStats stats() {
+        return redisStreamConsumer.groupStats(STREAM, GROUP);
+    }
+
+    /**
+     * 本节点消费者名
+     */
+    public synchronized List<String> getConsumerNames() {
+        return Collections.unmodifiableList(new ArrayList<>(consumerNames));
+    }
+
+    /**
+     * 本节点启动以来因投递次数超限转入死信队列的消息数
+     */
+    public long getDeadLettered() {
+        return deadLettered.get();
+    }
+
+    private void consumeLoop(String consumer) {
+        Duration block = Duration.ofMillis(blockMs);
+        while (running.get() && !Thread.currentThread().isInterrupted()) {
+            try {
+                Map<StreamMessageId, Map<String, String>> batch =
+                        redisStreamConsumer.readBatchBlocking(STREAM, GROUP, consumer, batchSize, block);
+                if (!batch.isEmpty()) {
+                    handle(batch);
+                }
+            } catch (Exception e) {
+                if (!running.get()) {
+                    break;
+                }
+                log.warn("[INDEX-BUILD] 读取/处理失败 consumer={} err={}", consumer, e.getMessage());
+                try {
+                    Thread.sleep(ERROR_BACKOFF_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * 认领闲置超时的待处理消息并处理，按 nextId 翻页直到扫描完整个 PEL
+     */
+    void claimIdle(String claimConsumer) {
+        try {
+            Duration minIdle = Duration.ofMillis(claimMinIdleMs);
+            StreamMessageId start = CLAIM_START;
+            int claimed = 0;
+            while (running.get()) {
+                AutoClaimResult<String, String> result =
+                        redisStreamConsumer.autoClaim(STREAM, GROUP, claimConsumer, minIdle, start, batchSize);
+                if (result == null) {
+                    break;
+                }
+                Map<StreamMessageId, Map<String, String>> messages = result.getMessages();
+                if (messages != null && !messages.isEmpty()) {
+                    claimed += messages.size();
+                    Map<StreamMessageId, Map<String, String>> retry = deadLetterExhausted(claimConsumer, messages);
+                    if (!retry.isEmpty()) {
+                        handle(retry);
+                    }
+                }
+                StreamMessageId next = result.getNextId();
+                if (next == null || CLAIM_START.equals(next)) {
+                    break;
+                }
+                start = next;
+            }
+            if (claimed > 0) {
+                log.info("[INDEX-BUILD] 认领闲置待处理消息 consumer={} count={}", claimConsumer, claimed);
+            }
+            List<String> keep = new ArrayList<>(getConsumerNames());
+            keep.add(claimConsumer);
+            int removed = redisStreamConsumer.removeIdleConsumers(STREAM, GROUP, Duration.ofMillis(staleConsumerIdleMs), keep);
+            if (removed > 0) {
+                log.info("[INDEX-BUILD] 清理闲置消费者 count={}", removed);
+            }
+        } catch (Exception e) {
+            log.warn("[INDEX-BUILD] 认领待处理消息失败 err={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 将投递次数超过上限的认领消息转入死信队列并确认，返回仍需重试的消息
+     * 投递次数取自 XPENDING（XAUTOCLAIM 认领时已计入本次投递），max-deliveries ≤0 时不限制
+     */
+    Map<StreamMessageId, Map<String, String>> deadLetterExhausted(String claimConsumer,
+                                                                  Map<StreamMessageId, Map<String, String>> messages) {
+        if (maxDeliveries <= 0) {
+            return messages;
+        }
+        Map<StreamMessageId, Long> deliveries =
+                redisStreamConsumer.deliveryCounts(STREAM, GROUP, claimConsumer, messages.keySet());
+        Map<StreamMessageId, Map<String, String>> retry = new LinkedHashMap<>();
+        List<StreamMessageId> dead = new ArrayList<>();
+        for (Map.Entry<StreamMessageId, Map<String, String>> e : messages.entrySet()) {
+            long delivered = deliveries.getOrDefault(e.getKey(), 0L);
+            if (delivered <= maxDeliveries) {
+                retry.put(e.getKey(), e.getValue());
+                continue;
+            }
+            Map<String, String> fields = new HashMap<>(e.getValue());
+            fields.put("errorCode", "MAX_DELIVERIES");
+            fields.put("errorMsg", "投递 " + delivered + " 次仍未确认，超过上限 " + maxDeliveries + "，原消息ID " + e.getKey());
+            redisStreamPublisher.xadd(DLQ, fields);
+            dead.add(e.getKey());
+        }
+        if (!dead.isEmpty()) {
+            redisStreamConsumer.ackBatch(STREAM, GROUP, dead);
+            deadLettered.addAndGet(dead.size());
+            log.warn("[INDEX-BUILD] 投递次数超限，转入死信队列 count={} maxDeliveries={} ids={}", dead.size(), maxDeliveries, dead);
+        }
+        return retry;
+    }
+
+    /**
+     * 解析并处理一批消息，处理完成后一次确认整批
+     */
+    void handle(Map<StreamMessageId, Map<String, String>> batch) {
+        List<HotelEvent> events = new ArrayList<>(batch.size());
+        List<StreamMessageId> ids = new ArrayList<>(batch.size());
+        for (Map.Entry<StreamMessageId, Map<String, String>> e : batch.entrySet()) {
+            ids.add(e.getKey());
+            try {
+                events.add(mapToEvent(e.getValue()));
+            } catch (Exception ex) {
+                // 无法解析的消息同样确认，避免反复投递
+                log.error("[INDEX-BUILD] parse message failed id={} err={}", e.getKey(), ex.getMessage(), ex);
+            }
+        }
+        if (!events.isEmpty()) {
+            // 批处理：内部包含回填与 ES bulk 写入与错误处理
+            indexBackfillService.processEventsBatch(events);
+        }
+        // 全部尝试处理后统一 ACK（即便失败会写入 DLQ）
+        redisStreamConsumer.ackBatch(STREAM, GROUP, ids);
+    }
+
+    static HotelEvent mapToEvent(Map<String, String> m) {
+        HotelEvent evt = new HotelEvent();
+        evt.setEventType(m.getOrDefault("eventType", "UPSERT"));
+        evt.setRowId(parseLong(m.get("rowId")));
+        evt.setHotelId(parseLong(m.get("hotelId")));
+        evt.setProviderSource(m.get("providerSource"));
+        evt.setTagSource(m.get("tagSource"));
+        evt.setTraceId(m.get("traceId"));
+        evt.setSyncLogId(parseLong(m.get("syncLogId")));
+        evt.setFetchedAt(m.get("fetchedAt"));
+        return evt;
+    }
+
+    private static Long parseLong(String s) {
+        try { return (s == null || s.isBlank()) ? null : Long.parseLong(s); } catch (Exception e) { return null; }
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import com.heytrip.hotel.search.common.util.PayloadCompressor;
+import com.heytrip.hotel.search.domain.entity.Hotels;
+import com.heytrip.hotel.search.infra.config.CompressionConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+
+/**
+ * 酒店原文存取
+ * - 写入：按配置算法压缩；开启二进制存储时写 raw_binary（raw_compressed 置空串），否则 Base64 后写 raw_compressed
+ * - 读取：raw_binary 优先，其次 Base64 的 raw_compressed，算法按数据头部识别；都不是时视为未压缩的旧原文
+ */
+@Component
+@RequiredArgsConstructor
+public class HotelRawCodec {
+
+    private final PayloadCompressor payloadCompressor;
+    private final CompressionConfig compressionConfig;
+
+    /**
+     * 压缩原文写入实体
+     */
+    public void write(Hotels row, String raw) {
+        byte[] compressed = payloadCompressor.compressString(raw);
+        if (compressionConfig.isHotelRawBinary()) {
+            row.setRawBinary(compressed);
+            row.setRawCompressed("");
+        } else {
+            row.setRawCompressed(Base64.getEncoder().encodeToString(compressed));
+            row.setRawBinary(null);
+        }
+    }
+
+    /**
+     * 读取原文
+     *
+     * @throws IllegalStateException 压缩数据损坏
+     */
+    public String read(Hotels row) {
+        byte[] binary = row.getRawBinary();
+        if (binary != null && binary.length > 0) {
+            return payloadCompressor.decompressToString(binary);
+        }
+        String text = row.getRawCompressed();
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(text);
+        } catch (IllegalArgumentException e) {
+            // 不是 Base64：未压缩的旧原文（JSON 含 '{' 等字符，不会被误判为 Base64）
+            return text;
+        }
+        return payloadCompressor.decompressToString(bytes);
+    }
+}
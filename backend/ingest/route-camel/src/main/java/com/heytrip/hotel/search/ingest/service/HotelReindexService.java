@@ -0,0 +1,586 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import cn.hutool.core.util.StrUtil;
+import com.heytrip.hotel.search.common.parser.HotelParser;
+import com.heytrip.hotel.search.common.parser.HotelParserSelector;
+import com.heytrip.hotel.search.common.util.HotelStructuredExtractor;
+import com.heytrip.hotel.search.domain.entity.Hotels;
+import com.heytrip.hotel.search.domain.repository.HotelsRepository;
+import com.heytrip.hotel.search.infra.search.EsHotelIndexAdmin;
+import com.heytrip.hotel.search.infra.search.EsHotelIndexService;
+import com.heytrip.hotel.search.infra.search.HotelIndexDualWrite;
+import jakarta.annotation.PreDestroy;
+import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 酒店索引全量重建（蓝绿切换，替代 rebuild_hotels_index.sh）
+ * <p>
+ * 流程：
+ * 1. 创建影子索引 hotels_yyyyMMdd_HHmmss（装载期 refresh_interval=-1、0 副本）
+ * 2. 开启双写：hotel:events 消费写入别名的同时写入影子索引（外部版本 = updated_at，旧数据不会覆盖新数据）
+ * 3. 按主键游标分页扫描 hotels 表，解析后批量写入影子索引，失败项重试
+ * 4. 刷新、段合并，恢复服务期副本数与刷新间隔，等待 green
+ * 5. 读写别名原子切换到影子索引，停止双写，延迟后删除旧索引
+ * <p>
+ * 同一时间只允许一个重建任务（Redis 运行租约）；运行租约与双写标记由独立线程定期续期，覆盖段合并、等待 green 等长耗时步骤，
+ * 任一续期失败（标记已过期）时放弃切换别名；进度与吞吐保存在 Redis，任意节点可查询与取消
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HotelReindexService {
+
+    private final HotelsRepository hotelsRepository;
+    private final HotelRawCodec hotelRawCodec;
+    private final HotelParserSelector parserSelector;
+    private final EsHotelIndexService esHotelIndexService;
+    private final EsHotelIndexAdmin esHotelIndexAdmin;
+    private final HotelIndexDualWrite hotelIndexDualWrite;
+    private final RedissonClient redissonClient;
+
+    static final String STATUS_KEY = "hotel:index:reindex:status";
+    static final String RUN_KEY = "hotel:index:reindex:running";
+    static final String CANCEL_KEY = "hotel:index:reindex:cancel";
+    private static final long STATUS_TTL_HOURS = 48; // 状态保留48小时
+    // 运行租约与双写标记的有效期，由续期线程定期延长；重建节点异常退出后自动失效
+    private static final Duration LEASE_TTL = Duration.ofMinutes(10);
+
+    /**
+     * 每页扫描行数
+     */
+    @Value("${heytrip.index.reindex.page-size:1000}")
+    private int pageSize;
+
+    /**
+     * 失败文档数上限，超过后放弃本次重建（不切换别名）
+     */
+    @Value("${heytrip.index.reindex.max-failures:1000}")
+    private long maxFailures;
+
+    @Value("${heytrip.index.reindex.bulk-retries:3}")
+    private int bulkRetries;
+
+    /**
+     * 段合并目标段数，0 表示不合并
+     */
+    @Value("${heytrip.index.reindex.force-merge-segments:1}")
+    private int forceMergeSegments;
+
+    @Value("${heytrip.index.reindex.force-merge-timeout-ms:1800000}")
+    private long forceMergeTimeoutMs;
+
+    @Value("${heytrip.index.reindex.green-timeout-ms:300000}")
+    private long greenTimeoutMs;
+
+    /**
+     * 影子索引未在超时内达到 green 时是否放弃切换；false 时照常切换并在进度中记录告警
+     */
+    @Value("${heytrip.index.reindex.require-green:true}")
+    private boolean requireGreen;
+
+    /**
+     * 服务期副本数与刷新间隔的默认值（旧索引不存在或未显式设置时使用）
+     */
+    @Value("${heytrip.index.reindex.serving-replicas:1}")
+    private String servingReplicas;
+
+    @Value("${heytrip.index.reindex.serving-refresh-interval:5s}")
+    private String servingRefreshInterval;
+
+    @Value("${heytrip.index.reindex.delete-old-index:true}")
+    private boolean deleteOldIndex;
+
+    /**
+     * 别名切换后等待该时长再删除旧索引（进行中的查询与滚动游标）
+     */
+    @Value("${heytrip.index.reindex.retire-delay-ms:60000}")
+    private long retireDelayMs;
+
+    /**
+     * 开启双写后等待各节点本地缓存刷新的时长
+     */
+    private long dualWriteWaitMs = 2 * HotelIndexDualWrite.REFRESH_MS + 500;
+
+    /**
+     * 租约续期间隔
+     */
+    private long leaseRenewMs = LEASE_TTL.toMillis() / 5;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("hotel-reindex-"));
+    private final ScheduledExecutorService leaseRenewer =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("hotel-reindex-lease-"));
+
+    // 当前任务的双写索引与租约状态（同一时间只有一个任务在 worker 线程上运行）
+    private volatile String leasedShadow;
+    private volatile boolean leaseLost;
+
+    /**
+     * 重建阶段
+     */
+    public enum Phase {
+        IDLE,       // 空闲
+        CREATING,   // 创建影子索引
+        LOADING,    // 全表装载
+        FINALIZING, // 刷新、段合并、恢复服务期设置
+        SWAPPING,   // 切换别名
+        COMPLETED,  // 已完成
+        FAILED,     // 失败
+        CANCELLED   // 已取消
+    }
+
+    /**
+     * 重建进度
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ReindexStatus {
+        private Phase phase;
+        private String traceId;
+        private String shadowIndex;
+        private List<String> oldIndices;
+        private Long totalRows;       // 开始时 hotels 表行数
+        private Long scannedRows;     // 已扫描行数
+        private Long indexedDocs;     // 已写入影子索引文档数
+        private Long skippedDocs;     // 无解析器或解析结果为空而跳过的行数
+        private Long failedDocs;      // 重试后仍失败的文档数
+        private Long lastId;          // 扫描游标（hotels.id）
+        private Double percent;       // 扫描进度（0-100）
+        private Double docsPerSecond; // 装载吞吐
+        private List<String> warnings; // 段合并超时、未达到 green 等未中断任务的异常
+        private OffsetDateTime startTime;
+        private OffsetDateTime updatedTime;
+        private OffsetDateTime finishTime;
+        private String message;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+        leaseRenewer.shutdownNow();
+    }
+
+    /**
+     * 启动重建（异步执行）
+     *
+     * @throws IllegalStateException 已有重建任务在运行
+     */
+    public ReindexStatus start() {
+        String traceId = "reindex-" + System.currentTimeMillis();
+        if (!runBucket().setIfAbsent(traceId, LEASE_TTL)) {
+            throw new IllegalStateException("已有重建任务在运行: " + runBucket().get());
+        }
+        cancelBucket().delete();
+        OffsetDateTime now = OffsetDateTime.now();
+        ReindexStatus status = ReindexStatus.builder()
+                .phase(Phase.CREATING)
+                .traceId(traceId)
+                .totalRows(0L)
+                .scannedRows(0L)
+                .indexedDocs(0L)
+                .skippedDocs(0L)
+                .failedDocs(0L)
+                .lastId(0L)
+                .percent(0.0)
+                .docsPerSecond(0.0)
+                .startTime(now)
+                .updatedTime(now)
+                .message("任务启动")
+                .build();
+        saveStatus(status);
+        try {
+            worker.execute(() -> run(status));
+        } catch (RuntimeException e) {
+            runBucket().delete();
+            throw e;
+        }
+        log.info("[REINDEX] 重建任务已提交 traceId={}", traceId);
+        return status;
+    }
+
+    /**
+     * 请求取消（装载期间按页检查，切换别名后不可取消）
+     *
+     * @return 是否有运行中的任务
+     */
+    public boolean cancel() {
+        if (!runBucket().isExists()) {
+            return false;
+        }
+        cancelBucket().set("1", LEASE_TTL);
+        log.info("[REINDEX] 已请求取消重建任务 traceId={}", runBucket().get());
+        return true;
+    }
+
+    /**
+     * 查询进度
+     */
+    public ReindexStatus getStatus() {
+        ReindexStatus status = statusBucket().get();
+        if (status == null) {
+            status = ReindexStatus.builder()
+                    .phase(Phase.IDLE)
+                    .message("无重建记录")
+                    .build();
+        }
+        return status;
+    }
+
+    void run(ReindexStatus status) {
+        String shadow = null;
+        boolean swapped = false;
+        long started = System.currentTimeMillis();
+        leasedShadow = null;
+        leaseLost = false;
+        ScheduledFuture<?> renewal = leaseRenewer.scheduleAtFixedRate(
+                () -> renewLeases(status.getTraceId()), leaseRenewMs, leaseRenewMs, TimeUnit.MILLISECONDS);
+        try {
+            List<String> oldIndices = esHotelIndexAdmin.servingIndices();
+            EsHotelIndexAdmin.ServingSettings serving = resolveServingSettings(oldIndices);
+
+            shadow = esHotelIndexAdmin.createShadowIndex();
+            status.setShadowIndex(shadow);
+            status.setOldIndices(oldIndices);
+            status.setTotalRows(hotelsRepository.count());
+
+            // 开启双写，等待各节点本地缓存刷新后再扫描，保证扫描开始后的变更都会写入影子索引
+            hotelIndexDualWrite.start(shadow, LEASE_TTL);
+            leasedShadow = shadow;
+            Thread.sleep(dualWriteWaitMs);
+            update(status, Phase.LOADING, "装载中");
+
+            load(status, shadow);
+            if (status.getFailedDocs() > maxFailures) {
+                throw new IllegalStateException("失败文档数 " + status.getFailedDocs() + " 超过上限 " + maxFailures);
+            }
+
+            update(status, Phase.FINALIZING, "刷新与段合并");
+            esHotelIndexAdmin.refresh(shadow);
+            if (forceMergeSegments > 0 && !esHotelIndexAdmin.forceMerge(shadow, forceMergeSegments, forceMergeTimeoutMs)) {
+                warn(status, "段合并未在 " + forceMergeTimeoutMs + "ms 内完成，合并在后台继续");
+            }
+            esHotelIndexAdmin.putSettings(shadow, serving.replicas(), serving.refreshInterval());
+            if (!esHotelIndexAdmin.waitForGreen(shadow, greenTimeoutMs)) {
+                if (requireGreen) {
+                    throw new IllegalStateException("影子索引未在 " + greenTimeoutMs + "ms 内达到 green，放弃切换");
+                }
+                warn(status, "影子索引未在 " + greenTimeoutMs + "ms 内达到 green，仍切换别名");
+            }
+            checkCancelled();
+            verifyLeases(status.getTraceId(), shadow);
+
+            update(status, Phase.SWAPPING, "切换别名");
+            esHotelIndexAdmin.swapAliases(oldIndices, shadow);
+            swapped = true;
+            hotelIndexDualWrite.stop();
+
+            status.setFinishTime(OffsetDateTime.now());
+            update(status, Phase.COMPLETED, String.format("重建完成 index=%s docs=%d 耗时=%ds%s",
+                    shadow, status.getIndexedDocs(), (System.currentTimeMillis() - started) / 1000,
+                    status.getWarnings() == null ? "" : "（告警 " + status.getWarnings().size() + " 条，见 warnings）"));
+            log.info("[REINDEX] {}", status.getMessage());
+
+            retire(status, oldIndices, shadow);
+        } catch (CancellationException e) {
+            log.warn("[REINDEX] 重建任务已取消 traceId={} shadow={}", status.getTraceId(), shadow);
+            abort(status, shadow, Phase.CANCELLED, "已取消");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (swapped) {
+                update(status, Phase.COMPLETED, status.getMessage() + "；任务被中断，旧索引未删除");
+            } else {
+                abort(status, shadow, Phase.FAILED, "任务被中断");
+            }
+        } catch (Exception e) {
+            log.error("[REINDEX] 重建失败 traceId={} shadow={} swapped={} err={}",
+                    status.getTraceId(), shadow, swapped, e.getMessage(), e);
+            if (swapped) {
+                update(status, Phase.COMPLETED, "别名已切换，后续步骤失败: " + e.getMessage());
+            } else {
+                abort(status, shadow, Phase.FAILED, "重建失败: " + e.getMessage());
+            }
+        } finally {
+            renewal.cancel(false);
+            leasedShadow = null;
+            try {
+                hotelIndexDualWrite.stop();
+                cancelBucket().delete();
+            } catch (Exception e) {
+                log.warn("[REINDEX] 清理双写标记失败（到期自动失效） err={}", e.getMessage());
+            }
+            runBucket().delete();
+        }
+    }
+
+    /**
+     * 按主键游标分页扫描 hotels 表并批量写入影子索引
+     */
+    private void load(ReindexStatus status, String shadow) throws InterruptedException {
+        long lastId = status.getLastId();
+        long loadStart = System.nanoTime();
+        while (true) {
+            checkCancelled();
+            if (leaseLost) {
+                throw new IllegalStateException("运行租约或双写标记已失效");
+            }
+
+            List<Hotels> page = hotelsRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(pageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            lastId = page.get(page.size() - 1).getId();
+
+            List<Hotels> docs = new ArrayList<>(page.size());
+            Map<Long, HotelStructuredExtractor.Result> parsedMap = new HashMap<>();
+            long skipped = 0;
+            for (Hotels hotels : page) {
+                HotelStructuredExtractor.Result parsed = parse(hotels);
+                if (parsed == null) {
+                    skipped++;
+                    continue;
+                }
+                docs.add(hotels);
+                parsedMap.put(hotels.getHotelId(), parsed);
+            }
+            int failed = indexWithRetry(shadow, docs, parsedMap);
+
+            status.setLastId(lastId);
+            status.setScannedRows(status.getScannedRows() + page.size());
+            status.setSkippedDocs(status.getSkippedDocs() + skipped);
+            status.setIndexedDocs(status.getIndexedDocs() + docs.size() - failed);
+            status.setFailedDocs(status.getFailedDocs() + failed);
+            long total = Math.max(status.getTotalRows(), status.getScannedRows());
+            status.setPercent(total == 0 ? 100.0 : Math.round(status.getScannedRows() * 10000.0 / total) / 100.0);
+            double seconds = Math.max(1e-3, (System.nanoTime() - loadStart) / 1e9);
+            status.setDocsPerSecond(Math.round(status.getIndexedDocs() / seconds * 10) / 10.0);
+            update(status, Phase.LOADING, "装载中");
+
+            if (status.getFailedDocs() > maxFailures) {
+                return;
+            }
+        }
+        log.info("[METRIC][REINDEX] load done scanned={} indexed={} skipped={} failed={} docsPerSecond={}",
+                status.getScannedRows(), status.getIndexedDocs(), status.getSkippedDocs(),
+                status.getFailedDocs(), status.getDocsPerSecond());
+    }
+
+    /**
+     * 解析原文（与 hotel:events 消费一致：无解析器或缺失酒店名称时不建索引）
+     *
+     * @return 解析结果；跳过时返回 null
+     */
+    private HotelStructuredExtractor.Result parse(Hotels hotels) {
+        try {
+            HotelParser parser = parserSelector.select(hotels.getSource(), hotels.getTagSource());
+            if (parser == null) {
+                return null;
+            }
+            String raw;
+            try {
+                raw = hotelRawCodec.read(hotels);
+            } catch (Exception e) {
+                raw = hotels.getRawCompressed(); // 降级：兼容旧数据
+            }
+            HotelStructuredExtractor.Result parsed = parser.parse(raw);
+            if (("Agoda".equalsIgnoreCase(hotels.getSource()) && StrUtil.isBlank(parsed.getNameEn())) ||
+                    ("Elong".equalsIgnoreCase(hotels.getSource()) && StrUtil.isBlank(parsed.getNameCn()))) {
+                return null;
+            }
+            return parsed;
+        } catch (Exception e) {
+            log.warn("[REINDEX] 解析失败，跳过 hotelId={} err={}", hotels.getHotelId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 批量写入影子索引，仅对失败项指数退避重试（200ms, 800ms, ...）
+     *
+     * @return 重试后仍失败的文档数
+     */
+    private int indexWithRetry(String shadow, List<Hotels> docs, Map<Long, HotelStructuredExtractor.Result> parsedMap)
+            throws InterruptedException {
+        List<Hotels> pending = docs;
+        for (int attempt = 0; attempt < bulkRetries && !pending.isEmpty(); attempt++) {
+            if (attempt > 0) {
+                Thread.sleep((long) (200 * Math.pow(4, attempt - 1)));
+            }
+            EsHotelIndexService.BulkResult result = esHotelIndexService.bulkIndex(
+                    shadow,
+                    pending,
+                    s -> parsedMap.getOrDefault(s.getHotelId(), new HotelStructuredExtractor.Result()),
+                    Hotels::getTagSource,
+                    Hotels::getSource
+            );
+            if (result.allSucceeded()) {
+                return 0;
+            }
+            Set<Long> failedIds = result.getFailed().keySet();
+            List<Hotels> next = new ArrayList<>(failedIds.size());
+            for (Hotels hotels : pending) {
+                if (failedIds.contains(hotels.getHotelId())) {
+                    next.add(hotels);
+                }
+            }
+            log.warn("[REINDEX] 批量写入部分失败 attempt={} size={} fail={} sample={}",
+                    attempt + 1, pending.size(), next.size(), result.getFailed().values().iterator().next());
+            pending = next;
+        }
+        return pending.size();
+    }
+
+    /**
+     * 删除旧索引（别名已切换，失败只记录日志）
+     */
+    private void retire(ReindexStatus status, List<String> oldIndices, String shadow) throws InterruptedException {
+        if (!deleteOldIndex || oldIndices.isEmpty()) {
+            return;
+        }
+        Thread.sleep(retireDelayMs);
+        for (String old : oldIndices) {
+            if (old.equals(shadow)) {
+                continue;
+            }
+            try {
+                esHotelIndexAdmin.deleteIndex(old);
+            } catch (Exception e) {
+                log.warn("[REINDEX] 删除旧索引失败 index={} err={}", old, e.getMessage());
+                update(status, Phase.COMPLETED, status.getMessage() + "；旧索引删除失败: " + old);
+            }
+        }
+    }
+
+    /**
+     * 放弃本次重建：停止双写并删除影子索引，别名保持不变
+     */
+    private void abort(ReindexStatus status, String shadow, Phase phase, String message) {
+        if (shadow != null) {
+            try {
+                hotelIndexDualWrite.stop();
+            } catch (Exception e) {
+                log.warn("[REINDEX] 停止双写失败（到期自动失效） err={}", e.getMessage());
+            }
+            try {
+                esHotelIndexAdmin.deleteIndex(shadow);
+            } catch (Exception e) {
+                log.warn("[REINDEX] 删除影子索引失败 index={} err={}", shadow, e.getMessage());
+            }
+        }
+        status.setFinishTime(OffsetDateTime.now());
+        update(status, phase, message);
+    }
+
+    /**
+     * 服务期设置：沿用旧索引的副本数与刷新间隔，未设置时使用配置默认值
+     */
+    private EsHotelIndexAdmin.ServingSettings resolveServingSettings(List<String> oldIndices) {
+        String replicas = null;
+        String refresh = null;
+        if (!oldIndices.isEmpty()) {
+            try {
+                EsHotelIndexAdmin.ServingSettings current = esHotelIndexAdmin.servingSettings(oldIndices.get(0));
+                replicas = current.replicas();
+                refresh = current.refreshInterval();
+            } catch (Exception e) {
+                log.warn("[REINDEX] 读取旧索引设置失败，使用默认值 index={} err={}", oldIndices.get(0), e.getMessage());
+            }
+        }
+        // 旧索引处于装载期设置（上次重建中断）时同样使用默认值
+        if (replicas == null || "0".equals(replicas)) {
+            replicas = servingReplicas;
+        }
+        if (refresh == null || "-1".equals(refresh)) {
+            refresh = servingRefreshInterval;
+        }
+        return new EsHotelIndexAdmin.ServingSettings(replicas, refresh);
+    }
+
+    /**
+     * 续期运行租约与双写标记（续期线程执行）；标记已过期时只记录失效，不重新设置，由切换前校验放弃本次重建
+     */
+    private void renewLeases(String traceId) {
+        try {
+            boolean ok = traceId.equals(runBucket().get()) && runBucket().expire(LEASE_TTL);
+            String shadow = leasedShadow;
+            if (shadow != null) {
+                ok &= hotelIndexDualWrite.renew(shadow, LEASE_TTL);
+            }
+            if (!ok && !leaseLost) {
+                leaseLost = true;
+                log.error("[REINDEX] 运行租约或双写标记已失效 traceId={} shadow={}", traceId, shadow);
+            }
+        } catch (Exception e) {
+            // Redis 暂时不可用：下次续期或切换前校验再判断
+            log.warn("[REINDEX] 租约续期失败 traceId={} err={}", traceId, e.getMessage());
+        }
+    }
+
+    /**
+     * 切换别名前校验：租约与双写标记在整个任务期间未失效，否则影子索引可能缺少失效期间的增量
+     */
+    private void verifyLeases(String traceId, String shadow) {
+        renewLeases(traceId);
+        if (leaseLost || !hotelIndexDualWrite.isActive(shadow) || !traceId.equals(runBucket().get())) {
+            throw new IllegalStateException("运行租约或双写标记已失效，影子索引可能缺少增量，放弃切换");
+        }
+    }
+
+    private void warn(ReindexStatus status, String warning) {
+        log.warn("[REINDEX] {} traceId={}", warning, status.getTraceId());
+        List<String> warnings = status.getWarnings() == null ? new ArrayList<>() : new ArrayList<>(status.getWarnings());
+        warnings.add(warning);
+        status.setWarnings(warnings);
+        saveStatus(status);
+    }
+
+    private void checkCancelled() {
+        if (cancelBucket().isExists()) {
+            throw new CancellationException();
+        }
+    }
+
+    private void update(ReindexStatus status, Phase phase, String message) {
+        status.setPhase(phase);
+        status.setMessage(message);
+        status.setUpdatedTime(OffsetDateTime.now());
+        saveStatus(status);
+    }
+
+    private void saveStatus(ReindexStatus status) {
+        try {
+            statusBucket().set(status, STATUS_TTL_HOURS, TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.warn("[REINDEX] 保存进度失败 err={}", e.getMessage());
+        }
+    }
+
+    private RBucket<ReindexStatus> statusBucket() {
+        return redissonClient.getBucket(STATUS_KEY);
+    }
+
+    private RBucket<String> runBucket() {
+        return redissonClient.getBucket(RUN_KEY);
+    }
+
+    private RBucket<String> cancelBucket() {
+        return redissonClient.getBucket(CANCEL_KEY);
+    }
+}
@@ -0,0 +1,351 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import com.heytrip.hotel.search.domain.entity.Hotels;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * hotels 表原生批量 UPSERT（按数据库方言生成SQL）
+ * - MySQL：INSERT ... ON DUPLICATE KEY UPDATE，内容无变化时不改写 fetched_at/updated_at
+ * - PostgreSQL：INSERT ... ON CONFLICT (source, hotel_id) DO UPDATE ... WHERE IS DISTINCT FROM，内容无变化时不更新
+ * - 结合批前一次性查询已存在的 (source, hotel_id)，为每行给出 新增/更新/无变化 结果
+ * 不开启事务，由调用方控制事务边界。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotelsBulkUpserter {
+
+    /**
+     * 单行 UPSERT 结果
+     */
+    public enum UpsertOutcome {
+        INSERTED, UPDATED, UNCHANGED, SKIPPED, FAILED
+    }
+
+    /**
+     * 批前已存在的记录：主键与内容指纹
+     */
+    public record ExistingRow(long id, String contentHash) {}
+
+    /**
+     * 数据库方言
+     */
+    public enum Dialect {
+        MYSQL, POSTGRESQL
+    }
+
+    /**
+     * 参与比较与更新的业务列（不含唯一键 source/hotel_id 与时间列）
+     */
+    private static final List<Column> CONTENT_COLUMNS = List.of(
+            Column.text("tag_source", Hotels::getTagSource),
+            Column.text("raw_compressed", Hotels::getRawCompressed),
+            Column.bytes("raw_binary", Hotels::getRawBinary),
+            Column.text("hotel_name_cn", Hotels::getHotelNameCn),
+            Column.text("hotel_name_en", Hotels::getHotelNameEn),
+            Column.text("country_cn", Hotels::getCountryCn),
+            Column.text("country_en", Hotels::getCountryEn),
+            Column.text("country_code", Hotels::getCountryCode),
+            Column.text("city_cn", Hotels::getCityCn),
+            Column.text("city_en", Hotels::getCityEn),
+            Column.text("region_cn", Hotels::getRegionCn),
+            Column.text("region_en", Hotels::getRegionEn),
+            Column.text("continent_cn", Hotels::getContinentCn),
+            Column.text("continent_en", Hotels::getContinentEn),
+            Column.text("address_cn", Hotels::getAddressCn),
+            Column.text("address_en", Hotels::getAddressEn),
+            Column.decimal("longitude", Hotels::getLongitude),
+            Column.decimal("latitude", Hotels::getLatitude),
+            Column.text("hotel_group_cn", Hotels::getHotelGroupCn),
+            Column.text("hotel_group_en", Hotels::getHotelGroupEn),
+            Column.text("hotel_brand_cn", Hotels::getHotelBrandCn),
+            Column.text("hotel_brand_en", Hotels::getHotelBrandEn),
+            Column.text("description_cn", Hotels::getDescriptionCn),
+            Column.text("description_en", Hotels::getDescriptionEn),
+            Column.text("new_hotel_name_cn", Hotels::getNewHotelNameCn),
+            Column.text("new_hotel_name_en", Hotels::getNewHotelNameEn),
+            Column.text("accommodation_type", Hotels::getAccommodationType),
+            Column.text("search_enable", Hotels::getSearchEnable),
+            Column.text("tel", Hotels::getTel),
+            Column.text("score", Hotels::getScore),
+            Column.text("content_hash", Hotels::getContentHash)
+    );
+
+    /**
+     * 不参与内容指纹的列：原文以规范化 JSON 参与，指纹列本身除外
+     */
+    private static final Set<String> NON_FINGERPRINT_COLUMNS = Set.of("raw_compressed", "raw_binary", "content_hash");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Dialect dialect;
+    private volatile String upsertSql;
+
+    /**
+     * 批量 UPSERT（调用方负责事务）
+     *
+     * @param rows 待写入行（source、hotelId 非空）
+     * @return JDBC 批量执行的逐行影响行数
+     */
+    public int[] upsert(List<Hotels> rows) {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        OffsetDateTime now = OffsetDateTime.now();
+        return jdbcTemplate.batchUpdate(upsertSql(), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Hotels r = rows.get(i);
+                int idx = 1;
+                ps.setString(idx++, r.getSource());
+                ps.setLong(idx++, r.getHotelId());
+                for (Column c : CONTENT_COLUMNS) {
+                    c.bind(ps, idx++, r);
+                }
+                OffsetDateTime fetchedAt = r.getFetchedAt() != null ? r.getFetchedAt() : now;
+                ps.setTimestamp(idx++, Timestamp.from(fetchedAt.toInstant()));
+                ps.setTimestamp(idx++, Timestamp.from(now.toInstant()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+    }
+
+    /**
+     * 一次查询批次内已存在记录的主键
+     *
+     * @return key(source, hotelId) -> hotels.id
+     */
+    public Map<String, Long> findExistingIds(List<Hotels> rows) {
+        Map<String, ExistingRow> existing = findExisting(rows);
+        Map<String, Long> ids = new HashMap<>(existing.size() * 2);
+        existing.forEach((k, v) -> ids.put(k, v.id()));
+        return ids;
+    }
+
+    /**
+     * 一次查询批次内已存在记录的主键与内容指纹
+     *
+     * @return key(source, hotelId) -> 已存在记录
+     */
+    public Map<String, ExistingRow> findExisting(List<Hotels> rows) {
+        if (rows.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Set<Long> hotelIds = rows.stream().map(Hotels::getHotelId).collect(Collectors.toCollection(LinkedHashSet::new));
+        String placeholders = hotelIds.stream().map(id -> "?").collect(Collectors.joining(","));
+        Map<String, ExistingRow> existing = new HashMap<>(hotelIds.size() * 2);
+        jdbcTemplate.query("SELECT id, source, hotel_id, content_hash FROM hotels WHERE hotel_id IN (" + placeholders + ")",
+                (RowCallbackHandler) rs -> existing.put(key(rs.getString("source"), rs.getLong("hotel_id")),
+                        new ExistingRow(rs.getLong("id"), rs.getString("content_hash"))),
+                hotelIds.toArray());
+        return existing;
+    }
+
+    /**
+     * 清除内容指纹（按 source + hotel_id），使下次同步不再按指纹跳过这些行
+     *
+     * @return JDBC 批量执行的逐行影响行数
+     */
+    public int[] clearContentHash(List<Hotels> rows) {
+        if (rows.isEmpty()) {
+            return new int[0];
+        }
+        return jdbcTemplate.batchUpdate("UPDATE hotels SET content_hash = NULL WHERE source = ? AND hotel_id = ?",
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Hotels r = rows.get(i);
+                        ps.setString(1, r.getSource());
+                        ps.setLong(2, r.getHotelId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                });
+    }
+
+    /**
+     * 参与内容指纹的业务列取值（按列顺序，不含原文与指纹列）
+     */
+    static List<Object> fingerprintValues(Hotels row) {
+        List<Object> values = new ArrayList<>(CONTENT_COLUMNS.size());
+        for (Column c : CONTENT_COLUMNS) {
+            if (!NON_FINGERPRINT_COLUMNS.contains(c.name)) {
+                values.add(c.getter.apply(row));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 根据批前是否存在与影响行数判定单行结果
+     * MySQL：新增=1，更新=2；无变化=0（useAffectedRows=true）或 1（驱动默认 found rows）
+     * PostgreSQL：新增/更新=1，WHERE 条件不满足（无变化）=0
+     * 批量重写导致无法得知影响行数（SUCCESS_NO_INFO）时，已存在行按更新处理，保证下游不漏同步
+     */
+    public UpsertOutcome outcomeOf(boolean existed, int affected) {
+        if (!existed) {
+            return UpsertOutcome.INSERTED;
+        }
+        if (affected == Statement.SUCCESS_NO_INFO) {
+            return UpsertOutcome.UPDATED;
+        }
+        if (dialect() == Dialect.MYSQL) {
+            return affected >= 2 ? UpsertOutcome.UPDATED : UpsertOutcome.UNCHANGED;
+        }
+        return affected > 0 ? UpsertOutcome.UPDATED : UpsertOutcome.UNCHANGED;
+    }
+
+    public static String key(String source, Long hotelId) {
+        return source + ":" + hotelId;
+    }
+
+    /**
+     * 当前数据源方言（首次调用时从连接元数据识别）
+     */
+    public Dialect dialect() {
+        Dialect d = dialect;
+        if (d == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            d = product != null && product.toLowerCase().contains("postgres") ? Dialect.POSTGRESQL : Dialect.MYSQL;
+            dialect = d;
+            log.info("[SINK] hotels 批量UPSERT方言识别 product={} dialect={}", product, d);
+        }
+        return d;
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            sql = dialect() == Dialect.POSTGRESQL ? buildPostgresSql() : buildMysqlSql();
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    private static String insertPrefix() {
+        List<String> cols = new ArrayList<>();
+        cols.add("source");
+        cols.add("hotel_id");
+        CONTENT_COLUMNS.forEach(c -> cols.add(c.name));
+        cols.add("fetched_at");
+        cols.add("updated_at");
+        String placeholders = cols.stream().map(c -> "?").collect(Collectors.joining(", "));
+        return "INSERT INTO hotels (" + String.join(", ", cols) + ") VALUES (" + placeholders + ")";
+    }
+
+    /**
+     * MySQL：时间列的赋值放在最前，在业务列被覆盖之前判断内容是否变化
+     * 字符串列按二进制比较，避免 utf8mb4_unicode_ci 忽略大小写导致更新丢失
+     */
+    static String buildMysqlSql() {
+        String unchanged = CONTENT_COLUMNS.stream()
+                .map(c -> c.kind == Kind.TEXT
+                        ? "BINARY " + c.name + " <=> BINARY VALUES(" + c.name + ")"
+                        : c.name + " <=> VALUES(" + c.name + ")")
+                .collect(Collectors.joining(" AND "));
+        StringBuilder sb = new StringBuilder(insertPrefix()).append(" ON DUPLICATE KEY UPDATE ");
+        sb.append("fetched_at = IF(").append(unchanged).append(", fetched_at, VALUES(fetched_at)), ");
+        sb.append("updated_at = IF(").append(unchanged).append(", updated_at, VALUES(updated_at)), ");
+        sb.append(CONTENT_COLUMNS.stream()
+                .map(c -> c.name + " = VALUES(" + c.name + ")")
+                .collect(Collectors.joining(", ")));
+        return sb.toString();
+    }
+
+    /**
+     * PostgreSQL：仅在业务列有变化时执行更新，无变化行影响行数为0
+     */
+    static String buildPostgresSql() {
+        String sets = CONTENT_COLUMNS.stream()
+                .map(c -> c.name + " = EXCLUDED." + c.name)
+                .collect(Collectors.joining(", "));
+        String current = CONTENT_COLUMNS.stream().map(c -> "hotels." + c.name).collect(Collectors.joining(", "));
+        String incoming = CONTENT_COLUMNS.stream().map(c -> "EXCLUDED." + c.name).collect(Collectors.joining(", "));
+        return insertPrefix()
+                + " ON CONFLICT (source, hotel_id) DO UPDATE SET " + sets
+                + ", fetched_at = EXCLUDED.fetched_at, updated_at = EXCLUDED.updated_at"
+                + " WHERE (" + current + ") IS DISTINCT FROM (" + incoming + ")";
+    }
+
+    private enum Kind {
+        TEXT, DECIMAL, BYTES
+    }
+
+    /**
+     * 业务列描述：列名、取值函数与类型
+     */
+    private static final class Column {
+        private final String name;
+        private final Function<Hotels, Object> getter;
+        private final Kind kind;
+
+        private Column(String name, Function<Hotels, Object> getter, Kind kind) {
+            this.name = name;
+            this.getter = getter;
+            this.kind = kind;
+        }
+
+        static Column text(String name, Function<Hotels, String> getter) {
+            return new Column(name, getter::apply, Kind.TEXT);
+        }
+
+        static Column decimal(String name, Function<Hotels, BigDecimal> getter) {
+            return new Column(name, getter::apply, Kind.DECIMAL);
+        }
+
+        static Column bytes(String name, Function<Hotels, byte[]> getter) {
+            return new Column(name, getter::apply, Kind.BYTES);
+        }
+
+        void bind(PreparedStatement ps, int idx, Hotels row) throws SQLException {
+            Object v = getter.apply(row);
+            switch (kind) {
+                case TEXT -> ps.setString(idx, (String) v);
+                case BYTES -> {
+                    if (v == null) {
+                        ps.setNull(idx, Types.BINARY);
+                    } else {
+                        ps.setBytes(idx, (byte[]) v);
+                    }
+                }
+                case DECIMAL -> {
+                    if (v == null) {
+                        ps.setNull(idx, Types.DECIMAL);
+                    } else {
+                        ps.setBigDecimal(idx, (BigDecimal) v);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -2,139 +2,260 @@ package com.heytrip.hotel.search.ingest.service;
 
 import com.heytrip.hotel.search.domain.entity.Hotels;
 import com.heytrip.hotel.search.domain.entity.SyncLogDetail;
-import com.heytrip.hotel.search.domain.repository.HotelsRepository;
 import com.heytrip.hotel.search.domain.repository.SyncLogDetailRepository;
 import com.heytrip.hotel.search.domain.repository.SyncLogRepository;
+import com.heytrip.hotel.search.ingest.service.HotelsBulkUpserter.ExistingRow;
+import com.heytrip.hotel.search.ingest.service.HotelsBulkUpserter.UpsertOutcome;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Statement;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 /**
  * 酒店详情入库事务服务
  * 职责：
- * - 按提交批次大小分批入库
- * - 批次采用显式新事务提交，避免长事务
- * - 失败时写入 sync_log_detail，统计成功/失败并回写 sync_log
+ * - 按提交批次大小分批入库，批内一次查询已存在主键与内容指纹 + 原生批量 UPSERT（HotelsBulkUpserter，MySQL/PostgreSQL）
+ * - 内容指纹与库中一致的行跳过写库（不压缩原文、不 UPSERT），标记 contentUnchanged 供调用方跳过索引事件
+ * - 子批采用显式新事务提交（TransactionTemplate），避免长事务；失败子批二分定位失败行
+ * - 失败时写入 sync_log_detail，统计 新增/更新/无变化/跳过/失败 并回写 sync_log
+ * - 索引事件发布失败的行清除内容指纹，下次同步重新写库并发布事件
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class HotelsSinkService {
 
-    private final HotelsRepository hotelsRepository;
+    private final HotelsBulkUpserter hotelsBulkUpserter;
+    private final PlatformTransactionManager transactionManager;
     private final SyncLogRepository syncLogRepository;
     private final SyncLogDetailRepository syncLogDetailRepository;
     private final AsyncLogService asyncLogService;
+    private final HotelRawCodec hotelRawCodec;
 
     /**
      * 批量入库（分批提交）
-     * 注意：内部调用同类上的 @Transactional(REQUIRES_NEW) 方法可能因自调用不生效；
-     * 当前实现用于编译运行通过，必要时可通过 AOP 自注入代理或拆分到独立 Bean 保证新事务。
      * @param rows          需入库的数据行
      * @param submitBatch   提交批次大小（例如 1000）
      * @param syncLogId     对应的汇总日志ID（可为空）
+     * @return 新增/更新/无变化/跳过/失败 汇总
      */
-    public void saveInBatches(List<Hotels> rows, int submitBatch, Long syncLogId) {
-        if (rows == null || rows.isEmpty()) return;
+    public SinkResult saveInBatches(List<Hotels> rows, int submitBatch, Long syncLogId) {
+        if (rows == null || rows.isEmpty()) return SinkResult.EMPTY;
         List<Hotels> buf = new ArrayList<>(submitBatch);
-        long ok = 0, fail = 0;
+        SinkResult total = SinkResult.EMPTY;
         for (Hotels r : rows) {
             buf.add(r);
             if (buf.size() >= submitBatch) {
-                long[] inc = persistOneBatch(buf, syncLogId);
-                ok += inc[0];
-                fail += inc[1];
+                total = total.plus(persistOneBatch(buf, syncLogId));
                 buf.clear();
             }
         }
         if (!buf.isEmpty()) {
-            long[] inc = persistOneBatch(buf, syncLogId);
-            ok += inc[0];
-            fail += inc[1];
+            total = total.plus(persistOneBatch(buf, syncLogId));
         }
         // 汇总更新由 persistOneBatch 逐批完成；此处不再重复统计，避免双重累计
+        log.debug("[SINK] 批量入库完成 inserted={} updated={} unchanged={} skipped={} failed={}",
+                total.inserted(), total.updated(), total.unchanged(), total.skipped(), total.failed());
+        return total;
     }
 
     /**
-     * 单批次持久化（新事务）
+     * 单批次持久化：一次查询已存在主键与内容指纹 + 原生批量 UPSERT
+     * 指纹一致的行直接跳过；其余行每个子批在独立新事务中执行，子批失败时二分拆分重试，仅最终定位到的单行记为失败
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    protected long[] persistOneBatch(List<Hotels> batch, Long syncLogId) {
-        long ok = 0, fail = 0;
+    protected SinkResult persistOneBatch(List<Hotels> batch, Long syncLogId) {
         List<SyncLogDetail> batchFailureDetails = new ArrayList<>();
-        try {
-            // Upsert逻辑：基于 source + hotelId 判断是否已存在
-            // 存在则更新现有记录的ID，不存在则创建新记录
-            List<Hotels> toSave = new ArrayList<>(batch.size());
-            for (Hotels r : batch) {
-                if (r.getHotelId() != null && r.getSource() != null) {
-                    // 根据 source + hotelId 查询已存在的记录
-                    Optional<Hotels> existing = hotelsRepository.findBySourceAndHotelId(r.getSource(), r.getHotelId());
-                    if (existing.isPresent()) {
-                        // 存在则更新：设置现有记录的ID，JPA会执行UPDATE
-                        r.setId(existing.get().getId());
-                    }
-                    // 不存在则插入：ID为null，JPA会执行INSERT
-                }
-                toSave.add(r);
-            }
-            if (!toSave.isEmpty()) {
-                hotelsRepository.saveAll(toSave);
-                ok = toSave.size();
+        List<Hotels> valid = new ArrayList<>(batch.size());
+        long invalid = 0;
+        for (Hotels r : batch) {
+            if (r.getHotelId() != null && r.getSource() != null) {
+                valid.add(r);
+            } else {
+                invalid++;
+                addFailure(batchFailureDetails, syncLogId, r, "source/hotelId is null");
             }
+        }
+
+        Map<String, ExistingRow> existing = Map.of();
+        try {
+            existing = hotelsBulkUpserter.findExisting(valid);
         } catch (Exception e) {
-            log.error("[SINK] 批量保存失败，降级为逐条保存", e);
-            // 降级逐条保存，记录失败明细
-            for (Hotels r : batch) {
-                try {
-                    // Upsert逻辑：与批量保存保持一致
-                    if (r.getHotelId() != null && r.getSource() != null) {
-                        Optional<Hotels> existing = hotelsRepository.findBySourceAndHotelId(r.getSource(), r.getHotelId());
-                        if (existing.isPresent()) {
-                            r.setId(existing.get().getId());
-                        }
-                    }
-                    hotelsRepository.save(r);
-                    ok++;
-                } catch (Exception ex) {
-                    fail++;
-                    if (syncLogId != null) {
-                        SyncLogDetail d = SyncLogDetail.builder()
-                            .syncLogId(syncLogId)
-                            .hotelId(r.getHotelId())
-                            .stage("SINK")
-                            .errorCode("DB_SAVE_ERROR")
-                            .errorMessage(ex.getMessage())
-                            .createdAt(OffsetDateTime.now())
-                            .build();
-                        batchFailureDetails.add(d);
-                    }
-                }
+            log.error("[SINK] 查询已存在记录失败，按全部新增判定结果", e);
+        }
+
+        // 内容指纹与库中一致：不压缩原文、不写库
+        List<Hotels> toWrite = new ArrayList<>(valid.size());
+        long skipped = 0;
+        for (Hotels r : valid) {
+            ExistingRow e = existing.get(HotelsBulkUpserter.key(r.getSource(), r.getHotelId()));
+            if (e != null && r.getContentHash() != null && r.getContentHash().equals(e.contentHash())) {
+                r.setId(e.id());
+                r.setContentUnchanged(true);
+                r.setRawContent(null);
+                skipped++;
+            } else {
+                compressRaw(r);
+                toWrite.add(r);
             }
         }
+
+        UpsertOutcome[] outcomes = new UpsertOutcome[toWrite.size()];
+        upsertRange(toWrite, 0, toWrite.size(), existing, outcomes, batchFailureDetails, syncLogId);
+        backfillIds(toWrite, outcomes, existing);
+
+        long inserted = 0, updated = 0, unchanged = 0, fail = invalid;
+        for (UpsertOutcome o : outcomes) {
+            switch (o) {
+                case INSERTED -> inserted++;
+                case UPDATED -> updated++;
+                case UNCHANGED -> unchanged++;
+                default -> fail++;
+            }
+        }
+        SinkResult result = new SinkResult(inserted, updated, unchanged, skipped, fail);
+
         // 异步批量保存失败详情
         if (!batchFailureDetails.isEmpty()) {
             asyncLogService.saveSyncLogDetailsAsync(batchFailureDetails);
         }
         // 单批次统计累加：仅在提供 syncLogId 时执行，避免不必要的 DB 写
         if (syncLogId != null) {
-            final long okF = ok;
-            final long failF = fail;
+            final long okF = result.succeeded();
             syncLogRepository.findById(syncLogId).ifPresent(sl -> {
                 sl.setSuccessCount(nvl(sl.getSuccessCount()) + okF);
-                sl.setFailCount(nvl(sl.getFailCount()) + failF);
+                sl.setFailCount(nvl(sl.getFailCount()) + result.failed());
                 sl.setTotalDetails(nvl(sl.getTotalDetails()) + okF);
+                sl.setInsertCount(nvl(sl.getInsertCount()) + result.inserted());
+                sl.setUpdateCount(nvl(sl.getUpdateCount()) + result.updated());
+                sl.setUnchangedCount(nvl(sl.getUnchangedCount()) + result.unchanged());
+                sl.setSkippedCount(nvl(sl.getSkippedCount()) + result.skipped());
                 syncLogRepository.save(sl);
             });
         }
-        return new long[]{ok, fail};
+        return result;
+    }
+
+    /**
+     * 清除索引事件发布失败行的内容指纹
+     * 指纹已随 UPSERT 提交，若保留则下次同步按指纹跳过该行、不再发布事件，索引将一直停留在旧内容
+     * @param rows 事件未发布的行（source、hotelId 非空）
+     */
+    public void clearContentHash(List<Hotels> rows) {
+        if (rows == null || rows.isEmpty()) return;
+        try {
+            hotelsBulkUpserter.clearContentHash(rows);
+            log.warn("[SINK] 事件发布失败，已清除内容指纹 count={}", rows.size());
+        } catch (Exception e) {
+            log.error("[SINK] 清除内容指纹失败 count={} hotelIds={}", rows.size(),
+                    rows.stream().map(Hotels::getHotelId).toList(), e);
+        }
+    }
+
+    /**
+     * 在新事务中 UPSERT [from, to) 区间；失败则二分拆分，直到定位出失败的单行
+     * 子批事务整体回滚，拆分重试时各行结果仍可按批前存在性准确判定
+     */
+    private void upsertRange(List<Hotels> rows, int from, int to, Map<String, ExistingRow> existing,
+                             UpsertOutcome[] outcomes, List<SyncLogDetail> failures, Long syncLogId) {
+        if (from >= to) return;
+        List<Hotels> sub = rows.subList(from, to);
+        try {
+            int[] affected = newTransaction().execute(status -> hotelsBulkUpserter.upsert(sub));
+            for (int i = 0; i < sub.size(); i++) {
+                Hotels r = sub.get(i);
+                boolean existed = existing.containsKey(HotelsBulkUpserter.key(r.getSource(), r.getHotelId()));
+                int count = affected != null && i < affected.length ? affected[i] : Statement.SUCCESS_NO_INFO;
+                outcomes[from + i] = hotelsBulkUpserter.outcomeOf(existed, count);
+            }
+        } catch (Exception e) {
+            if (to - from == 1) {
+                log.warn("[SINK] 单行入库失败 source={} hotelId={} err={}", sub.get(0).getSource(), sub.get(0).getHotelId(), e.getMessage());
+                outcomes[from] = UpsertOutcome.FAILED;
+                addFailure(failures, syncLogId, sub.get(0), e.getMessage());
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            log.warn("[SINK] 子批入库失败，二分拆分重试 range=[{}, {}) err={}", from, to, e.getMessage());
+            upsertRange(rows, from, mid, existing, outcomes, failures, syncLogId);
+            upsertRange(rows, mid, to, existing, outcomes, failures, syncLogId);
+        }
+    }
+
+    /**
+     * 回填 hotels.id：已存在行取批前查询结果，新增行再一次查询获取自增主键
+     */
+    private void backfillIds(List<Hotels> rows, UpsertOutcome[] outcomes, Map<String, ExistingRow> existing) {
+        List<Hotels> insertedRows = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Hotels r = rows.get(i);
+            ExistingRow e = existing.get(HotelsBulkUpserter.key(r.getSource(), r.getHotelId()));
+            if (e != null) {
+                r.setId(e.id());
+            } else if (outcomes[i] == UpsertOutcome.INSERTED) {
+                insertedRows.add(r);
+            }
+        }
+        if (insertedRows.isEmpty()) return;
+        try {
+            Map<String, Long> generated = hotelsBulkUpserter.findExistingIds(insertedRows);
+            for (Hotels r : insertedRows) {
+                r.setId(generated.get(HotelsBulkUpserter.key(r.getSource(), r.getHotelId())));
+            }
+        } catch (Exception e) {
+            // 主键仅用于事件中的 rowId（可空），查询失败不影响入库结果
+            log.warn("[SINK] 回填新增记录主键失败 count={} err={}", insertedRows.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 原文压缩（按配置算法，写入 raw_compressed 或 raw_binary），压缩后释放原文
+     */
+    private void compressRaw(Hotels r) {
+        if (r.getRawContent() == null) return;
+        hotelRawCodec.write(r, r.getRawContent());
+        r.setRawContent(null);
+    }
+
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate tt = new TransactionTemplate(transactionManager);
+        tt.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return tt;
+    }
+
+    private void addFailure(List<SyncLogDetail> failures, Long syncLogId, Hotels r, String message) {
+        if (syncLogId == null) return;
+        failures.add(SyncLogDetail.builder()
+                .syncLogId(syncLogId)
+                .hotelId(r.getHotelId())
+                .stage("SINK")
+                .errorCode("DB_SAVE_ERROR")
+                .errorMessage(message)
+                .createdAt(OffsetDateTime.now())
+                .build());
+    }
+
+    /**
+     * 入库结果汇总
+     */
+    public record SinkResult(long inserted, long updated, long unchanged, long skipped, long failed) {
+        public static final SinkResult EMPTY = new SinkResult(0, 0, 0, 0, 0);
+
+        public long succeeded() {
+            return inserted + updated + unchanged + skipped;
+        }
+
+        public SinkResult plus(SinkResult o) {
+            return new SinkResult(inserted + o.inserted, updated + o.updated, unchanged + o.unchanged,
+                    skipped + o.skipped, failed + o.failed);
+        }
     }
 
     private long nvl(Long v) { return v == null ? 0 : v; }
@@ -4,7 +4,6 @@ import cn.hutool.core.util.StrUtil;
 import com.heytrip.hotel.search.common.event.HotelEvent;
 import com.heytrip.hotel.search.common.parser.HotelParser;
 import com.heytrip.hotel.search.common.parser.HotelParserSelector;
-import com.heytrip.hotel.search.common.util.GzipCompressor;
 import com.heytrip.hotel.search.common.util.HotelStructuredExtractor;
 import com.heytrip.hotel.search.domain.entity.Hotels;
 import com.heytrip.hotel.search.domain.entity.SyncLogDetail;
@@ -33,6 +32,7 @@ public class IndexBackfillService {
     private final HotelParserSelector parserSelector;
     private final RedisStreamPublisher redisStreamPublisher;
     private final EsHotelIndexService esHotelIndexService;
+    private final HotelRawCodec hotelRawCodec;
 
     // Redis Stream 死信队列
     private static final String DLQ = "hotel:events:dlq";
@@ -49,15 +49,13 @@ public class IndexBackfillService {
                 return;
             }
             
-            // 解压 GZIP 压缩的原始数据（Base64 -> GZIP -> 原文）
-            String rawCompressed = hotels.getRawCompressed();
+            // 解压原始数据（raw_binary 或 Base64 的 raw_compressed，算法按数据头部识别）
             String raw;
             try {
-                byte[] compressedBytes = Base64.getDecoder().decode(rawCompressed);
-                raw = GzipCompressor.decompressToString(compressedBytes);
+                raw = hotelRawCodec.read(hotels);
             } catch (Exception e) {
                 log.warn("[IndexBackfill] 解压失败，尝试直接使用原文 hotelId={} err={}", evt.getHotelId(), e.getMessage());
-                raw = rawCompressed; // 降级：如果解压失败，尝试直接使用（兼容旧数据）
+                raw = hotels.getRawCompressed(); // 降级：如果解压失败，尝试直接使用（兼容旧数据）
             }
             
             HotelParser parser = parserSelector.select(evt.getProviderSource(), evt.getTagSource());
@@ -162,15 +160,13 @@ public class IndexBackfillService {
                     cntNotFound++;
                     continue;
                 }
-                // 解压 GZIP 压缩的原始数据（Base64 -> GZIP -> 原文）
-                String rawCompressed = hotels.getRawCompressed();
+                // 解压原始数据（raw_binary 或 Base64 的 raw_compressed，算法按数据头部识别）
                 String raw;
                 try {
-                    byte[] compressedBytes =Base64.getDecoder().decode(rawCompressed);
-                    raw = GzipCompressor.decompressToString(compressedBytes);
+                    raw = hotelRawCodec.read(hotels);
                 } catch (Exception e) {
                     log.warn("[IndexBackfill] 批量解压失败，尝试直接使用原文 hotelId={} err={}", evt.getHotelId(), e.getMessage());
-                    raw = rawCompressed; // 降级：如果解压失败，尝试直接使用（兼容旧数据）
+                    raw = hotels.getRawCompressed(); // 降级：如果解压失败，尝试直接使用（兼容旧数据）
                 }
                 
                 HotelParser parser = parserSelector.select(evt.getProviderSource(), evt.getTagSource());
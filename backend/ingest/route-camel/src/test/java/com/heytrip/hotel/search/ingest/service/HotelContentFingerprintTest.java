@@ -0,0 +1,75 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import com.heytrip.hotel.search.domain.entity.Hotels;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 酒店内容指纹测试（原文规范化、业务列参与计算）
+ */
+class HotelContentFingerprintTest {
+
+    @Test
+    void testKeyOrderAndWhitespaceDoNotChangeFingerprint() {
+        String a = "{\"hotelId\":1,\"name\":\"测试酒店\",\"rooms\":[{\"id\":2,\"bed\":\"K\"}]}";
+        String b = "{\n  \"rooms\" : [ { \"bed\" : \"K\", \"id\" : 2 } ],\n  \"name\" : \"测试酒店\",\n  \"hotelId\" : 1\n}";
+
+        assertEquals(HotelContentFingerprint.of(a, row()), HotelContentFingerprint.of(b, row()));
+        assertEquals(32, HotelContentFingerprint.of(a, row()).length());
+    }
+
+    @Test
+    void testRawChangeChangesFingerprint() {
+        String a = "{\"hotelId\":1,\"tel\":\"123\"}";
+        String b = "{\"hotelId\":1,\"tel\":\"124\"}";
+
+        assertNotEquals(HotelContentFingerprint.of(a, row()), HotelContentFingerprint.of(b, row()));
+    }
+
+    @Test
+    void testManualFieldChangeChangesFingerprint() {
+        String raw = "{\"hotelId\":1}";
+        Hotels corrected = row();
+        corrected.setNewHotelNameCn("人工修正名称");
+
+        assertNotEquals(HotelContentFingerprint.of(raw, row()), HotelContentFingerprint.of(raw, corrected));
+    }
+
+    @Test
+    void testNullAndEmptyFieldsAreDistinct() {
+        String raw = "{\"hotelId\":1}";
+        Hotels empty = row();
+        empty.setTel("");
+
+        assertNotEquals(HotelContentFingerprint.of(raw, row()), HotelContentFingerprint.of(raw, empty));
+    }
+
+    @Test
+    void testDecimalScaleIgnored() {
+        String raw = "{\"hotelId\":1}";
+        Hotels a = row();
+        a.setLongitude(new BigDecimal("121.5"));
+        Hotels b = row();
+        b.setLongitude(new BigDecimal("121.5000000"));
+
+        assertEquals(HotelContentFingerprint.of(raw, a), HotelContentFingerprint.of(raw, b));
+    }
+
+    @Test
+    void testInvalidJsonFallsBackToRawText() {
+        assertEquals("not json {", HotelContentFingerprint.canonicalJson("not json {"));
+        assertEquals("", HotelContentFingerprint.canonicalJson(null));
+    }
+
+    private static Hotels row() {
+        Hotels h = new Hotels();
+        h.setSource("Elong");
+        h.setTagSource("CN");
+        h.setHotelId(1L);
+        h.setHotelNameCn("测试酒店");
+        return h;
+    }
+}
@@ -0,0 +1,203 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 详情并发拉取测试（本地桩供应商，不依赖真实接口）
+ * 只校验并发上限、结果顺序与限流器状态，不断言耗时；各并发上限下的 hotels/s 见 benchmarks 模块 HotelDetailFetchBenchmark
+ */
+class HotelDetailFetcherTest {
+
+    private static final int BATCH_SIZE = 20;
+    private static final int BATCHES = 40;
+    private static final long LATENCY_MS = 50;
+
+    private HttpServer stubServer;
+    private HttpClient httpClient;
+    private String baseUrl;
+
+    /** 超过该并发时桩接口返回 429（≤0 表示不限制） */
+    private volatile int supplierQuota;
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger peakConcurrent = new AtomicInteger();
+    private final AtomicInteger throttled = new AtomicInteger();
+    /** 非空时请求在此等待，直到同时在途的请求数达到 gate 计数（校验确实并发） */
+    private volatile CountDownLatch gate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stubServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stubServer.setExecutor(Executors.newFixedThreadPool(32));
+        stubServer.createContext("/api/StandardHotel/GetHotelOrigContent", exchange -> {
+            int now = concurrent.incrementAndGet();
+            peakConcurrent.accumulateAndGet(now, Math::max);
+            try {
+                int status = 200;
+                String body;
+                if (supplierQuota > 0 && now > supplierQuota) {
+                    throttled.incrementAndGet();
+                    status = 429;
+                    body = "{\"code\":429}";
+                } else {
+                    CountDownLatch g = gate;
+                    if (g != null) {
+                        g.countDown();
+                        g.await(5, TimeUnit.SECONDS);
+                    }
+                    Thread.sleep(LATENCY_MS);
+                    body = "{\"code\":200,\"data\":[]}";
+                }
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        });
+        stubServer.start();
+        baseUrl = "http://127.0.0.1:" + stubServer.getAddress().getPort();
+        httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubServer.stop(0);
+    }
+
+    @Test
+    void testReachesConfiguredConcurrency() throws Exception {
+        for (int concurrency : new int[]{1, 4, 8}) {
+            // 上一轮响应已返回但桩线程可能尚未退出计数
+            while (concurrent.get() > 0) {
+                Thread.sleep(1);
+            }
+            peakConcurrent.set(0);
+            // 前 concurrency 个请求互相等待：只有拉取器确实并发发出 concurrency 个请求时才会同时放行
+            gate = new CountDownLatch(concurrency);
+            HotelDetailFetcher fetcher = newFetcher(concurrency);
+            try {
+                List<List<Long>> batches = batches(BATCHES);
+                try (HotelDetailFetcher.Session session = fetcher.open(batches, concurrency * 2, this::detailUrl, this::get, retryPolicy())) {
+                    for (int i = 0; i < batches.size(); i++) {
+                        assertFalse(session.await(i).failed());
+                    }
+                }
+                assertEquals(0, gate.getCount(), "未达到并发上限 " + concurrency);
+                assertEquals(concurrency, peakConcurrent.get());
+                // 无 429 时上限不收缩，结束后无在途请求
+                assertEquals(concurrency, fetcher.getLimiter().getLimit());
+                assertEquals(0, fetcher.getLimiter().getInFlight());
+            } finally {
+                fetcher.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void testResultsDeliveredInBatchOrder() throws Exception {
+        HotelDetailFetcher fetcher = newFetcher(8);
+        try {
+            List<List<Long>> batches = batches(BATCHES);
+            try (HotelDetailFetcher.Session session = fetcher.open(batches, 16, this::detailUrl, this::get, retryPolicy())) {
+                for (int i = 0; i < batches.size(); i++) {
+                    HotelDetailFetcher.FetchResult result = session.await(i);
+                    assertFalse(result.failed());
+                    assertEquals(batches.get(i), result.hotelIds());
+                }
+            }
+            assertTrue(peakConcurrent.get() <= 8);
+            assertEquals(0, fetcher.getLimiter().getInFlight());
+        } finally {
+            fetcher.shutdown();
+        }
+    }
+
+    @Test
+    void testLimiterBacksOffOn429() throws Exception {
+        supplierQuota = 2;
+        HotelDetailFetcher fetcher = newFetcher(8);
+        try {
+            List<List<Long>> batches = batches(BATCHES);
+            int failed = 0;
+            try (HotelDetailFetcher.Session session = fetcher.open(batches, 16, this::detailUrl, this::get, retryPolicy())) {
+                for (int i = 0; i < batches.size(); i++) {
+                    if (session.await(i).failed()) {
+                        failed++;
+                    }
+                }
+            }
+            assertTrue(throttled.get() > 0);
+            // 触发429后并发上限收缩，重试后全部批次成功
+            assertTrue(fetcher.getLimiter().getLimit() < 8);
+            assertEquals(0, failed);
+        } finally {
+            fetcher.shutdown();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private HotelDetailFetcher newFetcher(int maxConcurrency) {
+        HotelDetailFetcher fetcher = new HotelDetailFetcher(mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(fetcher, "maxConcurrency", maxConcurrency);
+        ReflectionTestUtils.setField(fetcher, "minConcurrency", 1);
+        ReflectionTestUtils.setField(fetcher, "backoffRatio", 0.5);
+        ReflectionTestUtils.setField(fetcher, "decreaseCooldownMs", 200L);
+        fetcher.init();
+        return fetcher;
+    }
+
+    private HotelDetailFetcher.RetryPolicy retryPolicy() {
+        return new HotelDetailFetcher.RetryPolicy(8, 20, 10, 20);
+    }
+
+    private List<List<Long>> batches(int count) {
+        List<List<Long>> batches = new ArrayList<>();
+        long hotelId = 20_000_000L;
+        for (int b = 0; b < count; b++) {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                ids.add(hotelId++);
+            }
+            batches.add(ids);
+        }
+        return batches;
+    }
+
+    private String detailUrl(List<Long> ids) {
+        return baseUrl + "/api/StandardHotel/GetHotelOrigContent?hotelIds=" + ids.get(0);
+    }
+
+    private HotelDetailFetcher.HttpReply get(String url) throws Exception {
+        HttpResponse<String> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(5)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        return new HotelDetailFetcher.HttpReply(response.statusCode(), response.body());
+    }
+}
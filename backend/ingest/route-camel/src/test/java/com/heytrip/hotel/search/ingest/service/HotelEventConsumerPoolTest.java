@@ -0,0 +1,127 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import com.heytrip.hotel.search.common.event.HotelEvent;
+import com.heytrip.hotel.search.infra.redis.RedisStreamConsumer;
+import com.heytrip.hotel.search.infra.redis.RedisStreamPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.AutoClaimResult;
+import org.redisson.api.StreamMessageId;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * hotel:events 消费者池测试（批量确认、闲置消息认领翻页、投递次数超限转死信）
+ */
+class HotelEventConsumerPoolTest {
+
+    private RedisStreamConsumer redisStreamConsumer;
+    private IndexBackfillService indexBackfillService;
+    private RedisStreamPublisher redisStreamPublisher;
+    private HotelEventConsumerPool pool;
+
+    @BeforeEach
+    void setUp() {
+        redisStreamConsumer = mock(RedisStreamConsumer.class);
+        indexBackfillService = mock(IndexBackfillService.class);
+        redisStreamPublisher = mock(RedisStreamPublisher.class);
+        pool = new HotelEventConsumerPool(redisStreamConsumer, indexBackfillService, redisStreamPublisher);
+        ReflectionTestUtils.setField(pool, "batchSize", 2);
+        ReflectionTestUtils.setField(pool, "claimMinIdleMs", 1000L);
+        ReflectionTestUtils.setField(pool, "staleConsumerIdleMs", 60_000L);
+        ReflectionTestUtils.setField(pool, "maxDeliveries", 3);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchAckedWithSingleCall() {
+        Map<StreamMessageId, Map<String, String>> batch = messages(1, 3);
+
+        pool.handle(batch);
+
+        ArgumentCaptor<List<HotelEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(indexBackfillService).processEventsBatch(events.capture());
+        assertEquals(3, events.getValue().size());
+        assertEquals(20_000_001L, events.getValue().get(0).getHotelId());
+
+        ArgumentCaptor<Collection<StreamMessageId>> acked = ArgumentCaptor.forClass(Collection.class);
+        verify(redisStreamConsumer, times(1)).ackBatch(eq(HotelEventConsumerPool.STREAM), eq(HotelEventConsumerPool.GROUP), acked.capture());
+        assertEquals(batch.keySet().stream().toList(), List.copyOf(acked.getValue()));
+        verify(redisStreamConsumer, never()).ack(any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testClaimPagesThroughPendingEntries() {
+        ((AtomicBoolean) ReflectionTestUtils.getField(pool, "running")).set(true);
+        AutoClaimResult<String, String> page1 = mock(AutoClaimResult.class);
+        when(page1.getMessages()).thenReturn(messages(1, 2));
+        when(page1.getNextId()).thenReturn(new StreamMessageId(3, 0));
+        AutoClaimResult<String, String> page2 = mock(AutoClaimResult.class);
+        when(page2.getMessages()).thenReturn(messages(3, 1));
+        when(page2.getNextId()).thenReturn(new StreamMessageId(0, 0));
+        when(redisStreamConsumer.autoClaim(any(), any(), any(), any(), any(), anyInt())).thenReturn(page1, page2);
+
+        pool.claimIdle("indexer-test-claim");
+
+        ArgumentCaptor<StreamMessageId> starts = ArgumentCaptor.forClass(StreamMessageId.class);
+        verify(redisStreamConsumer, times(2)).autoClaim(eq(HotelEventConsumerPool.STREAM), eq(HotelEventConsumerPool.GROUP),
+                eq("indexer-test-claim"), any(), starts.capture(), eq(2));
+        assertEquals(List.of(new StreamMessageId(0, 0), new StreamMessageId(3, 0)), starts.getAllValues());
+        verify(indexBackfillService, times(2)).processEventsBatch(anyList());
+        verify(redisStreamConsumer, times(2)).ackBatch(any(), any(), anyCollection());
+        verify(redisStreamConsumer).removeIdleConsumers(any(), any(), any(), argThat(keep -> keep.contains("indexer-test-claim")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testClaimDeadLettersExhaustedMessages() {
+        ((AtomicBoolean) ReflectionTestUtils.getField(pool, "running")).set(true);
+        AutoClaimResult<String, String> page = mock(AutoClaimResult.class);
+        when(page.getMessages()).thenReturn(messages(1, 2));
+        when(page.getNextId()).thenReturn(new StreamMessageId(0, 0));
+        when(redisStreamConsumer.autoClaim(any(), any(), any(), any(), any(), anyInt())).thenReturn(page);
+        // 1-0 已投递4次（超过上限3），2-0 投递2次
+        when(redisStreamConsumer.deliveryCounts(eq(HotelEventConsumerPool.STREAM), eq(HotelEventConsumerPool.GROUP),
+                eq("indexer-test-claim"), anyCollection()))
+                .thenReturn(Map.of(new StreamMessageId(1, 0), 4L, new StreamMessageId(2, 0), 2L));
+
+        pool.claimIdle("indexer-test-claim");
+
+        ArgumentCaptor<Map<String, String>> dlq = ArgumentCaptor.forClass(Map.class);
+        verify(redisStreamPublisher, times(1)).xadd(eq(HotelEventConsumerPool.DLQ), dlq.capture());
+        assertEquals("20000001", dlq.getValue().get("hotelId"));
+        assertEquals("MAX_DELIVERIES", dlq.getValue().get("errorCode"));
+
+        ArgumentCaptor<List<HotelEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(indexBackfillService).processEventsBatch(events.capture());
+        assertEquals(List.of(20_000_002L), events.getValue().stream().map(HotelEvent::getHotelId).toList());
+
+        ArgumentCaptor<Collection<StreamMessageId>> acked = ArgumentCaptor.forClass(Collection.class);
+        verify(redisStreamConsumer, times(2)).ackBatch(eq(HotelEventConsumerPool.STREAM), eq(HotelEventConsumerPool.GROUP), acked.capture());
+        assertEquals(List.of(new StreamMessageId(1, 0)), List.copyOf(acked.getAllValues().get(0)));
+        assertEquals(List.of(new StreamMessageId(2, 0)), List.copyOf(acked.getAllValues().get(1)));
+        assertEquals(1L, pool.getDeadLettered());
+    }
+
+    private Map<StreamMessageId, Map<String, String>> messages(int from, int count) {
+        Map<StreamMessageId, Map<String, String>> batch = new LinkedHashMap<>();
+        for (int i = from; i < from + count; i++) {
+            batch.put(new StreamMessageId(i, 0), Map.of(
+                    "eventType", "UPSERT",
+                    "hotelId", String.valueOf(20_000_000L + i),
+                    "providerSource", "Elong"));
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,65 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import com.heytrip.hotel.search.common.util.GzipCompressor;
+import com.heytrip.hotel.search.common.util.PayloadCompressor;
+import com.heytrip.hotel.search.domain.entity.CompressionCodec;
+import com.heytrip.hotel.search.domain.entity.Hotels;
+import com.heytrip.hotel.search.infra.config.CompressionConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 酒店原文存取测试（Base64 文本列 / 二进制列、旧数据兼容）
+ */
+class HotelRawCodecTest {
+
+    private static final String RAW = "{\"HotelId\":20000001,\"HotelName\":\"测试酒店\"}";
+
+    @Test
+    void testTextStorageWritesBase64() {
+        HotelRawCodec codec = codec(CompressionCodec.zstd, false);
+        Hotels row = new Hotels();
+        codec.write(row, RAW);
+
+        assertNull(row.getRawBinary());
+        byte[] stored = Base64.getDecoder().decode(row.getRawCompressed());
+        assertEquals(CompressionCodec.zstd, PayloadCompressor.sniff(stored));
+        assertEquals(RAW, codec.read(row));
+    }
+
+    @Test
+    void testBinaryStorageSkipsBase64() {
+        HotelRawCodec codec = codec(CompressionCodec.lz4, true);
+        Hotels row = new Hotels();
+        codec.write(row, RAW);
+
+        assertEquals("", row.getRawCompressed());
+        assertEquals(CompressionCodec.lz4, PayloadCompressor.sniff(row.getRawBinary()));
+        assertEquals(RAW, codec.read(row));
+    }
+
+    @Test
+    void testReadsLegacyRows() {
+        HotelRawCodec codec = codec(CompressionCodec.zstd, true);
+
+        Hotels gzipBase64 = new Hotels();
+        gzipBase64.setRawCompressed(Base64.getEncoder().encodeToString(GzipCompressor.compressString(RAW)));
+        assertEquals(RAW, codec.read(gzipBase64));
+
+        Hotels plain = new Hotels();
+        plain.setRawCompressed(RAW);
+        assertEquals(RAW, codec.read(plain));
+
+        assertEquals("", codec.read(new Hotels()));
+    }
+
+    private static HotelRawCodec codec(CompressionCodec algorithm, boolean binary) {
+        CompressionConfig config = new CompressionConfig();
+        config.setCodec(algorithm);
+        config.setHotelRawBinary(binary);
+        return new HotelRawCodec(new PayloadCompressor(algorithm), config);
+    }
+}
@@ -0,0 +1,230 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import com.heytrip.hotel.search.common.parser.HotelParser;
+import com.heytrip.hotel.search.common.parser.HotelParserSelector;
+import com.heytrip.hotel.search.common.util.HotelStructuredExtractor;
+import com.heytrip.hotel.search.domain.entity.Hotels;
+import com.heytrip.hotel.search.domain.repository.HotelsRepository;
+import com.heytrip.hotel.search.infra.search.EsHotelIndexAdmin;
+import com.heytrip.hotel.search.infra.search.EsHotelIndexService;
+import com.heytrip.hotel.search.infra.search.HotelIndexDualWrite;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 酒店索引全量重建测试（装载与失败项重试、别名切换、失败与取消时删除影子索引）
+ */
+class HotelReindexServiceTest {
+
+    private static final String OLD_INDEX = "hotels_20260101_000000";
+    private static final String SHADOW = "hotels_20261016_120000";
+
+    private HotelsRepository hotelsRepository;
+    private EsHotelIndexService esHotelIndexService;
+    private EsHotelIndexAdmin esHotelIndexAdmin;
+    private HotelIndexDualWrite hotelIndexDualWrite;
+    private RBucket<String> runBucket;
+    private RBucket<String> cancelBucket;
+    private HotelReindexService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        hotelsRepository = mock(HotelsRepository.class);
+        esHotelIndexService = mock(EsHotelIndexService.class);
+        esHotelIndexAdmin = mock(EsHotelIndexAdmin.class);
+        hotelIndexDualWrite = mock(HotelIndexDualWrite.class);
+        HotelRawCodec hotelRawCodec = mock(HotelRawCodec.class);
+        when(hotelRawCodec.read(any())).thenReturn("{}");
+
+        HotelStructuredExtractor.Result parsed = new HotelStructuredExtractor.Result();
+        parsed.setNameCn("测试酒店");
+        HotelParser parser = mock(HotelParser.class);
+        when(parser.parse(anyString())).thenReturn(parsed);
+        HotelParserSelector parserSelector = mock(HotelParserSelector.class);
+        when(parserSelector.select(anyString(), anyString())).thenReturn(parser);
+
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        runBucket = mock(RBucket.class);
+        cancelBucket = mock(RBucket.class);
+        doReturn(mock(RBucket.class)).when(redissonClient).getBucket(HotelReindexService.STATUS_KEY);
+        doReturn(runBucket).when(redissonClient).getBucket(HotelReindexService.RUN_KEY);
+        doReturn(cancelBucket).when(redissonClient).getBucket(HotelReindexService.CANCEL_KEY);
+
+        when(esHotelIndexAdmin.servingIndices()).thenReturn(List.of(OLD_INDEX));
+        when(esHotelIndexAdmin.servingSettings(OLD_INDEX)).thenReturn(new EsHotelIndexAdmin.ServingSettings("2", "10s"));
+        when(esHotelIndexAdmin.createShadowIndex()).thenReturn(SHADOW);
+        when(esHotelIndexAdmin.forceMerge(anyString(), anyInt(), anyLong())).thenReturn(true);
+        when(esHotelIndexAdmin.waitForGreen(anyString(), anyLong())).thenReturn(true);
+
+        // 租约与双写标记在整个任务期间有效
+        when(runBucket.get()).thenReturn("reindex-test");
+        when(runBucket.expire(any(Duration.class))).thenReturn(true);
+        when(hotelIndexDualWrite.renew(eq(SHADOW), any(Duration.class))).thenReturn(true);
+        when(hotelIndexDualWrite.isActive(SHADOW)).thenReturn(true);
+
+        // 第 3 行为 Agoda 且英文名为空：与 hotel:events 消费一致，跳过不建索引
+        when(hotelsRepository.count()).thenReturn(3L);
+        when(hotelsRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Limit.class)))
+                .thenReturn(List.of(row(1, "Elong"), row(2, "Elong"), row(3, "Agoda")));
+        when(hotelsRepository.findByIdGreaterThanOrderByIdAsc(eq(3L), any(Limit.class))).thenReturn(List.of());
+
+        service = new HotelReindexService(hotelsRepository, hotelRawCodec, parserSelector,
+                esHotelIndexService, esHotelIndexAdmin, hotelIndexDualWrite, redissonClient);
+        ReflectionTestUtils.setField(service, "pageSize", 3);
+        ReflectionTestUtils.setField(service, "maxFailures", 0L);
+        ReflectionTestUtils.setField(service, "bulkRetries", 3);
+        ReflectionTestUtils.setField(service, "forceMergeSegments", 1);
+        ReflectionTestUtils.setField(service, "deleteOldIndex", true);
+        ReflectionTestUtils.setField(service, "retireDelayMs", 0L);
+        ReflectionTestUtils.setField(service, "requireGreen", true);
+        ReflectionTestUtils.setField(service, "dualWriteWaitMs", 0L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLoadsShadowIndexAndSwapsAliases() throws Exception {
+        when(esHotelIndexService.bulkIndex(eq(SHADOW), anyList(), any(), any(), any()))
+                .thenReturn(new EsHotelIndexService.BulkResult(List.of(20_000_001L), Map.of(20_000_002L, "es_rejected_execution_exception")))
+                .thenReturn(new EsHotelIndexService.BulkResult(List.of(20_000_002L), Map.of()));
+
+        HotelReindexService.ReindexStatus status = newStatus();
+        service.run(status);
+
+        assertEquals(HotelReindexService.Phase.COMPLETED, status.getPhase(), status.getMessage());
+        assertEquals(SHADOW, status.getShadowIndex());
+        assertEquals(3L, status.getScannedRows());
+        assertEquals(2L, status.getIndexedDocs());
+        assertEquals(1L, status.getSkippedDocs());
+        assertEquals(0L, status.getFailedDocs());
+        assertEquals(100.0, status.getPercent());
+
+        // 仅重试失败项
+        ArgumentCaptor<List<Hotels>> batches = ArgumentCaptor.forClass(List.class);
+        verify(esHotelIndexService, times(2)).bulkIndex(eq(SHADOW), batches.capture(), any(), any(), any());
+        assertEquals(2, batches.getAllValues().get(0).size());
+        assertEquals(List.of(20_000_002L), batches.getAllValues().get(1).stream().map(Hotels::getHotelId).toList());
+
+        var inOrder = inOrder(hotelIndexDualWrite, esHotelIndexAdmin);
+        inOrder.verify(hotelIndexDualWrite, atLeastOnce()).start(eq(SHADOW), any(Duration.class));
+        inOrder.verify(esHotelIndexAdmin).refresh(SHADOW);
+        inOrder.verify(esHotelIndexAdmin).forceMerge(eq(SHADOW), eq(1), anyLong());
+        inOrder.verify(esHotelIndexAdmin).putSettings(SHADOW, "2", "10s");
+        inOrder.verify(esHotelIndexAdmin).swapAliases(List.of(OLD_INDEX), SHADOW);
+        inOrder.verify(esHotelIndexAdmin).deleteIndex(OLD_INDEX);
+        verify(hotelIndexDualWrite, atLeastOnce()).stop();
+        verify(esHotelIndexAdmin, never()).deleteIndex(SHADOW);
+        verify(runBucket).delete();
+    }
+
+    @Test
+    void testTooManyFailuresKeepsAliases() throws Exception {
+        ReflectionTestUtils.setField(service, "bulkRetries", 1);
+        when(esHotelIndexService.bulkIndex(eq(SHADOW), anyList(), any(), any(), any()))
+                .thenReturn(new EsHotelIndexService.BulkResult(List.of(20_000_001L), Map.of(20_000_002L, "mapper_parsing_exception")));
+
+        HotelReindexService.ReindexStatus status = newStatus();
+        service.run(status);
+
+        assertEquals(HotelReindexService.Phase.FAILED, status.getPhase());
+        assertEquals(1L, status.getFailedDocs());
+        verify(esHotelIndexAdmin, never()).swapAliases(any(), any());
+        verify(esHotelIndexAdmin).deleteIndex(SHADOW);
+        verify(esHotelIndexAdmin, never()).deleteIndex(OLD_INDEX);
+        verify(hotelIndexDualWrite, atLeastOnce()).stop();
+    }
+
+    @Test
+    void testCancelDropsShadowIndex() throws Exception {
+        when(cancelBucket.isExists()).thenReturn(true);
+
+        HotelReindexService.ReindexStatus status = newStatus();
+        service.run(status);
+
+        assertEquals(HotelReindexService.Phase.CANCELLED, status.getPhase());
+        verify(esHotelIndexService, never()).bulkIndex(any(), any(), any(), any(), any());
+        verify(esHotelIndexAdmin, never()).swapAliases(any(), any());
+        verify(esHotelIndexAdmin).deleteIndex(SHADOW);
+        verify(cancelBucket).delete();
+    }
+
+    @Test
+    void testLostDualWriteMarkerAbortsBeforeSwap() throws Exception {
+        when(esHotelIndexService.bulkIndex(eq(SHADOW), anyList(), any(), any(), any()))
+                .thenReturn(new EsHotelIndexService.BulkResult(List.of(20_000_001L, 20_000_002L), Map.of()));
+        // 段合并耗时超过标记有效期：标记已过期，续期不会重建
+        when(hotelIndexDualWrite.renew(eq(SHADOW), any(Duration.class))).thenReturn(false);
+        when(hotelIndexDualWrite.isActive(SHADOW)).thenReturn(false);
+
+        HotelReindexService.ReindexStatus status = newStatus();
+        service.run(status);
+
+        assertEquals(HotelReindexService.Phase.FAILED, status.getPhase());
+        verify(esHotelIndexAdmin, never()).swapAliases(any(), any());
+        verify(esHotelIndexAdmin).deleteIndex(SHADOW);
+        verify(hotelIndexDualWrite, times(1)).start(eq(SHADOW), any(Duration.class));
+    }
+
+    @Test
+    void testNotGreenAbortsUnlessAllowed() throws Exception {
+        when(esHotelIndexService.bulkIndex(eq(SHADOW), anyList(), any(), any(), any()))
+                .thenReturn(new EsHotelIndexService.BulkResult(List.of(20_000_001L, 20_000_002L), Map.of()));
+        when(esHotelIndexAdmin.waitForGreen(anyString(), anyLong())).thenReturn(false);
+
+        HotelReindexService.ReindexStatus status = newStatus();
+        service.run(status);
+        assertEquals(HotelReindexService.Phase.FAILED, status.getPhase());
+        verify(esHotelIndexAdmin, never()).swapAliases(any(), any());
+
+        ReflectionTestUtils.setField(service, "requireGreen", false);
+        status = newStatus();
+        service.run(status);
+        assertEquals(HotelReindexService.Phase.COMPLETED, status.getPhase());
+        assertEquals(1, status.getWarnings().size());
+        verify(esHotelIndexAdmin).swapAliases(List.of(OLD_INDEX), SHADOW);
+    }
+
+    @Test
+    void testStartRejectedWhileRunning() {
+        when(runBucket.setIfAbsent(anyString(), any(Duration.class))).thenReturn(false);
+
+        assertThrows(IllegalStateException.class, () -> service.start());
+        verifyNoInteractions(esHotelIndexAdmin);
+    }
+
+    private static HotelReindexService.ReindexStatus newStatus() {
+        return HotelReindexService.ReindexStatus.builder()
+                .phase(HotelReindexService.Phase.CREATING)
+                .traceId("reindex-test")
+                .totalRows(0L)
+                .scannedRows(0L)
+                .indexedDocs(0L)
+                .skippedDocs(0L)
+                .failedDocs(0L)
+                .lastId(0L)
+                .build();
+    }
+
+    private static Hotels row(long id, String source) {
+        Hotels hotels = new Hotels();
+        hotels.setId(id);
+        hotels.setHotelId(20_000_000L + id);
+        hotels.setSource(source);
+        hotels.setTagSource("CN");
+        hotels.setRawCompressed("");
+        return hotels;
+    }
+}
@@ -0,0 +1,189 @@
+package com.heytrip.hotel.search.ingest.service;
+
+import com.heytrip.hotel.search.common.util.PayloadCompressor;
+import com.heytrip.hotel.search.domain.entity.CompressionCodec;
+import com.heytrip.hotel.search.domain.entity.Hotels;
+import com.heytrip.hotel.search.domain.entity.SyncLog;
+import com.heytrip.hotel.search.domain.entity.SyncLogDetail;
+import com.heytrip.hotel.search.domain.repository.SyncLogDetailRepository;
+import com.heytrip.hotel.search.domain.repository.SyncLogRepository;
+import com.heytrip.hotel.search.infra.config.CompressionConfig;
+import com.heytrip.hotel.search.ingest.service.HotelsBulkUpserter.ExistingRow;
+import com.heytrip.hotel.search.ingest.service.HotelsBulkUpserter.UpsertOutcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 酒店批量 UPSERT 入库测试（二分定位失败行、逐行结果统计、内容指纹一致时跳过写库、事件未发布时清除指纹）
+ */
+class HotelsSinkServiceTest {
+
+    private HotelsBulkUpserter upserter;
+    private SyncLogRepository syncLogRepository;
+    private AsyncLogService asyncLogService;
+    private PlatformTransactionManager transactionManager;
+    private HotelsSinkService sinkService;
+
+    private final List<Integer> upsertSizes = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        upserter = mock(HotelsBulkUpserter.class);
+        syncLogRepository = mock(SyncLogRepository.class);
+        asyncLogService = mock(AsyncLogService.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        // 已存在 hotelId=1、2（库中指纹 h1、h2）；hotelId=2 内容有变化，其余已存在行无变化
+        when(upserter.findExisting(anyList())).thenReturn(Map.of(
+                HotelsBulkUpserter.key("Elong", 20_000_001L), new ExistingRow(101L, "h1"),
+                HotelsBulkUpserter.key("Elong", 20_000_002L), new ExistingRow(102L, "h2")));
+        when(upserter.outcomeOf(eq(false), anyInt())).thenReturn(UpsertOutcome.INSERTED);
+        when(upserter.outcomeOf(eq(true), eq(2))).thenReturn(UpsertOutcome.UPDATED);
+        when(upserter.outcomeOf(eq(true), eq(1))).thenReturn(UpsertOutcome.UNCHANGED);
+
+        HotelRawCodec rawCodec = new HotelRawCodec(new PayloadCompressor(CompressionCodec.gzip), new CompressionConfig());
+        sinkService = new HotelsSinkService(upserter, transactionManager, syncLogRepository,
+                mock(SyncLogDetailRepository.class), asyncLogService, rawCodec);
+    }
+
+    @Test
+    void testAllRowsUpsertedInOneStatementBatch() {
+        stubUpsert(-1);
+        List<Hotels> rows = rows(8);
+
+        HotelsSinkService.SinkResult result = sinkService.saveInBatches(rows, 1000, null);
+
+        assertEquals(List.of(8), upsertSizes);
+        assertEquals(6, result.inserted());
+        assertEquals(1, result.updated());
+        assertEquals(1, result.unchanged());
+        assertEquals(0, result.failed());
+        // 已存在行回填主键
+        assertEquals(101L, rows.get(0).getId());
+        assertEquals(102L, rows.get(1).getId());
+    }
+
+    @Test
+    void testFailingRowIsolatedByBisection() {
+        long badHotelId = 20_000_006L;
+        stubUpsert(badHotelId);
+        SyncLog syncLog = new SyncLog();
+        when(syncLogRepository.findById(9L)).thenReturn(Optional.of(syncLog));
+
+        HotelsSinkService.SinkResult result = sinkService.saveInBatches(rows(8), 1000, 9L);
+
+        assertEquals(7, result.succeeded());
+        assertEquals(1, result.failed());
+        // 8 -> [4 ok, 4 失败] -> [2 失败 -> 1 ok, 1 失败], [2 ok]：仅失败所在的一半继续拆分，不会逐行重试整批
+        assertEquals(List.of(8, 4, 4, 2, 1, 1, 2), upsertSizes);
+
+        assertEquals(7L, syncLog.getSuccessCount());
+        assertEquals(1L, syncLog.getFailCount());
+        assertEquals(5L, syncLog.getInsertCount());
+        assertEquals(1L, syncLog.getUpdateCount());
+        assertEquals(1L, syncLog.getUnchangedCount());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<SyncLogDetail>> details = ArgumentCaptor.forClass(List.class);
+        verify(asyncLogService).saveSyncLogDetailsAsync(details.capture());
+        assertEquals(1, details.getValue().size());
+        assertEquals(badHotelId, details.getValue().get(0).getHotelId());
+    }
+
+    @Test
+    void testRowWithUnchangedFingerprintSkipsWrite() {
+        stubUpsert(-1);
+        SyncLog syncLog = new SyncLog();
+        when(syncLogRepository.findById(9L)).thenReturn(Optional.of(syncLog));
+        List<Hotels> rows = rows(4);
+        for (Hotels h : rows) {
+            h.setRawContent("{\"hotelId\":" + h.getHotelId() + "}");
+        }
+        rows.get(0).setContentHash("h1");        // 与库中一致：跳过
+        rows.get(1).setContentHash("h2-new");    // 指纹变化：照常 UPSERT
+
+        HotelsSinkService.SinkResult result = sinkService.saveInBatches(rows, 1000, 9L);
+
+        assertEquals(List.of(3), upsertSizes);
+        assertEquals(1, result.skipped());
+        assertEquals(2, result.inserted());
+        assertEquals(1, result.updated());
+        assertEquals(4, result.succeeded());
+
+        Hotels skipped = rows.get(0);
+        assertTrue(skipped.isContentUnchanged());
+        assertEquals(101L, skipped.getId());
+        assertNull(skipped.getRawCompressed());
+        assertNull(skipped.getRawContent());
+        // 写库行在入库时才压缩原文
+        Hotels written = rows.get(1);
+        assertFalse(written.isContentUnchanged());
+        assertNotNull(written.getRawCompressed());
+        assertNull(written.getRawContent());
+
+        assertEquals(1L, syncLog.getSkippedCount());
+        assertEquals(4L, syncLog.getSuccessCount());
+    }
+
+    @Test
+    void testClearContentHashForUnpublishedRows() {
+        List<Hotels> unpublished = rows(2);
+
+        sinkService.clearContentHash(unpublished);
+        verify(upserter).clearContentHash(unpublished);
+
+        // 清除失败只记录日志，不中断采集
+        when(upserter.clearContentHash(anyList())).thenThrow(new DataIntegrityViolationException("connection reset"));
+        assertDoesNotThrow(() -> sinkService.clearContentHash(unpublished));
+
+        sinkService.clearContentHash(List.of());
+        verify(upserter, times(2)).clearContentHash(anyList());
+    }
+
+    /**
+     * 桩 UPSERT：包含 badHotelId 的子批整体失败（模拟事务回滚），其余逐行返回 MySQL 风格影响行数
+     */
+    private void stubUpsert(long badHotelId) {
+        when(upserter.upsert(anyList())).thenAnswer(inv -> {
+            List<Hotels> sub = inv.getArgument(0);
+            upsertSizes.add(sub.size());
+            if (sub.stream().anyMatch(h -> h.getHotelId() == badHotelId)) {
+                throw new DataIntegrityViolationException("Data too long for column 'tel'");
+            }
+            int[] affected = new int[sub.size()];
+            for (int i = 0; i < sub.size(); i++) {
+                long id = sub.get(i).getHotelId();
+                affected[i] = id == 20_000_002L ? 2 : 1;
+            }
+            return affected;
+        });
+    }
+
+    private List<Hotels> rows(int count) {
+        List<Hotels> rows = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            Hotels h = new Hotels();
+            h.setSource("Elong");
+            h.setTagSource("CN");
+            h.setHotelId(20_000_000L + i);
+            h.setHotelNameCn("测试酒店" + i);
+            rows.add(h);
+        }
+        return rows;
+    }
+}
@@ -96,6 +96,8 @@ CREATE TABLE `hotels` (
   `description_cn` TEXT COMMENT '酒店描述（中文）',
   `description_en` TEXT COMMENT '酒店描述（英文）',
   `raw_compressed` LONGTEXT COMMENT '酒店原文（GZIP 压缩）',
+  `raw_binary` LONGBLOB DEFAULT NULL COMMENT '酒店原文压缩后的二进制（算法按数据头部识别：gzip/zstd/lz4），非空时优先于 raw_compressed',
+  `content_hash` VARCHAR(32) DEFAULT NULL COMMENT '内容指纹（MD5：规范化原文+业务列），一致时入库跳过',
   `updated_at` TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6) COMMENT '更新时间',
   PRIMARY KEY (`id`),
   UNIQUE KEY `uk_hotels_source_hotel` (`source`, `hotel_id`),
@@ -190,6 +192,10 @@ CREATE TABLE `sync_log` (
   `total_details` BIGINT DEFAULT 0 COMMENT '成功解析并落地的酒店详情记录数',
   `success_count` BIGINT DEFAULT 0 COMMENT '成功计数',
   `fail_count` BIGINT DEFAULT 0 COMMENT '失败计数',
+  `insert_count` BIGINT DEFAULT 0 COMMENT '入库新增计数',
+  `update_count` BIGINT DEFAULT 0 COMMENT '入库更新计数（内容有变化）',
+  `unchanged_count` BIGINT DEFAULT 0 COMMENT '入库无变化计数（未改写）',
+  `skipped_count` BIGINT DEFAULT 0 COMMENT '内容指纹未变化跳过计数（未写库、未发索引事件）',
   `status` VARCHAR(20) DEFAULT 'RUNNING' COMMENT '运行状态（RUNNING/SUCCESS/FAILED/PARTIAL）',
   `message` TEXT COMMENT '附加信息/备注',
   PRIMARY KEY (`id`),
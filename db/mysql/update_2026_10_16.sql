@@ -0,0 +1,6 @@
+-- 2026-10-16 酒店入库改为原生批量 UPSERT，sync_log 新增 新增/更新/无变化 计数
+ALTER TABLE `sync_log`
+    ADD COLUMN `insert_count` BIGINT DEFAULT 0 COMMENT '入库新增计数',
+    ADD COLUMN `update_count` BIGINT DEFAULT 0 COMMENT '入库更新计数（内容有变化）',
+    ADD COLUMN `unchanged_count` BIGINT DEFAULT 0 COMMENT '入库无变化计数（未改写）',
+    ALGORITHM=INSTANT;
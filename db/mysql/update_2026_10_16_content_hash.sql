@@ -0,0 +1,8 @@
+-- 2026-10-16 酒店内容指纹：内容未变化时入库跳过写库、索引事件与重建索引
+-- 上线后首次采集时各行指纹由空变为有值，会整体更新并重建索引一次，之后无变化的酒店不再写入
+ALTER TABLE `hotels`
+    ADD COLUMN `content_hash` VARCHAR(32) DEFAULT NULL COMMENT '内容指纹（MD5：规范化原文+业务列），一致时入库跳过',
+    ALGORITHM=INSTANT;
+ALTER TABLE `sync_log`
+    ADD COLUMN `skipped_count` BIGINT DEFAULT 0 COMMENT '内容指纹未变化跳过计数（未写库、未发索引事件）',
+    ALGORITHM=INSTANT;
@@ -107,6 +107,8 @@ CREATE TABLE "public"."hotels" (
   "description_cn" text COLLATE "pg_catalog"."default",
   "description_en" text COLLATE "pg_catalog"."default",
   "raw_compressed" text COLLATE "pg_catalog"."default" DEFAULT ''::text,
+  "raw_binary" bytea,
+  "content_hash" varchar(32) COLLATE "pg_catalog"."default",
   "updated_at" timestamptz(6) DEFAULT CURRENT_TIMESTAMP
 )
 ;
@@ -140,6 +142,8 @@ COMMENT ON COLUMN "public"."hotels"."fetched_at" IS '数据抓取时间（入库
 COMMENT ON COLUMN "public"."hotels"."description_cn" IS '酒店描述（中文）';
 COMMENT ON COLUMN "public"."hotels"."description_en" IS '酒店描述（英文）';
 COMMENT ON COLUMN "public"."hotels"."raw_compressed" IS '酒店原文（GIZP 压缩）';
+COMMENT ON COLUMN "public"."hotels"."raw_binary" IS '酒店原文压缩后的二进制（算法按数据头部识别：gzip/zstd/lz4），非空时优先于 raw_compressed';
+COMMENT ON COLUMN "public"."hotels"."content_hash" IS '内容指纹（MD5：规范化原文+业务列），一致时入库跳过';
 COMMENT ON COLUMN "public"."hotels"."updated_at" IS '更新时间';
 COMMENT ON TABLE "public"."hotels" IS '酒店详情 Staging 表：存放采集到的酒店原文与基础解析字段';
 
@@ -234,6 +238,10 @@ CACHE 1
   "total_details" int8 DEFAULT 0,
   "success_count" int8 DEFAULT 0,
   "fail_count" int8 DEFAULT 0,
+  "insert_count" int8 DEFAULT 0,
+  "update_count" int8 DEFAULT 0,
+  "unchanged_count" int8 DEFAULT 0,
+  "skipped_count" int8 DEFAULT 0,
   "status" varchar(20) COLLATE "pg_catalog"."default" DEFAULT 'RUNNING'::character varying,
   "message" text COLLATE "pg_catalog"."default"
 )
@@ -249,6 +257,10 @@ COMMENT ON COLUMN "public"."sync_log"."total_ids" IS '本次运行期间拉取
 COMMENT ON COLUMN "public"."sync_log"."total_details" IS '成功解析并落地的酒店详情记录数';
 COMMENT ON COLUMN "public"."sync_log"."success_count" IS '成功计数';
 COMMENT ON COLUMN "public"."sync_log"."fail_count" IS '失败计数';
+COMMENT ON COLUMN "public"."sync_log"."insert_count" IS '入库新增计数';
+COMMENT ON COLUMN "public"."sync_log"."update_count" IS '入库更新计数（内容有变化）';
+COMMENT ON COLUMN "public"."sync_log"."unchanged_count" IS '入库无变化计数（未改写）';
+COMMENT ON COLUMN "public"."sync_log"."skipped_count" IS '内容指纹未变化跳过计数（未写库、未发索引事件）';
 COMMENT ON COLUMN "public"."sync_log"."status" IS '运行状态（RUNNING/SUCCESS/FAILED/PARTIAL）';
 COMMENT ON COLUMN "public"."sync_log"."message" IS '附加信息/备注';
 COMMENT ON TABLE "public"."sync_log" IS '同步日志汇总（全局计数器）';
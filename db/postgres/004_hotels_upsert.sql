@@ -0,0 +1,21 @@
+-- 酒店入库改为原生批量 UPSERT（ON CONFLICT (source, hotel_id)）
+-- 1) sync_log 新增 新增/更新/无变化 计数
+ALTER TABLE "public"."sync_log"
+  ADD COLUMN IF NOT EXISTS "insert_count" int8 DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS "update_count" int8 DEFAULT 0,
+  ADD COLUMN IF NOT EXISTS "unchanged_count" int8 DEFAULT 0;
+COMMENT ON COLUMN "public"."sync_log"."insert_count" IS '入库新增计数';
+COMMENT ON COLUMN "public"."sync_log"."update_count" IS '入库更新计数（内容有变化）';
+COMMENT ON COLUMN "public"."sync_log"."unchanged_count" IS '入库无变化计数（未改写）';
+
+-- 2) 补齐 hotels 人工修正字段（与 MySQL update_2025_12_25.sql 保持一致）
+ALTER TABLE "public"."hotels"
+  ADD COLUMN IF NOT EXISTS "accommodation_type" varchar(50),
+  ADD COLUMN IF NOT EXISTS "search_enable" varchar(10) DEFAULT '1',
+  ADD COLUMN IF NOT EXISTS "tel" varchar(20),
+  ADD COLUMN IF NOT EXISTS "score" varchar(20);
+COMMENT ON COLUMN "public"."hotels"."accommodation_type" IS '酒店类型 （标准酒店库 人工修正字段）';
+COMMENT ON COLUMN "public"."hotels"."search_enable" IS '是否可搜索  1=可搜索  0=不可搜索 （标准酒店库 人工修正字段）';
+COMMENT ON COLUMN "public"."hotels"."tel" IS '电话 （标准酒店库 人工修正字段）';
+COMMENT ON COLUMN "public"."hotels"."score" IS '分数 （标准酒店库 人工修正字段）';
+
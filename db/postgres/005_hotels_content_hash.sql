@@ -0,0 +1,9 @@
+-- 酒店内容指纹：内容未变化时入库跳过写库、索引事件与重建索引
+-- 上线后首次采集时各行指纹由空变为有值，会整体更新并重建索引一次，之后无变化的酒店不再写入
+ALTER TABLE "public"."hotels"
+  ADD COLUMN IF NOT EXISTS "content_hash" varchar(32);
+COMMENT ON COLUMN "public"."hotels"."content_hash" IS '内容指纹（MD5：规范化原文+业务列），一致时入库跳过';
+
+ALTER TABLE "public"."sync_log"
+  ADD COLUMN IF NOT EXISTS "skipped_count" int8 DEFAULT 0;
+COMMENT ON COLUMN "public"."sync_log"."skipped_count" IS '内容指纹未变化跳过计数（未写库、未发索引事件）';
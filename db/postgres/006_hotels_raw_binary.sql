@@ -0,0 +1,5 @@
+-- 酒店原文二进制存储：开启 heytrip.compression.hotel-raw-binary 后原文写入 raw_binary（不做 Base64），raw_compressed 为空串
+-- 旧数据无需迁移：读取时 raw_binary 为空则回退读取 raw_compressed，压缩算法按数据头部识别
+ALTER TABLE "public"."hotels"
+  ADD COLUMN IF NOT EXISTS "raw_binary" bytea;
+COMMENT ON COLUMN "public"."hotels"."raw_binary" IS '酒店原文压缩后的二进制（算法按数据头部识别：gzip/zstd/lz4），非空时优先于 raw_compressed';
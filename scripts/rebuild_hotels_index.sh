@@ -12,6 +12,9 @@ set -eo pipefail
 #
 # 依赖：curl, jq (可选)
 #
+# 提示：应用内提供 POST /job/reindex/start（从 hotels 表全量装载、装载期间 hotel:events 双写、
+#       段合并后原子切换别名，进度见 GET /job/reindex/status）；本脚本保留用于从旧索引回灌
+#
 # 用法示例：
 #   # 交互式选择ES服务器
 #   ./rebuild_hotels_index.sh